@@ -0,0 +1,125 @@
+package com.categorize.benchmark;
+
+import com.categorize.dto.ScoringOptions;
+import com.categorize.model.Category;
+import com.categorize.service.matcher.TextNormalizer;
+import com.categorize.service.strategy.*;
+import com.categorize.testdata.SyntheticData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures matching a page against a prepared set of categories, per strategy and dictionary shape.
+ * <p>
+ * Every invocation feeds {@value #PAGES} pages to fresh matchers on the benchmark thread, the way the fetch path
+ * does, so the score is the time per page without any executor hand-off. Keywords of the requested categories are
+ * planted in the pages at the given density; with a density of 0 nothing matches and every page is read to the end,
+ * while at higher densities the non-scoring matchers may stop early once every requested category has matched.
+ * The keyword prefilter can be switched off to measure its effect; only the naive, regex and adaptive strategies use it.
+ * Building the strategy and preparing the matchers happen once per trial and are not measured.
+ * <p>
+ * The default parameters compare every strategy on one mid-sized dictionary and page, with and without matches,
+ * which runs in minutes; the other shapes are selected with {@code -p} on the command line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CategorizationBenchmark {
+    static final int PAGES = 16;
+
+    @Param({"NAIVE", "REGEX", "AHO_CORASICK", "WHOLE_WORD", "AUTO"})
+    private CategorizationStrategyType strategy;
+
+    @Param({"200"})
+    private int categoryCount;
+
+    @Param({"100"})
+    private int keywordsPerCategory;
+
+    @Param({"3000"})
+    private int pageWords;
+
+    @Param({"0", "0.01"})
+    private double matchDensity;
+
+    @Param({"10"})
+    private int requestedPercent;
+
+    @Param({"true"})
+    private boolean prefilter;
+
+    private List<String>              pages;
+    private Supplier<CategoryMatcher> matchers;
+    private Supplier<CategoryMatcher> scorers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticData  data       = new SyntheticData(42);
+        List<Category> categories = data.categories(categoryCount, keywordsPerCategory);
+        List<Category> requested  = categories.subList(0, Math.max(1, categoryCount * requestedPercent / 100));
+
+        pages = new ArrayList<>(PAGES);
+        for (int i = 0; i < PAGES; i++) {
+            pages.add(data.page(pageWords, matchDensity, requested));
+        }
+        CategorizationStrategy categorizationStrategy = newStrategy(strategy, categories, prefilter);
+        matchers = categorizationStrategy.prepare(requested);
+        scorers  = categorizationStrategy.prepare(requested, new ScoringOptions());
+    }
+
+    /**
+     * Creates a strategy of the given type over the given categories, as the application would.
+     */
+    private static CategorizationStrategy newStrategy(CategorizationStrategyType type, List<Category> categories, boolean prefilter) {
+        switch (type) {
+            case NAIVE:
+                return new NaiveCategorizationStrategy(ForkJoinPool.commonPool(), TextNormalizer.DEFAULT, prefilter);
+            case REGEX:
+                return new RegexCategorizationStrategy(categories, ForkJoinPool.commonPool(), TextNormalizer.DEFAULT, prefilter);
+            case AHO_CORASICK:
+                return new AhoCorasickCategorizationStrategy(categories);
+            case WHOLE_WORD:
+                return new WholeWordCategorizationStrategy(categories);
+            case AUTO:
+                return new AdaptiveCategorizationStrategy(categories, ForkJoinPool.commonPool(), TextNormalizer.DEFAULT, prefilter,
+                                                          new StrategyCalibrator());
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + type);
+        }
+    }
+
+    /**
+     * Matches every page, reporting which requested categories occur on it.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAGES)
+    public void match(Blackhole blackhole) {
+        for (String page : pages) {
+            CategoryMatcher matcher = matchers.get();
+            matcher.feed(page);
+            blackhole.consume(matcher.getMatchedCategories());
+        }
+    }
+
+    /**
+     * Scores every page, counting all keyword hits of the requested categories.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAGES)
+    public void score(Blackhole blackhole) {
+        for (String page : pages) {
+            CategoryMatcher matcher = scorers.get();
+            matcher.feed(page);
+            blackhole.consume(matcher.getScores());
+        }
+    }
+}
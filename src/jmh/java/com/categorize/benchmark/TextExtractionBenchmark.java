@@ -0,0 +1,141 @@
+package com.categorize.benchmark;
+
+import com.categorize.concurrent.WorkScheduler;
+import com.categorize.metrics.CategorizationMetrics;
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+import com.categorize.service.UrlCanonicalizer;
+import com.categorize.service.WebPageService;
+import com.categorize.service.cache.WebPageCache;
+import com.categorize.service.fetch.PageResponse;
+import com.categorize.service.strategy.AhoCorasickCategorizationStrategy;
+import com.categorize.service.strategy.CategoryMatcher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures {@link WebPageService} reducing stored HTML pages to text, with and without categorizing the text.
+ * <p>
+ * Pages are served from fixtures in memory by a stub fetcher and the page cache is disabled, so the score covers
+ * charset detection, streaming HTML parsing and text extraction plus one hand-off to the fetch pool, but no network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextExtractionBenchmark {
+
+    @Param({"news-article.html", "sports-index.html"})
+    private String fixture;
+
+    private WorkScheduler             workScheduler;
+    private WebPageService            webPageService;
+    private List<String>              urls;
+    private Supplier<CategoryMatcher> matchers;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] html = readFixture(fixture);
+        workScheduler  = new WorkScheduler(4, 100, false, 1, 100, 1000);
+        webPageService = new WebPageService(5000, 10 * 1024 * 1024, workScheduler,
+                                            new WebPageCache(false, 0, 0, 0, false),
+                                            new UrlCanonicalizer(false, new String[0]),
+                                            (url, headers) -> new FixtureResponse(html),
+                                            new CategorizationMetrics());
+        urls = Collections.singletonList("http://example.com/" + fixture);
+
+        Category starWars = new Category("Star Wars");
+        Arrays.asList("star war", "starwars", "r2d2", "may the force be with you").forEach(keyword -> starWars.addKeyword(new CategoryKeyword(keyword)));
+        Category basketball = new Category("Basketball");
+        Arrays.asList("basketball", "nba", "ncaa", "lebron james").forEach(keyword -> basketball.addKeyword(new CategoryKeyword(keyword)));
+        List<Category> categories = Arrays.asList(starWars, basketball);
+        matchers = new AhoCorasickCategorizationStrategy(categories).prepare(categories);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        workScheduler.destroy();
+    }
+
+    /**
+     * Extracts the full text of the page.
+     */
+    @Benchmark
+    public void extractText(Blackhole blackhole) {
+        blackhole.consume(webPageService.getWebPagesContent(urls).join());
+    }
+
+    /**
+     * Streams the text of the page into a matcher, as {@code /categorize} does.
+     */
+    @Benchmark
+    public void extractAndCategorize(Blackhole blackhole) {
+        blackhole.consume(webPageService.categorizeWebPages(urls, matchers).join());
+    }
+
+    private static byte[] readFixture(String name) throws IOException {
+        try (InputStream in = TextExtractionBenchmark.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing fixture " + name);
+            }
+            ByteArrayOutputStream out    = new ByteArrayOutputStream();
+            byte[]                buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * A successful HTML response with a body held in memory.
+     */
+    private static final class FixtureResponse implements PageResponse {
+        private final byte[] body;
+
+        private FixtureResponse(byte[] body) {
+            this.body = body;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return 200;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return null;
+        }
+
+        @Override
+        public String getContentType() {
+            return "text/html";
+        }
+
+        @Override
+        public String getCharset() {
+            return null;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
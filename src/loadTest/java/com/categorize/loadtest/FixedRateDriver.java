@@ -0,0 +1,198 @@
+package com.categorize.loadtest;
+
+import com.categorize.dto.CategorizeResponse;
+import com.categorize.dto.FetchStatus;
+import com.categorize.dto.UrlCategoryResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * Sends requests at a fixed rate, whatever the response times, and records their latencies.
+ * <p>
+ * The driver is open-loop: request {@code i} of a stage is due {@code i / rate} seconds after the start and is sent
+ * asynchronously, so a slow service does not slow down the arrivals as it would with a fixed number of clients.
+ * Latency is measured from the time a request was due rather than the time it was sent, so a driver falling
+ * behind counts its own delay against the service instead of hiding it (coordinated omission).
+ */
+final class FixedRateDriver {
+    private final OkHttpClient client;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param client       The client to send requests with; its dispatcher must allow enough concurrent requests
+     * @param objectMapper The mapper to read categorization responses with
+     */
+    FixedRateDriver(OkHttpClient client, ObjectMapper objectMapper) {
+        this.client       = client;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Runs one stage and waits for its requests to complete.
+     *
+     * @param rate       The number of requests per second
+     * @param durationMs The duration of the stage in milliseconds
+     * @param requests   Creates request {@code i} of the stage
+     * @return The result of the stage
+     * @throws InterruptedException if interrupted while waiting
+     */
+    StageResult run(double rate, long durationMs, LongFunction<Request> requests) throws InterruptedException {
+        long        periodNanos = Math.max(1, Math.round(1e9 / rate));
+        long        total       = Math.max(1, Math.round(rate * durationMs / 1000.0));
+        StageResult result      = new StageResult(rate);
+        AtomicLong  sent        = new AtomicLong();
+
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-driver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        ticker.scheduleAtFixedRate(() -> {
+            long i = sent.getAndIncrement();
+            if (i < total) {
+                send(requests.apply(i), start + i * periodNanos, result);
+            }
+        }, 0, periodNanos, TimeUnit.NANOSECONDS);
+
+        while (sent.get() < total) {
+            Thread.sleep(10);
+        }
+        ticker.shutdownNow();
+        result.awaitCompletion(total);
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private void send(Request request, long dueNanos, StageResult result) {
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody body = response.body()) {
+                    if (response.isSuccessful() && body != null) {
+                        result.succeeded(System.nanoTime() - dueNanos, objectMapper.readValue(body.byteStream(), CategorizeResponse.class));
+                    } else {
+                        result.failed();
+                    }
+                } catch (IOException e) {
+                    result.failed();
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                result.failed();
+            }
+        });
+    }
+
+    /**
+     * The outcome of one stage: the requests that succeeded with their latencies, the requests that failed,
+     * and the fetch status of every URL in the successful responses.
+     */
+    static final class StageResult {
+        private final    double                      rate;
+        private final    LatencyRecorder             latencies = new LatencyRecorder();
+        private final    LongAdder                   failed    = new LongAdder();
+        private final    LongAdder                   done      = new LongAdder();
+        private final    Map<FetchStatus, LongAdder> statuses  = new EnumMap<>(FetchStatus.class);
+        private volatile long                        elapsedNanos;
+
+        private StageResult(double rate) {
+            this.rate = rate;
+            for (FetchStatus status : FetchStatus.values()) {
+                statuses.put(status, new LongAdder());
+            }
+        }
+
+        private void succeeded(long latencyNanos, CategorizeResponse response) {
+            latencies.record(latencyNanos);
+            response.getResults().stream()
+                    .map(UrlCategoryResult::getStatus)
+                    .forEach(status -> statuses.get(status == null ? FetchStatus.OK : status).increment());
+            done.increment();
+        }
+
+        private void failed() {
+            failed.increment();
+            done.increment();
+        }
+
+        private void awaitCompletion(long total) throws InterruptedException {
+            while (done.sum() < total) {
+                Thread.sleep(10);
+            }
+        }
+
+        /**
+         * Returns the offered request rate.
+         *
+         * @return The requests per second
+         */
+        double getRate() {
+            return rate;
+        }
+
+        /**
+         * Returns the rate of successful requests over the stage, including the wait for the last responses.
+         *
+         * @return The successful requests per second
+         */
+        double getThroughput() {
+            return latencies.getCount() / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * Returns the number of successful requests.
+         *
+         * @return The count
+         */
+        long getSucceeded() {
+            return latencies.getCount();
+        }
+
+        /**
+         * Returns the number of requests that failed or did not return status 200.
+         *
+         * @return The count
+         */
+        long getFailed() {
+            return failed.sum();
+        }
+
+        /**
+         * Returns the number of URLs with the given fetch status in the successful responses.
+         *
+         * @param status The fetch status
+         * @return The count
+         */
+        long getUrls(FetchStatus status) {
+            return statuses.get(status).sum();
+        }
+
+        /**
+         * Returns latency percentiles of the successful requests.
+         *
+         * @param quantiles The quantiles between 0 and 1
+         * @return The latency at each quantile in milliseconds
+         */
+        double[] percentilesMs(double... quantiles) {
+            return latencies.percentilesMs(quantiles);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.categorize.loadtest;
+
+import java.util.Random;
+
+/**
+ * A log-normal distribution of response latencies, given by its median and 99th percentile,
+ * which reproduces the long tail of real web servers. A 99th percentile not above the median gives a fixed latency.
+ */
+final class LatencyDistribution {
+    private static final double Z_99 = 2.3263;
+
+    private final double mu;
+    private final double sigma;
+
+    /**
+     * @param medianMs The median latency in milliseconds
+     * @param p99Ms    The 99th percentile latency in milliseconds
+     */
+    LatencyDistribution(double medianMs, double p99Ms) {
+        this.mu    = Math.log(Math.max(medianMs, 0.001));
+        this.sigma = p99Ms > medianMs ? Math.log(p99Ms / medianMs) / Z_99 : 0;
+    }
+
+    /**
+     * Draws a latency.
+     *
+     * @param random The source of randomness
+     * @return The latency in milliseconds
+     */
+    long sampleMs(Random random) {
+        return Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+}
@@ -0,0 +1,47 @@
+package com.categorize.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Collects the latencies of one stage and computes their percentiles.
+ * Every latency is kept, which is affordable for the request counts of a load test and makes percentiles exact.
+ */
+final class LatencyRecorder {
+    private long[] latencies = new long[1024];
+    private int    count;
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos The latency in nanoseconds
+     */
+    synchronized void record(long nanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return The count
+     */
+    synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the given percentiles of the recorded latencies, by the nearest-rank method.
+     *
+     * @param quantiles The quantiles between 0 and 1, e.g. 0.99
+     * @return The latency at each quantile in milliseconds, all 0 if nothing was recorded
+     */
+    synchronized double[] percentilesMs(double... quantiles) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return Arrays.stream(quantiles)
+                     .map(q -> count == 0 ? 0 : sorted[Math.max(0, (int) Math.ceil(q * count) - 1)] / 1e6)
+                     .toArray();
+    }
+}
@@ -0,0 +1,232 @@
+package com.categorize.loadtest;
+
+import com.categorize.App;
+import com.categorize.dto.CategorizeRequest;
+import com.categorize.dto.FetchStatus;
+import com.categorize.model.CategoriesData;
+import com.categorize.model.Category;
+import com.categorize.model.CategoryData;
+import com.categorize.model.CategoryKeyword;
+import com.categorize.testdata.SyntheticData;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * End-to-end load test of {@code POST /categorize} against a local {@link SyntheticWebServer}.
+ * <p>
+ * Generates a dictionary and a pool of pages with {@link SyntheticData}, serves the pages with the configured latency
+ * distribution, errors and slow drips, starts the application on a free port with the generated dictionary (unless
+ * {@code --loadtest.target} points to a running instance), and drives it with a {@link FixedRateDriver} at each of
+ * the configured rates in turn, after a warm-up stage. Every requested URL is unique, so the page cache and the
+ * deduplication of in-flight fetches do not short-circuit the fetches. Options are passed as command-line properties:
+ * <pre>
+ *   --loadtest.rates=10,50,100                  the request rates of the stages, per second
+ *   --loadtest.duration=30000                   the duration of each stage in milliseconds
+ *   --loadtest.warmup=10000                     the duration of the warm-up stage at the first rate, not reported
+ *   --loadtest.urls-per-request=5               the number of URLs in each request
+ *   --loadtest.requested-categories=10          the number of categories in each request
+ *   --loadtest.categories=100                   the number of generated categories
+ *   --loadtest.keywords-per-category=20         the number of keywords of each category
+ *   --loadtest.pages=200                        the number of distinct pages served
+ *   --loadtest.page-words=2000                  the number of words of each page
+ *   --loadtest.keyword-density=0.01             the probability of a keyword following each word of a page
+ *   --loadtest.latency.median=50                the median delay of the web server in milliseconds
+ *   --loadtest.latency.p99=500                  the 99th percentile delay of the web server in milliseconds
+ *   --loadtest.error-rate=0.01                  the share of pages failing with status 500
+ *   --loadtest.slow-drip.rate=0.01              the share of pages whose body is sent slowly
+ *   --loadtest.slow-drip.bytes-per-second=4096  the byte rate of a slow page
+ *   --loadtest.server-threads=512               the number of concurrent responses of the web server
+ *   --loadtest.seed=42                          the seed of the generated data
+ *   --loadtest.categories-file=categories.json  where to write the generated dictionary, a temporary file if omitted
+ *   --loadtest.target=http://host:8080          a running instance to load instead of an embedded one
+ * </pre>
+ * A target instance must have been started with the generated dictionary, e.g. with
+ * {@code --categories.location=file:categories.json} after writing it with the same seed. Any application property,
+ * such as {@code --categorization.strategy=aho_corasick}, is passed to the embedded instance.
+ */
+public class LoadTest {
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final MediaType JSON       = MediaType.get("application/json");
+    private static final double[]  QUANTILES  = {0.5, 0.99, 0.999, 1.0};
+    private static final int       PARAGRAPHS = 10;
+
+    public static void main(String[] args) throws Exception {
+        StandardEnvironment options = new StandardEnvironment();
+        options.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+
+        long           seed       = options.getProperty("loadtest.seed", Long.class, 42L);
+        SyntheticData  data       = new SyntheticData(seed);
+        List<Category> categories = data.categories(options.getProperty("loadtest.categories", Integer.class, 100),
+                                                    options.getProperty("loadtest.keywords-per-category", Integer.class, 20));
+        List<String>   pages      = pages(data, new Random(seed), categories,
+                                          options.getProperty("loadtest.pages", Integer.class, 200),
+                                          options.getProperty("loadtest.page-words", Integer.class, 2000),
+                                          options.getProperty("loadtest.keyword-density", Double.class, 0.01));
+        ObjectMapper   mapper     = new ObjectMapper();
+        Path           dictionary = writeCategories(mapper, categories, options.getProperty("loadtest.categories-file"));
+
+        LatencyDistribution latency = new LatencyDistribution(options.getProperty("loadtest.latency.median", Double.class, 50.0),
+                                                              options.getProperty("loadtest.latency.p99", Double.class, 500.0));
+        try (SyntheticWebServer web = new SyntheticWebServer(pages, latency,
+                                                             options.getProperty("loadtest.error-rate", Double.class, 0.01),
+                                                             options.getProperty("loadtest.slow-drip.rate", Double.class, 0.01),
+                                                             options.getProperty("loadtest.slow-drip.bytes-per-second", Integer.class, 4096),
+                                                             options.getProperty("loadtest.server-threads", Integer.class, 512));
+             ConfigurableApplicationContext context = options.containsProperty("loadtest.target") ? null : startApplication(dictionary, args)) {
+            String target = context == null ? options.getProperty("loadtest.target")
+                                            : "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            log.info("Loading {}/categorize with {} pages served from {}, dictionary in {}", target, pages.size(), web.pageUrl(0, null), dictionary);
+
+            List<String> requested      = categories.stream()
+                                                    .limit(options.getProperty("loadtest.requested-categories", Integer.class, 10))
+                                                    .map(Category::getName)
+                                                    .collect(Collectors.toList());
+            int          urlsPerRequest = options.getProperty("loadtest.urls-per-request", Integer.class, 5);
+            Random       random         = new Random(seed);
+            long         runId          = System.currentTimeMillis();
+            FixedRateDriver driver = new FixedRateDriver(newClient(), mapper);
+
+            double[] rates    = Arrays.stream(options.getProperty("loadtest.rates", "10,50,100").split("\\s*,\\s*"))
+                                      .mapToDouble(Double::parseDouble)
+                                      .toArray();
+            long     duration = options.getProperty("loadtest.duration", Long.class, 30_000L);
+            long     warmup   = options.getProperty("loadtest.warmup", Long.class, 10_000L);
+            if (warmup > 0) {
+                log.info("Warming up at {} requests/s for {} ms", rates[0], warmup);
+                driver.run(rates[0], warmup, i -> categorizeRequest(mapper, target, requested,
+                        randomUrls(web, random, pages.size(), urlsPerRequest, runId + "-w" + i)));
+            }
+
+            List<FixedRateDriver.StageResult> results = new ArrayList<>();
+            for (int stage = 0; stage < rates.length; stage++) {
+                String tag = runId + "-" + stage + "-";
+                log.info("Running at {} requests/s for {} ms", rates[stage], duration);
+                FixedRateDriver.StageResult result = driver.run(rates[stage], duration, i -> categorizeRequest(mapper, target, requested,
+                        randomUrls(web, random, pages.size(), urlsPerRequest, tag + i)));
+                log.info(format(result));
+                results.add(result);
+            }
+            log.info("Summary:\n{}", results.stream().map(LoadTest::format).collect(Collectors.joining("\n")));
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Starts the application on a free port with the generated dictionary; the command line overrides these defaults.
+     */
+    private static ConfigurableApplicationContext startApplication(Path dictionary, String[] args) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("server.port", 0);
+        defaults.put("categories.location", "file:" + dictionary.toAbsolutePath());
+        defaults.put("categories.watch", false);
+        // every page comes from the one synthetic host
+        defaults.put("url.fetch.per-host.max-concurrency", 1024);
+        return new SpringApplicationBuilder(App.class)
+                .bannerMode(Banner.Mode.OFF)
+                .properties(defaults)
+                .run(args);
+    }
+
+    /**
+     * Creates a client whose dispatcher does not queue requests, so the driver stays open-loop.
+     */
+    private static OkHttpClient newClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(65_536);
+        dispatcher.setMaxRequestsPerHost(65_536);
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .callTimeout(2, TimeUnit.MINUTES)
+                .readTimeout(2, TimeUnit.MINUTES)
+                .build();
+    }
+
+    private static List<String> pages(SyntheticData data, Random random, List<Category> categories,
+                                      int count, int words, double keywordDensity) {
+        return IntStream.range(0, count).mapToObj(n -> {
+            List<Category> planted = IntStream.range(0, 3)
+                                              .mapToObj(i -> categories.get(random.nextInt(categories.size())))
+                                              .collect(Collectors.toList());
+            StringBuilder html = new StringBuilder("<!DOCTYPE html><html><head><title>Page ")
+                .append(n)
+                .append("</title></head><body>");
+            for (int p = 0; p < PARAGRAPHS; p++) {
+                html.append("<p>").append(data.page(Math.max(1, words / PARAGRAPHS), keywordDensity, planted)).append("</p>");
+            }
+            return html.append("</body></html>").toString();
+        }).collect(Collectors.toList());
+    }
+
+    private static Path writeCategories(ObjectMapper mapper, List<Category> categories, String file) throws IOException {
+        CategoriesData data = new CategoriesData();
+        data.setCategories(categories.stream().map(category -> {
+            CategoryData categoryData = new CategoryData();
+            categoryData.setName(category.getName());
+            categoryData.setKeywords(category.getKeywords().stream().map(CategoryKeyword::getKeyword).collect(Collectors.toList()));
+            return categoryData;
+        }).collect(Collectors.toList()));
+        Path path = file == null ? Files.createTempFile("loadtest-categories", ".json") : Paths.get(file);
+        mapper.writeValue(path.toFile(), data);
+        return path;
+    }
+
+    private static List<String> randomUrls(SyntheticWebServer web, Random random, int pages, int count, String tag) {
+        synchronized (random) {
+            return IntStream.range(0, count)
+                            .mapToObj(i -> web.pageUrl(random.nextInt(pages), tag + "-" + i))
+                            .collect(Collectors.toList());
+        }
+    }
+
+    private static Request categorizeRequest(ObjectMapper mapper, String target, List<String> categories, List<String> urls) {
+        CategorizeRequest request = new CategorizeRequest();
+        request.setCategories(categories);
+        request.setUrls(urls);
+        try {
+            return new Request.Builder()
+                .url(target + "/categorize")
+                .post(RequestBody.create(mapper.writeValueAsBytes(request), JSON))
+                .build();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String format(FixedRateDriver.StageResult result) {
+        double[] ms = result.percentilesMs(QUANTILES);
+        return String.format("rate %8.1f/s  throughput %8.1f/s  ok %7d  failed %5d  p50 %8.1f ms  p99 %8.1f ms  p999 %8.1f ms  max %8.1f ms  urls %s",
+                             result.getRate(), result.getThroughput(), result.getSucceeded(), result.getFailed(),
+                             ms[0], ms[1], ms[2], ms[3],
+                             Arrays.stream(FetchStatus.values())
+                                   .map(status -> status + "=" + result.getUrls(status))
+                                   .collect(Collectors.joining(" ")));
+    }
+}
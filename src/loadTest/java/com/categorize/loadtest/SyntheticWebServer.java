@@ -0,0 +1,129 @@
+package com.categorize.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * An embedded HTTP server on the loopback interface serving generated pages, to load the service without the internet.
+ * <p>
+ * {@code GET /page/<n>} returns page {@code n} modulo the number of pages, whatever the query string, so clients can
+ * make every URL unique to bypass the page cache. Every response is delayed by a latency drawn from a
+ * {@link LatencyDistribution}; a share of the responses fails with status 500, and another share is a slow drip
+ * whose body is sent in small chunks at a fixed byte rate, like an overloaded or throttling server.
+ */
+final class SyntheticWebServer implements AutoCloseable {
+    private static final int DRIP_TICK_MS = 100;
+
+    private final HttpServer          server;
+    private final ExecutorService     executor;
+    private final List<byte[]>        pages;
+    private final LatencyDistribution latency;
+    private final double              errorRate;
+    private final double              slowDripRate;
+    private final int                 slowDripBytesPerSecond;
+
+    /**
+     * Starts the server on a free port.
+     *
+     * @param pages                  The HTML of the pages to serve
+     * @param latency                The distribution of the delay before a response
+     * @param errorRate              The share of responses failing with status 500
+     * @param slowDripRate           The share of responses whose body is sent slowly
+     * @param slowDripBytesPerSecond The byte rate of a slow response body
+     * @param threads                The number of request threads, which bounds the number of concurrent responses
+     * @throws IOException if the server cannot be started
+     */
+    SyntheticWebServer(List<String> pages, LatencyDistribution latency, double errorRate,
+                       double slowDripRate, int slowDripBytesPerSecond, int threads) throws IOException {
+        this.pages                  = pages.stream().map(page -> page.getBytes(StandardCharsets.UTF_8)).collect(Collectors.toList());
+        this.latency                = latency;
+        this.errorRate              = errorRate;
+        this.slowDripRate           = slowDripRate;
+        this.slowDripBytesPerSecond = slowDripBytesPerSecond;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "synthetic-web-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        server.createContext("/page/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Returns the URL of a page.
+     *
+     * @param page The page number
+     * @param tag  A query value making the URL unique, or null for the plain URL
+     * @return The URL
+     */
+    String pageUrl(int page, String tag) {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort() + "/page/" + page + (tag == null ? "" : "?r=" + tag);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            Thread.sleep(latency.sampleMs(random));
+            if (random.nextDouble() < errorRate) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            byte[] page = pages.get(pageNumber(exchange) % pages.size());
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            if (random.nextDouble() < slowDripRate) {
+                exchange.sendResponseHeaders(200, 0);
+                drip(exchange.getResponseBody(), page);
+            } else {
+                exchange.sendResponseHeaders(200, page.length);
+                exchange.getResponseBody().write(page);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // the client gave up on the page, e.g. at its fetch deadline
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void drip(OutputStream body, byte[] page) throws IOException, InterruptedException {
+        int chunk = Math.max(1, slowDripBytesPerSecond * DRIP_TICK_MS / 1000);
+        for (int offset = 0; offset < page.length; offset += chunk) {
+            body.write(page, offset, Math.min(chunk, page.length - offset));
+            body.flush();
+            Thread.sleep(DRIP_TICK_MS);
+        }
+    }
+
+    private static int pageNumber(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        try {
+            return Math.max(0, Integer.parseInt(path.substring(path.lastIndexOf('/') + 1)));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
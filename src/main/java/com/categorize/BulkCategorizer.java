@@ -0,0 +1,68 @@
+package com.categorize;
+
+import com.categorize.bulk.ArchiveFormat;
+import com.categorize.bulk.BulkCategorizationPipeline;
+import com.categorize.concurrent.WorkScheduler;
+import com.categorize.service.CategoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Offline entry point that categorizes a local archive of captured pages without going through the HTTP API.
+ * <p>
+ * Starts the application context without a web server, so the configured strategy, {@code categories.json}
+ * and pools are the same as for the service, and runs a {@link BulkCategorizationPipeline} over the archive.
+ * Options are passed as command-line properties:
+ * <pre>
+ *   --input=pages.warc            the archive, an uncompressed WARC file or a JSONL file of {url, content|html} objects
+ *   --output=results.jsonl        the result file, one UrlCategoryResult per line
+ *   --categories=Sports,News      the categories to match, all categories if omitted
+ *   --format=warc|jsonl           the archive format, guessed from the file name if omitted
+ * </pre>
+ * Any application property, such as {@code --categorization.strategy=aho_corasick}, can be overridden the same way.
+ */
+public class BulkCategorizer {
+    private static final Logger log = LoggerFactory.getLogger(BulkCategorizer.class);
+
+    public static void main(String[] args) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(App.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run(args)) {
+            Environment environment = context.getEnvironment();
+            Path        input       = Paths.get(environment.getRequiredProperty("input"));
+            Path        output      = Paths.get(environment.getRequiredProperty("output"));
+            String      formatName  = environment.getProperty("format");
+
+            CategoryService categoryService = context.getBean(CategoryService.class);
+            String          categoryNames   = environment.getProperty("categories");
+            List<String>    categories      = categoryNames == null ? categoryService.getCategoryNames()
+                                                                    : Arrays.asList(categoryNames.split("\\s*,\\s*"));
+            ArchiveFormat   format          = formatName == null ? ArchiveFormat.forFile(input) : ArchiveFormat.forName(formatName);
+
+            BulkCategorizationPipeline pipeline = new BulkCategorizationPipeline(
+                () -> categoryService.newMatcher(categories),
+                context.getBean(ObjectMapper.class),
+                context.getBean(WorkScheduler.class).getCpuExecutor(),
+                environment.getProperty("bulk.batch-bytes", Long.class, 4L * 1024 * 1024),
+                environment.getProperty("bulk.max-in-flight", Integer.class, 2 * Runtime.getRuntime().availableProcessors()));
+
+            long started = System.nanoTime();
+            BulkCategorizationPipeline.Summary summary = pipeline.run(input, format, output);
+            log.info("Categorized {} pages of {} into {} in {} ms ({} records skipped, {} failed)",
+                     summary.getCategorized(), input, output, (System.nanoTime() - started) / 1_000_000,
+                     summary.getSkipped(), summary.getFailed());
+        }
+    }
+}
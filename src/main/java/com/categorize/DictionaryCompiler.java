@@ -0,0 +1,59 @@
+package com.categorize;
+
+import com.categorize.service.CategoryService;
+import com.categorize.service.matcher.DictionarySnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Offline entry point that compiles {@code categories.json} into a binary {@link DictionarySnapshot}, which the
+ * service loads at startup with {@code categories.snapshot.location} instead of parsing the JSON and building its tables.
+ * <p>
+ * Starts the application context without a web server, so the categories location and the normalization settings
+ * are the ones the service will use; the snapshot is only accepted by a service whose settings match.
+ * Options are passed as command-line properties:
+ * <pre>
+ *   --output=categories.snapshot  the snapshot file to write
+ * </pre>
+ * Any application property, such as {@code --categories.location=file:/etc/categorize/categories.json}, can be
+ * overridden the same way.
+ */
+public class DictionaryCompiler {
+    private static final Logger log = LoggerFactory.getLogger(DictionaryCompiler.class);
+
+    public static void main(String[] args) throws Exception {
+        // the strategy built at startup is not used, so build the cheapest one and never read an existing snapshot;
+        // passed as command-line options, as those take precedence over application.properties
+        Map<String, String> overrides = new LinkedHashMap<>();
+        overrides.put("categorization.strategy", "naive");
+        overrides.put("categories.watch", "false");
+        overrides.put("categories.snapshot.location", "");
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        overrides.forEach((key, value) -> {
+            if (arguments.stream().noneMatch(argument -> argument.startsWith("--" + key + "="))) {
+                arguments.add("--" + key + "=" + value);
+            }
+        });
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(App.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run(arguments.toArray(new String[0]))) {
+            Path output = Paths.get(context.getEnvironment().getRequiredProperty("output"));
+
+            long started    = System.nanoTime();
+            int  categories = context.getBean(CategoryService.class).compileSnapshot(output);
+            log.info("Compiled {} categories into {} ({} bytes, format version {}) in {} ms",
+                     categories, output, Files.size(output), DictionarySnapshot.VERSION, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.categorize.bulk;
+
+import com.categorize.model.WebPageContent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The layout of an archive of captured pages.
+ * <p>
+ * A format does two separate jobs so that they can run on different threads:
+ * finding where a record ends, which is cheap and done sequentially by the reader,
+ * and extracting the page text from a record, which is expensive and done in parallel by the workers.
+ */
+public interface ArchiveFormat {
+
+    /**
+     * Finds the end of the record starting at the given position.
+     *
+     * @param buffer     The buffer holding the record, read with absolute gets up to its limit
+     * @param start      The position of the first byte of the record
+     * @param endOfInput Whether the limit of the buffer is the end of the archive
+     * @return The position just past the record, or -1 if the record continues beyond the limit
+     * @throws IOException if the bytes at the start position are not a record of this format
+     */
+    int recordEnd(ByteBuffer buffer, int start, boolean endOfInput) throws IOException;
+
+    /**
+     * Extracts the URL and text of the page captured by a record.
+     *
+     * @param record The bytes of one record, from position to limit
+     * @return The page, or empty if the record does not capture a text page
+     * @throws IOException if the record is malformed
+     */
+    Optional<WebPageContent> extract(ByteBuffer record) throws IOException;
+
+    /**
+     * Selects the format of an archive by its file name: {@code .warc} files are WARC, anything else is JSONL.
+     *
+     * @param file The archive file
+     * @return The format of the archive
+     */
+    static ArchiveFormat forFile(Path file) {
+        return forName(file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".warc") ? "warc" : "jsonl");
+    }
+
+    /**
+     * Selects a format by name.
+     *
+     * @param name {@code warc} or {@code jsonl}, case-insensitive
+     * @return The format
+     * @throws IllegalArgumentException if the name is not a known format
+     */
+    static ArchiveFormat forName(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "warc":
+                return new WarcFormat();
+            case "jsonl":
+                return new JsonlFormat();
+            default:
+                throw new IllegalArgumentException("Unknown archive format: " + name);
+        }
+    }
+}
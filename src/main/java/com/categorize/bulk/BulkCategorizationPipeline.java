@@ -0,0 +1,199 @@
+package com.categorize.bulk;
+
+import com.categorize.dto.UrlCategoryResult;
+import com.categorize.model.WebPageContent;
+import com.categorize.service.strategy.CategoryMatcher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Categorizes an archive of captured pages into a JSONL file of {@link UrlCategoryResult} lines.
+ * <p>
+ * The work runs as a three-stage pipeline:
+ * - the calling thread maps the archive and splits it into records, grouped into batches of about
+ * {@code batchBytes} bytes;
+ * - the workers extract the text of every record of a batch, match it and serialize the result lines;
+ * - a single writer thread appends the lines of each batch to the output in archive order.
+ * At most {@code maxInFlightBatches} batches are between the reader and the writer at any time,
+ * so a fast reader waits for the workers and memory stays bounded whatever the size of the archive.
+ */
+public class BulkCategorizationPipeline {
+    private static final Logger log = LoggerFactory.getLogger(BulkCategorizationPipeline.class);
+
+    private static final long WINDOW_BYTES = 256L * 1024 * 1024;
+
+    private final Supplier<CategoryMatcher> matcherFactory;
+    private final ObjectMapper              objectMapper;
+    private final ExecutorService           workers;
+    private final long                      batchBytes;
+    private final int                       maxInFlightBatches;
+
+    /**
+     * Constructs the pipeline.
+     *
+     * @param matcherFactory     Supplier of a new CategoryMatcher for each page
+     * @param objectMapper       Jackson's ObjectMapper for writing result lines
+     * @param workers            The executor extracting and matching batches
+     * @param batchBytes         The number of archive bytes after which a batch is submitted
+     * @param maxInFlightBatches The maximum number of batches read but not yet written
+     */
+    public BulkCategorizationPipeline(Supplier<CategoryMatcher> matcherFactory, ObjectMapper objectMapper,
+                                      ExecutorService workers, long batchBytes, int maxInFlightBatches) {
+        this.matcherFactory     = matcherFactory;
+        this.objectMapper       = objectMapper;
+        this.workers            = workers;
+        this.batchBytes         = batchBytes;
+        this.maxInFlightBatches = maxInFlightBatches;
+    }
+
+    /**
+     * Categorizes every page of an archive.
+     *
+     * @param input  The archive to read
+     * @param format The format of the archive
+     * @param output The JSONL file to write, replaced if it exists
+     * @return The counts of categorized, skipped and failed records
+     * @throws IOException if the archive cannot be read or the output cannot be written
+     */
+    public Summary run(Path input, ArchiveFormat format, Path output) throws IOException {
+        Summary                             summary = new Summary();
+        BlockingQueue<Future<List<String>>> pending = new ArrayBlockingQueue<>(maxInFlightBatches);
+        Future<List<String>>                endMark = CompletableFuture.completedFuture(null);
+        ExecutorService                     writer  = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "bulk-writer"));
+        Future<?>                           written = writer.submit(() -> write(output, pending, endMark));
+
+        try (MappedRecordReader reader = new MappedRecordReader(input, format, WINDOW_BYTES)) {
+            List<ByteBuffer> batch     = new ArrayList<>();
+            long             batchSize = 0;
+            for (Optional<ByteBuffer> record = reader.next(); record.isPresent(); record = reader.next()) {
+                batch.add(record.get());
+                batchSize += record.get().remaining();
+                if (batchSize >= batchBytes) {
+                    enqueue(pending, written, submit(batch, format, summary));
+                    batch     = new ArrayList<>();
+                    batchSize = 0;
+                }
+            }
+            if (!batch.isEmpty()) {
+                enqueue(pending, written, submit(batch, format, summary));
+            }
+            enqueue(pending, written, endMark);
+            written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while categorizing " + input);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } finally {
+            writer.shutdownNow();
+        }
+        return summary;
+    }
+
+    private CompletableFuture<List<String>> submit(List<ByteBuffer> batch, ArchiveFormat format, Summary summary) {
+        return CompletableFuture.supplyAsync(() -> categorizeBatch(batch, format, summary), workers);
+    }
+
+    /**
+     * Hands a batch to the writer, waiting while the maximum number of batches is in flight.
+     * Fails fast if the writer has already stopped with an error.
+     */
+    private static void enqueue(BlockingQueue<Future<List<String>>> pending, Future<?> written,
+                                Future<List<String>> batch) throws InterruptedException, ExecutionException {
+        while (!pending.offer(batch, 1, TimeUnit.SECONDS)) {
+            if (written.isDone()) {
+                written.get();
+            }
+        }
+    }
+
+    /**
+     * Extracts, matches and serializes the records of a batch. Records that cannot be extracted are logged and counted.
+     *
+     * @return The result lines of the batch, in record order
+     */
+    private List<String> categorizeBatch(List<ByteBuffer> batch, ArchiveFormat format, Summary summary) {
+        List<String> lines = new ArrayList<>(batch.size());
+        for (ByteBuffer record : batch) {
+            try {
+                Optional<WebPageContent> page = format.extract(record);
+                if (!page.isPresent()) {
+                    summary.skipped.increment();
+                    continue;
+                }
+                CategoryMatcher matcher = matcherFactory.get();
+                matcher.feed(page.get().getContent());
+                lines.add(objectMapper.writeValueAsString(new UrlCategoryResult(page.get().getUrl(), matcher.getMatchedCategories())));
+                summary.categorized.increment();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Skipping malformed record: {}", e.getMessage());
+                summary.failed.increment();
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Writes the lines of every batch in the order the batches were read, until the end mark.
+     */
+    private static Void write(Path output, BlockingQueue<Future<List<String>>> pending, Future<List<String>> endMark) throws Exception {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(output), StandardCharsets.UTF_8), 1 << 16)) {
+            for (Future<List<String>> batch = pending.take(); batch != endMark; batch = pending.take()) {
+                for (String line : batch.get()) {
+                    out.write(line);
+                    out.write('\n');
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The outcome of a bulk run.
+     */
+    public static final class Summary {
+        private final LongAdder categorized = new LongAdder();
+        private final LongAdder skipped     = new LongAdder();
+        private final LongAdder failed      = new LongAdder();
+
+        /**
+         * Returns the number of pages categorized and written.
+         *
+         * @return The categorized count
+         */
+        public long getCategorized() {
+            return categorized.sum();
+        }
+
+        /**
+         * Returns the number of records that do not capture a text page.
+         *
+         * @return The skipped count
+         */
+        public long getSkipped() {
+            return skipped.sum();
+        }
+
+        /**
+         * Returns the number of records that could not be read.
+         *
+         * @return The failed count
+         */
+        public long getFailed() {
+            return failed.sum();
+        }
+    }
+}
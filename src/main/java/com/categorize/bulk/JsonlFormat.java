@@ -0,0 +1,41 @@
+package com.categorize.bulk;
+
+import com.categorize.model.WebPageContent;
+import com.categorize.service.ContentCategorizationService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * An archive with one page per line, each a JSON object with a {@code url} and either {@code content} or {@code html},
+ * the same shape as the pages accepted by {@code POST /categorize/content}.
+ */
+final class JsonlFormat implements ArchiveFormat {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Override
+    public int recordEnd(ByteBuffer buffer, int start, boolean endOfInput) {
+        for (int i = start; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return endOfInput ? buffer.limit() : -1;
+    }
+
+    @Override
+    public Optional<WebPageContent> extract(ByteBuffer record) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(new ByteBufferBackedInputStream(record))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a page object");
+            }
+            return Optional.of(ContentCategorizationService.readPage(parser));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.categorize.bulk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Splits an archive into records by memory-mapping it one window at a time.
+ * <p>
+ * Records are returned as read-only slices of the mapped window, so no record bytes are copied.
+ * When a record runs past the end of the current window, the next window is mapped starting at that record;
+ * a record larger than the window size gets a window of its own, up to the 2 GB limit of a single mapping.
+ * Line breaks between records are skipped. Instances are not thread-safe, but the returned slices are
+ * independent and can be handed to other threads.
+ */
+final class MappedRecordReader implements Closeable {
+    private static final long MAX_WINDOW_BYTES = Integer.MAX_VALUE;
+
+    private final FileChannel   channel;
+    private final ArchiveFormat format;
+    private final long          size;
+    private final long          windowBytes;
+    private       ByteBuffer    window;
+    private       long          windowStart;
+    private       int           position;
+
+    /**
+     * Opens an archive for reading.
+     *
+     * @param file        The archive file
+     * @param format      The format of the archive
+     * @param windowBytes The size of the mapped windows in bytes
+     * @throws IOException if the file cannot be opened
+     */
+    MappedRecordReader(Path file, ArchiveFormat format, long windowBytes) throws IOException {
+        this.channel     = FileChannel.open(file, StandardOpenOption.READ);
+        this.format      = format;
+        this.size        = channel.size();
+        this.windowBytes = Math.min(windowBytes, MAX_WINDOW_BYTES);
+        this.window      = ByteBuffer.allocate(0);
+    }
+
+    /**
+     * Returns the next record.
+     *
+     * @return The bytes of the next record, or empty at the end of the archive
+     * @throws IOException if the archive cannot be read or is malformed
+     */
+    Optional<ByteBuffer> next() throws IOException {
+        while (true) {
+            while (position < window.limit() && isLineBreak(window.get(position))) {
+                position++;
+            }
+            long offset = windowStart + position;
+            if (offset >= size) {
+                return Optional.empty();
+            }
+            boolean endOfInput = windowStart + window.limit() == size;
+            int     end        = position < window.limit() ? format.recordEnd(window, position, endOfInput) : -1;
+            if (end >= 0) {
+                ByteBuffer record = window.duplicate();
+                record.limit(end);
+                record.position(position);
+                position = end;
+                return Optional.of(record.slice());
+            }
+            // the record continues past this window: map a window starting at the record, larger if it already was
+            long length = position == 0 ? Math.min(MAX_WINDOW_BYTES, (long) window.limit() * 2) : windowBytes;
+            if (position == 0 && window.limit() == MAX_WINDOW_BYTES) {
+                throw new IOException("Record at offset " + offset + " is larger than " + MAX_WINDOW_BYTES + " bytes");
+            }
+            map(offset, Math.max(length, windowBytes));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void map(long offset, long length) throws IOException {
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(length, size - offset));
+        window      = mapped.asReadOnlyBuffer();
+        windowStart = offset;
+        position    = 0;
+    }
+
+    private static boolean isLineBreak(byte b) {
+        return b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,249 @@
+package com.categorize.bulk;
+
+import com.categorize.model.WebPageContent;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.jsoup.Jsoup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An uncompressed WARC archive (ISO 28500).
+ * <p>
+ * Every record is a block of WARC headers, a blank line and a payload of exactly {@code Content-Length} bytes,
+ * so record boundaries are found without looking at the payload. Only {@code response} records of HTTP captures
+ * and {@code resource} records are categorized; request, metadata and other records are skipped, as are
+ * captures whose content type is not text. Chunked transfer coding and gzip or deflate content coding
+ * of the captured HTTP responses are undone before the text is extracted.
+ */
+final class WarcFormat implements ArchiveFormat {
+    private static final byte[]  MAGIC   = "WARC/".getBytes(StandardCharsets.US_ASCII);
+    private static final Pattern CHARSET = Pattern.compile("charset\\s*=\\s*[\"']?([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public int recordEnd(ByteBuffer buffer, int start, boolean endOfInput) throws IOException {
+        if (buffer.limit() - start < MAGIC.length) {
+            return truncated(endOfInput);
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(start + i) != MAGIC[i]) {
+                throw new IOException("Not a WARC record: expected 'WARC/' at the start of a record");
+            }
+        }
+        int headerEnd = headerEnd(buffer, start, buffer.limit());
+        if (headerEnd < 0) {
+            return truncated(endOfInput);
+        }
+        long end = headerEnd + contentLength(headers(buffer, start, headerEnd));
+        return end <= buffer.limit() ? (int) end : truncated(endOfInput);
+    }
+
+    @Override
+    public Optional<WebPageContent> extract(ByteBuffer record) throws IOException {
+        int                 start     = record.position();
+        int                 headerEnd = headerEnd(record, start, record.limit());
+        Map<String, String> headers   = headers(record, start, headerEnd);
+        String              type      = headers.getOrDefault("WARC-Type", "");
+        String              url       = targetUri(headers);
+        ByteBuffer          block     = slice(record, headerEnd, headerEnd + (int) contentLength(headers));
+
+        if ("resource".equals(type)) {
+            return text(url, headers.get("Content-Type"), new ByteBufferBackedInputStream(block));
+        }
+        if (!"response".equals(type) || !url.toLowerCase(Locale.ROOT).startsWith("http")) {
+            return Optional.empty();
+        }
+
+        int httpHeaderEnd = headerEnd(block, 0, block.limit());
+        if (httpHeaderEnd < 0) {
+            throw new IOException("Malformed HTTP response captured for " + url);
+        }
+        Map<String, String> httpHeaders = headers(block, 0, httpHeaderEnd);
+        ByteBuffer          body        = slice(block, httpHeaderEnd, block.limit());
+        if (httpHeaders.getOrDefault("Transfer-Encoding", "").toLowerCase(Locale.ROOT).contains("chunked")) {
+            body = dechunk(body);
+        }
+        return text(url, httpHeaders.get("Content-Type"), decode(new ByteBufferBackedInputStream(body), httpHeaders.get("Content-Encoding")));
+    }
+
+    /**
+     * Extracts the text of a captured body, parsing it as HTML unless it is declared as plain text.
+     *
+     * @param url         The URL of the capture
+     * @param contentType The declared content type, or null
+     * @param body        The decoded body
+     * @return The page, or empty if the content type is not text
+     * @throws IOException if the body cannot be read
+     */
+    private static Optional<WebPageContent> text(String url, String contentType, InputStream body) throws IOException {
+        String  mediaType = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        Charset charset   = charset(mediaType).orElse(null);
+        if (mediaType.startsWith("text/plain")) {
+            return Optional.of(new WebPageContent(url, readString(body, charset == null ? StandardCharsets.UTF_8 : charset)));
+        }
+        if (mediaType.isEmpty() || mediaType.contains("html") || mediaType.contains("xml")) {
+            // without a declared charset, jsoup detects it from a byte order mark or meta tag
+            return Optional.of(new WebPageContent(url, Jsoup.parse(body, charset == null ? null : charset.name(), url).text()));
+        }
+        return Optional.empty();
+    }
+
+    private static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        String encoding = contentEncoding == null ? "" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+        switch (encoding) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(body);
+            case "deflate":
+                return new InflaterInputStream(body);
+            default:
+                return body;
+        }
+    }
+
+    /**
+     * Removes the chunked transfer coding from a captured body.
+     *
+     * @param body The chunked body
+     * @return The body without chunk framing; a truncated last chunk is kept as far as it goes
+     */
+    private static ByteBuffer dechunk(ByteBuffer body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.remaining());
+        ByteBuffer            in  = body.duplicate();
+        while (in.hasRemaining()) {
+            String sizeLine = readLine(in);
+            int    size;
+            try {
+                size = Integer.parseInt(sizeLine.split(";", 2)[0].trim(), 16);
+            } catch (NumberFormatException e) {
+                break;
+            }
+            if (size == 0) {
+                break;
+            }
+            byte[] chunk = new byte[Math.min(size, in.remaining())];
+            in.get(chunk);
+            out.write(chunk, 0, chunk.length);
+            readLine(in);
+        }
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private static String readLine(ByteBuffer in) {
+        StringBuilder line = new StringBuilder();
+        while (in.hasRemaining()) {
+            char c = (char) (in.get() & 0xFF);
+            if (c == '\n') {
+                break;
+            }
+            if (c != '\r') {
+                line.append(c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static String readString(InputStream body, Charset charset) throws IOException {
+        StringBuilder text   = new StringBuilder();
+        char[]        buffer = new char[8192];
+        try (Reader reader = new InputStreamReader(body, charset)) {
+            for (int n; (n = reader.read(buffer)) > 0; ) {
+                text.append(buffer, 0, n);
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Finds the blank line ending a header block, accepting both CRLF and bare LF line endings.
+     *
+     * @return The position just past the blank line, or -1 if the block is not terminated before the limit
+     */
+    private static int headerEnd(ByteBuffer buffer, int start, int limit) {
+        for (int i = start; i < limit - 1; i++) {
+            if (buffer.get(i) != '\n') {
+                continue;
+            }
+            if (buffer.get(i + 1) == '\n') {
+                return i + 2;
+            }
+            if (i + 2 < limit && buffer.get(i + 1) == '\r' && buffer.get(i + 2) == '\n') {
+                return i + 3;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a header block into a case-insensitive map, skipping the first line (the WARC version or HTTP status).
+     */
+    private static Map<String, String> headers(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        String[]            lines   = new String(bytes, StandardCharsets.ISO_8859_1).split("\r?\n");
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) {
+                headers.putIfAbsent(lines[i].substring(0, colon).trim(), lines[i].substring(colon + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    private static long contentLength(Map<String, String> headers) throws IOException {
+        try {
+            return Long.parseLong(headers.getOrDefault("Content-Length", "").trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("WARC record without a valid Content-Length", e);
+        }
+    }
+
+    private static String targetUri(Map<String, String> headers) {
+        String uri = headers.getOrDefault("WARC-Target-URI", "");
+        // WARC 1.1 drafts wrapped the URI in angle brackets, which some writers still emit
+        return uri.startsWith("<") && uri.endsWith(">") ? uri.substring(1, uri.length() - 1) : uri;
+    }
+
+    private static Optional<Charset> charset(String contentType) {
+        Matcher matcher = CHARSET.matcher(contentType);
+        if (!matcher.find()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Charset.forName(matcher.group(1)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int from, int to) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(to);
+        slice.position(from);
+        return slice.slice();
+    }
+
+    private static int truncated(boolean endOfInput) throws IOException {
+        if (endOfInput) {
+            throw new IOException("Truncated WARC record at the end of the archive");
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,303 @@
+package com.categorize.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The single execution model of the application.
+ * <p>
+ * Owns two bounded pools, a rebuild thread and a timer thread:
+ * - the I/O pool runs page fetches; when both its threads and its queue are exhausted new fetches are rejected,
+ * so a burst of large requests degrades into fetch errors instead of thousands of threads. With virtual threads
+ * every fetch gets its own virtual thread, and the same limits bound the fetches running and waiting to run.
+ * - the CPU pool runs categorization; when it is saturated the submitting thread runs the task itself,
+ * which throttles callers to the speed of the CPU. Once the pool is shut down it rejects tasks like the I/O pool.
+ * - the rebuild thread applies category changes one at a time, off the request path.
+ * - the timer fires fetch deadlines.
+ * <p>
+ * Rejections are counted per pool. On shutdown all pools stop accepting work and running tasks are given
+ * a grace period to finish before being interrupted.
+ */
+@Component
+public class WorkScheduler implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(WorkScheduler.class);
+
+    private final ExecutorService          ioExecutor;
+    private final ThreadPoolExecutor       cpuExecutor;
+    private final ThreadPoolExecutor       rebuildExecutor;
+    private final ScheduledExecutorService timer;
+    private final LongAdder                ioRejections;
+    private final LongAdder                cpuRejections;
+    private final long                     shutdownTimeoutMs;
+
+    /**
+     * Constructs the scheduler and starts its pools.
+     *
+     * @param ioThreads         The maximum number of concurrent fetches.
+     * @param ioQueueCapacity   The maximum number of fetches waiting for a thread, or with virtual threads for their turn.
+     * @param ioVirtualThreads  Whether fetch threads are virtual threads; requires Java 21.
+     * @param cpuThreads        The number of categorization threads, or 0 for one per available processor.
+     * @param cpuQueueCapacity  The maximum number of categorization tasks waiting for a thread.
+     * @param shutdownTimeoutMs How long running tasks may take to finish on shutdown, in milliseconds.
+     */
+    public WorkScheduler(
+            @Value("${executor.io.threads:64}") int ioThreads,
+            @Value("${executor.io.queue-capacity:1000}") int ioQueueCapacity,
+            @Value("${executor.io.virtual-threads:false}") boolean ioVirtualThreads,
+            @Value("${executor.cpu.threads:0}") int cpuThreads,
+            @Value("${executor.cpu.queue-capacity:1000}") int cpuQueueCapacity,
+            @Value("${executor.shutdown-timeout:10000}") long shutdownTimeoutMs) {
+        this.ioRejections      = new LongAdder();
+        this.cpuRejections     = new LongAdder();
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+
+        this.ioExecutor = ioVirtualThreads
+            ? new VirtualThreadExecutor(ioThreads, ioQueueCapacity, ioRejections)
+            : newPool(ioThreads, ioQueueCapacity, threadFactory("fetch-"), (task, pool) -> {
+                ioRejections.increment();
+                throw new RejectedExecutionException("I/O pool saturated: " + pool.getActiveCount() + " active, " + pool.getQueue().size() + " queued");
+            });
+
+        int cpuPoolSize = cpuThreads > 0 ? cpuThreads : Runtime.getRuntime().availableProcessors();
+        this.cpuExecutor = newPool(cpuPoolSize, cpuQueueCapacity, threadFactory("categorize-"), (task, pool) -> {
+            if (pool.isShutdown()) {
+                throw new RejectedExecutionException("CPU pool shut down");
+            }
+            cpuRejections.increment();
+            task.run();
+        });
+
+        this.rebuildExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory("category-rebuild-"));
+        this.rebuildExecutor.allowCoreThreadTimeOut(true);
+        this.timer = Executors.newSingleThreadScheduledExecutor(threadFactory("fetch-deadline-"));
+        log.info("Started I/O pool with {} {}threads and CPU pool with {} threads",
+                 ioThreads, ioVirtualThreads ? "virtual " : "", cpuPoolSize);
+    }
+
+    /**
+     * Returns the bounded pool for blocking I/O such as page fetches.
+     *
+     * @return The I/O executor
+     */
+    public ExecutorService getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * Returns the bounded pool for CPU-bound work such as categorization.
+     *
+     * @return The CPU executor
+     */
+    public ExecutorService getCpuExecutor() {
+        return cpuExecutor;
+    }
+
+    /**
+     * Returns the single thread that rebuilds the categorization strategy when the categories change.
+     * Its queue is unbounded, as every change has to be applied.
+     *
+     * @return The rebuild executor
+     */
+    public ExecutorService getRebuildExecutor() {
+        return rebuildExecutor;
+    }
+
+    /**
+     * Returns the timer used to fire deadlines.
+     *
+     * @return The scheduled executor
+     */
+    public ScheduledExecutorService getTimer() {
+        return timer;
+    }
+
+    /**
+     * Returns the number of fetches running on the I/O pool.
+     *
+     * @return The I/O active count
+     */
+    public int getIoActiveCount() {
+        return ioExecutor instanceof VirtualThreadExecutor
+            ? ((VirtualThreadExecutor) ioExecutor).getActiveCount()
+            : ((ThreadPoolExecutor) ioExecutor).getActiveCount();
+    }
+
+    /**
+     * Returns the number of fetches admitted to the I/O pool and waiting to run.
+     *
+     * @return The I/O queue depth
+     */
+    public int getIoQueuedCount() {
+        return ioExecutor instanceof VirtualThreadExecutor
+            ? ((VirtualThreadExecutor) ioExecutor).getQueuedCount()
+            : ((ThreadPoolExecutor) ioExecutor).getQueue().size();
+    }
+
+    /**
+     * Returns the number of tasks rejected by the I/O pool since startup.
+     *
+     * @return The I/O rejection count
+     */
+    public long getIoRejectedCount() {
+        return ioRejections.sum();
+    }
+
+    /**
+     * Returns the number of tasks the CPU pool pushed back to their callers since startup.
+     *
+     * @return The CPU rejection count
+     */
+    public long getCpuRejectedCount() {
+        return cpuRejections.sum();
+    }
+
+    /**
+     * Stops accepting work, waits for running tasks up to the shutdown timeout and then interrupts the rest.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        timer.shutdownNow();
+        ioExecutor.shutdown();
+        cpuExecutor.shutdown();
+        rebuildExecutor.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs);
+        for (ExecutorService executor : new ExecutorService[]{ioExecutor, cpuExecutor, rebuildExecutor}) {
+            if (!executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor newPool(int threads, int queueCapacity, ThreadFactory threadFactory, RejectedExecutionHandler rejectionHandler) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                                                         new LinkedBlockingQueue<>(queueCapacity), threadFactory, rejectionHandler);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Creates an executor starting a named virtual thread per task through reflection, so the application still
+     * compiles and runs on Java 8. It is {@link Executors}{@code .newVirtualThreadPerTaskExecutor()} with thread names.
+     *
+     * @return An executor running every task on a new virtual thread
+     * @throws IllegalStateException if the running JVM does not support virtual threads
+     */
+    private static ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "fetch-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("executor.io.virtual-threads requires Java 21 or newer", e);
+        }
+    }
+
+    /**
+     * The I/O pool on virtual threads: every task gets its own virtual thread, which waits for one of the permits
+     * bounding the concurrent fetches before it runs the task. Waiting costs no platform thread, so the queue of a
+     * platform pool becomes a second limit on the tasks admitted but not yet running; beyond both, tasks are rejected.
+     */
+    private static final class VirtualThreadExecutor extends AbstractExecutorService {
+        private final ExecutorService threads;
+        private final int             concurrency;
+        private final int             capacity;
+        private final Semaphore       running;
+        private final Semaphore       admitted;
+        private final LongAdder       rejections;
+
+        private VirtualThreadExecutor(int concurrency, int queueCapacity, LongAdder rejections) {
+            this.threads     = virtualThreadPerTaskExecutor();
+            this.concurrency = concurrency;
+            this.capacity    = concurrency + queueCapacity;
+            this.running     = new Semaphore(concurrency);
+            this.admitted    = new Semaphore(capacity);
+            this.rejections  = rejections;
+        }
+
+        /**
+         * Returns the number of tasks holding a running permit.
+         */
+        private int getActiveCount() {
+            return concurrency - running.availablePermits();
+        }
+
+        /**
+         * Returns the number of tasks admitted but not running yet.
+         */
+        private int getQueuedCount() {
+            return Math.max(0, capacity - admitted.availablePermits() - getActiveCount());
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (!admitted.tryAcquire()) {
+                rejections.increment();
+                throw new RejectedExecutionException("I/O pool saturated: " + running.getQueueLength() + " waiting");
+            }
+            try {
+                threads.execute(() -> {
+                    try {
+                        running.acquire();
+                        try {
+                            task.run();
+                        } finally {
+                            running.release();
+                        }
+                    } catch (InterruptedException e) {
+                        // interrupted while waiting for its turn, such as on shutdown
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        admitted.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                admitted.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            threads.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return threads.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return threads.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return threads.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return threads.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.categorize.controller;
+
+import com.categorize.model.CategoryData;
+import com.categorize.service.CategoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Controller for managing categories at runtime.
+ * Changes are compiled in the background and take effect atomically; each call returns once its change is live.
+ * Runtime changes are kept in memory only and are discarded when the categories file is reloaded.
+ */
+@RestController
+@RequestMapping("/admin/categories")
+public class CategoryAdminController {
+
+    private final CategoryService categoryService;
+
+    @Autowired
+    public CategoryAdminController(CategoryService categoryService) {
+        this.categoryService = categoryService;
+    }
+
+    /**
+     * Lists all categories with their keywords.
+     *
+     * @return List of CategoryData objects
+     */
+    @GetMapping
+    public List<CategoryData> getCategories() {
+        return categoryService.getCategories();
+    }
+
+    /**
+     * Returns a single category with its keywords.
+     *
+     * @param name The category name
+     * @return The CategoryData object
+     */
+    @GetMapping("/{name}")
+    public CategoryData getCategory(@PathVariable("name") String name) {
+        return categoryService.getCategory(name)
+                              .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown category: " + name));
+    }
+
+    /**
+     * Adds a category or replaces the keywords of an existing one.
+     *
+     * @param name         The category name
+     * @param categoryData The keywords of the category; its name, if given, must match the path
+     * @return A future of the stored category, with status 201 if it was added and 200 if it was replaced
+     */
+    @PutMapping("/{name}")
+    public CompletableFuture<ResponseEntity<CategoryData>> putCategory(@PathVariable("name") String name, @RequestBody CategoryData categoryData) {
+        if (categoryData.getName() != null && !categoryData.getName().equals(name)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Category name does not match the path");
+        }
+        categoryData.setName(name);
+        try {
+            return categoryService.putCategory(categoryData)
+                                  .thenApply(added -> new ResponseEntity<>(categoryData, added ? HttpStatus.CREATED : HttpStatus.OK));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deletes a category.
+     *
+     * @param name The category name
+     * @return A future of an empty response, with status 204 if the category was deleted and 404 if it did not exist
+     */
+    @DeleteMapping("/{name}")
+    public CompletableFuture<ResponseEntity<Void>> deleteCategory(@PathVariable("name") String name) {
+        return categoryService.deleteCategory(name)
+                              .thenApply(deleted -> new ResponseEntity<>(deleted ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Reloads all categories from the categories file, discarding runtime changes.
+     *
+     * @return A future of the reloaded categories
+     */
+    @PostMapping("/reload")
+    public CompletableFuture<List<CategoryData>> reloadCategories() {
+        return categoryService.reloadCategories().thenApply(ignored -> categoryService.getCategories());
+    }
+}
@@ -1,43 +1,162 @@
 package com.categorize.controller;
 
 import com.categorize.dto.CategorizeRequest;
+import com.categorize.service.ContentCategorizationService;
 import com.categorize.service.WebPageService;
 import com.categorize.service.CategoryService;
-import com.categorize.model.WebPageContent;
+import com.categorize.service.strategy.CategoryMatcher;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import com.categorize.dto.CategorizeResponse;
 import com.categorize.dto.UrlCategoryResult;
 
 /**
  * Controller for handling category-related operations.
- * Provides an endpoint for categorizing URLs based on their content.
+ * Provides an endpoint for categorizing URLs based on their content,
+ * a streaming variant that writes each URL's result as soon as it is ready,
+ * and an endpoint categorizing page content supplied by the client.
  */
 @RestController
 public class CategoryController {
 
     private final WebPageService webPageService;
     private final CategoryService categoryService;
+    private final ContentCategorizationService contentCategorizationService;
 
     @Autowired
-    public CategoryController(WebPageService webPageService, CategoryService categoryService) {
+    public CategoryController(WebPageService webPageService, CategoryService categoryService,
+                              ContentCategorizationService contentCategorizationService) {
         this.webPageService = webPageService;
         this.categoryService = categoryService;
+        this.contentCategorizationService = contentCategorizationService;
     }
 
     @PostMapping("/categorize")
     /**
      * Categorizes URLs based on the provided categories.
+     * The request is processed asynchronously: the servlet thread is released while the pages are fetched,
+     * and the response is written once every URL has a result or the fetch timeout expires.
      *
      * @param request The CategorizeRequest object containing categories and URLs to categorize
-     * @return CategorizeResponse object containing the categorization results for each URL
+     * @return A future of the CategorizeResponse object containing the categorization results for each URL
      */
-    public CategorizeResponse categorizeUrls(@RequestBody CategorizeRequest request) {
-        List<WebPageContent> webPages = webPageService.getWebPagesContent(request.getUrls());
-        return categoryService.categorizeUrls(request.getCategories(), webPages);
+    public CompletableFuture<CategorizeResponse> categorizeUrls(@RequestBody CategorizeRequest request) {
+        return webPageService.categorizeWebPages(request.getUrls(), prepareMatchers(request))
+                             .thenApply(CategorizeResponse::new);
+    }
+
+    /**
+     * Categorizes URLs and streams the results as newline-delimited JSON, one UrlCategoryResult per line,
+     * in the order the URLs finish. The stream ends once every URL has a result or the fetch timeout expires.
+     *
+     * @param request The CategorizeRequest object containing categories and URLs to categorize
+     * @return The emitter writing the results
+     */
+    @PostMapping(value = "/categorize/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseBodyEmitter streamCategorizedUrls(@RequestBody CategorizeRequest request) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        stream(request, emitter, result -> {
+            emitter.send(result, MediaType.APPLICATION_JSON);
+            emitter.send("\n", MediaType.TEXT_PLAIN);
+        });
+        return emitter;
+    }
+
+    /**
+     * Categorizes URLs and streams the results as Server-Sent Events, one {@code result} event per URL,
+     * in the order the URLs finish. The stream ends once every URL has a result or the fetch timeout expires.
+     *
+     * @param request The CategorizeRequest object containing categories and URLs to categorize
+     * @return The emitter writing the events
+     */
+    @PostMapping(value = "/categorize/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCategorizedUrlsAsEvents(@RequestBody CategorizeRequest request) {
+        SseEmitter emitter = new SseEmitter();
+        stream(request, emitter, result -> emitter.send(SseEmitter.event().name("result").data(result, MediaType.APPLICATION_JSON)));
+        return emitter;
+    }
+
+    /**
+     * Categorizes page content supplied by the client, without fetching anything.
+     * The body is a JSON array of pages, each with a {@code url} and either {@code content} (plain text)
+     * or {@code html}; it is read incrementally and categorized in batches on the CPU pool.
+     *
+     * @param categories The names of the categories to match against
+     * @param body       The request body
+     * @return A future of the CategorizeResponse object containing the categorization results for each page
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping(value = "/categorize/content", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<CategorizeResponse> categorizeContent(@RequestParam List<String> categories, InputStream body) throws IOException {
+        try {
+            return contentCategorizationService.categorizeContent(categories, body)
+                                               .thenApply(CategorizeResponse::new);
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * Starts categorizing the requested URLs and writes every result to the emitter as it completes.
+     * Writes are serialized on the emitter, and the emitter is completed after the last write.
+     *
+     * @param request The CategorizeRequest object containing categories and URLs to categorize
+     * @param emitter The emitter to write to and complete
+     * @param writer  Writes one result to the emitter in the wire format of the endpoint
+     */
+    private void stream(CategorizeRequest request, ResponseBodyEmitter emitter, ResultWriter writer) {
+        List<CompletableFuture<Void>> writes = webPageService
+            .categorizeEachWebPage(request.getUrls(), prepareMatchers(request))
+            .stream()
+            .map(result -> result.thenAccept(urlCategoryResult -> write(emitter, writer, urlCategoryResult)))
+            .collect(Collectors.toList());
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0]))
+                         .whenComplete((ignored, e) -> emitter.complete());
+    }
+
+    /**
+     * Prepares the matchers for a request, scoring the pages when the request asks for scores.
+     *
+     * @param request The CategorizeRequest object containing categories and optional scoring options
+     * @return A supplier of a new CategoryMatcher for each page
+     */
+    private Supplier<CategoryMatcher> prepareMatchers(CategorizeRequest request) {
+        return request.getScoring() == null
+               ? categoryService.prepareMatchers(request.getCategories())
+               : categoryService.prepareMatchers(request.getCategories(), request.getScoring());
+    }
+
+    private static void write(ResponseBodyEmitter emitter, ResultWriter writer, UrlCategoryResult result) {
+        synchronized (emitter) {
+            try {
+                writer.write(result);
+            } catch (IOException | IllegalStateException e) {
+                // the client went away or the request timed out; the emitter is completed by Spring
+            }
+        }
+    }
+
+    /**
+     * Writes a single result to an emitter.
+     */
+    @FunctionalInterface
+    private interface ResultWriter {
+        void write(UrlCategoryResult result) throws IOException;
     }
 }
@@ -1,13 +1,17 @@
 package com.categorize.controller;
 
+import com.categorize.dto.CacheStatsResponse;
 import com.categorize.model.WebPageContent;
 import com.categorize.service.WebPageService;
+import com.categorize.service.cache.WebPageCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for handling web page content requests.
@@ -16,20 +20,33 @@ import java.util.List;
 public class WebPageController {
 
     private final WebPageService webPageService;
+    private final WebPageCache   webPageCache;
 
     @Autowired
-    public WebPageController(WebPageService webPageService) {
+    public WebPageController(WebPageService webPageService, WebPageCache webPageCache) {
         this.webPageService = webPageService;
+        this.webPageCache   = webPageCache;
     }
 
     /**
      * Retrieves the content of multiple web pages.
+     * The servlet thread is released while the pages are fetched.
      *
      * @param urls List of URLs to retrieve content from
-     * @return List of WebPageContent objects containing URL and content
+     * @return A future of the list of WebPageContent objects containing URL and content
      */
     @PostMapping("/webpages")
-    public List<WebPageContent> getWebPagesContent(@RequestBody List<String> urls) {
+    public CompletableFuture<List<WebPageContent>> getWebPagesContent(@RequestBody List<String> urls) {
         return webPageService.getWebPagesContent(urls);
     }
+
+    /**
+     * Returns the hit, miss, revalidation and eviction counters of the web page cache.
+     *
+     * @return CacheStatsResponse with the current counters
+     */
+    @GetMapping("/webpages/cache/stats")
+    public CacheStatsResponse getCacheStats() {
+        return webPageCache.getStats();
+    }
 }
@@ -0,0 +1,74 @@
+package com.categorize.dto;
+
+/**
+ * DTO for the statistics of the web page cache.
+ */
+public class CacheStatsResponse {
+    private long hits;
+    private long misses;
+    private long revalidations;
+    private long evictions;
+    private long entries;
+    private long weightBytes;
+
+    // Default constructor for Jackson deserialization
+    public CacheStatsResponse() {
+    }
+
+    public CacheStatsResponse(long hits, long misses, long revalidations, long evictions, long entries, long weightBytes) {
+        this.hits          = hits;
+        this.misses        = misses;
+        this.revalidations = revalidations;
+        this.evictions     = evictions;
+        this.entries       = entries;
+        this.weightBytes   = weightBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getRevalidations() {
+        return revalidations;
+    }
+
+    public void setRevalidations(long revalidations) {
+        this.revalidations = revalidations;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public void setEntries(long entries) {
+        this.entries = entries;
+    }
+
+    public long getWeightBytes() {
+        return weightBytes;
+    }
+
+    public void setWeightBytes(long weightBytes) {
+        this.weightBytes = weightBytes;
+    }
+}
@@ -4,11 +4,12 @@ import java.util.List;
 
 /**
  * DTO for categorization requests.
- * Contains lists of categories and URLs to be categorized.
+ * Contains lists of categories and URLs to be categorized, and optionally how to score the categories.
  */
 public class CategorizeRequest {
-    private List<String> categories;
-    private List<String> urls;
+    private List<String>   categories;
+    private List<String>   urls;
+    private ScoringOptions scoring;
 
     public List<String> getCategories() {
         return categories;
@@ -25,4 +26,12 @@ public class CategorizeRequest {
     public void setUrls(List<String> urls) {
         this.urls = urls;
     }
+
+    public ScoringOptions getScoring() {
+        return scoring;
+    }
+
+    public void setScoring(ScoringOptions scoring) {
+        this.scoring = scoring;
+    }
 }
@@ -0,0 +1,34 @@
+package com.categorize.dto;
+
+/**
+ * DTO for the score of a category on a page: the sum of the weights of its keyword hits.
+ */
+public class CategoryScore {
+    private String name;
+    private double score;
+
+    // Default constructor for Jackson deserialization
+    public CategoryScore() {
+    }
+
+    public CategoryScore(String name, double score) {
+        this.name  = name;
+        this.score = score;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
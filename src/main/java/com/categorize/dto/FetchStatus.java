@@ -0,0 +1,26 @@
+package com.categorize.dto;
+
+/**
+ * Enum representing the outcome of fetching a single URL.
+ */
+public enum FetchStatus {
+    /**
+     * The page was fetched and processed successfully.
+     */
+    OK,
+
+    /**
+     * The page could not be fetched and processed before the request deadline.
+     */
+    TIMEOUT,
+
+    /**
+     * The page could not be fetched or parsed.
+     */
+    ERROR,
+
+    /**
+     * The page body exceeded the configured maximum size.
+     */
+    TOO_LARGE
+}
@@ -0,0 +1,46 @@
+package com.categorize.dto;
+
+/**
+ * DTO for the scoring options of a categorization request.
+ * When present, every keyword hit adds the keyword's weight to its category's score,
+ * categories scoring below the threshold are dropped and only the highest scoring categories are returned.
+ */
+public class ScoringOptions {
+    private double minScore;
+    private int    topK;
+
+    // Default constructor for Jackson deserialization
+    public ScoringOptions() {
+    }
+
+    public ScoringOptions(double minScore, int topK) {
+        this.minScore = minScore;
+        this.topK     = topK;
+    }
+
+    /**
+     * Returns the minimum score a category needs to be reported; categories without any hit are never reported.
+     *
+     * @return The minimum score
+     */
+    public double getMinScore() {
+        return minScore;
+    }
+
+    public void setMinScore(double minScore) {
+        this.minScore = minScore;
+    }
+
+    /**
+     * Returns the maximum number of categories to report, highest score first.
+     *
+     * @return The number of categories, or 0 or less for no limit
+     */
+    public int getTopK() {
+        return topK;
+    }
+
+    public void setTopK(int topK) {
+        this.topK = topK;
+    }
+}
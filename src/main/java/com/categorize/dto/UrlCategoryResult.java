@@ -1,18 +1,41 @@
 package com.categorize.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 /**
  * DTO for individual URL categorization results.
- * Contains a URL and its matching categories.
+ * Contains a URL, its matching categories and the status of fetching it.
+ * Results produced by the strategies hold their categories as a {@link com.categorize.service.strategy.MatchedCategories}
+ * bitset, whose names are resolved when the result is serialized.
+ * Results of scored requests also carry the scores of the reported categories, highest first.
  */
 public class UrlCategoryResult {
-    private String url;
+    private String       url;
     private List<String> categories;
+    private FetchStatus  status;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<CategoryScore> scores;
+
+    // Default constructor for Jackson deserialization
+    public UrlCategoryResult() {
+    }
 
     public UrlCategoryResult(String url, List<String> categories) {
-        this.url = url;
+        this(url, categories, FetchStatus.OK);
+    }
+
+    public UrlCategoryResult(String url, List<String> categories, FetchStatus status) {
+        this(url, categories, status, null);
+    }
+
+    public UrlCategoryResult(String url, List<String> categories, FetchStatus status, List<CategoryScore> scores) {
+        this.url        = url;
         this.categories = categories;
+        this.status     = status;
+        this.scores     = scores;
     }
 
     public String getUrl() {
@@ -30,4 +53,20 @@ public class UrlCategoryResult {
     public void setCategories(List<String> categories) {
         this.categories = categories;
     }
+
+    public FetchStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(FetchStatus status) {
+        this.status = status;
+    }
+
+    public List<CategoryScore> getScores() {
+        return scores;
+    }
+
+    public void setScores(List<CategoryScore> scores) {
+        this.scores = scores;
+    }
 }
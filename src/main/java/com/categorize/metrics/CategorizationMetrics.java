@@ -0,0 +1,151 @@
+package com.categorize.metrics;
+
+import com.categorize.service.strategy.CategorizationStrategy;
+import com.categorize.service.strategy.CategoryMatcher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Records the latency of every stage of categorizing a page, for the Actuator Prometheus endpoint.
+ * <p>
+ * All timers publish percentile histograms, so p99 latencies can be aggregated across instances.
+ * Timers of page fetches are tagged with the target host; to bound the number of time series only the first
+ * {@code metrics.host-tags.max} distinct hosts get their own tag, all later hosts are tagged {@value #OTHER_HOST}.
+ * Timers of matching are tagged with the strategy.
+ */
+@Component
+public class CategorizationMetrics {
+    /**
+     * The host tag of hosts beyond the limit, and of URLs without a host.
+     */
+    public static final String OTHER_HOST = "other";
+
+    private final MeterRegistry registry;
+    private final int           maxHostTags;
+    private final Set<String>   hostTags;
+
+    /**
+     * Constructs the metrics on the application's registry.
+     *
+     * @param registry    The registry to register the meters with
+     * @param maxHostTags The number of distinct hosts tagged by name
+     */
+    @Autowired
+    public CategorizationMetrics(MeterRegistry registry, @Value("${metrics.host-tags.max:100}") int maxHostTags) {
+        this.registry    = registry;
+        this.maxHostTags = maxHostTags;
+        this.hostTags    = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Constructs metrics kept in memory only, for code running outside the application context.
+     */
+    public CategorizationMetrics() {
+        this(new SimpleMeterRegistry(), 100);
+    }
+
+    /**
+     * Returns a timer with a percentile histogram, registering it on first use.
+     *
+     * @param name        The meter name
+     * @param description The meter description
+     * @param tags        The tags as alternating keys and values
+     * @return The timer
+     */
+    public Timer timer(String name, String description, String... tags) {
+        return Timer.builder(name)
+                    .description(description)
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(registry);
+    }
+
+    /**
+     * Returns a counter, registering it on first use.
+     *
+     * @param name        The meter name
+     * @param description The meter description
+     * @param tags        The tags as alternating keys and values
+     * @return The counter
+     */
+    public Counter counter(String name, String description, String... tags) {
+        return Counter.builder(name)
+                      .description(description)
+                      .tags(tags)
+                      .register(registry);
+    }
+
+    /**
+     * Returns the host tag of a URL.
+     *
+     * @param url The URL
+     * @return The host of the URL if it is among the tagged hosts, {@value #OTHER_HOST} otherwise
+     */
+    public String hostTagOfUrl(String url) {
+        return hostTag(hostOf(url).orElse(null));
+    }
+
+    /**
+     * Returns the tag of a host, admitting it to the tagged hosts while there is room.
+     *
+     * @param host The host name
+     * @return The host if it is among the tagged hosts, {@value #OTHER_HOST} otherwise
+     */
+    public String hostTag(String host) {
+        if (host == null || host.isEmpty()) {
+            return OTHER_HOST;
+        }
+        if (hostTags.contains(host)) {
+            return host;
+        }
+        synchronized (hostTags) {
+            if (hostTags.size() < maxHostTags) {
+                hostTags.add(host);
+                return host;
+            }
+        }
+        return hostTags.contains(host) ? host : OTHER_HOST;
+    }
+
+    /**
+     * Returns the tag of a strategy.
+     *
+     * @param strategy The strategy
+     * @return The simple class name of the strategy
+     */
+    public static String strategyTag(CategorizationStrategy strategy) {
+        return strategy.getClass().getSimpleName();
+    }
+
+    /**
+     * Wraps a supplier of matchers so that the time every page spends in its matcher is recorded
+     * in the {@code categorize.page.match} timer.
+     *
+     * @param matchers The supplier of matchers
+     * @param strategy The tag of the strategy preparing the matchers
+     * @return A supplier of timed matchers
+     */
+    public Supplier<CategoryMatcher> timed(Supplier<CategoryMatcher> matchers, String strategy) {
+        Timer timer = timer("categorize.page.match", "Time spent matching the text of a page", "strategy", strategy);
+        return () -> new TimedCategoryMatcher(matchers.get(), timer);
+    }
+
+    private static Optional<String> hostOf(String url) {
+        try {
+            return Optional.ofNullable(URI.create(url).getHost());
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
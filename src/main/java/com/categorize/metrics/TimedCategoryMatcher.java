@@ -0,0 +1,65 @@
+package com.categorize.metrics;
+
+import com.categorize.dto.CategoryScore;
+import com.categorize.service.strategy.CategoryMatcher;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A CategoryMatcher that adds up the time spent feeding it and records the total once,
+ * when the result of the page is first read.
+ */
+final class TimedCategoryMatcher implements CategoryMatcher {
+    private final CategoryMatcher delegate;
+    private final Timer           timer;
+    private       long            nanos;
+    private       boolean         recorded;
+
+    TimedCategoryMatcher(CategoryMatcher delegate, Timer timer) {
+        this.delegate = delegate;
+        this.timer    = timer;
+    }
+
+    @Override
+    public void feed(CharSequence chunk) {
+        long start = System.nanoTime();
+        delegate.feed(chunk);
+        nanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public boolean isComplete() {
+        return delegate.isComplete();
+    }
+
+    @Override
+    public boolean matchesWholeWords() {
+        return delegate.matchesWholeWords();
+    }
+
+    @Override
+    public List<String> getMatchedCategories() {
+        long         start  = System.nanoTime();
+        List<String> result = delegate.getMatchedCategories();
+        record(System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public Optional<List<CategoryScore>> getScores() {
+        long                          start  = System.nanoTime();
+        Optional<List<CategoryScore>> result = delegate.getScores();
+        record(System.nanoTime() - start);
+        return result;
+    }
+
+    private void record(long resultNanos) {
+        if (!recorded) {
+            recorded = true;
+            timer.record(nanos + resultNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
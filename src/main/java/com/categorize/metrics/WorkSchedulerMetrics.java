@@ -0,0 +1,56 @@
+package com.categorize.metrics;
+
+import com.categorize.concurrent.WorkScheduler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Publishes the state of the I/O and CPU pools and the rebuild thread of the {@link WorkScheduler}:
+ * active threads, pool size, queue depth and completed tasks as {@code executor.*} meters tagged with the pool name,
+ * and the tasks rejected by a saturated pool as {@code categorize.executor.rejected}.
+ * An I/O pool on virtual threads is not a thread pool Micrometer can inspect, so its running and waiting fetches
+ * are published as the {@code executor.active} and {@code executor.queued} gauges instead.
+ */
+@Component
+public class WorkSchedulerMetrics implements MeterBinder {
+    private final WorkScheduler workScheduler;
+
+    public WorkSchedulerMetrics(WorkScheduler workScheduler) {
+        this.workScheduler = workScheduler;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (workScheduler.getIoExecutor() instanceof ThreadPoolExecutor) {
+            new ExecutorServiceMetrics(workScheduler.getIoExecutor(), "io", Tags.empty()).bindTo(registry);
+        } else {
+            Gauge.builder("executor.active", workScheduler, WorkScheduler::getIoActiveCount)
+                 .description("The approximate number of threads that are actively executing tasks")
+                 .baseUnit("threads")
+                 .tag("name", "io")
+                 .register(registry);
+            Gauge.builder("executor.queued", workScheduler, WorkScheduler::getIoQueuedCount)
+                 .description("The approximate number of tasks that are queued for execution")
+                 .baseUnit("tasks")
+                 .tag("name", "io")
+                 .register(registry);
+        }
+        new ExecutorServiceMetrics(workScheduler.getCpuExecutor(), "cpu", Tags.empty()).bindTo(registry);
+        new ExecutorServiceMetrics(workScheduler.getRebuildExecutor(), "rebuild", Tags.empty()).bindTo(registry);
+        FunctionCounter.builder("categorize.executor.rejected", workScheduler, WorkScheduler::getIoRejectedCount)
+                       .description("Tasks rejected by a saturated pool")
+                       .tag("name", "io")
+                       .register(registry);
+        FunctionCounter.builder("categorize.executor.rejected", workScheduler, WorkScheduler::getCpuRejectedCount)
+                       .description("Tasks rejected by a saturated pool")
+                       .tag("name", "cpu")
+                       .register(registry);
+    }
+}
@@ -1,14 +1,21 @@
 package com.categorize.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a category with its name and associated keywords.
  * Used for data transfer and serialization of category information.
+ * Keywords can optionally be given a weight for scored categorization; keywords without one weigh 1.
  */
 public class CategoryData {
-    private String name;
-    private List<String> keywords;
+    private String              name;
+    private List<String>        keywords;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Double> weights;
 
     public CategoryData() {}
 
@@ -27,4 +34,12 @@ public class CategoryData {
     public void setKeywords(List<String> keywords) {
         this.keywords = keywords;
     }
+
+    public Map<String, Double> getWeights() {
+        return weights;
+    }
+
+    public void setWeights(Map<String, Double> weights) {
+        this.weights = weights;
+    }
 }
@@ -1,14 +1,24 @@
 package com.categorize.model;
 
+import java.util.Locale;
+
 /**
  * Represents a keyword associated with a category.
- * The keyword is stored in lowercase for case-insensitive matching.
+ * The keyword is stored in lowercase, independently of the default locale;
+ * the strategies normalize it further when they compile it.
+ * The weight is what a hit of the keyword adds to its category's score when categorization is scored.
  */
 public class CategoryKeyword {
     private String keyword;
+    private double weight;
 
     public CategoryKeyword(String keyword) {
-        this.keyword = keyword.toLowerCase();
+        this(keyword, 1.0);
+    }
+
+    public CategoryKeyword(String keyword, double weight) {
+        this.keyword = keyword.toLowerCase(Locale.ROOT);
+        this.weight  = weight;
     }
 
     public String getKeyword() {
@@ -16,6 +26,14 @@ public class CategoryKeyword {
     }
 
     public void setKeyword(String keyword) {
-        this.keyword = keyword.toLowerCase();
+        this.keyword = keyword.toLowerCase(Locale.ROOT);
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
     }
 }
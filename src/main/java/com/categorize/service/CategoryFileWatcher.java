@@ -0,0 +1,82 @@
+package com.categorize.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a single file and runs a callback after it changes.
+ * <p>
+ * Editors often save a file in several steps, so events are debounced: the callback runs once the file
+ * has been quiet for {@link #QUIET_PERIOD_MS} milliseconds. The watch runs on its own daemon thread.
+ */
+class CategoryFileWatcher implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(CategoryFileWatcher.class);
+
+    private static final long QUIET_PERIOD_MS = 500;
+
+    private final WatchService watchService;
+    private final Path         file;
+    private final Runnable     onChange;
+    private final Thread       thread;
+
+    /**
+     * Starts watching a file.
+     *
+     * @param file     The file to watch
+     * @param onChange The callback to run after the file changed
+     * @throws IOException if the directory of the file cannot be watched
+     */
+    CategoryFileWatcher(Path file, Runnable onChange) throws IOException {
+        this.file         = file.toAbsolutePath();
+        this.onChange     = onChange;
+        this.watchService = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::run, "categories-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        log.info("Watching {} for changes", this.file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                if (!concernsFile(watchService.take())) {
+                    continue;
+                }
+                // wait until the file has been quiet for a while before reloading it
+                for (WatchKey key; (key = watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)) != null; ) {
+                    concernsFile(key);
+                }
+                onChange.run();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+
+    /**
+     * Drains the events of a key and resets it.
+     *
+     * @param key The signalled key
+     * @return true if any of the events concern the watched file
+     */
+    private boolean concernsFile(WatchKey key) {
+        boolean concernsFile = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            concernsFile |= file.getFileName().equals(event.context());
+        }
+        key.reset();
+        return concernsFile;
+    }
+}
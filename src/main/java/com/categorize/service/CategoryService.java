@@ -1,23 +1,41 @@
 package com.categorize.service;
 
+import com.categorize.concurrent.WorkScheduler;
+import com.categorize.metrics.CategorizationMetrics;
 import com.categorize.model.Category;
 import com.categorize.model.CategoryKeyword;
-import com.categorize.model.WebPageContent;
+import com.categorize.service.matcher.DictionarySnapshot;
+import com.categorize.service.matcher.KeywordAutomaton;
+import com.categorize.service.matcher.PhraseIndex;
+import com.categorize.service.matcher.TextNormalizer;
 import com.categorize.service.strategy.*;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
 
-import com.categorize.dto.CategorizeResponse;
-import com.categorize.dto.UrlCategoryResult;
+import com.categorize.dto.ScoringOptions;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.categorize.model.CategoriesData;
 import com.categorize.model.CategoryData;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -27,42 +45,110 @@ import org.slf4j.LoggerFactory;
  * Service for managing categories and categorizing web pages.
  * This service initializes predefined categories from a JSON file and provides methods for categorizing URLs based on their content.
  * It supports multiple categorization strategies that can be configured and switched at runtime.
+ * <p>
+ * The categories and the strategy compiled from them are published together as an immutable snapshot.
+ * Categories can be added, replaced and deleted at runtime, and the JSON file is reloaded when it changes on disk.
+ * Every change is compiled on a background thread, one change at a time, and then published with an atomic swap,
+ * so requests never wait for a rebuild and never see a half-built strategy; a request that started before
+ * the swap finishes on the snapshot it started with.
+ * <p>
+ * Each snapshot keeps a bounded cache of matchers prepared for a requested set of categories, keyed by the set of
+ * category ids, so the usual fixed category combinations skip the per-request selection and matcher setup.
+ * The time every page spends in its matcher is recorded by strategy, see {@link CategorizationMetrics#timed}.
+ * <p>
+ * At startup the categories and the compiled automaton or phrase index can be taken from a precompiled
+ * {@link DictionarySnapshot} instead of the JSON file; a snapshot that does not match the JSON file, the normalization
+ * settings or the format version is ignored and the JSON file is loaded as usual.
  */
 @Service
-public class CategoryService {
-    private static final Logger log                  = LoggerFactory.getLogger(CategoryService.class);
-    private static final String CATEGORIES_JSON_PATH = "classpath:categories.json";
+public class CategoryService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(CategoryService.class);
 
-    private final List<Category>         categories;
-    private       CategorizationStrategy strategy;
-    private final ResourceLoader         resourceLoader;
-    private final ObjectMapper           objectMapper;
+    private final AtomicReference<Snapshot> snapshot;
+    private final Resource                  categoriesResource;
+    private final ObjectMapper              objectMapper;
+    private final WorkScheduler             workScheduler;
+    private final TextNormalizer            normalizer;
+    private final CategorizationMetrics     metrics;
+    private final StrategyCalibrator        calibrator;
+    private final SegmentedMatcher          segments;
+    private final ExecutorService           rebuildExecutor;
+    private final CategoryFileWatcher       fileWatcher;
+    private final long                      matcherCacheSize;
+    private final boolean                   prefilter;
 
     /**
      * Constructs a new CategoryService.
      * Initializes the categories list by populating it with categories from a JSON file.
      * Sets up the categorization strategy based on the provided configuration.
      *
-     * @param strategyName   The name of the categorization strategy to use, specified in application properties.
-     * @param resourceLoader Spring's ResourceLoader for loading the categories JSON file.
-     * @param objectMapper   Jackson's ObjectMapper for parsing JSON.
+     * @param strategyName       The name of the categorization strategy to use, specified in application properties.
+     * @param categoriesLocation The location of the categories JSON file.
+     * @param watchCategories    Whether the categories JSON file is reloaded when it changes on disk.
+     * @param matcherCacheSize   The number of requested category sets to keep prepared matchers for.
+     * @param prefilter          Whether the naive and regex strategies screen the text with a keyword prefilter.
+     * @param snapshotLocation   The path of a dictionary snapshot to start from, or empty to always load the JSON file.
+     * @param parallelChars      The length from which a page is matched in parallel segments.
+     * @param segmentChars       The length of a segment of a page matched in parallel.
+     * @param resourceLoader     Spring's ResourceLoader for loading the categories JSON file.
+     * @param objectMapper       Jackson's ObjectMapper for parsing JSON.
+     * @param workScheduler      The scheduler whose CPU pool the strategies categorize pages on.
+     * @param normalizer         The normalizer the strategies apply to keywords and page text.
+     * @param metrics            The metrics the matching time of every page is recorded to.
+     * @param calibrator         The calibrator of the adaptive strategy, used when the strategy is {@code auto}.
      */
     @Autowired
     public CategoryService(
-            @Value("${categorization.strategy}") String strategyName, ResourceLoader resourceLoader, ObjectMapper objectMapper) {
-        this.resourceLoader = resourceLoader;
-        this.objectMapper   = objectMapper;
-        this.categories     = new ArrayList<>();
-        initializeCategories();
-        this.strategy = createStrategy(CategorizationStrategyType.fromString(strategyName));
+            @Value("${categorization.strategy}") String strategyName,
+            @Value("${categories.location:classpath:categories.json}") String categoriesLocation,
+            @Value("${categories.watch:true}") boolean watchCategories,
+            @Value("${categories.matcher-cache.max-size:64}") long matcherCacheSize,
+            @Value("${categorization.prefilter.enabled:true}") boolean prefilter,
+            @Value("${categories.snapshot.location:}") String snapshotLocation,
+            @Value("${content.parallel.threshold-chars:1048576}") int parallelChars,
+            @Value("${content.parallel.segment-chars:262144}") int segmentChars,
+            ResourceLoader resourceLoader, ObjectMapper objectMapper, WorkScheduler workScheduler, TextNormalizer normalizer,
+            CategorizationMetrics metrics, StrategyCalibrator calibrator) {
+        this.categoriesResource = resourceLoader.getResource(categoriesLocation);
+        this.objectMapper       = objectMapper;
+        this.workScheduler      = workScheduler;
+        this.normalizer         = normalizer;
+        this.metrics            = metrics;
+        this.calibrator         = calibrator;
+        this.matcherCacheSize   = matcherCacheSize;
+        this.prefilter          = prefilter;
+        this.segments           = new SegmentedMatcher(workScheduler.getCpuExecutor(), normalizer, parallelChars, segmentChars);
+        this.rebuildExecutor    = workScheduler.getRebuildExecutor();
+
+        DictionarySnapshot dictionary = snapshotLocation.isEmpty() ? null : loadSnapshot(Paths.get(snapshotLocation));
+        List<Category>     categories = dictionary != null ? dictionary.getCategories() : initializeCategories();
+        this.snapshot    = new AtomicReference<>(new Snapshot(categories, createStrategy(CategorizationStrategyType.fromString(strategyName), categories, dictionary), matcherCacheSize));
+        this.fileWatcher = watchCategories ? watch(categoriesLocation) : null;
     }
 
-    private CategorizationStrategy createStrategy(CategorizationStrategyType strategyType) {
+    /**
+     * Creates the configured strategy, reusing the compiled tables of a dictionary snapshot where the strategy has any.
+     *
+     * @param strategyType The strategy to create
+     * @param categories   The categories to match
+     * @param dictionary   The snapshot the categories were loaded from, or null if they were read from JSON
+     * @return The strategy
+     */
+    private CategorizationStrategy createStrategy(CategorizationStrategyType strategyType, List<Category> categories, DictionarySnapshot dictionary) {
         switch (strategyType) {
             case NAIVE:
-                return new NaiveCategorizationStrategy();
+                return new NaiveCategorizationStrategy(workScheduler.getCpuExecutor(), normalizer, prefilter, segments);
             case REGEX:
-                return new RegexCategorizationStrategy(categories);
+                return new RegexCategorizationStrategy(categories, workScheduler.getCpuExecutor(), normalizer, prefilter, segments);
+            case AHO_CORASICK:
+                KeywordAutomaton automaton = dictionary != null ? dictionary.getAutomaton() : KeywordAutomaton.build(categories, normalizer);
+                return new AhoCorasickCategorizationStrategy(categories, automaton, workScheduler.getCpuExecutor(), normalizer, segments);
+            case WHOLE_WORD:
+                PhraseIndex index = dictionary != null ? dictionary.getPhraseIndex() : PhraseIndex.build(categories, normalizer);
+                return new WholeWordCategorizationStrategy(categories, index, workScheduler.getCpuExecutor(), normalizer, segments);
+            case AUTO:
+                return new AdaptiveCategorizationStrategy(categories, workScheduler.getCpuExecutor(), normalizer, prefilter, calibrator,
+                                                          segments);
             default:
                 throw new IllegalArgumentException("Unknown strategy: " + strategyType);
         }
@@ -73,60 +159,443 @@ public class CategoryService {
      * Reads the categories data from a predefined JSON file and creates Category objects.
      * If an error occurs during file reading or parsing, it throws a runtime exception.
      *
+     * @return The loaded categories
      * @throws RuntimeException if categories cannot be loaded from the JSON file
      */
-    private void initializeCategories() {
-        try (InputStream inputStream = resourceLoader.getResource(CATEGORIES_JSON_PATH).getInputStream()) {
-            CategoriesData categoriesData = objectMapper.readValue(inputStream, CategoriesData.class);
-
-            categories.addAll(categoriesData.getCategories().stream().map(this::createCategory).collect(Collectors.toList()));
-        } catch (IOException e) {
+    private List<Category> initializeCategories() {
+        try {
+            return readCategories();
+        } catch (IOException | IllegalArgumentException e) {
             log.error("Failed to load categories from JSON file", e);
             throw new RuntimeException("Failed to initialize categories. Application cannot start.", e);
         }
     }
 
+    /**
+     * Loads a dictionary snapshot compiled from the current categories JSON file.
+     *
+     * @param file The snapshot file
+     * @return The snapshot, or null if it is missing, stale or corrupt
+     */
+    private DictionarySnapshot loadSnapshot(Path file) {
+        long started = System.nanoTime();
+        try {
+            DictionarySnapshot dictionary = DictionarySnapshot.load(file, normalizer, DictionarySnapshot.checksum(readSource()));
+            log.info("Loaded {} categories from dictionary snapshot {} in {} ms",
+                     dictionary.getCategories().size(), file, (System.nanoTime() - started) / 1_000_000);
+            return dictionary;
+        } catch (IOException e) {
+            log.warn("Not using dictionary snapshot {}, loading the categories JSON file instead: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Compiles the categories JSON file into a dictionary snapshot for faster startup, see {@link DictionarySnapshot}.
+     * The snapshot is built with this service's normalization settings and records the checksum of the JSON file,
+     * so it is only used while both are unchanged.
+     *
+     * @param file The snapshot file to write
+     * @return The number of categories compiled
+     * @throws IOException              if the JSON file cannot be read or the snapshot cannot be written
+     * @throws IllegalArgumentException if a category is invalid or defined twice
+     */
+    public int compileSnapshot(Path file) throws IOException {
+        byte[]         source     = readSource();
+        List<Category> categories = readCategories(new ByteArrayInputStream(source));
+        DictionarySnapshot.write(file, categories, normalizer, DictionarySnapshot.checksum(source));
+        return categories.size();
+    }
+
+    /**
+     * Reads the raw bytes of the categories JSON file.
+     *
+     * @return The file contents
+     * @throws IOException if the file cannot be read
+     */
+    private byte[] readSource() throws IOException {
+        try (InputStream inputStream = categoriesResource.getInputStream()) {
+            ByteArrayOutputStream out    = new ByteArrayOutputStream();
+            byte[]                buffer = new byte[8192];
+            for (int read = inputStream.read(buffer); read >= 0; read = inputStream.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Reads and validates the categories JSON file.
+     *
+     * @return The categories in file order
+     * @throws IOException              if the file cannot be read or parsed
+     * @throws IllegalArgumentException if a category is invalid or defined twice
+     */
+    private List<Category> readCategories() throws IOException {
+        try (InputStream inputStream = categoriesResource.getInputStream()) {
+            return readCategories(inputStream);
+        }
+    }
+
+    /**
+     * Parses and validates categories JSON.
+     *
+     * @param inputStream The JSON to parse
+     * @return The categories in file order
+     * @throws IOException              if the JSON cannot be parsed
+     * @throws IllegalArgumentException if a category is invalid or defined twice
+     */
+    private List<Category> readCategories(InputStream inputStream) throws IOException {
+        CategoriesData categoriesData = objectMapper.readValue(inputStream, CategoriesData.class);
+
+        List<Category> categories = categoriesData.getCategories().stream().map(this::createCategory).collect(Collectors.toList());
+        Set<String>    names      = new HashSet<>();
+        categories.stream()
+                  .filter(category -> !names.add(category.getName()))
+                  .findFirst()
+                  .ifPresent(category -> {
+                      throw new IllegalArgumentException("Category defined twice: " + category.getName());
+                  });
+        return categories;
+    }
+
     /**
      * Creates a Category object from CategoryData.
      *
-     * @param categoryData The CategoryData object containing the category name and keywords.
+     * @param categoryData The CategoryData object containing the category name, keywords and optional keyword weights.
      * @return A new Category object populated with the name and keywords from the CategoryData.
+     * @throws IllegalArgumentException if the name is blank, there are no keywords, or a weight is not positive
+     *                                  or given for an unknown keyword
      */
     private Category createCategory(CategoryData categoryData) {
+        if (categoryData.getName() == null || categoryData.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Category name must not be empty");
+        }
+        if (categoryData.getKeywords() == null || categoryData.getKeywords().stream().allMatch(keyword -> keyword == null || keyword.isEmpty())) {
+            throw new IllegalArgumentException("Category " + categoryData.getName() + " needs at least one keyword");
+        }
+        Map<String, Double> weights = categoryData.getWeights() == null ? Collections.emptyMap() : categoryData.getWeights();
+        weights.forEach((keyword, weight) -> {
+            if (!categoryData.getKeywords().contains(keyword)) {
+                throw new IllegalArgumentException("Category " + categoryData.getName() + " has a weight for an unknown keyword: " + keyword);
+            }
+            if (weight == null || !(weight > 0) || weight.isInfinite()) {
+                throw new IllegalArgumentException("Category " + categoryData.getName() + " has an invalid weight for " + keyword + ": " + weight);
+            }
+        });
         Category category = new Category(categoryData.getName());
-        categoryData.getKeywords().forEach(keyword -> category.addKeyword(new CategoryKeyword(keyword)));
+        categoryData.getKeywords().stream()
+                    .filter(keyword -> keyword != null && !keyword.isEmpty())
+                    .forEach(keyword -> category.addKeyword(new CategoryKeyword(keyword, weights.getOrDefault(keyword, 1.0))));
         return category;
     }
 
     /**
      * Sets the categorization strategy to be used.
      * This method allows for dynamic switching of categorization strategies at runtime.
+     * The strategy is published atomically together with the current categories.
      *
      * @param strategy The CategorizationStrategy to be used for categorization.
      */
     public void setStrategy(CategorizationStrategy strategy) {
-        this.strategy = strategy;
+        snapshot.updateAndGet(current -> new Snapshot(current.categories, strategy, matcherCacheSize));
+    }
+
+    /**
+     * Creates an incremental matcher for a single page using the current categorization strategy.
+     * The matcher is prepared once per requested category set and snapshot, see {@link #prepareMatchers}.
+     *
+     * @param categoryNames A list of category names to consider for categorization.
+     * @return A new CategoryMatcher to feed the page text to.
+     */
+    public CategoryMatcher newMatcher(List<String> categoryNames) {
+        return prepareMatchers(categoryNames).get();
     }
 
     /**
-     * Categorizes a list of web pages based on their content and the specified categories.
-     * This method filters the categories based on the provided category names and then
-     * uses the current categorization strategy to categorize the web pages.
+     * Returns a supplier of matchers for the given categories, prepared by the current categorization strategy.
+     * Requests for the same category set share the prepared supplier until the categories or the strategy change.
+     * Unknown category names are ignored.
      *
      * @param categoryNames A list of category names to consider for categorization.
-     * @param webPages      A list of WebPageContent objects containing the URLs and their content.
-     * @return A CategorizeResponse object containing the categorization results.
-     * The results include a list of UrlCategoryResult objects, each containing
-     * a URL and its matching categories.
+     * @return A supplier of a new CategoryMatcher for each page.
+     */
+    public Supplier<CategoryMatcher> prepareMatchers(List<String> categoryNames) {
+        Snapshot current = snapshot.get();
+        return metrics.timed(current.select(categoryNames).matchers, CategorizationMetrics.strategyTag(current.strategy));
+    }
+
+    /**
+     * Returns a supplier of scoring matchers for the given categories, prepared by the current categorization strategy.
+     * Each matcher counts the weighted keyword hits of its page and reports the categories reaching the threshold,
+     * highest score first. Unlike {@link #prepareMatchers(List)} the supplier is not cached, as it depends on the options.
+     * Unknown category names are ignored.
+     *
+     * @param categoryNames A list of category names to consider for categorization.
+     * @param scoring       The threshold and the number of categories to report.
+     * @return A supplier of a new scoring CategoryMatcher for each page.
+     */
+    public Supplier<CategoryMatcher> prepareMatchers(List<String> categoryNames, ScoringOptions scoring) {
+        Snapshot current = snapshot.get();
+        return metrics.timed(current.strategy.prepare(current.select(categoryNames).categories, scoring),
+                             CategorizationMetrics.strategyTag(current.strategy));
+    }
+
+    /**
+     * Returns a function matching the whole text of pages held in memory against the given categories, with the
+     * matchers the strategy prepares for whole pages, see {@link CategorizationStrategy#preparePages(List)}. Pages from {@code content.parallel.threshold-chars} on are matched
+     * in parallel segments, see {@link SegmentedMatcher}. Unknown category names are ignored.
+     *
+     * @param categoryNames A list of category names to consider for categorization.
+     * @return A function returning the names of the categories matched by the text of a page.
+     */
+    public Function<CharSequence, List<String>> prepareContentMatching(List<String> categoryNames) {
+        Snapshot                                          current   = snapshot.get();
+        Selection                                         selection = current.select(categoryNames);
+        Function<CharSequence, Supplier<CategoryMatcher>> pages     = selection.pages();
+        String                                            tag       = CategorizationMetrics.strategyTag(current.strategy);
+        return content -> segments.match(content, metrics.timed(pages.apply(content), tag), selection.names, selection.overlap);
+    }
+
+    /**
+     * Returns the names of all known categories.
+     *
+     * @return The category names, in the order they were loaded.
+     */
+    public List<String> getCategoryNames() {
+        return snapshot.get().categories.stream().map(Category::getName).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns all known categories with their keywords.
+     *
+     * @return The categories, in the order they were loaded or added.
+     */
+    public List<CategoryData> getCategories() {
+        return snapshot.get().categories.stream().map(CategoryService::toCategoryData).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns a single category with its keywords.
+     *
+     * @param name The category name.
+     * @return The category, or empty if there is no category with that name.
+     */
+    public Optional<CategoryData> getCategory(String name) {
+        return Optional.ofNullable(snapshot.get().byName.get(name)).map(CategoryService::toCategoryData);
+    }
+
+    /**
+     * Adds a category, or replaces the keywords of an existing category with the same name.
+     * The strategy is rebuilt in the background; the returned future completes once the change is live.
+     *
+     * @param categoryData The category name and keywords.
+     * @return A future completing with true if the category was added, false if it replaced an existing one.
+     * @throws IllegalArgumentException if the name is blank or there are no keywords
+     */
+    public CompletableFuture<Boolean> putCategory(CategoryData categoryData) {
+        Category category = createCategory(categoryData);
+        return rebuild(categories -> {
+            List<Category> updated = new ArrayList<>(categories);
+            int index = indexOf(updated, category.getName());
+            if (index < 0) {
+                updated.add(category);
+            } else {
+                updated.set(index, category);
+            }
+            return updated;
+        }).thenApply(previous -> indexOf(previous, category.getName()) < 0);
+    }
+
+    /**
+     * Deletes a category.
+     * The strategy is rebuilt in the background; the returned future completes once the change is live.
+     *
+     * @param name The category name.
+     * @return A future completing with true if the category existed, false otherwise.
+     */
+    public CompletableFuture<Boolean> deleteCategory(String name) {
+        return rebuild(categories -> categories.stream()
+                                               .filter(category -> !category.getName().equals(name))
+                                               .collect(Collectors.toList()))
+            .thenApply(previous -> indexOf(previous, name) >= 0);
+    }
+
+    /**
+     * Replaces all categories with the contents of the categories JSON file, discarding runtime changes.
+     * If the file cannot be read or is invalid, the current categories stay in place.
+     *
+     * @return A future completing once the reloaded categories are live.
      */
-    public CategorizeResponse categorizeUrls(List<String> categoryNames, List<WebPageContent> webPages) {
-        Set<String> categoryNamesSet = new HashSet<>(categoryNames);
-        List<Category> selectedCategories = categories.stream()
-                                                      .filter(category -> categoryNamesSet.contains(category.getName()))
-                                                      .collect(Collectors.toList());
+    public CompletableFuture<Void> reloadCategories() {
+        return rebuild(categories -> {
+            try {
+                return readCategories();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to reload categories from " + categoriesResource, e);
+            }
+        }).thenAccept(previous -> log.info("Reloaded categories from {}", categoriesResource));
+    }
 
-        List<UrlCategoryResult> results = strategy.categorize(selectedCategories, webPages);
+    /**
+     * Stops watching the categories file. The rebuild thread is stopped with the {@link WorkScheduler}.
+     */
+    @Override
+    public void destroy() throws IOException {
+        if (fileWatcher != null) {
+            fileWatcher.close();
+        }
+    }
 
-        return new CategorizeResponse(results);
+    /**
+     * Applies a change to the category list on the rebuild thread, rebuilds the strategy and publishes both.
+     * Changes are applied one at a time; if the strategy is switched while a rebuild runs,
+     * the rebuild is repeated for the new strategy before it is published.
+     *
+     * @param change Computes the new category list from the current one
+     * @return A future completing with the category list the change was applied to, once the change is live
+     */
+    private CompletableFuture<List<Category>> rebuild(UnaryOperator<List<Category>> change) {
+        return CompletableFuture.supplyAsync(() -> {
+            while (true) {
+                Snapshot       current    = snapshot.get();
+                List<Category> categories = change.apply(current.categories);
+                long           started    = System.nanoTime();
+                Snapshot       next       = new Snapshot(categories, current.strategy.withCategories(categories), matcherCacheSize);
+                if (snapshot.compareAndSet(current, next)) {
+                    log.info("Published {} categories, rebuilt in {} ms", categories.size(), (System.nanoTime() - started) / 1_000_000);
+                    return current.categories;
+                }
+            }
+        }, rebuildExecutor);
+    }
+
+    /**
+     * Starts watching the categories file if it is a file on disk.
+     *
+     * @param categoriesLocation The configured location, for logging
+     * @return The watcher, or null if the categories are not a file on disk
+     */
+    private CategoryFileWatcher watch(String categoriesLocation) {
+        Path file;
+        try {
+            file = categoriesResource.getFile().toPath();
+        } catch (IOException e) {
+            log.info("Not watching {} for changes, it is not a file on disk", categoriesLocation);
+            return null;
+        }
+        try {
+            return new CategoryFileWatcher(file, () -> reloadCategories().whenComplete((ignored, e) -> {
+                if (e != null) {
+                    log.error("Keeping the current categories, reloading {} failed", file, e);
+                }
+            }));
+        } catch (IOException e) {
+            log.warn("Cannot watch {} for changes", file, e);
+            return null;
+        }
+    }
+
+    private static int indexOf(List<Category> categories, String name) {
+        for (int i = 0; i < categories.size(); i++) {
+            if (categories.get(i).getName().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static CategoryData toCategoryData(Category category) {
+        CategoryData categoryData = new CategoryData();
+        categoryData.setName(category.getName());
+        categoryData.setKeywords(category.getKeywords().stream().map(CategoryKeyword::getKeyword).collect(Collectors.toList()));
+        Map<String, Double> weights = category.getKeywords().stream()
+                                              .filter(keyword -> keyword.getWeight() != 1.0)
+                                              .collect(Collectors.toMap(CategoryKeyword::getKeyword, CategoryKeyword::getWeight, (first, second) -> second));
+        categoryData.setWeights(weights.isEmpty() ? null : weights);
+        return categoryData;
+    }
+
+    /**
+     * The categories and the strategy compiled from them, published together.
+     * Neither the list nor its categories are modified once published.
+     * A category's id is its index in the list, so ids are only meaningful within one snapshot.
+     */
+    private static final class Snapshot {
+        private final List<Category>           categories;
+        private final Map<String, Category>    byName;
+        private final Map<String, Integer>     ids;
+        private final CategorizationStrategy   strategy;
+        private final Cache<BitSet, Selection> selections;
+
+        private Snapshot(List<Category> categories, CategorizationStrategy strategy, long matcherCacheSize) {
+            this.categories = Collections.unmodifiableList(new ArrayList<>(categories));
+            this.byName     = new HashMap<>();
+            this.ids        = new HashMap<>();
+            this.strategy   = strategy;
+            this.selections = Caffeine.newBuilder().maximumSize(matcherCacheSize).build();
+            for (int id = 0; id < this.categories.size(); id++) {
+                Category category = this.categories.get(id);
+                byName.put(category.getName(), category);
+                ids.put(category.getName(), id);
+            }
+        }
+
+        /**
+         * Selects the known categories with the given names, with matchers prepared for them.
+         * The selection is cached by the set of category ids, so the order and duplicates of the names do not matter.
+         *
+         * @param categoryNames A list of category names to select.
+         * @return The selection of matching categories, in the order they were loaded.
+         */
+        private Selection select(List<String> categoryNames) {
+            BitSet key = new BitSet(categories.size());
+            for (String name : categoryNames) {
+                Integer id = ids.get(name);
+                if (id != null) {
+                    key.set(id);
+                }
+            }
+            return selections.get(key, this::newSelection);
+        }
+
+        private Selection newSelection(BitSet key) {
+            List<Category> selected = key.stream().mapToObj(categories::get).collect(Collectors.toList());
+            return new Selection(selected, strategy);
+        }
+    }
+
+    /**
+     * A set of requested categories together with the matchers prepared for them.
+     * The matching of whole pages is prepared on first use, as only requests for in-memory content need it.
+     */
+    private static final class Selection {
+        private final    List<Category>                                    categories;
+        private final    List<String>                                      names;
+        private final    int                                               overlap;
+        private final    CategorizationStrategy                            strategy;
+        private final    Supplier<CategoryMatcher>                         matchers;
+        private volatile Function<CharSequence, Supplier<CategoryMatcher>> pages;
+
+        private Selection(List<Category> categories, CategorizationStrategy strategy) {
+            this.categories = categories;
+            this.names      = categories.stream().map(Category::getName).collect(Collectors.toList());
+            this.overlap    = WindowedCategoryMatcher.overlapOf(categories);
+            this.strategy   = strategy;
+            this.matchers   = strategy.prepare(categories);
+        }
+
+        private Function<CharSequence, Supplier<CategoryMatcher>> pages() {
+            Function<CharSequence, Supplier<CategoryMatcher>> result = pages;
+            if (result == null) {
+                synchronized (this) {
+                    result = pages;
+                    if (result == null) {
+                        pages = result = strategy.preparePages(categories);
+                    }
+                }
+            }
+            return result;
+        }
     }
 }
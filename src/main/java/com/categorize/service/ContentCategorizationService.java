@@ -0,0 +1,183 @@
+package com.categorize.service;
+
+import com.categorize.concurrent.WorkScheduler;
+import com.categorize.dto.UrlCategoryResult;
+import com.categorize.model.WebPageContent;
+import com.categorize.service.strategy.SegmentedMatcher;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jsoup.Jsoup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service for categorizing page content supplied by the client instead of fetched from the web.
+ * <p>
+ * The request body is a JSON array of pages, each with a {@code url} and either a {@code content} field with
+ * plain text or an {@code html} field with markup to be reduced to text. The array is read incrementally:
+ * pages are grouped into batches of roughly {@code content.batch.max-chars} characters, and every batch is
+ * categorized on the CPU pool while the next one is being read. Batching by size rather than by page count
+ * spreads the work evenly across cores whatever the mix of page sizes, and at most
+ * {@code content.batch.max-in-flight} batches are held in memory per request.
+ * <p>
+ * A page of at least {@code content.parallel.threshold-chars} characters, such as a document dump, is matched in
+ * segments of {@code content.parallel.segment-chars} characters in parallel, so it does not hold up its batch on
+ * a single core, see {@link SegmentedMatcher}.
+ */
+@Service
+public class ContentCategorizationService {
+    private final CategoryService categoryService;
+    private final WorkScheduler   workScheduler;
+    private final JsonFactory     jsonFactory;
+    private final long            batchMaxChars;
+    private final int             maxInFlightBatches;
+
+    /**
+     * Constructs the service.
+     *
+     * @param categoryService    The service providing a matcher per page.
+     * @param workScheduler      The scheduler whose CPU pool categorizes the batches.
+     * @param objectMapper       Jackson's ObjectMapper, whose factory creates the streaming parser.
+     * @param batchMaxChars      The number of characters after which a batch is submitted.
+     * @param maxInFlightBatches The maximum number of batches of one request submitted but not yet categorized.
+     */
+    public ContentCategorizationService(
+            CategoryService categoryService,
+            WorkScheduler workScheduler,
+            ObjectMapper objectMapper,
+            @Value("${content.batch.max-chars:1048576}") long batchMaxChars,
+            @Value("${content.batch.max-in-flight:8}") int maxInFlightBatches) {
+        this.categoryService    = categoryService;
+        this.workScheduler      = workScheduler;
+        this.jsonFactory        = objectMapper.getFactory();
+        this.batchMaxChars      = batchMaxChars;
+        this.maxInFlightBatches = maxInFlightBatches;
+    }
+
+    /**
+     * Reads a JSON array of pages and categorizes them in size-bounded batches.
+     * The body is consumed on the calling thread; categorization runs on the CPU pool.
+     *
+     * @param categoryNames A list of category names to consider for categorization.
+     * @param pagesJson     The request body, a JSON array of pages.
+     * @return A future of the UrlCategoryResult objects, one per page in the order of the array
+     * @throws JsonParseException if the body is not a JSON array of page objects
+     * @throws IOException        if the body cannot be read
+     */
+    public CompletableFuture<List<UrlCategoryResult>> categorizeContent(List<String> categoryNames, InputStream pagesJson) throws IOException {
+        List<CompletableFuture<List<UrlCategoryResult>>> batches = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(maxInFlightBatches);
+
+        try (JsonParser parser = jsonFactory.createParser(pagesJson)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected a JSON array of pages");
+            }
+            List<WebPageContent> batch      = new ArrayList<>();
+            long                 batchChars = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                WebPageContent page = readPage(parser);
+                batch.add(page);
+                batchChars += page.getContent().length();
+                if (batchChars >= batchMaxChars) {
+                    batches.add(submit(categoryNames, batch, inFlight));
+                    batch      = new ArrayList<>();
+                    batchChars = 0;
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Expected a page object");
+            }
+            if (!batch.isEmpty()) {
+                batches.add(submit(categoryNames, batch, inFlight));
+            }
+        }
+
+        return FetchAggregator.allOf(batches)
+                              .thenApply(results -> results.stream()
+                                                           .flatMap(List::stream)
+                                                           .collect(Collectors.toList()));
+    }
+
+    /**
+     * Reads one page object, the parser being positioned on its START_OBJECT token.
+     * Fields other than {@code url}, {@code content} and {@code html} are skipped.
+     * Shared with the offline bulk categorizer, whose JSONL archives hold one such object per line.
+     *
+     * @param parser The parser positioned at the start of a page
+     * @return The page, with HTML reduced to its text
+     * @throws IOException if the object is malformed or has no URL or content
+     */
+    public static WebPageContent readPage(JsonParser parser) throws IOException {
+        String url     = null;
+        String content = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String    field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("url".equals(field) && value == JsonToken.VALUE_STRING) {
+                url = parser.getText();
+            } else if ("content".equals(field) && value == JsonToken.VALUE_STRING) {
+                content = parser.getText();
+            } else if ("html".equals(field) && value == JsonToken.VALUE_STRING) {
+                content = Jsoup.parse(parser.getText()).text();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (url == null || content == null) {
+            throw new JsonParseException(parser, "Every page needs a url and either content or html");
+        }
+        return new WebPageContent(url, content);
+    }
+
+    /**
+     * Submits a batch to the CPU pool once fewer than the maximum number of batches are in flight.
+     *
+     * @param categoryNames A list of category names to consider for categorization.
+     * @param batch         The pages of the batch
+     * @param inFlight      The in-flight slots of the request
+     * @return A future of the results of the batch, in page order
+     * @throws InterruptedIOException if interrupted while waiting for a slot
+     */
+    private CompletableFuture<List<UrlCategoryResult>> submit(List<String> categoryNames, List<WebPageContent> batch, Semaphore inFlight) throws InterruptedIOException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a categorization slot");
+        }
+        CompletableFuture<List<UrlCategoryResult>> results =
+            CompletableFuture.supplyAsync(() -> categorizeBatch(categoryNames, batch), workScheduler.getCpuExecutor());
+        results.whenComplete((ignored, e) -> inFlight.release());
+        return results;
+    }
+
+    /**
+     * Categorizes the pages of a batch one after the other on the current thread,
+     * helped by other threads of the pool for long pages.
+     *
+     * @param categoryNames A list of category names to consider for categorization.
+     * @param batch         The pages of the batch
+     * @return The results of the batch, in page order
+     */
+    private List<UrlCategoryResult> categorizeBatch(List<String> categoryNames, List<WebPageContent> batch) {
+        List<UrlCategoryResult>              results = new ArrayList<>(batch.size());
+        Function<CharSequence, List<String>> matcher = categoryService.prepareContentMatching(categoryNames);
+        for (WebPageContent page : batch) {
+            results.add(new UrlCategoryResult(page.getUrl(), matcher.apply(page.getContent())));
+        }
+        return results;
+    }
+}
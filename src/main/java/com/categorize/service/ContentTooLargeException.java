@@ -0,0 +1,12 @@
+package com.categorize.service;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a fetched page body exceeds the configured maximum size.
+ */
+public class ContentTooLargeException extends IOException {
+    public ContentTooLargeException(String url, long maxBytes) {
+        super("Content of " + url + " exceeds " + maxBytes + " bytes");
+    }
+}
@@ -0,0 +1,136 @@
+package com.categorize.service;
+
+import com.categorize.dto.FetchStatus;
+import com.categorize.metrics.CategorizationMetrics;
+import com.categorize.service.fetch.PageFetcher;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs one fetch task per URL and aggregates their outcomes against a shared deadline.
+ * <p>
+ * Completion is event driven: the aggregate completes the moment the last task finishes,
+ * or when the deadline fires, whichever comes first. At the deadline every unfinished URL is reported
+ * as {@link FetchStatus#TIMEOUT} and its task is cancelled with interruption, so late fetches stop
+ * occupying threads once the response has been produced.
+ * Tasks are started through {@link PageFetcher#execute}, which may hold them back while their host is busy without
+ * occupying a thread. URLs rejected by a saturated executor are reported as {@link FetchStatus#ERROR} right away.
+ * <p>
+ * The outcome of every URL is counted in {@code categorize.fetch.results} by status, and the time until the aggregate
+ * completes in {@code categorize.fetch.batch}, tagged with whether the deadline cut it short.
+ */
+class FetchAggregator {
+    private static final Logger log = Logger.getLogger(FetchAggregator.class.getName());
+
+    private final ExecutorService          executor;
+    private final ScheduledExecutorService scheduler;
+    private final PageFetcher              pageFetcher;
+    private final CategorizationMetrics    metrics;
+
+    /**
+     * A fetch task for a single URL.
+     *
+     * @param <T> The type of value produced by the task
+     */
+    @FunctionalInterface
+    interface FetchTask<T> {
+        T fetch(String url) throws Exception;
+    }
+
+    FetchAggregator(ExecutorService executor, ScheduledExecutorService scheduler, PageFetcher pageFetcher, CategorizationMetrics metrics) {
+        this.executor    = executor;
+        this.scheduler   = scheduler;
+        this.pageFetcher = pageFetcher;
+        this.metrics     = metrics;
+    }
+
+    /**
+     * Submits a task for every URL and arms the deadline.
+     *
+     * @param urls      List of URLs to process
+     * @param task      The task to run for each URL
+     * @param timeoutMs The deadline in milliseconds, measured from now
+     * @return One future per URL, in the order of the given URLs, each completing with the URL's outcome
+     */
+    <T> List<CompletableFuture<FetchResult<T>>> submitAll(List<String> urls, FetchTask<T> task, long timeoutMs) {
+        long                                    start   = System.nanoTime();
+        List<CompletableFuture<FetchResult<T>>> results = new ArrayList<>(urls.size());
+        List<Future<?>>                         tasks   = new ArrayList<>(urls.size());
+        AtomicBoolean                           expired = new AtomicBoolean();
+        for (String url : urls) {
+            CompletableFuture<FetchResult<T>> result = new CompletableFuture<>();
+            result.thenAccept(outcome -> metrics.counter("categorize.fetch.results", "Outcomes of page fetches",
+                                                         "status", outcome.getStatus().name()).increment());
+            results.add(result);
+            FutureTask<Void> fetch = new FutureTask<Void>(() -> result.complete(run(url, task)), null) {
+                @Override
+                protected void done() {
+                    // cancelled before it could run, either rejected by the executor or at the deadline, which has
+                    // already reported the URL
+                    if (isCancelled() && result.complete(FetchResult.failed(url, FetchStatus.ERROR))) {
+                        log.log(Level.WARNING, "Fetch rejected for URL: " + url);
+                    }
+                }
+            };
+            tasks.add(fetch);
+            pageFetcher.execute(url, fetch, executor);
+        }
+
+        ScheduledFuture<?> deadline = scheduler.schedule(() -> {
+            expired.set(true);
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).complete(FetchResult.failed(urls.get(i), FetchStatus.TIMEOUT))) {
+                    tasks.get(i).cancel(true);
+                }
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        allOf(results).whenComplete((ignored, e) -> {
+            deadline.cancel(false);
+            metrics.timer("categorize.fetch.batch", "Time until every page of a request is done or the deadline expires",
+                          "outcome", expired.get() ? "deadline" : "complete")
+                   .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        });
+
+        return results;
+    }
+
+    /**
+     * Combines per-URL futures into a single future of all outcomes, preserving their order.
+     *
+     * @param results The per-URL futures
+     * @return A future completing once every per-URL future has completed
+     */
+    static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> results) {
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+                                .thenApply(ignored -> results.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    /**
+     * Runs a task and maps its failure, if any, to a status.
+     *
+     * @param url  The URL to process
+     * @param task The task to run
+     * @return The outcome of the task
+     */
+    private static <T> FetchResult<T> run(String url, FetchTask<T> task) {
+        try {
+            return FetchResult.ok(url, task.fetch(url));
+        } catch (ContentTooLargeException e) {
+            log.log(Level.WARNING, e.getMessage());
+            return FetchResult.failed(url, FetchStatus.TOO_LARGE);
+        } catch (InterruptedException | InterruptedIOException e) {
+            // cancelled at the deadline, the outcome has already been reported as a timeout
+            return FetchResult.failed(url, FetchStatus.TIMEOUT);
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Error fetching or parsing web page content for URL: " + url, e);
+            return FetchResult.failed(url, FetchStatus.ERROR);
+        }
+    }
+}
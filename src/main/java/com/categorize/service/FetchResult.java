@@ -0,0 +1,54 @@
+package com.categorize.service;
+
+import com.categorize.dto.FetchStatus;
+
+/**
+ * The outcome of a fetch task for a single URL: its status and, when successful, the produced value.
+ *
+ * @param <T> The type of value produced by the task
+ */
+final class FetchResult<T> {
+    private final String      url;
+    private final FetchStatus status;
+    private final T           value;
+
+    private FetchResult(String url, FetchStatus status, T value) {
+        this.url    = url;
+        this.status = status;
+        this.value  = value;
+    }
+
+    static <T> FetchResult<T> ok(String url, T value) {
+        return new FetchResult<>(url, FetchStatus.OK, value);
+    }
+
+    static <T> FetchResult<T> failed(String url, FetchStatus status) {
+        return new FetchResult<>(url, status, null);
+    }
+
+    /**
+     * Returns the same outcome reported under a different URL, e.g. the client's spelling of a canonical URL.
+     *
+     * @param url The URL to report
+     * @return The relabelled outcome
+     */
+    FetchResult<T> withUrl(String url) {
+        return new FetchResult<>(url, status, value);
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    FetchStatus getStatus() {
+        return status;
+    }
+
+    T getValue() {
+        return value;
+    }
+
+    boolean isOk() {
+        return status == FetchStatus.OK;
+    }
+}
@@ -0,0 +1,62 @@
+package com.categorize.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * An InputStream that fails once more than a maximum number of bytes has been read,
+ * and that stops reading when the current thread has been interrupted.
+ */
+class LimitedInputStream extends FilterInputStream {
+    private final String url;
+    private final long   maxBytes;
+    private       long   count;
+
+    /**
+     * Constructs a limited stream.
+     *
+     * @param in       The stream to read from
+     * @param url      The URL the stream belongs to, used in error messages
+     * @param maxBytes The maximum number of bytes that may be read
+     */
+    LimitedInputStream(InputStream in, String url, long maxBytes) {
+        super(in);
+        this.url      = url;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkInterrupted();
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkInterrupted();
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    private void count(int n) throws ContentTooLargeException {
+        count += n;
+        if (count > maxBytes) {
+            throw new ContentTooLargeException(url, maxBytes);
+        }
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Fetch cancelled");
+        }
+    }
+}
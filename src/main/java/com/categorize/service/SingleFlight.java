@@ -0,0 +1,92 @@
+package com.categorize.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent loads of the same key into a single execution.
+ * <p>
+ * The first caller for a key runs the loader; callers arriving while it is in flight wait for and share its result.
+ * The key is forgotten as soon as the load completes, so results are not cached here.
+ * If the leading load was cancelled by an interrupt, waiting callers that were not themselves interrupted retry.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * A load that may fail with an IOException.
+     *
+     * @param <V> The value type
+     */
+    @FunctionalInterface
+    interface Loader<V> {
+        V load() throws IOException;
+    }
+
+    /**
+     * Runs the loader for a key, or joins the load already in flight for it.
+     *
+     * @param key    The key identifying the load
+     * @param loader The load to run if none is in flight
+     * @return The loaded value
+     * @throws IOException if the shared load failed
+     */
+    V execute(K key, Loader<V> loader) throws IOException {
+        while (true) {
+            CompletableFuture<V> mine     = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+            if (existing == null) {
+                return lead(key, mine, loader);
+            }
+            try {
+                return existing.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a shared load");
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof InterruptedIOException) || Thread.currentThread().isInterrupted()) {
+                    throw asIOException(e.getCause());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of loads currently in flight.
+     *
+     * @return The in-flight count
+     */
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V lead(K key, CompletableFuture<V> mine, Loader<V> loader) throws IOException {
+        try {
+            V value = loader.load();
+            mine.complete(value);
+            return value;
+        } catch (IOException | RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static IOException asIOException(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException(cause);
+    }
+}
@@ -0,0 +1,92 @@
+package com.categorize.service;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+
+import java.util.function.Consumer;
+
+/**
+ * Turns the elements of a streamed HTML document into text in document order, keeping only the open part of the
+ * document in memory.
+ * <p>
+ * A streaming parser hands out an element when it closes, so a child is seen before the text of its parent that
+ * follows it. Inline elements are therefore left in place, and only when a block-level element closes is its text,
+ * inline markup included, emitted and the element removed. Everything before a closed block in document order is
+ * complete by then, so the text and inline elements preceding it in each of its ancestors are emitted first and
+ * removed as well. The text of a paragraph such as {@code Star <b>Wars</b> movie} thus comes out whole and in order.
+ * <p>
+ * Instances are not thread-safe; use one per document.
+ */
+final class StreamingTextExtractor {
+    private final Consumer<String> sink;
+
+    /**
+     * @param sink Consumer receiving the text chunks, each followed by a space separator
+     */
+    StreamingTextExtractor(Consumer<String> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Handles an element the parser has just closed.
+     *
+     * @param element The closed element, still attached to the partial document
+     */
+    void closed(Element element) {
+        if (!element.isBlock()) {
+            return;
+        }
+        StringBuilder preceding = new StringBuilder();
+        flushBefore(element, preceding);
+        emit(preceding.toString());
+        emit(element.text());
+        element.remove();
+    }
+
+    /**
+     * Emits whatever text is left once the whole document has been parsed.
+     *
+     * @param document The parsed document
+     */
+    void finish(Document document) {
+        emit(document.text());
+    }
+
+    /**
+     * Collects and removes the nodes preceding a node in each of its ancestors, outermost first.
+     */
+    private static void flushBefore(Node node, StringBuilder text) {
+        Node parent = node.parent();
+        if (parent == null) {
+            return;
+        }
+        flushBefore(parent, text);
+        while (parent.childNode(0) != node) {
+            Node previous = parent.childNode(0);
+            appendText(previous, text);
+            previous.remove();
+        }
+    }
+
+    private static void appendText(Node node, StringBuilder text) {
+        if (node instanceof TextNode) {
+            text.append(((TextNode) node).text());
+        } else if (node instanceof Element) {
+            Element element = (Element) node;
+            if (element.isBlock() || element.normalName().equals("br")) {
+                text.append(' ').append(element.text()).append(' ');
+            } else {
+                text.append(element.text());
+            }
+        }
+    }
+
+    private void emit(String text) {
+        if (!text.trim().isEmpty()) {
+            sink.accept(text);
+            sink.accept(" ");
+        }
+    }
+}
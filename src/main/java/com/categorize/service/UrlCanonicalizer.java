@@ -0,0 +1,96 @@
+package com.categorize.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Reduces URLs to a canonical form so that different spellings of the same page share one fetch and one cache entry.
+ * <p>
+ * The canonical form has a lowercase scheme and host, no default port, no fragment and a non-empty path.
+ * Optionally, tracking query parameters are dropped; a configured name ending with {@code *} matches by prefix.
+ * URLs that cannot be parsed are returned trimmed but otherwise unchanged.
+ */
+@Component
+public class UrlCanonicalizer {
+    private final boolean      dropTrackingParams;
+    private final List<String> trackingParams;
+
+    /**
+     * Constructs the canonicalizer.
+     *
+     * @param dropTrackingParams Whether tracking query parameters are removed.
+     * @param trackingParams     The names of the tracking query parameters; a trailing {@code *} matches by prefix.
+     */
+    public UrlCanonicalizer(
+            @Value("${url.canonical.drop-tracking-params:true}") boolean dropTrackingParams,
+            @Value("${url.canonical.tracking-params:utm_*,gclid,fbclid,msclkid,mc_cid,mc_eid}") String[] trackingParams) {
+        this.dropTrackingParams = dropTrackingParams;
+        this.trackingParams     = Arrays.stream(trackingParams).map(String::trim).filter(p -> !p.isEmpty()).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the canonical form of a URL.
+     *
+     * @param url The URL as given by the client
+     * @return The canonical URL
+     */
+    public String canonicalize(String url) {
+        String trimmed = url.trim();
+        try {
+            URI uri = new URI(trimmed);
+            if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+                return trimmed;
+            }
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            String host   = uri.getHost() == null ? uri.getRawAuthority().toLowerCase(Locale.ROOT) : uri.getHost().toLowerCase(Locale.ROOT);
+            int    port   = isDefaultPort(scheme, uri.getPort()) ? -1 : uri.getPort();
+            String path   = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            String query  = canonicalQuery(uri.getRawQuery());
+
+            StringBuilder canonical = new StringBuilder(trimmed.length()).append(scheme).append("://");
+            if (uri.getRawUserInfo() != null) {
+                canonical.append(uri.getRawUserInfo()).append('@');
+            }
+            canonical.append(host);
+            if (port != -1) {
+                canonical.append(':').append(port);
+            }
+            canonical.append(path);
+            if (query != null) {
+                canonical.append('?').append(query);
+            }
+            return canonical.toString();
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+    }
+
+    private String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || !dropTrackingParams) {
+            return rawQuery;
+        }
+        String query = Arrays.stream(rawQuery.split("&"))
+                             .filter(param -> !param.isEmpty() && !isTrackingParam(param))
+                             .collect(Collectors.joining("&"));
+        return query.isEmpty() ? null : query;
+    }
+
+    private boolean isTrackingParam(String param) {
+        int    separator = param.indexOf('=');
+        String name      = (separator < 0 ? param : param.substring(0, separator)).toLowerCase(Locale.ROOT);
+        return trackingParams.stream().anyMatch(tracking -> tracking.endsWith("*")
+                                                            ? name.startsWith(tracking.substring(0, tracking.length() - 1))
+                                                            : name.equals(tracking));
+    }
+
+    private static boolean isDefaultPort(String scheme, int port) {
+        return port == -1 || ("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443);
+    }
+}
@@ -1,147 +1,462 @@
 package com.categorize.service;
 
+import com.categorize.concurrent.WorkScheduler;
+import com.categorize.dto.UrlCategoryResult;
+import com.categorize.metrics.CategorizationMetrics;
 import com.categorize.model.WebPageContent;
-import org.jsoup.Jsoup;
+import com.categorize.service.cache.CachedPage;
+import com.categorize.service.cache.WebPageCache;
+import com.categorize.service.fetch.PageFetcher;
+import com.categorize.service.fetch.PageResponse;
+import com.categorize.service.strategy.CategoryMatcher;
+import org.jsoup.nodes.Element;
 import org.jsoup.parser.Parser;
 import org.jsoup.parser.StreamParser;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.io.StringReader;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.*;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 
 /**
  * Service for retrieving and cleaning web page content using jsoup's Parser.
  * This service provides methods to fetch and clean HTML content from multiple URLs.
+ * Pages are downloaded through a {@link PageFetcher}, which owns connection pooling and per-host limits.
+ * Page text is streamed straight from the parser to the matcher, and parsing stops once the matcher's result is final,
+ * so a downloaded page is matched on its fetch thread as it is parsed. Text that is already whole in memory, from the
+ * cache or from a load of the same URL in flight, is matched on the CPU pool of the {@link WorkScheduler}.
+ * When the {@link WebPageCache} is enabled, the text is also collected and cached per URL, and expired entries are
+ * revalidated with conditional requests; a page whose parsing stopped early is not cached, as its text is incomplete.
+ * <p>
+ * URLs are reduced to their canonical form first. Duplicates within a request are fetched once, and concurrent loads
+ * of the text of the same canonical URL share a single download and parse. Categorizations join them when the cache
+ * is enabled; without the cache a categorization streams its own download, as no text is collected that it could share.
  */
 @Service
 public class WebPageService {
-    private static final Logger          log = Logger.getLogger(WebPageService.class.getName());
-    private final        long            urlFetchTimeoutMs;
-    private final        ExecutorService threadPool;
+    private static final int     CHARSET_SNIFF_BYTES = 1024;
+    private static final Pattern META_CHARSET        = Pattern.compile("<meta[^>]+charset\\s*=\\s*[\"']?([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern TEXT_CONTENT_TYPE   = Pattern.compile("^(?:text/|application/(?:[\\w.-]+\\+)?xml)", Pattern.CASE_INSENSITIVE);
+    private static final int     HTTP_NOT_MODIFIED   = 304;
+
+    private final long                         urlFetchTimeoutMs;
+    private final long                         urlFetchMaxBytes;
+    private final FetchAggregator              fetchAggregator;
+    private final ExecutorService              cpuExecutor;
+    private final PageFetcher                  pageFetcher;
+    private final WebPageCache                 webPageCache;
+    private final UrlCanonicalizer             urlCanonicalizer;
+    private final SingleFlight<String, PageText> textLoads;
+    private final CategorizationMetrics        metrics;
 
 
     public WebPageService(
-            @Value("${url.fetch.timeout:5000}") long urlFetchTimeoutMs) {
+            @Value("${url.fetch.timeout:5000}") long urlFetchTimeoutMs,
+            @Value("${url.fetch.max-bytes:10485760}") long urlFetchMaxBytes,
+            WorkScheduler workScheduler,
+            WebPageCache webPageCache,
+            UrlCanonicalizer urlCanonicalizer,
+            PageFetcher pageFetcher,
+            CategorizationMetrics metrics) {
         this.urlFetchTimeoutMs = urlFetchTimeoutMs;
-        this.threadPool        = Executors.newCachedThreadPool();
+        this.urlFetchMaxBytes  = urlFetchMaxBytes;
+        this.pageFetcher       = pageFetcher;
+        this.webPageCache      = webPageCache;
+        this.urlCanonicalizer  = urlCanonicalizer;
+        this.textLoads         = new SingleFlight<>();
+        this.metrics           = metrics;
+        this.fetchAggregator   = new FetchAggregator(workScheduler.getIoExecutor(), workScheduler.getTimer(), pageFetcher, metrics);
+        this.cpuExecutor       = workScheduler.getCpuExecutor();
     }
 
     /**
      * Retrieves and cleans the content of multiple web pages in parallel.
      * <p>
      * This method fetches web page content for multiple URLs concurrently, applying a timeout
-     * to limit the overall execution time. It uses CompletableFuture for asynchronous processing.
+     * to limit the overall execution time. It returns immediately; no thread waits for the fetches.
      *
      * @param urls List of URLs to retrieve content from
-     * @return List of WebPageContent objects containing URL and cleaned content.
+     * @return A future of the list of WebPageContent objects containing URL and cleaned content.
      * Each WebPageContent object contains the original URL and its cleaned text content.
      * Only successfully fetched and processed pages within the timeout period are included.
      */
-    public List<WebPageContent> getWebPagesContent(List<String> urls) {
-
-        List<CompletableFuture<Optional<WebPageContent>>> futures;
-        futures = urls.parallelStream()
-                      .map(url -> CompletableFuture.supplyAsync(() -> fetchWebPageContent(url), threadPool))
-                      .collect(Collectors.toList());
-
-        awaitCompletionWithTimeout(futures, urlFetchTimeoutMs);
-
-        // return the completed results within the timeout period
-        List<WebPageContent> completed = futures.stream()
-                                                .filter(WebPageService::isFinished)
-                                                .map(f -> f.getNow(null).get())
-                                                .collect(Collectors.toList());
-
-        return completed;
+    public CompletableFuture<List<WebPageContent>> getWebPagesContent(List<String> urls) {
+        return FetchAggregator.allOf(submitCanonical(urls, this::fetchWebPageContent))
+                              .thenApply(results -> results.stream()
+                                                           .filter(FetchResult::isOk)
+                                                           .map(result -> new WebPageContent(result.getUrl(), result.getValue().getContent()))
+                                                           .collect(Collectors.toList()));
     }
 
     /**
-     * Checks if a CompletableFuture has failed.
+     * Retrieves and categorizes multiple web pages in parallel without materializing their content.
+     * <p>
+     * The text of every page is streamed from the parser straight into a fresh matcher,
+     * and parsing stops as soon as the matcher reports that every requested category has matched.
+     * The returned future completes as soon as the last page is done or the fetch timeout expires,
+     * whichever comes first; no thread waits for the fetches in the meantime.
      *
-     * @param f The CompletableFuture to check
-     * @return true if the future has failed, false otherwise
+     * @param urls           List of URLs to categorize
+     * @param matcherFactory Supplier of a new CategoryMatcher for each page
+     * @return A future of the list of UrlCategoryResult objects, one per URL in the given order,
+     * each with the status of its fetch. Pages that were not categorized successfully have no categories.
      */
-    private static boolean isFailed(CompletableFuture<Optional<WebPageContent>> f) {
-        return f.isCompletedExceptionally() || f.isCancelled() || (f.isDone() && !f.getNow(null).isPresent());
+    public CompletableFuture<List<UrlCategoryResult>> categorizeWebPages(List<String> urls, Supplier<CategoryMatcher> matcherFactory) {
+        return FetchAggregator.allOf(categorizeEachWebPage(urls, matcherFactory));
     }
 
     /**
-     * Checks if a CompletableFuture has completed successfully.
+     * Retrieves and categorizes multiple web pages in parallel, with one future per URL.
+     * Each future completes as soon as its own page is categorized or the shared fetch timeout expires,
+     * so results can be delivered in completion order.
      *
-     * @param f The CompletableFuture to check
-     * @return true if the future has completed successfully, false otherwise
+     * @param urls           List of URLs to categorize
+     * @param matcherFactory Supplier of a new CategoryMatcher for each page
+     * @return One future of a UrlCategoryResult per URL, in the given order
      */
-    private static boolean isSuccess(CompletableFuture<Optional<WebPageContent>> f) {
-        return f.isDone() && (!f.isCancelled() && !f.isCompletedExceptionally()) && f.getNow(null).isPresent();
+    public List<CompletableFuture<UrlCategoryResult>> categorizeEachWebPage(List<String> urls, Supplier<CategoryMatcher> matcherFactory) {
+        return submitCanonical(urls, url -> categorizeWebPage(url, matcherFactory.get()))
+            .stream()
+            .map(result -> result.thenApply(WebPageService::toUrlCategoryResult))
+            .collect(Collectors.toList());
     }
 
     /**
-     * Checks if a CompletableFuture has finished processing successfully and returned a result.
+     * Submits one fetch task per distinct canonical URL and maps the outcomes back to the URLs as given.
      *
-     * @param f The CompletableFuture to check
-     * @return true if the future has finished processing, false otherwise
+     * @param urls List of URLs as given by the client
+     * @param task The task to run for each distinct canonical URL
+     * @return One future per given URL, in order, reporting the outcome under the URL as given
      */
-    private static boolean isFinished(CompletableFuture<Optional<WebPageContent>> f) {
-        return f.isDone() && (!f.isCancelled() && !f.isCompletedExceptionally())
-               // we assume that if it's done without exception then the result is not null
-               && f.getNow(null).isPresent();
+    private <T> List<CompletableFuture<FetchResult<T>>> submitCanonical(List<String> urls, FetchAggregator.FetchTask<T> task) {
+        List<String> canonicalUrls = urls.stream().map(urlCanonicalizer::canonicalize).collect(Collectors.toList());
+        List<String> distinctUrls  = canonicalUrls.stream().distinct().collect(Collectors.toList());
+
+        List<CompletableFuture<FetchResult<T>>> fetched = fetchAggregator.submitAll(distinctUrls, task, urlFetchTimeoutMs);
+        Map<String, CompletableFuture<FetchResult<T>>> byCanonicalUrl = new HashMap<>();
+        for (int i = 0; i < distinctUrls.size(); i++) {
+            byCanonicalUrl.put(distinctUrls.get(i), fetched.get(i));
+        }
+
+        List<CompletableFuture<FetchResult<T>>> results = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            String url = urls.get(i);
+            results.add(byCanonicalUrl.get(canonicalUrls.get(i)).thenApply(result -> result.withUrl(url)));
+        }
+        return results;
     }
 
     /**
-     * Waits for the completion of a list of CompletableFutures with a timeout.
+     * Converts the outcome of a categorization task into its result DTO.
      *
-     * @param futures The list of CompletableFutures to wait for
-     * @param timeout The maximum time to wait in milliseconds
+     * @param result The outcome of the task, holding the matcher the page was fed to
+     * @return The UrlCategoryResult carrying the categories, their scores when scoring, and the fetch status
      */
-    private static void awaitCompletionWithTimeout(List<CompletableFuture<Optional<WebPageContent>>> futures, Long timeout) {
-        long startTime = System.currentTimeMillis();
-        while (System.currentTimeMillis() - startTime <= timeout) {
-            try {
-                CompletableFuture[] unfinished = futures.stream().filter(f -> !(isSuccess(f) || isFailed(f))).toArray(CompletableFuture[]::new);
-                CompletableFuture.anyOf(unfinished).get(500L, TimeUnit.MILLISECONDS);
-            } catch (TimeoutException | InterruptedException | ExecutionException e) {
-                // swallow these exceptions as they mean either a timeout or a failed process
-                // which shouldn't happen because fetchWebPageContent is wrapped with try-catch
-            }
+    private static UrlCategoryResult toUrlCategoryResult(FetchResult<CategoryMatcher> result) {
+        if (!result.isOk()) {
+            return new UrlCategoryResult(result.getUrl(), Collections.emptyList(), result.getStatus());
         }
+        CategoryMatcher matcher = result.getValue();
+        return new UrlCategoryResult(result.getUrl(), matcher.getMatchedCategories(), result.getStatus(),
+                                     matcher.getScores().orElse(null));
     }
 
-
     /**
      * Fetches and cleans the content of a single web page using Jsoup's StreamParser.
      * This method performs the following steps:
      * 1. Connects to the URL and retrieves the HTML content.
      * 2. Uses Jsoup's StreamParser to parse the HTML, extract and concatenate all text nodes in a single pass, ignoring HTML tags and other elements.
      * 3. Wraps the result in a WebPageContent object.
+     * Concurrent fetches of the same URL share one download. When the cache is enabled, the text is served from
+     * and stored in the cache.
      *
      * @param url The URL of the web page to fetch and clean
-     * @return An Optional containing the WebPageContent with cleaned text, or empty if an error occurred
+     * @return The WebPageContent with cleaned text
+     * @throws IOException if the page cannot be fetched or exceeds the maximum size
      */
-    private Optional<WebPageContent> fetchWebPageContent(String url) {
-        try {
-            String htmlContent = Jsoup.connect(url)
-                                      .timeout((int) urlFetchTimeoutMs)
-                                      .execute()
-                                      .body();
+    private WebPageContent fetchWebPageContent(String url) throws IOException {
+        return new WebPageContent(url, loadText(url));
+    }
+
+    /**
+     * Fetches a single web page and feeds its text to a matcher as it is parsed.
+     * Parsing stops once the matcher's result is final. Without the cache the page text is never accumulated.
+     * With the cache, a request joining a load of the same URL in flight is fed the text that load collected,
+     * unless that load stopped early, in which case the page is loaded again for this matcher.
+     *
+     * @param url     The URL of the web page to fetch and categorize
+     * @param matcher The matcher to feed the page text to
+     * @return The matcher, holding the result for the page
+     * @throws IOException if the page cannot be fetched or exceeds the maximum size
+     */
+    private CategoryMatcher categorizeWebPage(String url, CategoryMatcher matcher) throws IOException {
+        if (!webPageCache.isEnabled()) {
+            try (PageResponse response = connect(url, null)) {
+                parseText(url, response, matcher::feed, matcher::isComplete);
+            }
+            return matcher;
+        }
+        boolean[] led  = new boolean[1];
+        PageText  page = textLoads.execute(url, () -> {
+            led[0] = true;
+            return loadText(url, matcher);
+        });
+        if (!led[0]) {
+            if (page.whole) {
+                feed(matcher, page.text);
+            } else {
+                loadText(url, matcher);
+            }
+        }
+        return matcher;
+    }
+
+    /**
+     * Returns the whole cleaned text of a page from the cache if it is enabled, revalidating or downloading it as needed.
+     * Concurrent loads of the same URL share a single execution.
+     *
+     * @param url The URL of the web page
+     * @return The cleaned page text
+     * @throws IOException if the page cannot be fetched or exceeds the maximum size
+     */
+    private String loadText(String url) throws IOException {
+        PageText page = textLoads.execute(url, () -> loadText(url, null));
+        return page.whole ? page.text : loadText(url, null).text;
+    }
+
+    /**
+     * Loads the cleaned text of a page through the cache, if it is enabled, without coalescing, feeding it to a matcher
+     * if one is given.
+     * A stale entry with validators is revalidated with If-None-Match / If-Modified-Since,
+     * so an unchanged page costs a 304 response instead of a full download and parse.
+     * A downloaded page is streamed into the matcher and parsing stops once the matcher's result is final;
+     * the page is only cached if it was parsed to its end.
+     *
+     * @param url     The URL of the web page
+     * @param matcher The matcher to feed the page text to, or null to load the whole text
+     * @return The cleaned page text, whole unless parsing stopped early for the matcher
+     * @throws IOException if the page cannot be fetched or exceeds the maximum size
+     */
+    private PageText loadText(String url, CategoryMatcher matcher) throws IOException {
+        Optional<String> fresh = webPageCache.getFresh(url);
+        if (fresh.isPresent()) {
+            return wholeText(fresh.get(), matcher);
+        }
+
+        CachedPage stale = webPageCache.getStale(url).orElse(null);
+        try (PageResponse response = connect(url, stale)) {
+            if (stale != null && response.getStatusCode() == HTTP_NOT_MODIFIED) {
+                return wholeText(webPageCache.revalidated(url, stale), matcher);
+            }
+
             StringBuilder cleanedContent = new StringBuilder();
-            StreamParser streamParser = new StreamParser(Parser.htmlParser());
+            boolean whole = parseText(url, response, text -> {
+                cleanedContent.append(text);
+                if (matcher != null) {
+                    matcher.feed(text);
+                }
+            }, matcher == null ? () -> false : matcher::isComplete);
+            String text = cleanedContent.toString();
+            if (whole) {
+                webPageCache.put(url, text, response.getHeader("ETag"), response.getHeader("Last-Modified"));
+            }
+            return new PageText(text, whole);
+        }
+    }
 
-            streamParser.parse(new StringReader(htmlContent), url).iterator().forEachRemaining(element -> {
-                cleanedContent.append(element.text());
-                cleanedContent.append(" ");
-            });
+    /**
+     * Returns the whole text of a page, feeding it to a matcher if one is given.
+     *
+     * @param text    The whole cleaned page text
+     * @param matcher The matcher to feed the text to, or null
+     * @return The whole page text
+     * @throws IOException if the fetch thread is interrupted while the text is matched
+     */
+    private PageText wholeText(String text, CategoryMatcher matcher) throws IOException {
+        if (matcher != null) {
+            feed(matcher, text);
+        }
+        return new PageText(text, true);
+    }
 
-            return Optional.of(new WebPageContent(url, cleanedContent.toString()));
-        } catch (IOException e) {
-            log.log(Level.WARNING, "Error fetching or parsing web page content for URL: " + url, e);
+    /**
+     * Feeds a text held in memory to a matcher on the CPU pool and waits for it, so the matching of whole pages is
+     * bounded by the CPU pool rather than by the fetch threads. When the CPU pool is saturated, the fetch thread
+     * matches the text itself.
+     *
+     * @param matcher The matcher to feed the text to
+     * @param text    The text
+     * @throws IOException if the fetch thread is interrupted while waiting, such as at the fetch deadline
+     */
+    private void feed(CategoryMatcher matcher, String text) throws IOException {
+        Future<?> match = cpuExecutor.submit(() -> matcher.feed(text));
+        try {
+            match.get();
+        } catch (InterruptedException e) {
+            match.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while matching a page");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw (Error) e.getCause();
+        }
+    }
+
+    /**
+     * Fetches the URL and returns the response with its body not yet read.
+     * Pages declaring a Content-Length above {@code url.fetch.max-bytes} are rejected before their body is read,
+     * as are bodies that are neither text nor XML.
+     *
+     * @param url   The URL of the web page to fetch
+     * @param stale A cached entry whose validators are sent as conditional headers, or null
+     * @return The response, to be closed by the caller
+     * @throws IOException if the page cannot be fetched, is declared too large or is not text
+     */
+    private PageResponse connect(String url, CachedPage stale) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        if (stale != null && stale.getEtag() != null) {
+            headers.put("If-None-Match", stale.getEtag());
+        }
+        if (stale != null && stale.getLastModified() != null) {
+            headers.put("If-Modified-Since", stale.getLastModified());
+        }
+        PageResponse response = pageFetcher.fetch(url, headers);
+        if (response.getStatusCode() == HTTP_NOT_MODIFIED) {
+            return response;
+        }
+
+        try {
+            String contentType = response.getContentType();
+            if (contentType != null && !TEXT_CONTENT_TYPE.matcher(contentType).find()) {
+                throw new IOException("Unsupported content type " + contentType + " for URL: " + url);
+            }
+            String contentLength = response.getHeader("Content-Length");
+            if (contentLength != null && Long.parseLong(contentLength.trim()) > urlFetchMaxBytes) {
+                throw new ContentTooLargeException(url, urlFetchMaxBytes);
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Streams the text of a page body to a sink in a single pass using Jsoup's StreamParser.
+     * The text is emitted in document order as block-level elements close, after which they are removed from the
+     * partial document so memory stays bounded by the open blocks rather than the page size, see
+     * {@link StreamingTextExtractor}.
+     * <p>
+     * The body is read through a {@link LimitedInputStream}, so pages larger than {@code url.fetch.max-bytes}
+     * fail with a {@link ContentTooLargeException} and a cancelled fetch stops at its next read.
+     * The time spent reading and parsing the body, excluding the time spent in the sink, is recorded in
+     * {@code categorize.page.extract} by host.
+     *
+     * @param url      The URL of the web page, used as the base URI
+     * @param response The response whose body to parse
+     * @param sink     Consumer receiving the text chunks, each followed by a space separator
+     * @param done     Supplier checked after every element; parsing stops when it returns true
+     * @return true if the whole page was parsed, false if parsing stopped early
+     * @throws IOException if the body cannot be read or exceeds the maximum size
+     */
+    private boolean parseText(String url, PageResponse response, Consumer<String> sink, BooleanSupplier done) throws IOException {
+        long   start     = System.nanoTime();
+        long[] sinkNanos = new long[1];
+        StreamingTextExtractor extractor = new StreamingTextExtractor(text -> {
+            long sinkStart = System.nanoTime();
+            sink.accept(text);
+            sinkNanos[0] += System.nanoTime() - sinkStart;
+        });
+        boolean whole;
+        try (InputStream body = new LimitedInputStream(response.getBody(), url, urlFetchMaxBytes);
+             StreamParser streamParser = new StreamParser(Parser.htmlParser()).parse(openReader(body, response.getCharset()), url)) {
+            Iterator<Element> elements = streamParser.iterator();
+            while (elements.hasNext() && !done.getAsBoolean()) {
+                extractor.closed(elements.next());
+            }
+            whole = !elements.hasNext();
+            if (whole) {
+                extractor.finish(streamParser.document());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        metrics.timer("categorize.page.extract", "Time spent reading and parsing a page into text", "host", metrics.hostTagOfUrl(url))
+               .record(System.nanoTime() - start - sinkNanos[0], TimeUnit.NANOSECONDS);
+        return whole;
+    }
+
+    /**
+     * Opens a reader over a page body, decoding it with the charset declared in the Content-Type header,
+     * or else the one declared by a byte order mark or a meta tag near the start of the document, or else UTF-8.
+     *
+     * @param body          The page body
+     * @param headerCharset The charset from the Content-Type header, or null if none was declared
+     * @return A reader over the decoded body
+     * @throws IOException if the start of the body cannot be read
+     */
+    private static Reader openReader(InputStream body, String headerCharset) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(body, CHARSET_SNIFF_BYTES);
+        Charset charset = toCharset(headerCharset).orElse(null);
+        if (charset == null) {
+            in.mark(CHARSET_SNIFF_BYTES);
+            byte[] head = new byte[CHARSET_SNIFF_BYTES];
+            int    read = 0;
+            for (int n; read < head.length && (n = in.read(head, read, head.length - read)) > 0; ) {
+                read += n;
+            }
+            in.reset();
+            charset = sniffCharset(head, read);
+        }
+        return new InputStreamReader(in, charset);
+    }
+
+    private static Charset sniffCharset(byte[] head, int length) {
+        if (length >= 2 && (head[0] & 0xFF) == 0xFE && (head[1] & 0xFF) == 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (length >= 2 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        }
+        Matcher meta = META_CHARSET.matcher(new String(head, 0, length, StandardCharsets.ISO_8859_1));
+        return meta.find() ? toCharset(meta.group(1)).orElse(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+    }
+
+    private static Optional<Charset> toCharset(String name) {
+        try {
+            return name == null ? Optional.empty() : Optional.of(Charset.forName(name));
+        } catch (IllegalArgumentException e) {
             return Optional.empty();
         }
     }
+
+    /**
+     * The cleaned text of a page as loaded, and whether it is the whole text or parsing stopped early.
+     */
+    private static final class PageText {
+        private final String  text;
+        private final boolean whole;
+
+        private PageText(String text, boolean whole) {
+            this.text  = text;
+            this.whole = whole;
+        }
+    }
 }
@@ -0,0 +1,140 @@
+package com.categorize.service.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The cleaned text of a fetched page together with the validators needed to revalidate it.
+ * The text is stored as UTF-8, optionally deflate-compressed, to fit more pages into the cache budget.
+ * <p>
+ * Instances are immutable.
+ */
+public final class CachedPage {
+    private static final int MIN_COMPRESSIBLE_BYTES = 512;
+    private static final int ENTRY_OVERHEAD_BYTES   = 96;
+
+    private final byte[]  content;
+    private final boolean compressed;
+    private final String  etag;
+    private final String  lastModified;
+    private final long    fetchedAtMillis;
+
+    private CachedPage(byte[] content, boolean compressed, String etag, String lastModified, long fetchedAtMillis) {
+        this.content         = content;
+        this.compressed      = compressed;
+        this.etag            = etag;
+        this.lastModified    = lastModified;
+        this.fetchedAtMillis = fetchedAtMillis;
+    }
+
+    /**
+     * Creates a cache entry for freshly fetched text.
+     *
+     * @param text            The cleaned page text
+     * @param etag            The ETag response header, or null
+     * @param lastModified    The Last-Modified response header, or null
+     * @param compress        Whether to store the text compressed
+     * @param fetchedAtMillis The time the page was fetched
+     * @return The new entry
+     */
+    public static CachedPage of(String text, String etag, String lastModified, boolean compress, long fetchedAtMillis) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (compress && bytes.length >= MIN_COMPRESSIBLE_BYTES) {
+            byte[] deflated = deflate(bytes);
+            if (deflated.length < bytes.length) {
+                return new CachedPage(deflated, true, etag, lastModified, fetchedAtMillis);
+            }
+        }
+        return new CachedPage(bytes, false, etag, lastModified, fetchedAtMillis);
+    }
+
+    /**
+     * Returns a copy of this entry marked as confirmed unchanged by the origin at the given time.
+     *
+     * @param revalidatedAtMillis The time of the successful revalidation
+     * @return The refreshed entry
+     */
+    public CachedPage revalidated(long revalidatedAtMillis) {
+        return new CachedPage(content, compressed, etag, lastModified, revalidatedAtMillis);
+    }
+
+    /**
+     * Returns the cleaned page text, decompressing it if needed.
+     *
+     * @return The page text
+     */
+    public String getText() {
+        return new String(compressed ? inflate(content) : content, StandardCharsets.UTF_8);
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Checks whether the entry may be served without revalidation.
+     *
+     * @param nowMillis The current time
+     * @param ttlMillis How long an entry stays fresh after it was fetched or revalidated
+     * @return true if the entry is still fresh, false otherwise
+     */
+    public boolean isFresh(long nowMillis, long ttlMillis) {
+        return nowMillis - fetchedAtMillis < ttlMillis;
+    }
+
+    /**
+     * Checks whether the entry carries a validator the origin can use to answer 304 Not Modified.
+     *
+     * @return true if the entry can be revalidated, false otherwise
+     */
+    public boolean isRevalidatable() {
+        return etag != null || lastModified != null;
+    }
+
+    /**
+     * Returns the approximate number of heap bytes held by this entry, used to bound the cache by size.
+     *
+     * @return The entry weight in bytes
+     */
+    public int getWeight() {
+        return ENTRY_OVERHEAD_BYTES + content.length
+               + (etag == null ? 0 : etag.length() * 2)
+               + (lastModified == null ? 0 : lastModified.length() * 2);
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        ByteArrayOutputStream out      = new ByteArrayOutputStream(bytes.length / 4);
+        Deflater              deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream stream = new DeflaterOutputStream(out, deflater)) {
+            stream.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+        try (InflaterInputStream inflater = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+            byte[] buffer = new byte[8192];
+            for (int n; (n = inflater.read(buffer)) > 0; ) {
+                out.write(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,141 @@
+package com.categorize.service.cache;
+
+import com.categorize.dto.CacheStatsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size-bounded cache of cleaned page text, keyed by URL.
+ * <p>
+ * Eviction is W-TinyLFU over the total weight of the entries in bytes. An entry is served directly while it is
+ * younger than the TTL; after that it is kept for up to {@code webpage.cache.max-stale} so the caller can revalidate it
+ * with a conditional request instead of downloading the page again.
+ * <p>
+ * Hits count lookups served from a fresh entry and misses count lookups that found none;
+ * revalidations count the misses answered by the origin with 304 Not Modified, which avoided a full download.
+ * A disabled cache finds nothing and stores nothing, and counts no lookups.
+ */
+@Component
+public class WebPageCache {
+    private final boolean                   enabled;
+    private final boolean                   compress;
+    private final long                      ttlMillis;
+    private final Cache<String, CachedPage> cache;
+    private final LongAdder                 hits;
+    private final LongAdder                 misses;
+    private final LongAdder                 revalidations;
+
+    /**
+     * Constructs the cache.
+     *
+     * @param enabled        Whether pages are cached at all.
+     * @param maxBytes       The maximum total weight of the cached entries in bytes.
+     * @param ttlMillis      How long an entry is served without revalidation, in milliseconds.
+     * @param maxStaleMillis How long an expired entry is kept for revalidation, in milliseconds.
+     * @param compress       Whether page text is stored deflate-compressed.
+     */
+    public WebPageCache(
+            @Value("${webpage.cache.enabled:true}") boolean enabled,
+            @Value("${webpage.cache.max-bytes:268435456}") long maxBytes,
+            @Value("${webpage.cache.ttl:600000}") long ttlMillis,
+            @Value("${webpage.cache.max-stale:86400000}") long maxStaleMillis,
+            @Value("${webpage.cache.compress:true}") boolean compress) {
+        this.enabled       = enabled;
+        this.compress      = compress;
+        this.ttlMillis     = ttlMillis;
+        this.hits          = new LongAdder();
+        this.misses        = new LongAdder();
+        this.revalidations = new LongAdder();
+        this.cache         = Caffeine.newBuilder()
+                                     .maximumWeight(maxBytes)
+                                     .weigher((String url, CachedPage page) -> page.getWeight() + url.length() * 2)
+                                     .expireAfterWrite(ttlMillis + maxStaleMillis, TimeUnit.MILLISECONDS)
+                                     .recordStats()
+                                     .build();
+    }
+
+    /**
+     * Checks whether caching is enabled.
+     *
+     * @return true if pages are cached, false otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the text of a page if it is cached and still fresh.
+     *
+     * @param url The URL of the page
+     * @return The cached text, or empty if the page must be fetched or revalidated
+     */
+    public Optional<String> getFresh(String url) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        CachedPage page = cache.getIfPresent(url);
+        if (page != null && page.isFresh(System.currentTimeMillis(), ttlMillis)) {
+            hits.increment();
+            return Optional.of(page.getText());
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Returns an expired entry that can be revalidated with a conditional request.
+     *
+     * @param url The URL of the page
+     * @return The stale entry, or empty if there is none or it carries no validators
+     */
+    public Optional<CachedPage> getStale(String url) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(url)).filter(CachedPage::isRevalidatable);
+    }
+
+    /**
+     * Records that the origin confirmed a stale entry as unchanged and makes it fresh again.
+     *
+     * @param url  The URL of the page
+     * @param page The stale entry that was revalidated
+     * @return The text of the entry
+     */
+    public String revalidated(String url, CachedPage page) {
+        revalidations.increment();
+        cache.put(url, page.revalidated(System.currentTimeMillis()));
+        return page.getText();
+    }
+
+    /**
+     * Stores the text of a freshly downloaded page.
+     *
+     * @param url          The URL of the page
+     * @param text         The cleaned page text
+     * @param etag         The ETag response header, or null
+     * @param lastModified The Last-Modified response header, or null
+     */
+    public void put(String url, String text, String etag, String lastModified) {
+        if (!enabled) {
+            return;
+        }
+        cache.put(url, CachedPage.of(text, etag, lastModified, compress, System.currentTimeMillis()));
+    }
+
+    /**
+     * Returns the hit, miss, revalidation and eviction counters of the cache.
+     *
+     * @return The cache statistics
+     */
+    public CacheStatsResponse getStats() {
+        return new CacheStatsResponse(hits.sum(), misses.sum(), revalidations.sum(), cache.stats().evictionCount(),
+                                      cache.estimatedSize(), cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L));
+    }
+}
@@ -0,0 +1,46 @@
+package com.categorize.service.fetch;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import okhttp3.Dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches successful host name lookups for a fixed time, so fetching many pages from one host resolves it once.
+ * Failed lookups are not cached.
+ */
+final class CachingDns implements Dns {
+    private static final int MAX_HOSTS = 10_000;
+
+    private final Dns                              delegate;
+    private final Cache<String, List<InetAddress>> addresses;
+
+    /**
+     * Constructs the cache in front of another resolver.
+     *
+     * @param delegate The resolver to query on a miss
+     * @param ttlMs    How long a lookup is reused, in milliseconds
+     */
+    CachingDns(Dns delegate, long ttlMs) {
+        this.delegate  = delegate;
+        this.addresses = Caffeine.newBuilder()
+                                 .maximumSize(MAX_HOSTS)
+                                 .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                                 .build();
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        List<InetAddress> cached = addresses.getIfPresent(hostname);
+        if (cached != null) {
+            return cached;
+        }
+        List<InetAddress> resolved = delegate.lookup(hostname);
+        addresses.put(hostname, resolved);
+        return resolved;
+    }
+}
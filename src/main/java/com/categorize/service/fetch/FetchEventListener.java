@@ -0,0 +1,85 @@
+package com.categorize.service.fetch;
+
+import com.categorize.metrics.CategorizationMetrics;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the network stages of one fetch, tagged with the target host:
+ * - {@code categorize.fetch.dns}: the host name lookup, near zero when served from the DNS cache;
+ * - {@code categorize.fetch.connect}: the TCP connection and TLS handshake, absent when a pooled connection is reused;
+ * - {@code categorize.fetch.response}: from the start of the call until the response headers arrive,
+ * which covers the stages above, sending the request and the server's processing time.
+ * <p>
+ * The body is read while the page is parsed, so its transfer is part of {@code categorize.page.extract}.
+ * A listener belongs to one call; OkHttp reports the events of a call sequentially.
+ */
+final class FetchEventListener extends EventListener {
+    private final CategorizationMetrics metrics;
+    private final String                host;
+    private       long                  callStart;
+    private       long                  dnsStart;
+    private       long                  connectStart;
+
+    private FetchEventListener(CategorizationMetrics metrics, String host) {
+        this.metrics = metrics;
+        this.host    = host;
+    }
+
+    /**
+     * Returns a factory creating a listener for every call.
+     *
+     * @param metrics The metrics to record to
+     * @return The listener factory
+     */
+    static EventListener.Factory factory(CategorizationMetrics metrics) {
+        return call -> new FetchEventListener(metrics, metrics.hostTag(call.request().url().host()));
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+        record("categorize.fetch.dns", "Host name lookup of a fetch", dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+        record("categorize.fetch.connect", "TCP connection and TLS handshake of a fetch", connectStart);
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol, IOException e) {
+        record("categorize.fetch.connect", "TCP connection and TLS handshake of a fetch", connectStart);
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        record("categorize.fetch.response", "Time until the response headers of a fetch arrive", callStart);
+    }
+
+    private void record(String name, String description, long start) {
+        metrics.timer(name, description, "host", host).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
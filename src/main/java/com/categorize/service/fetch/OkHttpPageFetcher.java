@@ -0,0 +1,271 @@
+package com.categorize.service.fetch;
+
+import com.categorize.metrics.CategorizationMetrics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import okhttp3.*;
+import org.jsoup.helper.HttpConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches pages with a shared OkHttp client.
+ * <p>
+ * - Connections are pooled and kept alive, so consecutive fetches from one host skip the TCP and TLS handshakes.
+ * - HTTP/2 is negotiated over TLS when enabled, which multiplexes all fetches to a host over one connection.
+ * - At most {@code url.fetch.per-host.max-concurrency} fetch tasks run against one host at a time, see
+ * {@link #execute}; further tasks are queued per host and started as running ones finish, so they hold no thread
+ * while they wait. Over HTTP/1.1 this also caps the number of connections per host.
+ * - Successful host name lookups are cached for {@code url.fetch.dns.cache-ttl} milliseconds.
+ * <p>
+ * Compressed responses are decompressed transparently. The DNS, connect and response stages of every fetch are timed,
+ * see {@link FetchEventListener}.
+ */
+@Component
+public class OkHttpPageFetcher implements PageFetcher, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(OkHttpPageFetcher.class);
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private final OkHttpClient             client;
+    private final Cache<String, HostQueue> hostQueues;
+    private final int                      perHostMaxConcurrency;
+    private final String                   userAgent;
+
+    /**
+     * Constructs the fetcher and its connection pool.
+     *
+     * @param timeoutMs             The connect, read and overall call timeout, in milliseconds.
+     * @param http2                 Whether HTTP/2 is offered during TLS negotiation.
+     * @param maxIdleConnections    The maximum number of idle connections kept in the pool.
+     * @param keepAliveMs           How long an idle connection is kept, in milliseconds.
+     * @param perHostMaxConcurrency The maximum number of concurrent fetches per host.
+     * @param dnsCacheTtlMs         How long a host name lookup is reused, in milliseconds; 0 disables the cache.
+     * @param userAgent             The User-Agent header, or empty for a browser-like default.
+     * @param metrics               The metrics the stages of every fetch are recorded to.
+     */
+    public OkHttpPageFetcher(
+            @Value("${url.fetch.timeout:5000}") long timeoutMs,
+            @Value("${url.fetch.http2:true}") boolean http2,
+            @Value("${url.fetch.pool.max-idle-connections:64}") int maxIdleConnections,
+            @Value("${url.fetch.pool.keep-alive:300000}") long keepAliveMs,
+            @Value("${url.fetch.per-host.max-concurrency:8}") int perHostMaxConcurrency,
+            @Value("${url.fetch.dns.cache-ttl:60000}") long dnsCacheTtlMs,
+            @Value("${url.fetch.user-agent:}") String userAgent,
+            CategorizationMetrics metrics) {
+        this.perHostMaxConcurrency = perHostMaxConcurrency;
+        this.userAgent             = userAgent.isEmpty() ? HttpConnection.DEFAULT_UA : userAgent;
+        // Queues of idle hosts are only weakly held; a task in flight keeps its host's queue alive
+        this.hostQueues            = Caffeine.newBuilder().weakValues().build();
+        this.client                = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMs, TimeUnit.MILLISECONDS))
+            .protocols(http2 ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1) : Collections.singletonList(Protocol.HTTP_1_1))
+            .dns(dnsCacheTtlMs > 0 ? new CachingDns(Dns.SYSTEM, dnsCacheTtlMs) : Dns.SYSTEM)
+            .eventListenerFactory(FetchEventListener.factory(metrics))
+            .connectTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .readTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .callTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .build();
+        log.info("Started HTTP client with {} idle connections, {} fetches per host, HTTP/2 {}",
+                 maxIdleConnections, perHostMaxConcurrency, http2 ? "enabled" : "disabled");
+    }
+
+    /**
+     * Sends a GET request for a page.
+     *
+     * @param url     The URL of the web page to fetch
+     * @param headers Additional request headers, such as conditional request validators
+     * @return The response
+     * @throws IOException if the request fails or the server answers with an error status
+     */
+    @Override
+    public PageResponse fetch(String url, Map<String, String> headers) throws IOException {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null) {
+            throw new MalformedURLException("Only http and https URLs are supported: " + url);
+        }
+        Request.Builder request = new Request.Builder().url(httpUrl).header("User-Agent", userAgent);
+        headers.forEach(request::header);
+
+        Response response = client.newCall(request.build()).execute();
+        if (!response.isSuccessful() && response.code() != HTTP_NOT_MODIFIED) {
+            response.close();
+            throw new IOException("HTTP error fetching URL. Status=" + response.code() + ", URL=" + url);
+        }
+        return new OkHttpPageResponse(response);
+    }
+
+    /**
+     * Runs a task fetching the given URL once fewer than {@code url.fetch.per-host.max-concurrency} tasks of its host
+     * are running, queueing it until then. A task holds its host's slot from the moment it starts until it finishes.
+     *
+     * @param url      The URL the task fetches
+     * @param task     The task
+     * @param executor The executor to run the task on
+     */
+    @Override
+    public void execute(String url, RunnableFuture<?> task, Executor executor) {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null) {
+            // not limited, the fetch fails right away
+            PageFetcher.super.execute(url, task, executor);
+            return;
+        }
+        hostQueues.get(httpUrl.host(), host -> new HostQueue(perHostMaxConcurrency)).execute(task, executor);
+    }
+
+    /**
+     * Evicts pooled connections and stops the client's background threads.
+     */
+    @Override
+    public void destroy() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    /**
+     * The fetch slots of one host and the tasks waiting for one, which are started in arrival order as slots free up.
+     * A task cancelled while it waits is dropped when its turn comes.
+     */
+    private static final class HostQueue {
+        private final Deque<Waiting> waiting;
+        private       int            free;
+
+        private HostQueue(int slots) {
+            this.waiting = new ArrayDeque<>();
+            this.free    = slots;
+        }
+
+        private void execute(RunnableFuture<?> task, Executor executor) {
+            synchronized (this) {
+                if (free == 0) {
+                    waiting.add(new Waiting(task, executor));
+                    return;
+                }
+                free--;
+            }
+            if (!start(task, executor)) {
+                release();
+            }
+        }
+
+        /**
+         * Submits a task holding a slot, which it returns when it finishes.
+         *
+         * @return false if the executor rejected the task, which is then cancelled and has not taken the slot
+         */
+        private boolean start(RunnableFuture<?> task, Executor executor) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        release();
+                    }
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                task.cancel(false);
+                return false;
+            }
+        }
+
+        /**
+         * Hands a returned slot to the next waiting task, or frees it if none is waiting.
+         */
+        private void release() {
+            while (true) {
+                Waiting next;
+                synchronized (this) {
+                    next = waiting.poll();
+                    if (next == null) {
+                        free++;
+                        return;
+                    }
+                }
+                if (!next.task.isDone() && start(next.task, next.executor)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * A task waiting for a slot of its host.
+     */
+    private static final class Waiting {
+        private final RunnableFuture<?> task;
+        private final Executor          executor;
+
+        private Waiting(RunnableFuture<?> task, Executor executor) {
+            this.task     = task;
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * Adapts an OkHttp response.
+     */
+    private static final class OkHttpPageResponse implements PageResponse {
+        private final Response response;
+
+        private OkHttpPageResponse(Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.code();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.header(name);
+        }
+
+        @Override
+        public String getContentType() {
+            MediaType mediaType = mediaType();
+            return mediaType == null ? null : mediaType.type() + "/" + mediaType.subtype();
+        }
+
+        @Override
+        public String getCharset() {
+            MediaType mediaType = mediaType();
+            Charset   charset   = mediaType == null ? null : mediaType.charset();
+            return charset == null ? null : charset.name();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return response.body().byteStream();
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+
+        private MediaType mediaType() {
+            ResponseBody body = response.body();
+            return body == null ? null : body.contentType();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.categorize.service.fetch;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+
+/**
+ * Fetches web pages over HTTP.
+ * <p>
+ * Implementations own connection management, so {@link com.categorize.service.WebPageService} only deals with
+ * responses. Successful responses and {@code 304 Not Modified} answers to conditional requests are returned;
+ * any other status fails the fetch.
+ */
+public interface PageFetcher {
+
+    /**
+     * Sends a GET request for a page and returns the response with its body not yet read.
+     * The caller must close the response.
+     *
+     * @param url     The URL of the web page to fetch
+     * @param headers Additional request headers, such as conditional request validators
+     * @return The response
+     * @throws IOException if the request fails or the server answers with an error status
+     */
+    PageResponse fetch(String url, Map<String, String> headers) throws IOException;
+
+    /**
+     * Runs a task fetching the given URL on the executor once the fetcher has room for another fetch of the URL's host.
+     * Implementations limiting the fetches per host queue the task until then, so a waiting task holds no thread
+     * of the executor. A task the executor rejects is cancelled.
+     * <p>
+     * The default implementation runs the task right away.
+     *
+     * @param url      The URL the task fetches
+     * @param task     The task
+     * @param executor The executor to run the task on
+     */
+    default void execute(String url, RunnableFuture<?> task, Executor executor) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.categorize.service.fetch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The response to a page fetch, with its body not yet read.
+ * Closing the response releases the connection and any per-host concurrency slot it holds.
+ */
+public interface PageResponse extends Closeable {
+
+    /**
+     * Returns the HTTP status code.
+     *
+     * @return The status code
+     */
+    int getStatusCode();
+
+    /**
+     * Returns the value of a response header.
+     *
+     * @param name The header name, case-insensitive
+     * @return The header value, or null if the header is absent
+     */
+    String getHeader(String name);
+
+    /**
+     * Returns the media type of the body without parameters, e.g. {@code text/html}.
+     *
+     * @return The media type, or null if none was declared
+     */
+    String getContentType();
+
+    /**
+     * Returns the charset declared in the Content-Type header.
+     *
+     * @return The charset name, or null if none was declared
+     */
+    String getCharset();
+
+    /**
+     * Returns the body as a stream of bytes, decompressed if the transfer was compressed.
+     *
+     * @return The body stream
+     * @throws IOException if the body cannot be opened
+     */
+    InputStream getBody() throws IOException;
+
+    /**
+     * Closes the body and releases the connection.
+     */
+    @Override
+    void close();
+}
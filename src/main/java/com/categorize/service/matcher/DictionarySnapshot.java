@@ -0,0 +1,358 @@
+package com.categorize.service.matcher;
+
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A precompiled dictionary: the categories together with the ready-to-run tables of the keyword automaton
+ * and the phrase index built over them, in a versioned binary file.
+ * <p>
+ * The file is a fixed header followed by the payload:
+ * <pre>
+ *   int  magic            "CATD"
+ *   int  version          {@value #VERSION}
+ *   int  normalization    the flags of the {@link TextNormalizer} the tables were built with
+ *   long source checksum  the CRC-32 of the categories JSON the snapshot was compiled from
+ *   long payload length   in bytes
+ *   long payload checksum the CRC-32 of the payload
+ *   int  padding          0, so that the payload starts 8-byte aligned
+ *   the categories, the automaton tables and the phrase index tables
+ * </pre>
+ * Every table is a length followed by its big-endian elements, padded to start at a multiple of the element size.
+ * Loading maps the file read-only and only copies the categories onto the heap: the automaton and the phrase index
+ * read their tables through views of the mapping, which stays mapped for as long as they are in use. No JSON is parsed,
+ * no automaton is built, and the mapped pages are shared through the page cache by every process loading the same file.
+ * A snapshot is only accepted if its version, normalization and source checksum match and its payload is intact.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class DictionarySnapshot {
+    /**
+     * The version of the file format, increased whenever the layout of the header or of any table changes.
+     */
+    public static final int VERSION = 2;
+
+    private static final int MAGIC        = 0x43415444;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES + 3 * Long.BYTES;
+
+    private final List<Category>   categories;
+    private final KeywordAutomaton automaton;
+    private final PhraseIndex      phraseIndex;
+
+    private DictionarySnapshot(List<Category> categories, KeywordAutomaton automaton, PhraseIndex phraseIndex) {
+        this.categories  = categories;
+        this.automaton   = automaton;
+        this.phraseIndex = phraseIndex;
+    }
+
+    /**
+     * Computes the checksum of the categories source, as recorded in a snapshot.
+     *
+     * @param source The bytes of the categories JSON
+     * @return The CRC-32 of the bytes
+     */
+    public static long checksum(byte[] source) {
+        CRC32 crc = new CRC32();
+        crc.update(source, 0, source.length);
+        return crc.getValue();
+    }
+
+    /**
+     * Compiles the categories into a snapshot file.
+     * The file is written next to the target and moved into place, so a process loading the snapshot never reads
+     * a partly written file, and a process that has the previous snapshot mapped keeps reading it unchanged.
+     *
+     * @param file           The snapshot file to write
+     * @param categories     The categories, in the order the service loads them
+     * @param normalizer     The normalizer the tables are built with, which must match the service's
+     * @param sourceChecksum The checksum of the categories JSON, see {@link #checksum}
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, List<Category> categories, TextNormalizer normalizer, long sourceChecksum) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        Output                out     = new Output(payload);
+        out.writeInt(categories.size());
+        for (Category category : categories) {
+            out.writeString(category.getName());
+            out.writeInt(category.getKeywords().size());
+            for (CategoryKeyword keyword : category.getKeywords()) {
+                out.writeString(keyword.getKeyword());
+                out.writeDouble(keyword.getWeight());
+            }
+        }
+        KeywordAutomaton.build(categories, normalizer).writeTo(out);
+        PhraseIndex.build(categories, normalizer).writeTo(out);
+        out.flush();
+
+        byte[] bytes = payload.toByteArray();
+        CRC32  crc   = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+
+        Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream header = new DataOutputStream(Files.newOutputStream(temporary))) {
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+                header.writeInt(normalizer.getFlags());
+                header.writeLong(sourceChecksum);
+                header.writeLong(bytes.length);
+                header.writeLong(crc.getValue());
+                header.writeInt(0);
+                header.write(bytes);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Loads a snapshot file by memory-mapping it.
+     * The returned automaton and phrase index read their tables from the mapping, so they hold no copy of them on the heap.
+     *
+     * @param file           The snapshot file
+     * @param normalizer     The normalizer of the service, which must be the one the tables were built with
+     * @param sourceChecksum The checksum of the current categories JSON, see {@link #checksum}
+     * @return The loaded snapshot
+     * @throws IOException if the file cannot be read, is of another version, does not match the normalizer
+     *                     or the categories JSON, or is corrupt
+     */
+    public static DictionarySnapshot load(Path file, TextNormalizer normalizer, long sourceChecksum) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a dictionary snapshot: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a dictionary snapshot: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Dictionary snapshot " + file + " has version " + version + ", expected " + VERSION);
+        }
+        if (buffer.getInt() != normalizer.getFlags()) {
+            throw new IOException("Dictionary snapshot " + file + " was compiled with other normalization settings");
+        }
+        if (buffer.getLong() != sourceChecksum) {
+            throw new IOException("Dictionary snapshot " + file + " was compiled from other categories");
+        }
+        long length   = buffer.getLong();
+        long checksum = buffer.getLong();
+        buffer.getInt();
+        if (length != buffer.remaining()) {
+            throw new IOException("Dictionary snapshot " + file + " is truncated");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        if (crc.getValue() != checksum) {
+            throw new IOException("Dictionary snapshot " + file + " is corrupt");
+        }
+
+        Input in = new Input(buffer.slice());
+        try {
+            int            count      = in.readCount(Integer.BYTES);
+            List<Category> categories = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Category category = new Category(in.readString());
+                int      keywords = in.readCount(Integer.BYTES + Double.BYTES);
+                for (int k = 0; k < keywords; k++) {
+                    category.addKeyword(new CategoryKeyword(in.readString(), in.readDouble()));
+                }
+                categories.add(category);
+            }
+            KeywordAutomaton automaton   = KeywordAutomaton.readFrom(in);
+            PhraseIndex      phraseIndex = PhraseIndex.readFrom(in);
+            if (automaton.getCategoryCount() != count || phraseIndex.getCategoryCount() != count) {
+                throw new IOException("Dictionary snapshot " + file + " is inconsistent");
+            }
+            return new DictionarySnapshot(Collections.unmodifiableList(categories), automaton, phraseIndex);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Dictionary snapshot " + file + " is malformed", e);
+        }
+    }
+
+    /**
+     * Returns the categories, in the order they were compiled.
+     *
+     * @return The categories
+     */
+    public List<Category> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Returns the keyword automaton over the categories.
+     *
+     * @return The automaton
+     */
+    public KeywordAutomaton getAutomaton() {
+        return automaton;
+    }
+
+    /**
+     * Returns the whole-word phrase index over the categories.
+     *
+     * @return The phrase index
+     */
+    public PhraseIndex getPhraseIndex() {
+        return phraseIndex;
+    }
+
+    /**
+     * Writes the primitive tables of a snapshot payload.
+     */
+    static final class Output {
+        private final DataOutputStream out;
+
+        Output(OutputStream out) {
+            this.out = new DataOutputStream(out);
+        }
+
+        void writeInt(int value) throws IOException {
+            out.writeInt(value);
+        }
+
+        void writeDouble(double value) throws IOException {
+            out.writeDouble(value);
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        void writeInts(IntBuffer values) throws IOException {
+            writeLength(values.capacity(), Integer.BYTES);
+            for (int i = 0; i < values.capacity(); i++) {
+                out.writeInt(values.get(i));
+            }
+        }
+
+        void writeChars(CharBuffer values) throws IOException {
+            writeLength(values.capacity(), Character.BYTES);
+            for (int i = 0; i < values.capacity(); i++) {
+                out.writeChar(values.get(i));
+            }
+        }
+
+        void writeLongs(LongBuffer values) throws IOException {
+            writeLength(values.capacity(), Long.BYTES);
+            for (int i = 0; i < values.capacity(); i++) {
+                out.writeLong(values.get(i));
+            }
+        }
+
+        void writeDoubles(DoubleBuffer values) throws IOException {
+            writeLength(values.capacity(), Double.BYTES);
+            for (int i = 0; i < values.capacity(); i++) {
+                out.writeDouble(values.get(i));
+            }
+        }
+
+        /**
+         * Writes the length of a table and pads the payload so that its elements start at a multiple of their size.
+         */
+        private void writeLength(int count, int elementBytes) throws IOException {
+            out.writeInt(count);
+            while (out.size() % elementBytes != 0) {
+                out.writeByte(0);
+            }
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads the primitive tables of a snapshot payload from a mapped buffer, returning every array as a view of the buffer.
+     */
+    static final class Input {
+        private final ByteBuffer buffer;
+
+        Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readInt() {
+            return buffer.getInt();
+        }
+
+        double readDouble() {
+            return buffer.getDouble();
+        }
+
+        String readString() throws IOException {
+            byte[] bytes = new byte[readCount(Byte.BYTES)];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        IntBuffer readInts() throws IOException {
+            return readTable(Integer.BYTES).asIntBuffer();
+        }
+
+        CharBuffer readChars() throws IOException {
+            return readTable(Character.BYTES).asCharBuffer();
+        }
+
+        LongBuffer readLongs() throws IOException {
+            return readTable(Long.BYTES).asLongBuffer();
+        }
+
+        DoubleBuffer readDoubles() throws IOException {
+            return readTable(Double.BYTES).asDoubleBuffer();
+        }
+
+        /**
+         * Reads a length prefix, checking that the elements it announces fit in the rest of the payload.
+         */
+        int readCount(int elementBytes) throws IOException {
+            int count = buffer.getInt();
+            if (count < 0 || (long) count * elementBytes > buffer.remaining()) {
+                throw new IOException("Invalid table length " + count);
+            }
+            return count;
+        }
+
+        /**
+         * Reads the length of a table and returns its padded elements as a slice of the payload, moving past them.
+         */
+        private ByteBuffer readTable(int elementBytes) throws IOException {
+            int count = buffer.getInt();
+            int start = buffer.position() + (elementBytes - buffer.position() % elementBytes) % elementBytes;
+            if (count < 0 || start - buffer.position() + (long) count * elementBytes > buffer.remaining()) {
+                throw new IOException("Invalid table length " + count);
+            }
+            ByteBuffer table = buffer.duplicate();
+            table.position(start);
+            table.limit(start + count * elementBytes);
+            buffer.position(start + count * elementBytes);
+            return table.slice();
+        }
+    }
+}
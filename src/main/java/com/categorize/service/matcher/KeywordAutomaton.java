@@ -0,0 +1,489 @@
+package com.categorize.service.matcher;
+
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.*;
+
+/**
+ * A compact Aho-Corasick automaton over the keywords of a list of categories.
+ * <p>
+ * The automaton is stored as flat primitive arrays instead of an object graph:
+ * the transitions of every state are a sorted slice of {@code edgeChars}/{@code edgeTargets},
+ * and the categories matched on entering a state are an interned bitset shared by every state
+ * with the same outputs. For scoring, every state also refers to an interned set of the summed weights of the keywords
+ * matched on entering it. Categories are identified by their index in the list the automaton was built from.
+ * The arrays are read through buffers, which wrap heap arrays when the automaton is built and are views of the mapped file
+ * when it is loaded from a {@link DictionarySnapshot}.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class KeywordAutomaton {
+    /**
+     * The start state of the automaton.
+     */
+    public static final int ROOT = 0;
+
+    private static final int ARRAY_HEADER_BYTES  = 16;
+    private static final int OBJECT_HEADER_BYTES = 16;
+
+    private final int        categoryCount;
+    private final int        words;
+    private final IntBuffer  edgeStart;
+    private final CharBuffer edgeChars;
+    private final IntBuffer  edgeTargets;
+    private final IntBuffer  fail;
+    private final IntBuffer  outputSet;
+    private final LongBuffer outputBits;
+    private final IntBuffer  weightSet;
+
+    private final WeightTable weightTable;
+
+    private KeywordAutomaton(int categoryCount, IntBuffer edgeStart, CharBuffer edgeChars, IntBuffer edgeTargets,
+                             IntBuffer fail, IntBuffer outputSet, LongBuffer outputBits, IntBuffer weightSet, WeightTable weightTable) {
+        this.categoryCount = categoryCount;
+        this.words         = wordsFor(categoryCount);
+        this.edgeStart     = edgeStart;
+        this.edgeChars     = edgeChars;
+        this.edgeTargets   = edgeTargets;
+        this.fail          = fail;
+        this.outputSet     = outputSet;
+        this.outputBits    = outputBits;
+        this.weightSet     = weightSet;
+        this.weightTable   = weightTable;
+    }
+
+    /**
+     * Builds an automaton over the keywords of the given categories.
+     * <p>
+     * Keywords are sorted once and the trie is laid out breadth-first directly into the primitive arrays,
+     * so no intermediate node objects are created regardless of the dictionary size.
+     *
+     * @param categories The categories to build the automaton from; a category's id is its index in this list
+     * @return The compiled automaton
+     */
+    public static KeywordAutomaton build(List<Category> categories) {
+        return build(categories, TextNormalizer.DEFAULT);
+    }
+
+    /**
+     * Builds an automaton over the normalized keywords of the given categories.
+     * The text fed to {@link #next} must be normalized with the same normalizer.
+     *
+     * @param categories The categories to build the automaton from; a category's id is its index in this list
+     * @param normalizer The normalizer applied to every keyword
+     * @return The compiled automaton
+     */
+    public static KeywordAutomaton build(List<Category> categories, TextNormalizer normalizer) {
+        List<String> keys    = new ArrayList<>();
+        IntList      ids     = new IntList();
+        List<Double> weights = new ArrayList<>();
+        for (int i = 0; i < categories.size(); i++) {
+            for (CategoryKeyword keyword : categories.get(i).getKeywords()) {
+                String key = normalizer.normalize(keyword.getKeyword());
+                if (!key.isEmpty()) {
+                    keys.add(key);
+                    ids.add(i);
+                    weights.add(keyword.getWeight());
+                }
+            }
+        }
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(keys::get));
+        String[] sortedKeys    = new String[order.length];
+        int[]    sortedIds     = new int[order.length];
+        double[] sortedWeights = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i]    = keys.get(order[i]);
+            sortedIds[i]     = ids.get(order[i]);
+            sortedWeights[i] = weights.get(order[i]);
+        }
+        return new Builder(categories.size(), sortedKeys, sortedIds, sortedWeights).build();
+    }
+
+    /**
+     * Returns the number of 64-bit words needed for a bitset over the given number of categories.
+     *
+     * @param categoryCount The number of categories
+     * @return The bitset length in words
+     */
+    public static int wordsFor(int categoryCount) {
+        return Math.max(1, (categoryCount + 63) >>> 6);
+    }
+
+    /**
+     * Returns the number of categories the automaton was built over.
+     *
+     * @return The category count
+     */
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    /**
+     * Returns the number of states of the automaton.
+     *
+     * @return The state count
+     */
+    public int getStateCount() {
+        return fail.capacity();
+    }
+
+    /**
+     * Returns the approximate heap footprint of the automaton tables in bytes.
+     * Tables mapped from a snapshot are not on the heap and are not counted.
+     *
+     * @return The footprint in bytes
+     */
+    public long getFootprintBytes() {
+        return OBJECT_HEADER_BYTES
+               + tableBytes(edgeStart, Integer.BYTES)
+               + tableBytes(edgeChars, Character.BYTES)
+               + tableBytes(edgeTargets, Integer.BYTES)
+               + tableBytes(fail, Integer.BYTES)
+               + tableBytes(outputSet, Integer.BYTES)
+               + tableBytes(outputBits, Long.BYTES)
+               + tableBytes(weightSet, Integer.BYTES)
+               + weightTable.getFootprintBytes(ARRAY_HEADER_BYTES, OBJECT_HEADER_BYTES);
+    }
+
+    /**
+     * Consumes one character, following failure links until a transition exists or the root is reached.
+     *
+     * @param state The current state
+     * @param c     The next character of the text, already normalized
+     * @return The state reached after consuming the character
+     */
+    public int next(int state, char c) {
+        while (true) {
+            int target = transition(state, c);
+            if (target >= 0) {
+                return target;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail.get(state);
+        }
+    }
+
+    /**
+     * Checks whether entering the given state matches at least one keyword.
+     *
+     * @param state The state to check
+     * @return true if the state has outputs, false otherwise
+     */
+    public boolean hasOutputs(int state) {
+        return outputSet.get(state) != 0;
+    }
+
+    /**
+     * Adds the requested categories matched on entering a state to a result bitset.
+     *
+     * @param state     The state that was entered
+     * @param requested The bitset of categories to report
+     * @param matched   The bitset of matched categories, updated in place
+     * @return true if every requested category has now been matched, false otherwise
+     */
+    public boolean collectOutputs(int state, long[] requested, long[] matched) {
+        int     offset   = outputSet.get(state) * words;
+        boolean complete = true;
+        for (int w = 0; w < words; w++) {
+            matched[w] |= outputBits.get(offset + w) & requested[w];
+            complete &= matched[w] == requested[w];
+        }
+        return complete;
+    }
+
+    /**
+     * Adds the weights of the keywords matched on entering a state to the scores of the requested categories.
+     * Every keyword ending at the current position counts, including keywords that are suffixes of others.
+     *
+     * @param state     The state that was entered
+     * @param requested The bitset of categories to score
+     * @param sink      The sink receiving the weights
+     */
+    public void collectScores(int state, long[] requested, ScoreSink sink) {
+        weightTable.collect(weightSet.get(state), requested, sink);
+    }
+
+    /**
+     * Writes the tables of the automaton to a dictionary snapshot.
+     *
+     * @param out The snapshot payload
+     * @throws IOException if the payload cannot be written
+     */
+    void writeTo(DictionarySnapshot.Output out) throws IOException {
+        out.writeInt(categoryCount);
+        out.writeInts(edgeStart);
+        out.writeChars(edgeChars);
+        out.writeInts(edgeTargets);
+        out.writeInts(fail);
+        out.writeInts(outputSet);
+        out.writeLongs(outputBits);
+        out.writeInts(weightSet);
+        weightTable.writeTo(out);
+    }
+
+    /**
+     * Reads an automaton written by {@link #writeTo} from a dictionary snapshot, as views of the snapshot's tables.
+     *
+     * @param in The snapshot payload
+     * @return The automaton
+     * @throws IOException if the payload is malformed
+     */
+    static KeywordAutomaton readFrom(DictionarySnapshot.Input in) throws IOException {
+        int        categoryCount = in.readInt();
+        IntBuffer  edgeStart     = in.readInts();
+        CharBuffer edgeChars     = in.readChars();
+        IntBuffer  edgeTargets   = in.readInts();
+        IntBuffer  fail          = in.readInts();
+        IntBuffer  outputSet     = in.readInts();
+        LongBuffer outputBits    = in.readLongs();
+        IntBuffer  weightSet     = in.readInts();
+        if (edgeStart.capacity() != fail.capacity() + 1 || edgeTargets.capacity() != edgeChars.capacity()
+            || outputSet.capacity() != fail.capacity() || weightSet.capacity() != fail.capacity()) {
+            throw new IOException("Inconsistent automaton tables");
+        }
+        return new KeywordAutomaton(categoryCount, edgeStart, edgeChars, edgeTargets, fail, outputSet, outputBits, weightSet,
+                                    WeightTable.readFrom(in));
+    }
+
+    /**
+     * Looks up the goto transition of a state with a binary search over its sorted edges.
+     *
+     * @param state The state to leave
+     * @param c     The character to follow
+     * @return The target state, or -1 if the state has no edge for the character
+     */
+    private int transition(int state, char c) {
+        int lo = edgeStart.get(state);
+        int hi = edgeStart.get(state + 1) - 1;
+        while (lo <= hi) {
+            int  mid = (lo + hi) >>> 1;
+            char e   = edgeChars.get(mid);
+            if (e < c) {
+                lo = mid + 1;
+            } else if (e > c) {
+                hi = mid - 1;
+            } else {
+                return edgeTargets.get(mid);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the heap footprint of a table, which is zero for a table mapped from a snapshot.
+     */
+    private static long tableBytes(Buffer table, int elementBytes) {
+        return table.isDirect() ? 0 : ARRAY_HEADER_BYTES + (long) table.capacity() * elementBytes;
+    }
+
+    /**
+     * Lays out the trie breadth-first over a sorted keyword list.
+     * Every state owns the contiguous range of sorted keywords sharing its prefix,
+     * so the children of a state are discovered in character order and appended as one contiguous edge slice.
+     */
+    private static final class Builder {
+        private final int      categoryCount;
+        private final int      words;
+        private final String[] keys;
+        private final int[]    ids;
+        private final double[] weights;
+
+        private final IntList  edgeStart   = new IntList();
+        private final CharList edgeChars   = new CharList();
+        private final IntList  edgeTargets = new IntList();
+        private final IntList  fail        = new IntList();
+        private final IntList  outputSet   = new IntList();
+        private final IntList  weightSet   = new IntList();
+        private final IntList  rangeLo     = new IntList();
+        private final IntList  rangeHi     = new IntList();
+        private final IntList  depth       = new IntList();
+
+        private final Map<BitSet, Integer> internedSets = new HashMap<>();
+        private final List<BitSet>         sets         = new ArrayList<>();
+        private final WeightTable.Builder  weightSets   = new WeightTable.Builder();
+
+        private Builder(int categoryCount, String[] keys, int[] ids, double[] weights) {
+            this.categoryCount = categoryCount;
+            this.words         = wordsFor(categoryCount);
+            this.keys          = keys;
+            this.ids           = ids;
+            this.weights       = weights;
+        }
+
+        private KeywordAutomaton build() {
+            intern(new BitSet());
+            addState(0, keys.length, 0, ROOT, 0, 0);
+
+            for (int state = 0; state < fail.size(); state++) {
+                edgeStart.add(edgeChars.size());
+                int d  = depth.get(state);
+                int hi = rangeHi.get(state);
+                int i  = rangeLo.get(state);
+                while (i < hi && keys[i].length() == d) {
+                    i++;
+                }
+                while (i < hi) {
+                    char c = keys[i].charAt(d);
+                    int  j = i;
+                    while (j < hi && keys[j].charAt(d) == c) {
+                        j++;
+                    }
+                    int failTarget = state == ROOT ? ROOT : failTarget(fail.get(state), c);
+                    int child      = addState(i, j, d + 1, failTarget, outputsOf(i, j, d + 1, failTarget), weightsOf(i, j, d + 1, failTarget));
+                    edgeChars.add(c);
+                    edgeTargets.add(child);
+                    i = j;
+                }
+            }
+            edgeStart.add(edgeChars.size());
+
+            long[] outputBits = new long[sets.size() * words];
+            for (int s = 0; s < sets.size(); s++) {
+                long[] bits = sets.get(s).toLongArray();
+                System.arraycopy(bits, 0, outputBits, s * words, bits.length);
+            }
+            return new KeywordAutomaton(categoryCount, IntBuffer.wrap(edgeStart.toArray()), CharBuffer.wrap(edgeChars.toArray()),
+                                        IntBuffer.wrap(edgeTargets.toArray()), IntBuffer.wrap(fail.toArray()), IntBuffer.wrap(outputSet.toArray()),
+                                        LongBuffer.wrap(outputBits), IntBuffer.wrap(weightSet.toArray()), weightSets.build());
+        }
+
+        private int addState(int lo, int hi, int d, int failTarget, int outputs, int weightSetIndex) {
+            rangeLo.add(lo);
+            rangeHi.add(hi);
+            depth.add(d);
+            fail.add(failTarget);
+            outputSet.add(outputs);
+            weightSet.add(weightSetIndex);
+            return fail.size() - 1;
+        }
+
+        /**
+         * Resolves the failure target of a new child by walking the failure chain of its parent.
+         * Every state on that chain is shallower than the parent, so its edges are already final.
+         */
+        private int failTarget(int state, char c) {
+            while (true) {
+                int lo = edgeStart.get(state);
+                int hi = edgeStart.get(state + 1) - 1;
+                while (lo <= hi) {
+                    int  mid = (lo + hi) >>> 1;
+                    char e   = edgeChars.get(mid);
+                    if (e < c) {
+                        lo = mid + 1;
+                    } else if (e > c) {
+                        hi = mid - 1;
+                    } else {
+                        return edgeTargets.get(mid);
+                    }
+                }
+                if (state == ROOT) {
+                    return ROOT;
+                }
+                state = fail.get(state);
+            }
+        }
+
+        /**
+         * Computes the interned output set of a new state: the categories of the keywords ending at it,
+         * merged with the outputs of its failure target.
+         */
+        private int outputsOf(int lo, int hi, int d, int failTarget) {
+            if (lo < hi && keys[lo].length() != d) {
+                return outputSet.get(failTarget);
+            }
+            BitSet outputs = (BitSet) sets.get(outputSet.get(failTarget)).clone();
+            for (int k = lo; k < hi && keys[k].length() == d; k++) {
+                outputs.set(ids[k]);
+            }
+            return intern(outputs);
+        }
+
+        /**
+         * Computes the interned weight set of a new state: the weights of the keywords ending at it,
+         * added to the weights of its failure target.
+         */
+        private int weightsOf(int lo, int hi, int d, int failTarget) {
+            if (lo < hi && keys[lo].length() != d) {
+                return weightSet.get(failTarget);
+            }
+            Map<Integer, Double> stateWeights = weightSets.copy(weightSet.get(failTarget));
+            for (int k = lo; k < hi && keys[k].length() == d; k++) {
+                stateWeights.merge(ids[k], weights[k], Double::sum);
+            }
+            return weightSets.intern(stateWeights);
+        }
+
+        private int intern(BitSet outputs) {
+            return internedSets.computeIfAbsent(outputs, set -> {
+                sets.add(set);
+                return sets.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * A growable int array used while laying out the automaton.
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int   size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * A growable char array used while laying out the automaton.
+     */
+    private static final class CharList {
+        private char[] values = new char[16];
+        private int    size;
+
+        void add(char value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        char get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        char[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
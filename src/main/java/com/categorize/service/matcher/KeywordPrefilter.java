@@ -0,0 +1,176 @@
+package com.categorize.service.matcher;
+
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+
+import java.util.List;
+
+/**
+ * A probabilistic screen that finds where in a normalized text a keyword of a list of categories could start.
+ * <p>
+ * Every keyword is reduced to its first q characters, q being the length of the shortest keyword but at most
+ * {@value #MAX_GRAM}, and the rolling hash of that q-gram is added to a Bloom filter with two probes. A text is screened
+ * by rolling the hash over all of its q-grams; a position whose q-gram is not in the filter cannot start any keyword,
+ * while a position whose q-gram is in it is a candidate, either a true keyword start or a false positive.
+ * The screen never rejects a true keyword start, so exact matching restricted to the regions following the candidates,
+ * as long as the longest keyword, finds exactly what it finds over the whole text.
+ * <p>
+ * The filter holds {@value #BITS_PER_KEYWORD} bits per keyword, which keeps false positives below 1.5% of the positions
+ * for random q-grams; on text sharing its vocabulary with the keywords fewer positions are rejected.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class KeywordPrefilter {
+    private static final int  MAX_GRAM         = 4;
+    private static final int  BITS_PER_KEYWORD = 16;
+    private static final int  MIN_BITS         = 1 << 10;
+    private static final long GRAM_MULTIPLIER  = 0x100000001B3L;
+
+    private static final int ARRAY_HEADER_BYTES  = 16;
+    private static final int OBJECT_HEADER_BYTES = 16;
+
+    private final int    gram;
+    private final int    maxLength;
+    private final long   power;
+    private final long[] bits;
+    private final int    mask;
+    private final int    keywordCount;
+
+    private KeywordPrefilter(int gram, int maxLength, long[] bits, int keywordCount) {
+        this.gram         = gram;
+        this.maxLength    = maxLength;
+        this.bits         = bits;
+        this.mask         = bits.length * Long.SIZE - 1;
+        this.keywordCount = keywordCount;
+        long power = 1;
+        for (int i = 1; i < gram; i++) {
+            power *= GRAM_MULTIPLIER;
+        }
+        this.power = power;
+    }
+
+    /**
+     * Builds a prefilter over the normalized keywords of the given categories.
+     * Keywords normalizing to nothing never match and are ignored; without any keyword, every position is rejected.
+     *
+     * @param categories The categories whose keywords the text is screened for
+     * @param normalizer The normalizer applied to every keyword, and to be applied to the text
+     * @return The prefilter
+     */
+    public static KeywordPrefilter build(List<Category> categories, TextNormalizer normalizer) {
+        String[] keywords = categories.stream()
+                                      .flatMap(category -> category.getKeywords().stream())
+                                      .map(CategoryKeyword::getKeyword)
+                                      .map(normalizer::normalize)
+                                      .filter(keyword -> !keyword.isEmpty())
+                                      .toArray(String[]::new);
+        int gram      = MAX_GRAM;
+        int maxLength = 0;
+        for (String keyword : keywords) {
+            gram      = Math.min(gram, keyword.length());
+            maxLength = Math.max(maxLength, keyword.length());
+        }
+        int    size = Integer.highestOneBit(Math.max(MIN_BITS, keywords.length * BITS_PER_KEYWORD - 1)) << 1;
+        long[] bits = new long[size / Long.SIZE];
+        for (String keyword : keywords) {
+            long hash = 0;
+            for (int i = 0; i < gram; i++) {
+                hash = hash * GRAM_MULTIPLIER + keyword.charAt(i);
+            }
+            long mixed  = PhraseIndex.finishToken(hash);
+            int  first  = (int) mixed & (size - 1);
+            int  second = (int) (mixed >>> 32) & (size - 1);
+            bits[first >>> 6]  |= 1L << first;
+            bits[second >>> 6] |= 1L << second;
+        }
+        return new KeywordPrefilter(gram, maxLength, bits, keywords.length);
+    }
+
+    /**
+     * Receives the regions of a text that have to be matched exactly.
+     */
+    @FunctionalInterface
+    public interface RegionSink {
+        /**
+         * Accepts one region; regions are reported in order and never overlap.
+         *
+         * @param start The offset of the first character of the region
+         * @param end   The offset after the last character of the region
+         */
+        void accept(int start, int end);
+    }
+
+    /**
+     * Screens a normalized text and reports the regions in which a keyword could occur.
+     * Every candidate position opens a region as long as the longest keyword, and overlapping regions are merged,
+     * so every occurrence of a keyword lies entirely inside one reported region.
+     *
+     * @param text The normalized text to screen
+     * @param sink The sink receiving the candidate regions
+     */
+    public void forEachCandidateRegion(CharSequence text, RegionSink sink) {
+        int n = text.length();
+        if (keywordCount == 0 || n < gram) {
+            return;
+        }
+        long hash = 0;
+        for (int i = 0; i < gram; i++) {
+            hash = hash * GRAM_MULTIPLIER + text.charAt(i);
+        }
+        int regionStart = -1;
+        int regionEnd   = -1;
+        for (int i = 0; ; i++) {
+            if (mayContain(hash)) {
+                int end = Math.min(n, i + maxLength);
+                if (i > regionEnd) {
+                    if (regionStart >= 0) {
+                        sink.accept(regionStart, regionEnd);
+                    }
+                    regionStart = i;
+                }
+                regionEnd = end;
+            }
+            if (i + gram >= n) {
+                break;
+            }
+            hash = (hash - text.charAt(i) * power) * GRAM_MULTIPLIER + text.charAt(i + gram);
+        }
+        if (regionStart >= 0) {
+            sink.accept(regionStart, regionEnd);
+        }
+    }
+
+    /**
+     * Returns the number of leading characters of every keyword the filter is built over.
+     *
+     * @return The q-gram length
+     */
+    public int getGram() {
+        return gram;
+    }
+
+    /**
+     * Returns the number of keywords the filter is built over.
+     *
+     * @return The keyword count
+     */
+    public int getKeywordCount() {
+        return keywordCount;
+    }
+
+    /**
+     * Returns the approximate heap footprint of the filter in bytes.
+     *
+     * @return The footprint in bytes
+     */
+    public long getFootprintBytes() {
+        return OBJECT_HEADER_BYTES + ARRAY_HEADER_BYTES + (long) bits.length * Long.BYTES;
+    }
+
+    private boolean mayContain(long hash) {
+        long mixed  = PhraseIndex.finishToken(hash);
+        int  first  = (int) mixed & mask;
+        int  second = (int) (mixed >>> 32) & mask;
+        return (bits[first >>> 6] & (1L << first)) != 0 && (bits[second >>> 6] & (1L << second)) != 0;
+    }
+}
@@ -0,0 +1,342 @@
+package com.categorize.service.matcher;
+
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.*;
+
+/**
+ * A hashed index of the keywords of a list of categories as whole-word phrases.
+ * <p>
+ * Text is split into tokens, maximal runs of letters and digits after normalization; everything else separates tokens.
+ * A keyword is the phrase of its tokens, so {@code "star wars"} matches the two tokens {@code star} and {@code wars}
+ * but not {@code starwarsfan}. Every token is hashed to 64 bits and a phrase of n tokens to the polynomial
+ * {@code t1 * P^(n-1) + ... + tn}, which a matcher can extend backwards over the last tokens of the page,
+ * so each token costs one lookup per phrase length regardless of the dictionary size.
+ * <p>
+ * Phrases are stored by hash in an open-addressing table of primitive arrays, with the categories of each phrase
+ * as an interned bitset and, for scoring, the summed keyword weight of each category as an interned weight set;
+ * categories are identified by their index in the list the index was built from.
+ * The arrays are read through buffers, which wrap heap arrays when the index is built and are views of the mapped file
+ * when it is loaded from a {@link DictionarySnapshot}.
+ * Two phrases with the same 64-bit hash are not told apart.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class PhraseIndex {
+    /**
+     * The hash of an empty token, to extend with {@link #extendToken}.
+     */
+    public static final long TOKEN_SEED = 0x9E3779B97F4A7C15L;
+
+    private static final long TOKEN_MULTIPLIER  = 0x100000001B3L;
+    private static final long PHRASE_MULTIPLIER = 0xC6A4A7935BD1E995L;
+    private static final long EMPTY             = 0L;
+
+    private static final int ARRAY_HEADER_BYTES  = 16;
+    private static final int OBJECT_HEADER_BYTES = 16;
+
+    private final int        categoryCount;
+    private final int        words;
+    private final int        maxTokens;
+    private final long[]     powers;
+    private final LongBuffer keys;
+    private final IntBuffer  outputSet;
+    private final LongBuffer outputBits;
+    private final IntBuffer  weightSet;
+    private final int        phraseCount;
+
+    private final WeightTable weightTable;
+
+    private PhraseIndex(int categoryCount, int maxTokens, LongBuffer keys, IntBuffer outputSet, LongBuffer outputBits,
+                        IntBuffer weightSet, WeightTable weightTable, int phraseCount) {
+        this.categoryCount = categoryCount;
+        this.words         = KeywordAutomaton.wordsFor(categoryCount);
+        this.maxTokens     = maxTokens;
+        this.powers        = new long[Math.max(1, maxTokens)];
+        this.keys          = keys;
+        this.outputSet     = outputSet;
+        this.outputBits    = outputBits;
+        this.weightSet     = weightSet;
+        this.weightTable   = weightTable;
+        this.phraseCount   = phraseCount;
+        powers[0] = 1;
+        for (int n = 1; n < powers.length; n++) {
+            powers[n] = powers[n - 1] * PHRASE_MULTIPLIER;
+        }
+    }
+
+    /**
+     * Builds an index over the normalized keywords of the given categories.
+     * Keywords without any letter or digit are ignored.
+     *
+     * @param categories The categories to build the index from; a category's id is its index in this list
+     * @param normalizer The normalizer applied to every keyword, and to be applied to the text
+     * @return The compiled index
+     */
+    public static PhraseIndex build(List<Category> categories, TextNormalizer normalizer) {
+        Map<Long, Map<Integer, Double>> phrases   = new HashMap<>();
+        int                             maxTokens = 0;
+        for (int id = 0; id < categories.size(); id++) {
+            for (CategoryKeyword keyword : categories.get(id).getKeywords()) {
+                long[] tokens = tokenize(normalizer.normalize(keyword.getKeyword()));
+                if (tokens.length > 0) {
+                    phrases.computeIfAbsent(phraseHash(tokens), hash -> new TreeMap<>()).merge(id, keyword.getWeight(), Double::sum);
+                    maxTokens = Math.max(maxTokens, tokens.length);
+                }
+            }
+        }
+
+        int                  words      = KeywordAutomaton.wordsFor(categories.size());
+        int                  capacity   = Integer.highestOneBit(Math.max(2, phrases.size() * 2 - 1)) << 1;
+        LongBuffer           keys       = LongBuffer.wrap(new long[capacity]);
+        int[]                sets       = new int[capacity];
+        int[]                weightSet  = new int[capacity];
+        Map<BitSet, Integer> interned   = new HashMap<>();
+        List<BitSet>         outputs    = new ArrayList<>();
+        WeightTable.Builder  weightSets = new WeightTable.Builder();
+        phrases.forEach((hash, weights) -> {
+            BitSet categoryIds = new BitSet();
+            weights.keySet().forEach(categoryIds::set);
+            int slot = slotOf(keys, hash);
+            keys.put(slot, nonEmpty(hash));
+            weightSet[slot] = weightSets.intern(weights);
+            sets[slot]      = interned.computeIfAbsent(categoryIds, set -> {
+                outputs.add(set);
+                return outputs.size() - 1;
+            });
+        });
+        long[] outputBits = new long[outputs.size() * words];
+        for (int s = 0; s < outputs.size(); s++) {
+            long[] bits = outputs.get(s).toLongArray();
+            System.arraycopy(bits, 0, outputBits, s * words, bits.length);
+        }
+        return new PhraseIndex(categories.size(), maxTokens, keys, IntBuffer.wrap(sets), LongBuffer.wrap(outputBits),
+                               IntBuffer.wrap(weightSet), weightSets.build(), phrases.size());
+    }
+
+    /**
+     * Checks whether a normalized character belongs to a token.
+     *
+     * @param c The normalized character
+     * @return true for letters and digits
+     */
+    public static boolean isTokenChar(int c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * Extends the hash of a token with its next character.
+     *
+     * @param hash The hash so far, starting at {@link #TOKEN_SEED}
+     * @param c    The next normalized character of the token
+     * @return The extended hash
+     */
+    public static long extendToken(long hash, char c) {
+        return (hash ^ c) * TOKEN_MULTIPLIER;
+    }
+
+    /**
+     * Finishes the hash of a complete token, spreading its bits for use in phrase hashes.
+     *
+     * @param hash The hash of all the characters of the token
+     * @return The token hash
+     */
+    public static long finishToken(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Returns the number of tokens of the longest phrase, which bounds the phrases a matcher has to look up.
+     *
+     * @return The maximum phrase length in tokens
+     */
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    /**
+     * Returns the weight of the token n positions before the last one in a phrase hash.
+     *
+     * @param n The distance from the last token, below {@link #getMaxTokens}
+     * @return The multiplier of that token's hash
+     */
+    public long power(int n) {
+        return powers[n];
+    }
+
+    /**
+     * Returns the number of distinct phrases in the index.
+     *
+     * @return The phrase count
+     */
+    public int getPhraseCount() {
+        return phraseCount;
+    }
+
+    /**
+     * Returns the number of categories the index was built over.
+     *
+     * @return The category count
+     */
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    /**
+     * Returns the approximate heap footprint of the index tables in bytes.
+     * Tables mapped from a snapshot are not on the heap and are not counted.
+     *
+     * @return The footprint in bytes
+     */
+    public long getFootprintBytes() {
+        return OBJECT_HEADER_BYTES
+               + ARRAY_HEADER_BYTES + (long) powers.length * Long.BYTES
+               + tableBytes(keys, Long.BYTES)
+               + tableBytes(outputSet, Integer.BYTES)
+               + tableBytes(outputBits, Long.BYTES)
+               + tableBytes(weightSet, Integer.BYTES)
+               + weightTable.getFootprintBytes(ARRAY_HEADER_BYTES, OBJECT_HEADER_BYTES);
+    }
+
+    /**
+     * Looks up a phrase by hash.
+     *
+     * @param phraseHash The hash of the phrase
+     * @return The slot of the phrase, or -1 if no keyword has that hash
+     */
+    public int find(long phraseHash) {
+        int slot = slotOf(keys, phraseHash);
+        return keys.get(slot) == EMPTY ? -1 : slot;
+    }
+
+    /**
+     * Adds the requested categories of a phrase to a result bitset.
+     *
+     * @param slot      The slot returned by {@link #find}
+     * @param requested The bitset of categories to report
+     * @param matched   The bitset of matched categories, updated in place
+     * @return true if every requested category has now been matched, false otherwise
+     */
+    public boolean collectOutputs(int slot, long[] requested, long[] matched) {
+        int     offset   = outputSet.get(slot) * words;
+        boolean complete = true;
+        for (int w = 0; w < words; w++) {
+            matched[w] |= outputBits.get(offset + w) & requested[w];
+            complete &= matched[w] == requested[w];
+        }
+        return complete;
+    }
+
+    /**
+     * Adds the weights of a phrase's keywords to the scores of the requested categories.
+     *
+     * @param slot      The slot returned by {@link #find}
+     * @param requested The bitset of categories to score
+     * @param sink      The sink receiving the weights
+     */
+    public void collectScores(int slot, long[] requested, ScoreSink sink) {
+        weightTable.collect(weightSet.get(slot), requested, sink);
+    }
+
+    /**
+     * Writes the tables of the index to a dictionary snapshot.
+     *
+     * @param out The snapshot payload
+     * @throws IOException if the payload cannot be written
+     */
+    void writeTo(DictionarySnapshot.Output out) throws IOException {
+        out.writeInt(categoryCount);
+        out.writeInt(maxTokens);
+        out.writeInt(phraseCount);
+        out.writeLongs(keys);
+        out.writeInts(outputSet);
+        out.writeLongs(outputBits);
+        out.writeInts(weightSet);
+        weightTable.writeTo(out);
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo} from a dictionary snapshot, as views of the snapshot's tables.
+     *
+     * @param in The snapshot payload
+     * @return The index
+     * @throws IOException if the payload is malformed
+     */
+    static PhraseIndex readFrom(DictionarySnapshot.Input in) throws IOException {
+        int        categoryCount = in.readInt();
+        int        maxTokens     = in.readInt();
+        int        phraseCount   = in.readInt();
+        LongBuffer keys          = in.readLongs();
+        IntBuffer  outputSet     = in.readInts();
+        LongBuffer outputBits    = in.readLongs();
+        IntBuffer  weightSet     = in.readInts();
+        if (Integer.bitCount(keys.capacity()) != 1 || outputSet.capacity() != keys.capacity() || weightSet.capacity() != keys.capacity()
+            || maxTokens < 0) {
+            throw new IOException("Inconsistent phrase index tables");
+        }
+        return new PhraseIndex(categoryCount, maxTokens, keys, outputSet, outputBits, weightSet, WeightTable.readFrom(in), phraseCount);
+    }
+
+    /**
+     * Splits a normalized keyword into token hashes.
+     */
+    private static long[] tokenize(String keyword) {
+        long[]  tokens  = new long[keyword.length()];
+        int     count   = 0;
+        long    hash    = TOKEN_SEED;
+        boolean inToken = false;
+        for (int i = 0; i <= keyword.length(); i++) {
+            if (i < keyword.length() && isTokenChar(keyword.charAt(i))) {
+                hash    = extendToken(hash, keyword.charAt(i));
+                inToken = true;
+            } else if (inToken) {
+                tokens[count++] = finishToken(hash);
+                hash    = TOKEN_SEED;
+                inToken = false;
+            }
+        }
+        return Arrays.copyOf(tokens, count);
+    }
+
+    private static long phraseHash(long[] tokens) {
+        long hash = 0;
+        for (long token : tokens) {
+            hash = hash * PHRASE_MULTIPLIER + token;
+        }
+        return hash;
+    }
+
+    /**
+     * Finds the slot holding a hash, or the empty slot where it would be inserted, with linear probing.
+     */
+    private static int slotOf(LongBuffer keys, long hash) {
+        long key  = nonEmpty(hash);
+        int  mask = keys.capacity() - 1;
+        int  slot = (int) finishToken(key) & mask;
+        while (keys.get(slot) != EMPTY && keys.get(slot) != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long nonEmpty(long hash) {
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    /**
+     * Returns the heap footprint of a table, which is zero for a table mapped from a snapshot.
+     */
+    private static long tableBytes(Buffer table, int elementBytes) {
+        return table.isDirect() ? 0 : ARRAY_HEADER_BYTES + (long) table.capacity() * elementBytes;
+    }
+}
@@ -0,0 +1,15 @@
+package com.categorize.service.matcher;
+
+/**
+ * Receives the weights of keyword hits, by category id, while a page is scored.
+ */
+@FunctionalInterface
+public interface ScoreSink {
+    /**
+     * Adds the weight of a keyword hit to a category's score.
+     *
+     * @param categoryId The id of the category
+     * @param weight     The weight of the hit
+     */
+    void add(int categoryId, double weight);
+}
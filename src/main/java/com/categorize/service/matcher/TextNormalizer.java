@@ -0,0 +1,135 @@
+package com.categorize.service.matcher;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+
+/**
+ * Normalizes keywords and page text to one comparable form, a character at a time.
+ * <p>
+ * Every character is case folded independently of the default locale, optionally stripped of its diacritics,
+ * and every kind of whitespace becomes a single space, optionally collapsing runs of whitespace into one.
+ * The mapping is one-to-one per UTF-16 char and read from a precomputed table, so page text is normalized
+ * while it streams through a matcher without being copied; folds that expand a character, such as
+ * &szlig; to {@code ss}, are not applied.
+ * Keywords are normalized with the same table when a strategy compiles them, so both sides always agree.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+@Component
+public class TextNormalizer {
+    /**
+     * Folds case and collapses whitespace, keeping diacritics.
+     */
+    public static final TextNormalizer DEFAULT = new TextNormalizer(false, true);
+
+    /**
+     * Returned by {@link #next} for a character that is dropped from the normalized text.
+     */
+    public static final int SKIP = -1;
+
+    private static final char DROP = '\uFFFF';
+
+    private final char[]  table;
+    private final boolean collapseWhitespace;
+
+    /**
+     * Constructs the normalizer.
+     *
+     * @param stripDiacritics    Whether accents and other combining marks are removed, so that &eacute; matches {@code e}.
+     * @param collapseWhitespace Whether a run of whitespace is reduced to a single space.
+     */
+    @Autowired
+    public TextNormalizer(
+            @Value("${categorization.normalize.strip-diacritics:false}") boolean stripDiacritics,
+            @Value("${categorization.normalize.collapse-whitespace:true}") boolean collapseWhitespace) {
+        this.table              = stripDiacritics ? Tables.STRIPPED : Tables.FOLDED;
+        this.collapseWhitespace = collapseWhitespace;
+    }
+
+    /**
+     * Returns the settings of the normalizer as bit flags, to check that tables compiled elsewhere used the same settings.
+     *
+     * @return 1 if diacritics are stripped, plus 2 if whitespace is collapsed
+     */
+    public int getFlags() {
+        return (table == Tables.STRIPPED ? 1 : 0) | (collapseWhitespace ? 2 : 0);
+    }
+
+    /**
+     * Normalizes the next character of a text.
+     *
+     * @param c        The character
+     * @param previous The last normalized character of the text, or {@link #SKIP} at its start
+     * @return The normalized character, or {@link #SKIP} if it is dropped from the normalized text
+     */
+    public int next(char c, int previous) {
+        char folded = table[c];
+        if (folded == DROP || folded == ' ' && collapseWhitespace && (previous == ' ' || previous == SKIP)) {
+            return SKIP;
+        }
+        return folded;
+    }
+
+    /**
+     * Normalizes a keyword, dropping leading and trailing whitespace.
+     *
+     * @param keyword The keyword
+     * @return The normalized keyword
+     */
+    public String normalize(String keyword) {
+        StringBuilder normalized = new StringBuilder(keyword.length());
+        int           previous   = SKIP;
+        for (int i = 0; i < keyword.length(); i++) {
+            int c = next(keyword.charAt(i), previous);
+            if (c != SKIP && (c != ' ' || previous != SKIP)) {
+                normalized.append((char) c);
+                previous = c;
+            }
+        }
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) == ' ') {
+            end--;
+        }
+        normalized.setLength(end);
+        return normalized.toString();
+    }
+
+    /**
+     * The folding tables, built on first use.
+     */
+    private static final class Tables {
+        private static final char[] FOLDED   = build(false);
+        private static final char[] STRIPPED = build(true);
+
+        private static char[] build(boolean stripDiacritics) {
+            char[] table = new char[Character.MAX_VALUE + 1];
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                table[c] = fold((char) c, stripDiacritics);
+            }
+            return table;
+        }
+
+        private static char fold(char c, boolean stripDiacritics) {
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                return ' ';
+            }
+            if (Character.isSurrogate(c)) {
+                return c;
+            }
+            char base = c;
+            if (stripDiacritics) {
+                if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                    return DROP;
+                }
+                String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+                if (decomposed.length() > 1 && decomposed.codePoints().skip(1).allMatch(mark -> Character.getType(mark) == Character.NON_SPACING_MARK)) {
+                    base = decomposed.charAt(0);
+                }
+            }
+            return Character.toLowerCase(Character.toUpperCase(base));
+        }
+    }
+}
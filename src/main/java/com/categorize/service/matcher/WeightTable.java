@@ -0,0 +1,141 @@
+package com.categorize.service.matcher;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * Interned sets of per-category keyword weights, stored as flat primitive arrays.
+ * A set lists the categories of the keywords that match at one place, with the summed weight of those keywords;
+ * set 0 is always the empty set. Categories are identified by their index in the list the dictionary was built from.
+ * Like the tables of the dictionary, the arrays are read through buffers that may be views of a mapped snapshot.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+final class WeightTable {
+    private final IntBuffer    start;
+    private final IntBuffer    categories;
+    private final DoubleBuffer weights;
+
+    private WeightTable(IntBuffer start, IntBuffer categories, DoubleBuffer weights) {
+        this.start      = start;
+        this.categories = categories;
+        this.weights    = weights;
+    }
+
+    /**
+     * Adds the weights of a set to a sink, for the requested categories only.
+     *
+     * @param set       The index of the set
+     * @param requested The bitset of categories to report
+     * @param sink      The sink receiving the weights
+     */
+    void collect(int set, long[] requested, ScoreSink sink) {
+        for (int k = start.get(set); k < start.get(set + 1); k++) {
+            int id = categories.get(k);
+            if ((requested[id >>> 6] & (1L << id)) != 0) {
+                sink.add(id, weights.get(k));
+            }
+        }
+    }
+
+    /**
+     * Returns the approximate heap footprint of the table in bytes, not counting arrays mapped from a snapshot.
+     *
+     * @param arrayHeaderBytes  The header size of an array
+     * @param objectHeaderBytes The header size of an object
+     * @return The footprint in bytes
+     */
+    long getFootprintBytes(int arrayHeaderBytes, int objectHeaderBytes) {
+        if (start.isDirect()) {
+            return objectHeaderBytes;
+        }
+        return objectHeaderBytes
+               + arrayHeaderBytes + (long) start.capacity() * Integer.BYTES
+               + arrayHeaderBytes + (long) categories.capacity() * Integer.BYTES
+               + arrayHeaderBytes + (long) weights.capacity() * Double.BYTES;
+    }
+
+    /**
+     * Writes the table to a dictionary snapshot.
+     *
+     * @param out The snapshot payload
+     * @throws IOException if the payload cannot be written
+     */
+    void writeTo(DictionarySnapshot.Output out) throws IOException {
+        out.writeInts(start);
+        out.writeInts(categories);
+        out.writeDoubles(weights);
+    }
+
+    /**
+     * Reads a table written by {@link #writeTo} from a dictionary snapshot, as views of the snapshot's arrays.
+     *
+     * @param in The snapshot payload
+     * @return The table
+     * @throws IOException if the payload is malformed
+     */
+    static WeightTable readFrom(DictionarySnapshot.Input in) throws IOException {
+        IntBuffer    start      = in.readInts();
+        IntBuffer    categories = in.readInts();
+        DoubleBuffer weights    = in.readDoubles();
+        if (start.capacity() == 0 || start.get(start.capacity() - 1) != categories.capacity() || weights.capacity() != categories.capacity()) {
+            throw new IOException("Inconsistent weight table");
+        }
+        return new WeightTable(start, categories, weights);
+    }
+
+    /**
+     * Interns weight sets while a dictionary is built.
+     */
+    static final class Builder {
+        private final Map<Map<Integer, Double>, Integer> interned = new HashMap<>();
+        private final List<Map<Integer, Double>>         sets     = new ArrayList<>();
+
+        Builder() {
+            intern(Collections.emptyMap());
+        }
+
+        /**
+         * Returns the index of a set, adding it if it is new.
+         *
+         * @param weights The summed keyword weight by category id
+         * @return The index of the set
+         */
+        int intern(Map<Integer, Double> weights) {
+            return interned.computeIfAbsent(weights, set -> {
+                sets.add(set);
+                return sets.size() - 1;
+            });
+        }
+
+        /**
+         * Returns a modifiable copy of an interned set, to derive a new set from.
+         *
+         * @param set The index of the set
+         * @return The summed keyword weight by category id
+         */
+        Map<Integer, Double> copy(int set) {
+            return new TreeMap<>(sets.get(set));
+        }
+
+        WeightTable build() {
+            int[] start = new int[sets.size() + 1];
+            for (int s = 0; s < sets.size(); s++) {
+                start[s + 1] = start[s] + sets.get(s).size();
+            }
+            int[]    categories = new int[start[sets.size()]];
+            double[] weights    = new double[categories.length];
+            for (int s = 0; s < sets.size(); s++) {
+                int k = start[s];
+                for (Map.Entry<Integer, Double> entry : new TreeMap<>(sets.get(s)).entrySet()) {
+                    categories[k] = entry.getKey();
+                    weights[k]    = entry.getValue();
+                    k++;
+                }
+            }
+            return new WeightTable(IntBuffer.wrap(start), IntBuffer.wrap(categories), DoubleBuffer.wrap(weights));
+        }
+    }
+}
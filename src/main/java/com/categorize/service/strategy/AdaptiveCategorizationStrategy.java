@@ -0,0 +1,250 @@
+package com.categorize.service.strategy;
+
+import com.categorize.dto.ScoringOptions;
+import com.categorize.dto.UrlCategoryResult;
+import com.categorize.model.Category;
+import com.categorize.model.WebPageContent;
+import com.categorize.service.matcher.KeywordAutomaton;
+import com.categorize.service.matcher.TextNormalizer;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Routes every page to whichever of the substring engines is predicted to match it fastest.
+ * <p>
+ * The naive, regex and Aho-Corasick strategies find the same categories, but their costs scale differently:
+ * the naive and regex strategies try every requested keyword at every position, so they win on small selections,
+ * while the automaton costs the same per character whatever the selection. All three are built over the categories,
+ * and the engine for a page is chosen by the cost model of the {@link StrategyCalibrator}, from the number of requested
+ * keywords and the page length, or the typical page length while the page is still streaming in. The calibrator
+ * refits the model periodically on a sample of the pages matched here.
+ * <p>
+ * The whole-word strategy has different matching rules and is never chosen. Scoring always uses the Aho-Corasick
+ * engine, as the engines count overlapping hits differently and scores must not depend on the routing.
+ * <p>
+ * Implementation complexity:
+ * - Time complexity: that of the chosen engine for each page.
+ * - Build complexity: the sum of the build complexities of the three engines.
+ */
+public class AdaptiveCategorizationStrategy implements CategorizationStrategy {
+    /**
+     * The engines the adaptive strategy chooses from.
+     */
+    static final Set<CategorizationStrategyType> ENGINES = Collections.unmodifiableSet(EnumSet.of(
+        CategorizationStrategyType.NAIVE, CategorizationStrategyType.REGEX, CategorizationStrategyType.AHO_CORASICK));
+
+    private final Map<CategorizationStrategyType, CategorizationStrategy> engines;
+    private final List<Category>                                          categories;
+    private final ExecutorService                                         executorService;
+    private final StrategyCalibrator                                      calibrator;
+    private final SegmentedMatcher                                        segments;
+
+    /**
+     * Constructs the adaptive strategy with the given categories, running on the common fork-join pool
+     * with its own calibrator.
+     *
+     * @param categories List of categories to build the engines from
+     */
+    public AdaptiveCategorizationStrategy(List<Category> categories) {
+        this(categories, ForkJoinPool.commonPool(), TextNormalizer.DEFAULT, new StrategyCalibrator());
+    }
+
+    /**
+     * Constructs the adaptive strategy with the given categories and the prefilter enabled.
+     *
+     * @param categories      List of categories to build the engines from
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to keywords and page text
+     * @param calibrator      The calibrator providing the cost model
+     */
+    public AdaptiveCategorizationStrategy(List<Category> categories, ExecutorService executorService, TextNormalizer normalizer,
+                                          StrategyCalibrator calibrator) {
+        this(categories, executorService, normalizer, true, calibrator);
+    }
+
+    /**
+     * Constructs the adaptive strategy with the given categories.
+     * Builds every engine over the categories; the calibrator measures the engines as configured,
+     * so the cost model accounts for the prefilter.
+     *
+     * @param categories      List of categories to build the engines from
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to keywords and page text
+     * @param prefilter       Whether the naive and regex engines screen windows with a prefilter before matching
+     * @param calibrator      The calibrator providing the cost model
+     */
+    public AdaptiveCategorizationStrategy(List<Category> categories, ExecutorService executorService, TextNormalizer normalizer,
+                                          boolean prefilter, StrategyCalibrator calibrator) {
+        this(categories, executorService, normalizer, prefilter, calibrator, new SegmentedMatcher(executorService, normalizer));
+    }
+
+    /**
+     * Constructs the adaptive strategy with the given categories, matching long pages with the given segmented matcher,
+     * which the engines share.
+     *
+     * @param categories      List of categories to build the engines from
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to keywords and page text
+     * @param prefilter       Whether the naive and regex engines screen windows with a prefilter before matching
+     * @param calibrator      The calibrator providing the cost model
+     * @param segments        The matcher splitting long pages into segments, running on the executor with the normalizer
+     */
+    public AdaptiveCategorizationStrategy(List<Category> categories, ExecutorService executorService, TextNormalizer normalizer,
+                                          boolean prefilter, StrategyCalibrator calibrator, SegmentedMatcher segments) {
+        this(engines(categories, executorService, normalizer, prefilter, segments), categories, executorService, calibrator, segments);
+    }
+
+    private AdaptiveCategorizationStrategy(Map<CategorizationStrategyType, CategorizationStrategy> engines, List<Category> categories,
+                                           ExecutorService executorService, StrategyCalibrator calibrator, SegmentedMatcher segments) {
+        this.engines         = Collections.unmodifiableMap(engines);
+        this.categories      = Collections.unmodifiableList(new ArrayList<>(categories));
+        this.executorService = executorService;
+        this.calibrator      = calibrator;
+        this.segments        = segments;
+    }
+
+    /**
+     * Returns a strategy with every engine updated for the categories, sharing this strategy's calibrator.
+     *
+     * @param categories The complete updated list of categories
+     * @return A strategy ready to match the updated categories
+     */
+    @Override
+    public CategorizationStrategy withCategories(List<Category> categories) {
+        Map<CategorizationStrategyType, CategorizationStrategy> updated = new EnumMap<>(CategorizationStrategyType.class);
+        engines.forEach((type, engine) -> updated.put(type, engine.withCategories(categories)));
+        return new AdaptiveCategorizationStrategy(updated, categories, executorService, calibrator, segments);
+    }
+
+    /**
+     * Categorizes a list of web pages, choosing the engine of every page by its length.
+     * Long pages are matched in parallel segments, see {@link SegmentedMatcher}.
+     *
+     * @param categories List of categories to match against
+     * @param webPages   List of web page contents to categorize
+     * @return List of UrlCategoryResult objects containing the categorization results for each web page
+     */
+    @Override
+    public List<UrlCategoryResult> categorize(List<Category> categories, List<WebPageContent> webPages) {
+        Function<CharSequence, Supplier<CategoryMatcher>> pages   = preparePages(categories);
+        List<String>                                      names   = categories.stream().map(Category::getName).collect(Collectors.toList());
+        int                                               overlap = WindowedCategoryMatcher.overlapOf(categories);
+
+        List<CompletableFuture<UrlCategoryResult>> futures = webPages.stream()
+            .map(webPage -> CompletableFuture.supplyAsync(() -> new UrlCategoryResult(
+                webPage.getUrl(), segments.match(webPage.getContent(), pages.apply(webPage.getContent()), names, overlap)), executorService))
+            .collect(Collectors.toList());
+
+        return futures.stream()
+            .map(CompletableFuture::join)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates a matcher of the engine currently predicted to be fastest for the categories.
+     *
+     * @param categories List of categories to match against
+     * @return A new CategoryMatcher for one page
+     */
+    @Override
+    public CategoryMatcher newMatcher(List<Category> categories) {
+        return prepare(categories).get();
+    }
+
+    /**
+     * Prepares the matching of the given categories. Every engine is prepared on first use, and every page is given
+     * a matcher of the engine the current cost model predicts to be fastest for a page of typical length, so
+     * a recalibration applies to selections prepared before it.
+     *
+     * @param categories List of categories to match against
+     * @return A supplier of a new CategoryMatcher for one page
+     */
+    @Override
+    public Supplier<CategoryMatcher> prepare(List<Category> categories) {
+        Map<CategorizationStrategyType, Supplier<CategoryMatcher>> prepared = new ConcurrentHashMap<>();
+        int                                                        keywords = keywordCount(categories);
+        calibrator.recordSelection(categories);
+        return () -> {
+            calibrator.calibrateIfDue(this);
+            CategorizationStrategyType engine = calibrator.choose(keywords);
+            return calibrator.observe(prepared.computeIfAbsent(engine, type -> engines.get(type).prepare(categories)).get(), engine);
+        };
+    }
+
+    /**
+     * Prepares the matching of whole pages held in memory. Every page is given the engine the current cost model
+     * predicts to be fastest for its length, and is observed by the calibrator once, however many segments
+     * it is split into.
+     *
+     * @param categories List of categories to match against
+     * @return A function returning the supplier of the matchers of one page
+     */
+    @Override
+    public Function<CharSequence, Supplier<CategoryMatcher>> preparePages(List<Category> categories) {
+        Map<CategorizationStrategyType, Supplier<CategoryMatcher>> prepared = new ConcurrentHashMap<>();
+        int                                                        keywords = keywordCount(categories);
+        calibrator.recordSelection(categories);
+        return page -> {
+            calibrator.calibrateIfDue(this);
+            CategorizationStrategyType engine = calibrator.choose(keywords, page.length());
+            calibrator.observe(page, engine);
+            return prepared.computeIfAbsent(engine, type -> engines.get(type).prepare(categories));
+        };
+    }
+
+    /**
+     * Prepares scoring matchers of the Aho-Corasick engine, so scores do not depend on the routing.
+     *
+     * @param categories List of categories to match against
+     * @param scoring    The threshold and the number of categories to report
+     * @return A supplier of a new scoring CategoryMatcher for one page
+     */
+    @Override
+    public Supplier<CategoryMatcher> prepare(List<Category> categories, ScoringOptions scoring) {
+        return engines.get(StrategyCalibrator.FALLBACK).prepare(categories, scoring);
+    }
+
+    /**
+     * Returns the engines by type.
+     *
+     * @return The engines built over {@link #getCategories}
+     */
+    Map<CategorizationStrategyType, CategorizationStrategy> getEngines() {
+        return engines;
+    }
+
+    /**
+     * Returns the categories the engines were built over.
+     *
+     * @return The categories
+     */
+    List<Category> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Counts the keywords of the given categories.
+     *
+     * @param categories The categories
+     * @return The total number of keywords
+     */
+    static int keywordCount(List<Category> categories) {
+        return categories.stream().mapToInt(category -> category.getKeywords().size()).sum();
+    }
+
+    private static Map<CategorizationStrategyType, CategorizationStrategy> engines(List<Category> categories, ExecutorService executorService,
+                                                                               TextNormalizer normalizer, boolean prefilter,
+                                                                               SegmentedMatcher segments) {
+        Map<CategorizationStrategyType, CategorizationStrategy> engines = new EnumMap<>(CategorizationStrategyType.class);
+        engines.put(CategorizationStrategyType.NAIVE, new NaiveCategorizationStrategy(executorService, normalizer, prefilter, segments));
+        engines.put(CategorizationStrategyType.REGEX, new RegexCategorizationStrategy(categories, executorService, normalizer, prefilter, segments));
+        engines.put(CategorizationStrategyType.AHO_CORASICK,
+                    new AhoCorasickCategorizationStrategy(categories, KeywordAutomaton.build(categories, normalizer), executorService,
+                                                          normalizer, segments));
+        return engines;
+    }
+}
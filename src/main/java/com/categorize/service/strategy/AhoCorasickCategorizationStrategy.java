@@ -0,0 +1,267 @@
+package com.categorize.service.strategy;
+
+import com.categorize.dto.CategoryScore;
+import com.categorize.dto.ScoringOptions;
+import com.categorize.dto.UrlCategoryResult;
+import com.categorize.model.Category;
+import com.categorize.model.WebPageContent;
+import com.categorize.service.matcher.KeywordAutomaton;
+import com.categorize.service.matcher.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Implements a multi-pattern approach to categorization based on the Aho-Corasick algorithm.
+ * A single automaton is built over the keywords of all categories, so every page is scanned exactly once
+ * regardless of how many categories and keywords are configured.
+ * The automaton is held in a {@link KeywordAutomaton}, which stores its tables as flat primitive arrays.
+ * It is built over the normalized keywords, and page text is normalized a character at a time as it is scanned.
+ * <p>
+ * Implementation complexity:
+ * - Time complexity: O(N + Z), where N is the text length and Z is the number of keyword matches.
+ * - Build complexity: O(K log K), where K is the total length of all keywords.
+ */
+public class AhoCorasickCategorizationStrategy implements CategorizationStrategy {
+    private static final Logger log = LoggerFactory.getLogger(AhoCorasickCategorizationStrategy.class);
+
+    private final KeywordAutomaton     automaton;
+    private final Map<String, Integer> categoryIds;
+    private final List<String>         categoryNames;
+    private final ExecutorService      executorService;
+    private final TextNormalizer       normalizer;
+    private final SegmentedMatcher     segments;
+
+    /**
+     * Constructs the Aho-Corasick strategy with the given categories, running on the common fork-join pool.
+     *
+     * @param categories List of categories to build the automaton from
+     */
+    public AhoCorasickCategorizationStrategy(List<Category> categories) {
+        this(categories, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs the Aho-Corasick strategy with the given categories and the default normalization.
+     *
+     * @param categories      List of categories to build the automaton from
+     * @param executorService The executor to categorize pages on
+     */
+    public AhoCorasickCategorizationStrategy(List<Category> categories, ExecutorService executorService) {
+        this(categories, executorService, TextNormalizer.DEFAULT);
+    }
+
+    /**
+     * Constructs the Aho-Corasick strategy with the given categories.
+     * Builds a single automaton over the normalized keywords of all categories.
+     *
+     * @param categories      List of categories to build the automaton from
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to keywords and page text
+     */
+    public AhoCorasickCategorizationStrategy(List<Category> categories, ExecutorService executorService, TextNormalizer normalizer) {
+        this(categories, KeywordAutomaton.build(categories, normalizer), executorService, normalizer);
+    }
+
+    /**
+     * Constructs the Aho-Corasick strategy over an automaton compiled earlier, such as one loaded from a
+     * {@link com.categorize.service.matcher.DictionarySnapshot}.
+     *
+     * @param categories      List of categories the automaton was built from, in the same order
+     * @param automaton       The automaton over the keywords of the categories, built with the normalizer
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to page text
+     */
+    public AhoCorasickCategorizationStrategy(List<Category> categories, KeywordAutomaton automaton, ExecutorService executorService,
+                                             TextNormalizer normalizer) {
+        this(categories, automaton, executorService, normalizer, new SegmentedMatcher(executorService, normalizer));
+    }
+
+    /**
+     * Constructs the Aho-Corasick strategy over an automaton compiled earlier, matching long pages with the given
+     * segmented matcher.
+     *
+     * @param categories      List of categories the automaton was built from, in the same order
+     * @param automaton       The automaton over the keywords of the categories, built with the normalizer
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to page text
+     * @param segments        The matcher splitting long pages into segments, running on the executor with the normalizer
+     */
+    public AhoCorasickCategorizationStrategy(List<Category> categories, KeywordAutomaton automaton, ExecutorService executorService,
+                                             TextNormalizer normalizer, SegmentedMatcher segments) {
+        this.normalizer    = normalizer;
+        this.automaton     = automaton;
+        this.categoryNames = categories.stream().map(Category::getName).collect(Collectors.toList());
+        this.categoryIds   = new HashMap<>();
+        for (int i = 0; i < categoryNames.size(); i++) {
+            categoryIds.putIfAbsent(categoryNames.get(i), i);
+        }
+        this.executorService = executorService;
+        this.segments        = segments;
+        log.info("Using keyword automaton with {} states over {} categories, footprint {} bytes",
+                 automaton.getStateCount(), automaton.getCategoryCount(), automaton.getFootprintBytes());
+    }
+
+    /**
+     * Returns the approximate heap footprint of the compiled automaton in bytes.
+     *
+     * @return The footprint in bytes
+     */
+    public long getFootprintBytes() {
+        return automaton.getFootprintBytes();
+    }
+
+    /**
+     * Returns a strategy with a new automaton over the updated categories.
+     * The automaton is a single structure over the keywords of all categories, so it is always rebuilt in full.
+     *
+     * @param categories The complete updated list of categories
+     * @return A strategy ready to match the updated categories
+     */
+    @Override
+    public CategorizationStrategy withCategories(List<Category> categories) {
+        return new AhoCorasickCategorizationStrategy(categories, KeywordAutomaton.build(categories, normalizer), executorService, normalizer,
+                                                     segments);
+    }
+
+    /**
+     * Categorizes a list of web pages based on the specified categories.
+     * Long pages are matched in parallel segments, see {@link SegmentedMatcher}.
+     *
+     * @param categories List of categories to match against
+     * @param webPages   List of web page contents to categorize
+     * @return List of UrlCategoryResult objects containing the categorization results for each web page
+     */
+    @Override
+    public List<UrlCategoryResult> categorize(List<Category> categories, List<WebPageContent> webPages) {
+        Function<WebPageContent, UrlCategoryResult> categorizer = segments.prepare(categories, prepare(categories));
+
+        List<CompletableFuture<UrlCategoryResult>> futures = webPages.stream()
+            .map(webPage -> CompletableFuture.supplyAsync(() -> categorizer.apply(webPage), executorService))
+            .collect(Collectors.toList());
+
+        return futures.stream()
+            .map(CompletableFuture::join)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates an incremental matcher that carries the automaton state across chunks,
+     * so every character of the page is consumed exactly once.
+     *
+     * @param categories List of categories to match against
+     * @return A new CategoryMatcher for one page
+     */
+    @Override
+    public CategoryMatcher newMatcher(List<Category> categories) {
+        return new AutomatonMatcher(requestedIds(categories), null);
+    }
+
+    /**
+     * Prepares automaton matchers for the given categories with the bitset of requested category ids computed once.
+     * The shared automaton is reused; matches of categories outside the set are masked out.
+     *
+     * @param categories List of categories to match against
+     * @return A supplier of a new CategoryMatcher for one page
+     */
+    @Override
+    public Supplier<CategoryMatcher> prepare(List<Category> categories) {
+        long[] requested = requestedIds(categories);
+        return () -> new AutomatonMatcher(requested, null);
+    }
+
+    /**
+     * Prepares scoring automaton matchers for the given categories.
+     * Every keyword ending at a position of the page is counted, including keywords that are suffixes of others.
+     *
+     * @param categories List of categories to match against
+     * @param scoring    The threshold and the number of categories to report
+     * @return A supplier of a new scoring CategoryMatcher for one page
+     */
+    @Override
+    public Supplier<CategoryMatcher> prepare(List<Category> categories, ScoringOptions scoring) {
+        long[] requested = requestedIds(categories);
+        return () -> new AutomatonMatcher(requested, new CategoryScores(categoryNames, scoring));
+    }
+
+    /**
+     * Builds the bitset of automaton category ids for the given categories.
+     *
+     * @param categories List of categories to match against
+     * @return The bitset of requested category ids
+     */
+    private long[] requestedIds(List<Category> categories) {
+        long[] requested = new long[KeywordAutomaton.wordsFor(categoryNames.size())];
+        categories.stream()
+                  .map(category -> categoryIds.get(category.getName()))
+                  .filter(Objects::nonNull)
+                  .forEach(id -> requested[id >>> 6] |= 1L << id);
+        return requested;
+    }
+
+    /**
+     * Matches one page incrementally by keeping the current automaton state between chunks.
+     * When scoring, every hit is added to the scores and the whole page is scanned.
+     */
+    private final class AutomatonMatcher implements CategoryMatcher {
+        private final long[]         requested;
+        private final long[]         matched;
+        private final CategoryScores scores;
+        private       int            state;
+        private       int            previous;
+        private       boolean        complete;
+
+        /**
+         * @param requested The bitset of category ids to report
+         * @param scores    The scores to add hits to, or null to only report which categories matched
+         */
+        private AutomatonMatcher(long[] requested, CategoryScores scores) {
+            this.requested = requested;
+            this.matched   = new long[requested.length];
+            this.scores    = scores;
+            this.state     = KeywordAutomaton.ROOT;
+            this.previous  = TextNormalizer.SKIP;
+            this.complete  = scores == null && Arrays.equals(requested, matched);
+        }
+
+        @Override
+        public void feed(CharSequence chunk) {
+            for (int i = 0; i < chunk.length() && !complete; i++) {
+                int c = normalizer.next(chunk.charAt(i), previous);
+                if (c == TextNormalizer.SKIP) {
+                    continue;
+                }
+                previous = c;
+                state    = automaton.next(state, (char) c);
+                if (!automaton.hasOutputs(state)) {
+                    continue;
+                }
+                if (scores != null) {
+                    automaton.collectScores(state, requested, scores);
+                } else {
+                    complete = automaton.collectOutputs(state, requested, matched);
+                }
+            }
+        }
+
+        @Override
+        public boolean isComplete() {
+            return complete;
+        }
+
+        @Override
+        public List<String> getMatchedCategories() {
+            return scores != null ? scores.rankedNames() : new MatchedCategories(categoryNames, matched);
+        }
+
+        @Override
+        public Optional<List<CategoryScore>> getScores() {
+            return Optional.ofNullable(scores).map(CategoryScores::rank);
+        }
+    }
+}
@@ -2,8 +2,15 @@ package com.categorize.service.strategy;
 
 import com.categorize.model.Category;
 import com.categorize.model.WebPageContent;
+import com.categorize.dto.ScoringOptions;
 import com.categorize.dto.UrlCategoryResult;
+import com.categorize.service.matcher.TextNormalizer;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Defines the contract for categorization strategies.
@@ -18,4 +25,79 @@ public interface CategorizationStrategy {
      * @return List of UrlCategoryResult containing the categorization results
      */
     List<UrlCategoryResult> categorize(List<Category> categories, List<WebPageContent> webPages);
+
+    /**
+     * Creates an incremental matcher for a single page.
+     * The default implementation matches overlapping windows of the fed text with {@link #categorize};
+     * strategies that can carry their state across chunks should override it.
+     *
+     * @param categories List of categories to match against
+     * @return A new CategoryMatcher for one page
+     */
+    default CategoryMatcher newMatcher(List<Category> categories) {
+        List<String> names = categories.stream().map(Category::getName).collect(Collectors.toList());
+        return new WindowedCategoryMatcher(names, WindowedCategoryMatcher.overlapOf(categories), TextNormalizer.DEFAULT, (window, matched) -> {
+            List<Category> remaining = IntStream.range(0, categories.size())
+                                                .filter(id -> !WindowedCategoryMatcher.isSet(matched, id))
+                                                .mapToObj(categories::get)
+                                                .collect(Collectors.toList());
+            List<String> found = categorize(remaining, Collections.singletonList(new WebPageContent(null, window.toString()))).get(0).getCategories();
+            for (int id = 0; id < names.size(); id++) {
+                if (found.contains(names.get(id))) {
+                    matched[id >>> 6] |= 1L << id;
+                }
+            }
+        });
+    }
+
+    /**
+     * Prepares the matching of a fixed set of categories, so that a matcher per page can be created
+     * without repeating any per-request setup. The result is cached by the caller per category set
+     * and must be safe to use from several threads.
+     * The default implementation defers to {@link #newMatcher} for every page.
+     *
+     * @param categories List of categories to match against
+     * @return A supplier of a new CategoryMatcher for one page
+     */
+    default Supplier<CategoryMatcher> prepare(List<Category> categories) {
+        return () -> newMatcher(categories);
+    }
+
+    /**
+     * Prepares the matching of whole pages held in memory, which may be split into segments that each get a matcher,
+     * see {@link SegmentedMatcher}. The returned function is called once per page and returns the supplier of the
+     * matchers for all of its segments. The result is cached by the caller like {@link #prepare(List)}.
+     * The default implementation uses the matchers of {@link #prepare(List)} for every page.
+     *
+     * @param categories List of categories to match against
+     * @return A function returning the supplier of the matchers of one page
+     */
+    default Function<CharSequence, Supplier<CategoryMatcher>> preparePages(List<Category> categories) {
+        Supplier<CategoryMatcher> matchers = prepare(categories);
+        return page -> matchers;
+    }
+
+    /**
+     * Prepares scored matching of a fixed set of categories.
+     * A scoring matcher scans the whole page once, adding the weight of every keyword hit to its category's score,
+     * and reports the categories reaching the threshold, highest score first, limited to the top K.
+     *
+     * @param categories List of categories to match against
+     * @param scoring    The threshold and the number of categories to report
+     * @return A supplier of a new scoring CategoryMatcher for one page
+     */
+    Supplier<CategoryMatcher> prepare(List<Category> categories, ScoringOptions scoring);
+
+    /**
+     * Returns a strategy for an updated list of categories, used when categories are changed at runtime.
+     * The returned strategy must not share mutable state with this one, which may still be serving requests.
+     * The default implementation returns this strategy, which suits strategies that keep no per-category state;
+     * strategies that compile the categories should override it and may reuse the compiled form of unchanged ones.
+     *
+     * @param categories The complete updated list of categories
+     * @return A strategy ready to match the updated categories
+     */
+    default CategorizationStrategy withCategories(List<Category> categories) {
+        return this;
+    }
 }
@@ -13,7 +13,23 @@ public enum CategorizationStrategyType {
     /**
      * A categorization strategy using regular expressions for pattern matching.
      */
-    REGEX;
+    REGEX,
+
+    /**
+     * A categorization strategy using a single Aho-Corasick automaton over all keywords.
+     */
+    AHO_CORASICK,
+
+    /**
+     * A categorization strategy matching keywords as whole words through a hashed phrase index.
+     */
+    WHOLE_WORD,
+
+    /**
+     * An adaptive strategy routing every page to the naive, regex or Aho-Corasick strategy, whichever a cost model
+     * calibrated on live traffic predicts to be fastest.
+     */
+    AUTO;
 
     public static CategorizationStrategyType fromString(String value) {
         for (CategorizationStrategyType type : values()) {
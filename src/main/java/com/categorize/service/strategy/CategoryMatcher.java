@@ -0,0 +1,59 @@
+package com.categorize.service.strategy;
+
+import com.categorize.dto.CategoryScore;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An incremental matcher for a single page.
+ * The page text is fed in chunks as it is extracted, so the full page never has to be held in memory,
+ * and the caller can stop feeding as soon as every requested category has been matched.
+ * <p>
+ * Instances are not thread-safe; a matcher belongs to one page.
+ */
+public interface CategoryMatcher {
+    /**
+     * Feeds the next chunk of page text to the matcher.
+     * Keywords spanning consecutive chunks are matched.
+     *
+     * @param chunk The next chunk of text
+     */
+    void feed(CharSequence chunk);
+
+    /**
+     * Checks whether every requested category has already been matched,
+     * in which case feeding more text cannot change the result.
+     *
+     * @return true if the result is final, false otherwise
+     */
+    boolean isComplete();
+
+    /**
+     * Checks whether the matcher only matches keywords made of whole words, in which case text fed to it should
+     * neither start nor end inside a word, as the part of a word would be taken for a whole one.
+     *
+     * @return true if keywords only match whole words, false otherwise
+     */
+    default boolean matchesWholeWords() {
+        return false;
+    }
+
+    /**
+     * Returns the names of the categories matched by the text fed so far, as if the page ended here.
+     * Reading the result does not change the matcher, so more text can be fed afterwards.
+     *
+     * @return List of matched category names
+     */
+    List<String> getMatchedCategories();
+
+    /**
+     * Returns the scores of the reported categories, highest first, if the matcher scores the page.
+     * A scoring matcher reports the categories in the same order from {@link #getMatchedCategories}.
+     *
+     * @return The category scores, or empty for a matcher that does not score
+     */
+    default Optional<List<CategoryScore>> getScores() {
+        return Optional.empty();
+    }
+}
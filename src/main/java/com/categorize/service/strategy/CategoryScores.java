@@ -0,0 +1,76 @@
+package com.categorize.service.strategy;
+
+import com.categorize.dto.CategoryScore;
+import com.categorize.dto.ScoringOptions;
+import com.categorize.service.matcher.ScoreSink;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Accumulates the weighted keyword hits of one page by category id and ranks them.
+ * <p>
+ * Instances are not thread-safe; they belong to the matcher of one page.
+ */
+public final class CategoryScores implements ScoreSink {
+    private final List<String>   names;
+    private final ScoringOptions options;
+    private final double[]       scores;
+
+    /**
+     * Constructs empty scores.
+     *
+     * @param names   The category names, indexed by id
+     * @param options The threshold and the number of categories to report
+     */
+    public CategoryScores(List<String> names, ScoringOptions options) {
+        this(names, options, new double[names.size()]);
+    }
+
+    private CategoryScores(List<String> names, ScoringOptions options, double[] scores) {
+        this.names   = names;
+        this.options = options;
+        this.scores  = scores;
+    }
+
+    /**
+     * Returns independent scores with the same hits, to add tentative hits to without changing these.
+     *
+     * @return A copy of the scores
+     */
+    public CategoryScores copy() {
+        return new CategoryScores(names, options, scores.clone());
+    }
+
+    @Override
+    public void add(int categoryId, double weight) {
+        scores[categoryId] += weight;
+    }
+
+    /**
+     * Ranks the categories with at least one hit and a score reaching the threshold,
+     * highest score first and in id order among equal scores, limited to the top K.
+     *
+     * @return The reported categories with their scores
+     */
+    public List<CategoryScore> rank() {
+        return IntStream.range(0, scores.length)
+                        .filter(id -> scores[id] > 0 && scores[id] >= options.getMinScore())
+                        .boxed()
+                        .sorted(Comparator.comparingDouble((Integer id) -> scores[id]).reversed())
+                        .limit(options.getTopK() > 0 ? options.getTopK() : Long.MAX_VALUE)
+                        .map(id -> new CategoryScore(names.get(id), scores[id]))
+                        .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the names of the ranked categories.
+     *
+     * @return The reported category names, highest score first
+     */
+    public List<String> rankedNames() {
+        return rank().stream().map(CategoryScore::getName).collect(Collectors.toList());
+    }
+}
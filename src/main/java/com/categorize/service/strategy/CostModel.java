@@ -0,0 +1,173 @@
+package com.categorize.service.strategy;
+
+import java.util.*;
+
+/**
+ * A linear model of the time an engine takes to match one page, fitted to calibration measurements.
+ * <p>
+ * The time of engine e for a page of n characters against a selection of k keywords is modelled as
+ * {@code perPage + n * (perChar + k * perCharPerKeyword)}: a fixed setup cost, a cost per character, and a cost per
+ * character that grows with the selection, which dominates for engines that try every keyword at every position.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+final class CostModel {
+    private static final double RIDGE = 1e-9;
+
+    private final Map<CategorizationStrategyType, double[]> coefficients;
+    private final CategorizationStrategyType                fallback;
+
+    /**
+     * @param coefficients The {@code perPage, perChar, perCharPerKeyword} nanoseconds of every engine
+     * @param fallback     The engine chosen when no engine has coefficients
+     */
+    CostModel(Map<CategorizationStrategyType, double[]> coefficients, CategorizationStrategyType fallback) {
+        this.coefficients = new EnumMap<>(CategorizationStrategyType.class);
+        this.fallback     = fallback;
+        this.coefficients.putAll(coefficients);
+    }
+
+    /**
+     * Returns a model that always chooses the given engine, used until a calibration has run.
+     *
+     * @param engine The engine to choose
+     * @return The model
+     */
+    static CostModel fixed(CategorizationStrategyType engine) {
+        return new CostModel(Collections.emptyMap(), engine);
+    }
+
+    /**
+     * Fits a model to measurements by least squares, separately for every engine.
+     *
+     * @param measurements The measurements of every engine
+     * @param fallback     The engine chosen when no engine was measured
+     * @return The fitted model
+     */
+    static CostModel fit(Map<CategorizationStrategyType, List<Measurement>> measurements, CategorizationStrategyType fallback) {
+        Map<CategorizationStrategyType, double[]> coefficients = new EnumMap<>(CategorizationStrategyType.class);
+        measurements.forEach((engine, samples) -> {
+            if (!samples.isEmpty()) {
+                coefficients.put(engine, leastSquares(samples));
+            }
+        });
+        return new CostModel(coefficients, fallback);
+    }
+
+    /**
+     * Chooses the engine with the lowest predicted time.
+     *
+     * @param keywords The number of keywords of the selection
+     * @param chars    The expected number of characters of the page
+     * @return The cheapest engine
+     */
+    CategorizationStrategyType choose(int keywords, double chars) {
+        CategorizationStrategyType best     = fallback;
+        double                     bestCost = Double.POSITIVE_INFINITY;
+        for (Map.Entry<CategorizationStrategyType, double[]> entry : coefficients.entrySet()) {
+            double cost = cost(entry.getValue(), keywords, chars);
+            if (cost < bestCost) {
+                best     = entry.getKey();
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Predicts the time of an engine.
+     *
+     * @param engine   The engine
+     * @param keywords The number of keywords of the selection
+     * @param chars    The number of characters of the page
+     * @return The predicted time in nanoseconds, or empty if the engine was not measured
+     */
+    OptionalDouble predictNanos(CategorizationStrategyType engine, int keywords, double chars) {
+        double[] c = coefficients.get(engine);
+        return c == null ? OptionalDouble.empty() : OptionalDouble.of(cost(c, keywords, chars));
+    }
+
+    /**
+     * Returns the engines the model can choose from.
+     *
+     * @return The engines
+     */
+    Set<CategorizationStrategyType> getEngines() {
+        return Collections.unmodifiableSet(coefficients.keySet());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        coefficients.forEach((engine, c) -> text.append(String.format("%s: %.0f ns + n * (%.3f ns + k * %.5f ns); ", engine, c[0], c[1], c[2])));
+        return text.toString();
+    }
+
+    private static double cost(double[] c, int keywords, double chars) {
+        return c[0] + chars * (c[1] + keywords * c[2]);
+    }
+
+    /**
+     * Solves the normal equations of {@code nanos = perPage + n * perChar + n * k * perCharPerKeyword},
+     * with a slight ridge so that measurements of a single page length or selection still give a solution.
+     */
+    private static double[] leastSquares(List<Measurement> samples) {
+        double[][] a = new double[3][4];
+        for (Measurement m : samples) {
+            double[] x = {1, m.chars, (double) m.chars * m.keywords};
+            for (int i = 0; i < 3; i++) {
+                for (int j = 0; j < 3; j++) {
+                    a[i][j] += x[i] * x[j];
+                }
+                a[i][3] += x[i] * m.nanos;
+            }
+        }
+        for (int i = 0; i < 3; i++) {
+            a[i][i] += RIDGE * (a[i][i] + 1);
+        }
+        for (int col = 0; col < 3; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < 3; row++) {
+                if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+                    pivot = row;
+                }
+            }
+            double[] swap = a[col];
+            a[col]   = a[pivot];
+            a[pivot] = swap;
+            for (int row = 0; row < 3; row++) {
+                if (row != col && a[col][col] != 0) {
+                    double factor = a[row][col] / a[col][col];
+                    for (int k = col; k < 4; k++) {
+                        a[row][k] -= factor * a[col][k];
+                    }
+                }
+            }
+        }
+        double[] c = new double[3];
+        for (int i = 0; i < 3; i++) {
+            c[i] = a[i][i] == 0 ? 0 : a[i][3] / a[i][i];
+        }
+        return c;
+    }
+
+    /**
+     * The time an engine took to match one page.
+     */
+    static final class Measurement {
+        private final int  keywords;
+        private final int  chars;
+        private final long nanos;
+
+        /**
+         * @param keywords The number of keywords of the selection
+         * @param chars    The number of characters fed to the matcher
+         * @param nanos    The time from creating the matcher to reading its result
+         */
+        Measurement(int keywords, int chars, long nanos) {
+            this.keywords = keywords;
+            this.chars    = chars;
+            this.nanos    = nanos;
+        }
+    }
+}
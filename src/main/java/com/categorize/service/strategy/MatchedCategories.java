@@ -0,0 +1,92 @@
+package com.categorize.service.strategy;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The categories matched by one page, kept as a bitset of category ids.
+ * Ids are indexes into a list of category names shared by every page matched against the same categories,
+ * so a result costs a few longs rather than a list of strings; the names are only looked up when the list is read,
+ * which for a categorization result is when it is serialized.
+ * <p>
+ * Instances are immutable.
+ */
+public final class MatchedCategories extends AbstractList<String> {
+    private final List<String> names;
+    private final long[]       bits;
+    private final int          size;
+
+    /**
+     * Constructs the matched categories from a bitset of ids.
+     *
+     * @param names The category names, indexed by id
+     * @param bits  The bitset of matched ids; copied, so the caller may keep updating it
+     */
+    public MatchedCategories(List<String> names, long[] bits) {
+        this.names = names;
+        this.bits  = bits.clone();
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        this.size = count;
+    }
+
+    /**
+     * Returns the number of longs needed for a bitset of the given number of ids.
+     *
+     * @param ids The number of ids
+     * @return The length of the bitset array
+     */
+    public static int wordsFor(int ids) {
+        return (ids + 63) >>> 6;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Iterator<String> iterator = iterator();
+        for (int i = 0; i < index; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    /**
+     * Iterates the matched names in id order, skipping over unmatched ids a word at a time.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int  word    = 0;
+            private long pending = bits.length > 0 ? bits[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (pending == 0 && word + 1 < bits.length) {
+                    pending = bits[++word];
+                }
+                return pending != 0;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int id = (word << 6) + Long.numberOfTrailingZeros(pending);
+                pending &= pending - 1;
+                return names.get(id);
+            }
+        };
+    }
+}
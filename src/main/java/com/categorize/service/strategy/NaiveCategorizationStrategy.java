@@ -2,29 +2,92 @@ package com.categorize.service.strategy;
 
 import com.categorize.model.Category;
 import com.categorize.model.WebPageContent;
+import com.categorize.dto.ScoringOptions;
 import com.categorize.dto.UrlCategoryResult;
+import com.categorize.model.CategoryKeyword;
+import com.categorize.service.matcher.KeywordPrefilter;
+import com.categorize.service.matcher.ScoreSink;
+import com.categorize.service.matcher.TextNormalizer;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Implements a naive approach to categorization.
- * This strategy simply checks if any keyword of a category is contained in the web page content.
+ * This strategy simply checks if any keyword of a category is contained in the normalized web page content.
  * <p>
  * Implementation complexity:
  * - Time complexity: O(N * M * K), where N is the text length, M is the number of categories,
  * and K is the maximum keyword length.
+ * With the prefilter, see {@link KeywordPrefilter}, the keywords are only tried in the regions of the text where
+ * one of them could start, which leaves O(N) for text without candidates.
  */
 public class NaiveCategorizationStrategy implements CategorizationStrategy {
-    private final ExecutorService executorService;
+    private final ExecutorService  executorService;
+    private final TextNormalizer   normalizer;
+    private final SegmentedMatcher segments;
+    private final boolean          prefilter;
 
+    /**
+     * Constructs the naive strategy running on the common fork-join pool.
+     */
     public NaiveCategorizationStrategy() {
-        this.executorService = Executors.newCachedThreadPool();
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs the naive strategy with the default normalization.
+     *
+     * @param executorService The executor to categorize pages on
+     */
+    public NaiveCategorizationStrategy(ExecutorService executorService) {
+        this(executorService, TextNormalizer.DEFAULT);
+    }
+
+    /**
+     * Constructs the naive strategy with the prefilter enabled.
+     *
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to keywords and page text
+     */
+    public NaiveCategorizationStrategy(ExecutorService executorService, TextNormalizer normalizer) {
+        this(executorService, normalizer, true);
+    }
+
+    /**
+     * Constructs the naive strategy.
+     *
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to keywords and page text
+     * @param prefilter       Whether windows are screened with a {@link KeywordPrefilter} before matching
+     */
+    public NaiveCategorizationStrategy(ExecutorService executorService, TextNormalizer normalizer, boolean prefilter) {
+        this(executorService, normalizer, prefilter, new SegmentedMatcher(executorService, normalizer));
+    }
+
+    /**
+     * Constructs the naive strategy, matching long pages with the given segmented matcher.
+     *
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to keywords and page text
+     * @param prefilter       Whether windows are screened with a {@link KeywordPrefilter} before matching
+     * @param segments        The matcher splitting long pages into segments, running on the executor with the normalizer
+     */
+    public NaiveCategorizationStrategy(ExecutorService executorService, TextNormalizer normalizer, boolean prefilter,
+                                       SegmentedMatcher segments) {
+        this.executorService = executorService;
+        this.normalizer      = normalizer;
+        this.segments        = segments;
+        this.prefilter       = prefilter;
     }
 
     /**
      * Categorizes web pages using a simple string matching approach.
+     * The categories are prepared once for all pages, see {@link #prepare}, and long pages are matched
+     * in parallel segments, see {@link SegmentedMatcher}.
      *
      * @param categories List of categories to match against
      * @param webPages   List of web pages to categorize
@@ -32,23 +95,134 @@ public class NaiveCategorizationStrategy implements CategorizationStrategy {
      */
     @Override
     public List<UrlCategoryResult> categorize(List<Category> categories, List<WebPageContent> webPages) {
+        Function<WebPageContent, UrlCategoryResult> categorizer = segments.prepare(categories, prepare(categories));
         List<UrlCategoryResult> results = webPages.stream()
-                                                  .map(webPage -> CompletableFuture.supplyAsync(() -> categorizeSinglePage(categories, webPage),
-                                                                                                executorService))
+                                                  .map(webPage -> CompletableFuture.supplyAsync(() -> categorizer.apply(webPage), executorService))
                                                   .map(CompletableFuture::join)
                                                   .collect(Collectors.toList());
 
         return results;
     }
 
-    private static UrlCategoryResult categorizeSinglePage(List<Category> categories, WebPageContent webPage) {
-        String content = webPage.getContent().toLowerCase();
-        List<String> matchedCategories = categories.stream()
-                                                   .filter(category -> category.getKeywords()
-                                                                               .stream()
-                                                                               .anyMatch(keyword -> content.contains(keyword.getKeyword())))
-                                                   .map(Category::getName)
-                                                   .collect(Collectors.toList());
-        return new UrlCategoryResult(webPage.getUrl(), matchedCategories);
+    /**
+     * Creates an incremental matcher that matches overlapping windows of the fed text.
+     *
+     * @param categories List of categories to match against
+     * @return A new CategoryMatcher for one page
+     */
+    @Override
+    public CategoryMatcher newMatcher(List<Category> categories) {
+        return prepare(categories).get();
+    }
+
+    /**
+     * Prepares windowed matchers for the given categories.
+     * The normalized keywords are laid out by category id, and the overlap and the prefilter are computed once.
+     *
+     * @param categories List of categories to match against
+     * @return A supplier of a new CategoryMatcher for one page
+     */
+    @Override
+    public Supplier<CategoryMatcher> prepare(List<Category> categories) {
+        List<String>     names    = categories.stream().map(Category::getName).collect(Collectors.toList());
+        String[][]       keywords = categories.stream()
+                                              .map(category -> category.getKeywords().stream()
+                                                                              .map(keyword -> normalizer.normalize(keyword.getKeyword()))
+                                                                              .filter(keyword -> !keyword.isEmpty())
+                                                                              .toArray(String[]::new))
+                                              .toArray(String[][]::new);
+        int              overlap  = WindowedCategoryMatcher.overlapOf(categories);
+        KeywordPrefilter screen   = prefilter ? KeywordPrefilter.build(categories, normalizer) : null;
+        return () -> new WindowedCategoryMatcher(names, overlap, normalizer, (window, matched) -> matchCategories(keywords, window, matched), screen);
+    }
+
+    /**
+     * Prepares windowed scorers for the given categories.
+     * Every occurrence of a keyword is counted, including occurrences overlapping each other.
+     *
+     * @param categories List of categories to match against
+     * @param scoring    The threshold and the number of categories to report
+     * @return A supplier of a new scoring CategoryMatcher for one page
+     */
+    @Override
+    public Supplier<CategoryMatcher> prepare(List<Category> categories, ScoringOptions scoring) {
+        List<String> names    = categories.stream().map(Category::getName).collect(Collectors.toList());
+        String[][]   keywords = categories.stream()
+                                          .map(category -> category.getKeywords().stream()
+                                                                          .map(keyword -> normalizer.normalize(keyword.getKeyword()))
+                                                                          .toArray(String[]::new))
+                                          .toArray(String[][]::new);
+        double[][]   weights  = categories.stream()
+                                          .map(category -> category.getKeywords().stream()
+                                                                          .mapToDouble(CategoryKeyword::getWeight)
+                                                                          .toArray())
+                                          .toArray(double[][]::new);
+        int          overlap  = WindowedCategoryMatcher.overlapOf(categories);
+        return () -> new WindowedCategoryScorer(new CategoryScores(names, scoring), overlap, normalizer,
+                                                (window, from, sink) -> scoreCategories(keywords, weights, window, from, sink));
+    }
+
+    /**
+     * Sets the bit of every category not matched yet that has a keyword contained in the text.
+     *
+     * @param keywords The normalized keywords of each category, indexed by id
+     * @param content  The normalized text to match
+     * @param matched  The bitset of matched category ids, updated in place
+     */
+    private static void matchCategories(String[][] keywords, CharSequence content, long[] matched) {
+        for (int id = 0; id < keywords.length; id++) {
+            if (WindowedCategoryMatcher.isSet(matched, id)) {
+                continue;
+            }
+            for (String keyword : keywords[id]) {
+                if (contains(content, keyword)) {
+                    matched[id >>> 6] |= 1L << id;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the weight of every keyword occurrence ending after the given offset of the text.
+     *
+     * @param keywords The normalized keywords of each category, indexed by id
+     * @param weights  The keyword weights, laid out like the keywords
+     * @param content  The normalized text to match
+     * @param from     The offset after which an occurrence must end to be counted
+     * @param sink     The sink receiving the weights
+     */
+    private static void scoreCategories(String[][] keywords, double[][] weights, CharSequence content, int from, ScoreSink sink) {
+        for (int id = 0; id < keywords.length; id++) {
+            for (int k = 0; k < keywords[id].length; k++) {
+                String keyword = keywords[id][k];
+                if (keyword.isEmpty()) {
+                    continue;
+                }
+                for (int start = indexOf(content, keyword, Math.max(0, from - keyword.length() + 1));
+                     start >= 0;
+                     start = indexOf(content, keyword, start + 1)) {
+                    sink.add(id, weights[id][k]);
+                }
+            }
+        }
+    }
+
+    private static boolean contains(CharSequence content, String keyword) {
+        return indexOf(content, keyword, 0) >= 0;
+    }
+
+    private static int indexOf(CharSequence content, String keyword, int from) {
+        int last = content.length() - keyword.length();
+        for (int start = from; start <= last; start++) {
+            int i = 0;
+            while (i < keyword.length() && content.charAt(start + i) == keyword.charAt(i)) {
+                i++;
+            }
+            if (i == keyword.length()) {
+                return start;
+            }
+        }
+        return -1;
     }
 }
@@ -1,44 +1,147 @@
 package com.categorize.service.strategy;
 
+import com.categorize.dto.ScoringOptions;
 import com.categorize.dto.UrlCategoryResult;
 import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
 import com.categorize.model.WebPageContent;
+import com.categorize.service.matcher.KeywordPrefilter;
+import com.categorize.service.matcher.ScoreSink;
+import com.categorize.service.matcher.TextNormalizer;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
  * Implements a regex-based approach to categorization.
- * This strategy compiles category keywords into regex patterns for efficient matching.
+ * This strategy compiles the normalized keywords of each category into a regex pattern for efficient matching.
+ * Keywords and page text are case folded by the {@link TextNormalizer}, so the patterns need no case-insensitive flag.
  * <p>
  * Implementation complexity:
  * - Time complexity: O(N * M), where N is the text length and M is the number of categories.
  * The regex matching is generally more efficient than naive string matching, especially for multiple keywords.
+ * With the prefilter, see {@link KeywordPrefilter}, the patterns are only run over the regions of the text where
+ * a keyword could start.
  */
 public class RegexCategorizationStrategy implements CategorizationStrategy {
     private final Map<String, Pattern> categoryToPattern;
-    private final ExecutorService executorService;
+    private final ExecutorService      executorService;
+    private final TextNormalizer       normalizer;
+    private final SegmentedMatcher     segments;
+    private final boolean              prefilter;
 
     /**
-     * Constructs the regex strategy with the given categories.
-     * Compiles the keywords of each category into a regex pattern.
+     * Constructs the regex strategy with the given categories, running on the common fork-join pool.
      *
      * @param categories List of categories to compile patterns from
      */
     public RegexCategorizationStrategy(List<Category> categories) {
+        this(categories, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs the regex strategy with the given categories and the default normalization.
+     *
+     * @param categories      List of categories to compile patterns from
+     * @param executorService The executor to categorize pages on
+     */
+    public RegexCategorizationStrategy(List<Category> categories, ExecutorService executorService) {
+        this(categories, executorService, TextNormalizer.DEFAULT);
+    }
+
+    /**
+     * Constructs the regex strategy with the given categories and the prefilter enabled.
+     *
+     * @param categories      List of categories to compile patterns from
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to keywords and page text
+     */
+    public RegexCategorizationStrategy(List<Category> categories, ExecutorService executorService, TextNormalizer normalizer) {
+        this(categories, executorService, normalizer, true);
+    }
+
+    /**
+     * Constructs the regex strategy with the given categories.
+     * Compiles the normalized keywords of each category into a regex pattern.
+     *
+     * @param categories      List of categories to compile patterns from
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to keywords and page text
+     * @param prefilter       Whether windows are screened with a {@link KeywordPrefilter} before matching
+     */
+    public RegexCategorizationStrategy(List<Category> categories, ExecutorService executorService, TextNormalizer normalizer,
+                                       boolean prefilter) {
+        this(categories, executorService, normalizer, prefilter, new SegmentedMatcher(executorService, normalizer));
+    }
+
+    /**
+     * Constructs the regex strategy with the given categories, matching long pages with the given segmented matcher.
+     *
+     * @param categories      List of categories to compile patterns from
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to keywords and page text
+     * @param prefilter       Whether windows are screened with a {@link KeywordPrefilter} before matching
+     * @param segments        The matcher splitting long pages into segments, running on the executor with the normalizer
+     */
+    public RegexCategorizationStrategy(List<Category> categories, ExecutorService executorService, TextNormalizer normalizer,
+                                       boolean prefilter, SegmentedMatcher segments) {
+        this(categories, executorService, normalizer, prefilter, segments, Collections.emptyMap());
+    }
+
+    /**
+     * Constructs the regex strategy, reusing previously compiled patterns whose regex is unchanged.
+     * A category whose keywords all normalize to nothing gets no pattern and never matches.
+     *
+     * @param categories      List of categories to compile patterns from
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to keywords and page text
+     * @param prefilter       Whether windows are screened with a {@link KeywordPrefilter} before matching
+     * @param segments        The matcher splitting long pages into segments
+     * @param previous        Compiled patterns of an earlier version of the categories, by category name
+     */
+    private RegexCategorizationStrategy(List<Category> categories, ExecutorService executorService, TextNormalizer normalizer,
+                                        boolean prefilter, SegmentedMatcher segments, Map<String, Pattern> previous) {
         categoryToPattern = new HashMap<>();
         for (Category category : categories) {
-            String regex = category.getKeywords().stream().map(keyword -> Pattern.quote(keyword.getKeyword())).collect(Collectors.joining("|"));
-            Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            String regex = category.getKeywords().stream()
+                                   .map(keyword -> normalizer.normalize(keyword.getKeyword()))
+                                   .filter(keyword -> !keyword.isEmpty())
+                                   .map(Pattern::quote)
+                                   .collect(Collectors.joining("|"));
+            if (regex.isEmpty()) {
+                continue;
+            }
+            Pattern compiled = previous.get(category.getName());
+            Pattern pattern = compiled != null && compiled.pattern().equals(regex) ? compiled : Pattern.compile(regex);
             categoryToPattern.put(category.getName(), pattern);
         }
-        this.executorService = Executors.newCachedThreadPool();
+        this.executorService = executorService;
+        this.normalizer      = normalizer;
+        this.segments        = segments;
+        this.prefilter       = prefilter;
+    }
+
+    /**
+     * Returns a strategy for the updated categories that recompiles only the categories whose keywords changed.
+     * Patterns are immutable, so the unchanged ones are shared with this strategy.
+     *
+     * @param categories The complete updated list of categories
+     * @return A strategy ready to match the updated categories
+     */
+    @Override
+    public CategorizationStrategy withCategories(List<Category> categories) {
+        return new RegexCategorizationStrategy(categories, executorService, normalizer, prefilter, segments, categoryToPattern);
     }
 
     /**
      * Categorizes a list of web pages based on the specified categories.
+     * The patterns are selected once for all pages, see {@link #prepare}, and long pages are matched
+     * in parallel segments, see {@link SegmentedMatcher}.
      *
      * @param categories List of categories to match against
      * @param webPages   List of web page contents to categorize
@@ -46,12 +149,10 @@ public class RegexCategorizationStrategy implements CategorizationStrategy {
      */
     @Override
     public List<UrlCategoryResult> categorize(List<Category> categories, List<WebPageContent> webPages) {
-        Map<String, Pattern> relevantPatterns = categories.stream()
-            .filter(category -> categoryToPattern.containsKey(category.getName()))
-            .collect(Collectors.toMap(Category::getName, category -> categoryToPattern.get(category.getName())));
+        Function<WebPageContent, UrlCategoryResult> categorizer = segments.prepare(categories, prepare(categories));
 
         List<CompletableFuture<UrlCategoryResult>> futures = webPages.stream()
-            .map(webPage -> CompletableFuture.supplyAsync(() -> categorizeWebPage(webPage, relevantPatterns), executorService))
+            .map(webPage -> CompletableFuture.supplyAsync(() -> categorizer.apply(webPage), executorService))
             .collect(Collectors.toList());
 
         return futures.stream()
@@ -60,20 +161,113 @@ public class RegexCategorizationStrategy implements CategorizationStrategy {
     }
 
     /**
-     * Categorizes a single web page using the provided patterns.
+     * Creates an incremental matcher that matches overlapping windows of the fed text.
+     *
+     * @param categories List of categories to match against
+     * @return A new CategoryMatcher for one page
+     */
+    @Override
+    public CategoryMatcher newMatcher(List<Category> categories) {
+        return prepare(categories).get();
+    }
+
+    /**
+     * Prepares windowed matchers for the given categories.
+     * The patterns are laid out by category id, and the overlap and the prefilter are computed once; a category without
+     * a compiled pattern never matches. Each window is matched only against the patterns of the categories not matched yet.
+     *
+     * @param categories List of categories to match against
+     * @return A supplier of a new CategoryMatcher for one page
+     */
+    @Override
+    public Supplier<CategoryMatcher> prepare(List<Category> categories) {
+        List<String>     names    = categories.stream().map(Category::getName).collect(Collectors.toList());
+        Pattern[]        patterns = names.stream().map(categoryToPattern::get).toArray(Pattern[]::new);
+        int              overlap  = WindowedCategoryMatcher.overlapOf(categories);
+        KeywordPrefilter screen   = prefilter ? KeywordPrefilter.build(categories, normalizer) : null;
+        return () -> new WindowedCategoryMatcher(names, overlap, normalizer, (window, matched) -> matchCategories(window, patterns, matched), screen);
+    }
+
+    /**
+     * Prepares windowed scorers for the given categories.
+     * Every distinct normalized keyword is compiled into its own lookahead pattern, weighted by the summed weight of the
+     * keywords normalizing to it, so every occurrence of every keyword is counted, overlapping ones included, as the
+     * other strategies count them. A single find over the category's alternation would count "star" in "star wars" once.
+     *
+     * @param categories List of categories to match against
+     * @param scoring    The threshold and the number of categories to report
+     * @return A supplier of a new scoring CategoryMatcher for one page
+     */
+    @Override
+    public Supplier<CategoryMatcher> prepare(List<Category> categories, ScoringOptions scoring) {
+        List<String> names    = categories.stream().map(Category::getName).collect(Collectors.toList());
+        Pattern[][]  keywords = new Pattern[categories.size()][];
+        int[][]      lengths  = new int[categories.size()][];
+        double[][]   weights  = new double[categories.size()][];
+        for (int id = 0; id < categories.size(); id++) {
+            Map<String, Double> summed = new LinkedHashMap<>();
+            for (CategoryKeyword keyword : categories.get(id).getKeywords()) {
+                String normalized = normalizer.normalize(keyword.getKeyword());
+                if (!normalized.isEmpty()) {
+                    summed.merge(normalized, keyword.getWeight(), Double::sum);
+                }
+            }
+            keywords[id] = new Pattern[summed.size()];
+            lengths[id]  = new int[summed.size()];
+            weights[id]  = new double[summed.size()];
+            int k = 0;
+            for (Map.Entry<String, Double> entry : summed.entrySet()) {
+                keywords[id][k] = Pattern.compile("(?=" + Pattern.quote(entry.getKey()) + ")");
+                lengths[id][k]  = entry.getKey().length();
+                weights[id][k]  = entry.getValue();
+                k++;
+            }
+        }
+        int overlap = WindowedCategoryMatcher.overlapOf(categories);
+        return () -> new WindowedCategoryScorer(new CategoryScores(names, scoring), overlap, normalizer,
+                                                (window, from, sink) -> scoreCategories(window, from, keywords, lengths, weights, sink));
+    }
+
+    /**
+     * Sets the bit of every category not matched yet whose pattern occurs in the given text.
+     *
+     * @param content  The normalized text to match
+     * @param patterns The compiled patterns, indexed by category id
+     * @param matched  The bitset of matched category ids, updated in place
+     */
+    private static void matchCategories(CharSequence content, Pattern[] patterns, long[] matched) {
+        for (int id = 0; id < patterns.length; id++) {
+            if (patterns[id] != null && !WindowedCategoryMatcher.isSet(matched, id) && patterns[id].matcher(content).find()) {
+                matched[id >>> 6] |= 1L << id;
+            }
+        }
+    }
+
+    /**
+     * Adds the weight of every keyword occurrence ending after the given offset of the text.
      *
-     * @param webPage The WebPageContent object containing the URL and content to categorize
-     * @param relevantPatterns A map of category names to their corresponding regex patterns
-     * @return A UrlCategoryResult object containing the URL and its matching categories
+     * @param content  The normalized text to match
+     * @param from     The offset after which an occurrence must end to be counted
+     * @param keywords The lookahead pattern of every distinct keyword, indexed by category id
+     * @param lengths  The length of every distinct keyword, indexed by category id
+     * @param weights  The summed weight of every distinct keyword, indexed by category id
+     * @param sink     The sink receiving the weights
      */
-    private UrlCategoryResult categorizeWebPage(WebPageContent webPage, Map<String, Pattern> relevantPatterns) {
-        Set<String> matchedCategories = new HashSet<>();
-        String content = webPage.getContent();
-        for (Map.Entry<String, Pattern> entry : relevantPatterns.entrySet()) {
-            if (entry.getValue().matcher(content).find()) {
-                matchedCategories.add(entry.getKey());
+    private static void scoreCategories(CharSequence content, int from, Pattern[][] keywords, int[][] lengths, double[][] weights,
+                                        ScoreSink sink) {
+        for (int id = 0; id < keywords.length; id++) {
+            for (int k = 0; k < keywords[id].length; k++) {
+                int start = Math.max(0, from - lengths[id][k] + 1);
+                if (start > content.length()) {
+                    continue;
+                }
+                Matcher matcher = keywords[id][k].matcher(content);
+                if (matcher.find(start)) {
+                    do {
+                        sink.add(id, weights[id][k]);
+                    } while (matcher.find());
+                }
             }
         }
-        return new UrlCategoryResult(webPage.getUrl(), new ArrayList<>(matchedCategories));
     }
 }
@@ -0,0 +1,253 @@
+package com.categorize.service.strategy;
+
+import com.categorize.dto.UrlCategoryResult;
+import com.categorize.model.Category;
+import com.categorize.model.WebPageContent;
+import com.categorize.service.matcher.PhraseIndex;
+import com.categorize.service.matcher.TextNormalizer;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Matches the whole text of a page held in memory, splitting long text into segments matched in parallel.
+ * <p>
+ * Text shorter than the threshold is fed to a single matcher on the calling thread. Longer text is cut into segments
+ * of the configured size, each extended backwards by the overlap, counted in normalized characters, so that every
+ * keyword lies entirely within some segment. For a matcher of whole words, both ends of a segment are also moved
+ * to the nearest word boundary outside it, so a word cut by a boundary is not taken for a whole word. They are moved
+ * by at most the overlap: a run of letters longer than any keyword, such as text without spaces, is cut where
+ * the segment ends, so the widening never adds more than the overlap at either end of a segment.
+ * Every segment gets its own matcher and the matched categories of all segments are merged; once every requested
+ * category has matched, segments not started yet are skipped and running ones stop at their next chunk.
+ * <p>
+ * The calling thread matches segments itself, and up to one helper per processor is submitted to the executor
+ * to match the others. Segments are claimed one at a time, so the caller only ever waits for segments a running
+ * helper has claimed; a helper still queued behind other work finds nothing left to do. Matching therefore never
+ * deadlocks on a bounded pool, even when it is called from one of the pool's own threads, and a rejected helper only
+ * reduces the parallelism. Scoring matchers must not be used here, as hits in the overlaps would be counted twice.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class SegmentedMatcher {
+    /**
+     * The default length from which text is matched in segments.
+     */
+    public static final int DEFAULT_THRESHOLD_CHARS = 1 << 20;
+
+    /**
+     * The default length of a segment.
+     */
+    public static final int DEFAULT_SEGMENT_CHARS = 1 << 18;
+
+    private final Executor       executor;
+    private final TextNormalizer normalizer;
+    private final int            thresholdChars;
+    private final int            segmentChars;
+    private final int            helpers;
+
+    /**
+     * Constructs a segmented matcher with the default threshold and segment length.
+     *
+     * @param executor   The executor running the helpers
+     * @param normalizer The normalizer the matchers apply to the text
+     */
+    public SegmentedMatcher(Executor executor, TextNormalizer normalizer) {
+        this(executor, normalizer, DEFAULT_THRESHOLD_CHARS, DEFAULT_SEGMENT_CHARS);
+    }
+
+    /**
+     * Constructs a segmented matcher.
+     *
+     * @param executor       The executor running the helpers
+     * @param normalizer     The normalizer the matchers apply to the text
+     * @param thresholdChars The length from which text is matched in segments
+     * @param segmentChars   The length of a segment, before its overlap
+     */
+    public SegmentedMatcher(Executor executor, TextNormalizer normalizer, int thresholdChars, int segmentChars) {
+        this.executor       = executor;
+        this.normalizer     = normalizer;
+        this.thresholdChars = thresholdChars;
+        this.segmentChars   = Math.max(WindowedCategoryMatcher.FEED_CHARS, segmentChars);
+        this.helpers        = Runtime.getRuntime().availableProcessors() - 1;
+    }
+
+    /**
+     * Prepares the categorization of whole pages against the given categories.
+     *
+     * @param categories The requested categories
+     * @param matchers   The supplier of matchers for the categories, which must not score
+     * @return A function categorizing one page
+     */
+    public Function<WebPageContent, UrlCategoryResult> prepare(List<Category> categories, Supplier<CategoryMatcher> matchers) {
+        List<String> names   = categories.stream().map(Category::getName).collect(Collectors.toList());
+        int          overlap = WindowedCategoryMatcher.overlapOf(categories);
+        return webPage -> new UrlCategoryResult(webPage.getUrl(), match(webPage.getContent(), matchers, names, overlap));
+    }
+
+    /**
+     * Matches the text of a page.
+     *
+     * @param content  The text of the page
+     * @param matchers The supplier of matchers for the requested categories, which must not score
+     * @param names    The names of the requested categories
+     * @param overlap  The overlap of the requested categories, as computed by {@link WindowedCategoryMatcher#overlapOf}
+     * @return The names of the matched categories
+     */
+    public List<String> match(CharSequence content, Supplier<CategoryMatcher> matchers, List<String> names, int overlap) {
+        if (content.length() < thresholdChars || content.length() <= segmentChars) {
+            CategoryMatcher matcher = matchers.get();
+            matcher.feed(content);
+            return matcher.getMatchedCategories();
+        }
+        return new Run(content, matchers, names, overlap).match();
+    }
+
+    /**
+     * The matching of one page in segments.
+     */
+    private final class Run {
+        private final CharSequence              content;
+        private final Supplier<CategoryMatcher> matchers;
+        private final List<String>              names;
+        private final Map<String, Integer>      ids;
+        private final int                       overlap;
+        private final int                       segments;
+        private final long[]                    matched;
+        private final long[]                    all;
+        private final AtomicInteger             next;
+        private final CountDownLatch            done;
+        private volatile boolean                complete;
+        private volatile RuntimeException       failure;
+
+        private Run(CharSequence content, Supplier<CategoryMatcher> matchers, List<String> names, int overlap) {
+            this.content  = content;
+            this.matchers = matchers;
+            this.names    = names;
+            this.ids      = new HashMap<>();
+            this.overlap  = overlap;
+            this.segments = (content.length() + segmentChars - 1) / segmentChars;
+            this.matched  = new long[MatchedCategories.wordsFor(names.size())];
+            this.all      = new long[matched.length];
+            this.next     = new AtomicInteger();
+            this.done     = new CountDownLatch(segments);
+            for (int id = 0; id < names.size(); id++) {
+                ids.putIfAbsent(names.get(id), id);
+                all[id >>> 6] |= 1L << id;
+            }
+            this.complete = names.isEmpty();
+        }
+
+        private List<String> match() {
+            for (int h = 0; h < Math.min(helpers, segments - 1); h++) {
+                try {
+                    executor.execute(this::work);
+                } catch (RejectedExecutionException e) {
+                    break;
+                }
+            }
+            work();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while matching a page in segments", e);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            synchronized (matched) {
+                return new MatchedCategories(names, matched);
+            }
+        }
+
+        /**
+         * Claims and matches segments until none are left.
+         */
+        private void work() {
+            for (int segment = next.getAndIncrement(); segment < segments; segment = next.getAndIncrement()) {
+                try {
+                    if (!complete && failure == null) {
+                        matchSegment(segment);
+                    }
+                } catch (RuntimeException e) {
+                    failure = e;
+                } finally {
+                    done.countDown();
+                }
+            }
+        }
+
+        private void matchSegment(int segment) {
+            CategoryMatcher matcher    = matchers.get();
+            boolean         wholeWords = matcher.matchesWholeWords();
+            int             end        = endOf((segment + 1) * segmentChars, wholeWords);
+            for (int from = startOf(segment * segmentChars, wholeWords); from < end && !complete && !matcher.isComplete();
+                 from += WindowedCategoryMatcher.FEED_CHARS) {
+                matcher.feed(content.subSequence(from, Math.min(end, from + WindowedCategoryMatcher.FEED_CHARS)));
+            }
+            List<String> found = matcher.getMatchedCategories();
+            synchronized (matched) {
+                for (String name : found) {
+                    Integer id = ids.get(name);
+                    if (id != null) {
+                        matched[id >>> 6] |= 1L << id;
+                    }
+                }
+                complete |= Arrays.equals(matched, all);
+            }
+        }
+
+        /**
+         * Returns the end of a segment, moved forward to the end of a word for a matcher of whole words, so that
+         * the matcher does not end on part of a word and take it for a whole one; the word is matched again by the next
+         * segment, which starts before it.
+         */
+        private int endOf(int boundary, boolean wholeWords) {
+            int end = Math.min(content.length(), boundary);
+            return wholeWords ? toWordBoundary(end, 1) : end;
+        }
+
+        /**
+         * Moves the start of a segment back by the overlap in normalized characters, then, for a matcher of whole words,
+         * to the start of a word. Characters the normalizer drops and whitespace followed by more whitespace are not
+         * counted, which can only make the overlap longer than needed.
+         */
+        private int startOf(int boundary, boolean wholeWords) {
+            int start   = boundary;
+            int counted = 0;
+            while (start > 0 && counted < overlap) {
+                start--;
+                int c = normalizer.next(content.charAt(start), 'a');
+                if (c != TextNormalizer.SKIP && !(c == ' ' && start + 1 < content.length() && normalizer.next(content.charAt(start + 1), 'a') == ' ')) {
+                    counted++;
+                }
+            }
+            return wholeWords ? toWordBoundary(start, -1) : start;
+        }
+
+        /**
+         * Moves a position by at most the overlap in the given direction to the nearest word boundary.
+         * A word longer than that cannot be a keyword, so the position is kept and the word is cut.
+         */
+        private int toWordBoundary(int position, int direction) {
+            for (int moved = 0, at = position; moved <= overlap; moved++, at += direction) {
+                if (at == 0 || at == content.length() || !inWord(at - 1) || !inWord(at)) {
+                    return at;
+                }
+            }
+            return position;
+        }
+
+        private boolean inWord(int index) {
+            int c = normalizer.next(content.charAt(index), 'a');
+            return c == TextNormalizer.SKIP || PhraseIndex.isTokenChar(c);
+        }
+    }
+}
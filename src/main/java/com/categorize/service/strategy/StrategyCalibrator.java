@@ -0,0 +1,421 @@
+package com.categorize.service.strategy;
+
+import com.categorize.concurrent.WorkScheduler;
+import com.categorize.dto.CategoryScore;
+import com.categorize.metrics.CategorizationMetrics;
+import com.categorize.model.Category;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Calibrates the cost model the {@link AdaptiveCategorizationStrategy} routes pages with, on a sample of real traffic.
+ * <p>
+ * A share of the pages matched by the adaptive strategy is recorded as it is fed, chunk by chunk, into a small buffer
+ * of recent samples, and the length of every page is accumulated. Every page is observed once, also when it is
+ * matched in segments. Once enough samples are collected, and then every calibration interval, the mean page length
+ * since the previous calibration is taken and the samples are replayed through every engine on the CPU pool,
+ * for the whole dictionary, the recently requested selections of categories and a single category of the latest one,
+ * and a {@link CostModel} is fitted to the timings and published. Until the first calibration every page goes
+ * to {@code AHO_CORASICK}.
+ * <p>
+ * The calibrator is shared by all versions of the adaptive strategy, so samples and the model survive category changes.
+ * Every page is counted in {@code categorize.auto.choice} by the engine it was routed to, and every calibration
+ * is timed in {@code categorize.auto.calibration}.
+ */
+@Component
+public class StrategyCalibrator {
+    private static final Logger log = LoggerFactory.getLogger(StrategyCalibrator.class);
+
+    /**
+     * The engine used before the first calibration and for scoring.
+     */
+    static final CategorizationStrategyType FALLBACK = CategorizationStrategyType.AHO_CORASICK;
+
+    private static final int ROUNDS         = 3;
+    private static final int MAX_SELECTIONS = 4;
+
+    private final    double                                   sampleRate;
+    private final    int                                      maxSamples;
+    private final    int                                      maxSampleChars;
+    private final    int                                      minSamples;
+    private final    long                                     intervalNanos;
+    private final    Executor                                 executor;
+    private final    CategorizationMetrics                    metrics;
+    private final    Map<CategorizationStrategyType, Counter> choices;
+    private final    Deque<List<String>>                      samples;
+    private final    Deque<List<String>>                      selections;
+    private final    LongAdder                                pages;
+    private final    LongAdder                                pageChars;
+    private final    AtomicReference<CostModel>               model;
+    private final    AtomicBoolean                            calibrating;
+    private volatile long                                     nextCalibration;
+    private volatile double                                   meanPageChars;
+
+    /**
+     * Constructs the calibrator of the application, calibrating on the CPU pool.
+     *
+     * @param sampleRate     The share of pages recorded as samples
+     * @param maxSamples     The number of most recent samples kept
+     * @param maxSampleChars The number of characters recorded of a sampled page
+     * @param minSamples     The number of samples needed for a calibration
+     * @param intervalMs     The time between calibrations in milliseconds
+     * @param workScheduler  The scheduler whose CPU pool calibrations run on
+     * @param metrics        The metrics the choices and calibrations are recorded to
+     */
+    @Autowired
+    public StrategyCalibrator(
+            @Value("${categorization.auto.sample-rate:0.01}") double sampleRate,
+            @Value("${categorization.auto.max-samples:8}") int maxSamples,
+            @Value("${categorization.auto.max-sample-chars:32768}") int maxSampleChars,
+            @Value("${categorization.auto.min-samples:4}") int minSamples,
+            @Value("${categorization.auto.calibration-interval:600000}") long intervalMs,
+            WorkScheduler workScheduler, CategorizationMetrics metrics) {
+        this(sampleRate, maxSamples, maxSampleChars, minSamples, intervalMs, workScheduler.getCpuExecutor(), metrics);
+    }
+
+    /**
+     * Constructs a calibrator with the default settings, calibrating on the common fork-join pool.
+     */
+    public StrategyCalibrator() {
+        this(0.01, 8, 32768, 4, 600_000, ForkJoinPool.commonPool(), new CategorizationMetrics());
+    }
+
+    /**
+     * Constructs a calibrator.
+     *
+     * @param sampleRate     The share of pages recorded as samples
+     * @param maxSamples     The number of most recent samples kept
+     * @param maxSampleChars The number of characters recorded of a sampled page
+     * @param minSamples     The number of samples needed for a calibration
+     * @param intervalMs     The time between calibrations in milliseconds
+     * @param executor       The executor calibrations run on
+     * @param metrics        The metrics the choices and calibrations are recorded to
+     */
+    public StrategyCalibrator(double sampleRate, int maxSamples, int maxSampleChars, int minSamples, long intervalMs,
+                              Executor executor, CategorizationMetrics metrics) {
+        this.sampleRate      = sampleRate;
+        this.maxSamples      = maxSamples;
+        this.maxSampleChars  = maxSampleChars;
+        this.minSamples      = Math.max(1, Math.min(minSamples, maxSamples));
+        this.intervalNanos   = intervalMs * 1_000_000;
+        this.executor        = executor;
+        this.metrics         = metrics;
+        this.choices         = new EnumMap<>(CategorizationStrategyType.class);
+        this.samples         = new ArrayDeque<>();
+        this.selections      = new ArrayDeque<>();
+        this.pages           = new LongAdder();
+        this.pageChars       = new LongAdder();
+        this.model           = new AtomicReference<>(CostModel.fixed(FALLBACK));
+        this.calibrating     = new AtomicBoolean();
+        this.nextCalibration = System.nanoTime();
+        this.meanPageChars   = maxSampleChars / 4.0;
+        for (CategorizationStrategyType engine : AdaptiveCategorizationStrategy.ENGINES) {
+            choices.put(engine, metrics.counter("categorize.auto.choice", "Pages routed to each engine by the adaptive strategy",
+                                                "engine", engine.name()));
+        }
+    }
+
+    /**
+     * Chooses the engine for a page of typical length, the mean length of the pages observed before the last calibration.
+     *
+     * @param keywords The number of keywords of the requested categories
+     * @return The engine with the lowest predicted time
+     */
+    CategorizationStrategyType choose(int keywords) {
+        return model.get().choose(keywords, meanPageChars);
+    }
+
+    /**
+     * Chooses the engine for a page of known length.
+     *
+     * @param keywords The number of keywords of the requested categories
+     * @param chars    The length of the page
+     * @return The engine with the lowest predicted time
+     */
+    CategorizationStrategyType choose(int keywords, int chars) {
+        return model.get().choose(keywords, chars);
+    }
+
+    /**
+     * Returns the current cost model.
+     *
+     * @return The model
+     */
+    CostModel getModel() {
+        return model.get();
+    }
+
+    /**
+     * Records a newly prepared selection of categories, to calibrate with the selections actually requested.
+     *
+     * @param categories The requested categories
+     */
+    void recordSelection(List<Category> categories) {
+        List<String> names = categories.stream().map(Category::getName).collect(Collectors.toList());
+        synchronized (selections) {
+            selections.remove(names);
+            selections.addFirst(names);
+            while (selections.size() > MAX_SELECTIONS) {
+                selections.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Counts the choice of an engine for a page and wraps its matcher to observe the page,
+     * sampling its text at the configured rate.
+     *
+     * @param matcher The matcher of the chosen engine
+     * @param engine  The chosen engine
+     * @return The observed matcher
+     */
+    CategoryMatcher observe(CategoryMatcher matcher, CategorizationStrategyType engine) {
+        choices.get(engine).increment();
+        return new ObservedMatcher(matcher, ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * Counts the choice of an engine for a page held in memory and observes the page, sampling its text
+     * at the configured rate in the chunks a {@link SegmentedMatcher} feeds.
+     *
+     * @param page   The text of the page
+     * @param engine The chosen engine
+     */
+    void observe(CharSequence page, CategorizationStrategyType engine) {
+        choices.get(engine).increment();
+        recordPage(page.length());
+        if (ThreadLocalRandom.current().nextDouble() < sampleRate && page.length() > 0) {
+            List<String> chunks = new ArrayList<>();
+            int          length = Math.min(page.length(), maxSampleChars);
+            for (int from = 0; from < length; from += WindowedCategoryMatcher.FEED_CHARS) {
+                chunks.add(page.subSequence(from, Math.min(length, from + WindowedCategoryMatcher.FEED_CHARS)).toString());
+            }
+            addSample(chunks);
+        }
+    }
+
+    /**
+     * Starts a calibration of the given strategy's engines on the executor if one is due and enough samples are collected.
+     * At most one calibration runs at a time.
+     *
+     * @param strategy The strategy whose engines and categories to calibrate with
+     */
+    void calibrateIfDue(AdaptiveCategorizationStrategy strategy) {
+        if (System.nanoTime() - nextCalibration < 0 || sampleCount() < minSamples || !calibrating.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    calibrate(strategy.getEngines(), strategy.getCategories());
+                } catch (RuntimeException e) {
+                    log.warn("Calibration of the adaptive strategy failed, keeping the current cost model", e);
+                } finally {
+                    nextCalibration = System.nanoTime() + intervalNanos;
+                    calibrating.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            calibrating.set(false);
+        }
+    }
+
+    /**
+     * Replays the collected samples through every engine, fits a cost model to the timings and publishes it.
+     * Each sample is matched once to warm up and then {@value #ROUNDS} times, keeping the fastest time.
+     *
+     * @param engines    The engines to measure
+     * @param categories The categories the engines were built over
+     * @return The published model
+     */
+    CostModel calibrate(Map<CategorizationStrategyType, CategorizationStrategy> engines, List<Category> categories) {
+        return metrics.timer("categorize.auto.calibration", "Time to calibrate the adaptive strategy").record(() -> {
+            long pageCount = pages.sumThenReset();
+            long charCount = pageChars.sumThenReset();
+            if (pageCount > 0) {
+                meanPageChars = (double) charCount / pageCount;
+            }
+            List<List<String>>   replay   = snapshotSamples();
+            List<List<Category>> measured = selectionsOf(categories);
+
+            Map<CategorizationStrategyType, List<CostModel.Measurement>> measurements = new EnumMap<>(CategorizationStrategyType.class);
+            engines.forEach((engine, strategy) -> {
+                List<CostModel.Measurement> timings = new ArrayList<>();
+                for (List<Category> selection : measured) {
+                    int                       keywords  = AdaptiveCategorizationStrategy.keywordCount(selection);
+                    Supplier<CategoryMatcher> matchers  = strategy.prepare(selection);
+                    for (List<String> sample : replay) {
+                        long best = Long.MAX_VALUE;
+                        int  fed  = 0;
+                        for (int round = 0; round <= ROUNDS; round++) {
+                            long started = System.nanoTime();
+                            fed = replay(matchers.get(), sample);
+                            long nanos = System.nanoTime() - started;
+                            best = round == 0 ? best : Math.min(best, nanos);
+                        }
+                        timings.add(new CostModel.Measurement(keywords, fed, best));
+                    }
+                }
+                measurements.put(engine, timings);
+            });
+
+            CostModel fitted = CostModel.fit(measurements, FALLBACK);
+            model.set(fitted);
+            log.info("Calibrated the adaptive strategy on {} samples and selections of {} categories, for pages of {} characters: {}",
+                     replay.size(), measured.stream().map(List::size).collect(Collectors.toList()), Math.round(meanPageChars), fitted);
+            return fitted;
+        });
+    }
+
+    /**
+     * Resolves the selections to measure against the current categories: the whole dictionary, the recently requested
+     * selections whose categories still exist, and the first category of the latest of them, so the model sees
+     * both ends of the keyword counts of real requests.
+     *
+     * @param categories The categories the engines were built over
+     * @return The distinct non-empty selections
+     */
+    private List<List<Category>> selectionsOf(List<Category> categories) {
+        Map<String, Category> byName = new HashMap<>();
+        categories.forEach(category -> byName.putIfAbsent(category.getName(), category));
+
+        Set<List<Category>> resolved = new LinkedHashSet<>();
+        synchronized (selections) {
+            for (List<String> names : selections) {
+                List<Category> selection = names.stream().map(byName::get).filter(Objects::nonNull).collect(Collectors.toList());
+                if (!selection.isEmpty()) {
+                    resolved.add(selection);
+                }
+            }
+        }
+        List<Category> latest = resolved.isEmpty() ? categories : resolved.iterator().next();
+
+        Set<List<Category>> result = new LinkedHashSet<>();
+        if (!categories.isEmpty()) {
+            result.add(categories);
+            result.add(Collections.singletonList(latest.get(0)));
+        }
+        result.addAll(resolved);
+        return new ArrayList<>(result);
+    }
+
+    private void recordPage(int chars) {
+        pages.increment();
+        pageChars.add(chars);
+    }
+
+    private int sampleCount() {
+        synchronized (samples) {
+            return samples.size();
+        }
+    }
+
+    private List<List<String>> snapshotSamples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    private void addSample(List<String> chunks) {
+        synchronized (samples) {
+            samples.addFirst(chunks);
+            while (samples.size() > maxSamples) {
+                samples.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Feeds a sample to a matcher the way pages are fed, stopping once the result is final.
+     *
+     * @return The number of characters fed
+     */
+    private static int replay(CategoryMatcher matcher, List<String> chunks) {
+        int fed = 0;
+        for (String chunk : chunks) {
+            if (matcher.isComplete()) {
+                break;
+            }
+            matcher.feed(chunk);
+            fed += chunk.length();
+        }
+        matcher.getMatchedCategories();
+        return fed;
+    }
+
+    /**
+     * A CategoryMatcher that measures the length of its page and, if sampled, records its chunks.
+     * The page is accounted for once, when its result is first read.
+     */
+    private final class ObservedMatcher implements CategoryMatcher {
+        private final CategoryMatcher delegate;
+        private final List<String>    chunks;
+        private       int             chars;
+        private       int             sampledChars;
+        private       boolean         finished;
+
+        private ObservedMatcher(CategoryMatcher delegate, boolean sampled) {
+            this.delegate = delegate;
+            this.chunks   = sampled ? new ArrayList<>() : null;
+        }
+
+        @Override
+        public void feed(CharSequence chunk) {
+            chars += chunk.length();
+            if (chunks != null && sampledChars < maxSampleChars) {
+                int length = Math.min(chunk.length(), maxSampleChars - sampledChars);
+                chunks.add(chunk.subSequence(0, length).toString());
+                sampledChars += length;
+            }
+            delegate.feed(chunk);
+        }
+
+        @Override
+        public boolean isComplete() {
+            return delegate.isComplete();
+        }
+
+        @Override
+        public boolean matchesWholeWords() {
+            return delegate.matchesWholeWords();
+        }
+
+        @Override
+        public List<String> getMatchedCategories() {
+            finish();
+            return delegate.getMatchedCategories();
+        }
+
+        @Override
+        public Optional<List<CategoryScore>> getScores() {
+            finish();
+            return delegate.getScores();
+        }
+
+        private void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            recordPage(chars);
+            if (chunks != null && !chunks.isEmpty()) {
+                addSample(chunks);
+            }
+        }
+    }
+}
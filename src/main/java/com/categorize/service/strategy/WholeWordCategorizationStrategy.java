@@ -0,0 +1,313 @@
+package com.categorize.service.strategy;
+
+import com.categorize.dto.CategoryScore;
+import com.categorize.dto.ScoringOptions;
+import com.categorize.dto.UrlCategoryResult;
+import com.categorize.model.Category;
+import com.categorize.model.WebPageContent;
+import com.categorize.service.matcher.KeywordAutomaton;
+import com.categorize.service.matcher.PhraseIndex;
+import com.categorize.service.matcher.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Implements whole-word categorization over a hashed phrase index.
+ * The page is tokenized once into runs of letters and digits, and every phrase of up to the longest keyword's
+ * number of tokens ending at a token is looked up by its rolling hash, so a keyword only matches complete words:
+ * {@code nba} does not match {@code unbalanced}.
+ * The phrases are held in a {@link PhraseIndex}, which stores its table as flat primitive arrays.
+ * <p>
+ * Implementation complexity:
+ * - Time complexity: O(N + T * L), where N is the text length, T the number of tokens and L the maximum keyword
+ * length in tokens, independent of the number of categories and keywords.
+ * - Build complexity: O(K), where K is the total length of all keywords.
+ */
+public class WholeWordCategorizationStrategy implements CategorizationStrategy {
+    private static final Logger log = LoggerFactory.getLogger(WholeWordCategorizationStrategy.class);
+
+    private final PhraseIndex          index;
+    private final Map<String, Integer> categoryIds;
+    private final List<String>         categoryNames;
+    private final ExecutorService      executorService;
+    private final TextNormalizer       normalizer;
+    private final SegmentedMatcher     segments;
+
+    /**
+     * Constructs the whole-word strategy with the given categories, running on the common fork-join pool.
+     *
+     * @param categories List of categories to build the phrase index from
+     */
+    public WholeWordCategorizationStrategy(List<Category> categories) {
+        this(categories, ForkJoinPool.commonPool(), TextNormalizer.DEFAULT);
+    }
+
+    /**
+     * Constructs the whole-word strategy with the given categories.
+     * Builds a single phrase index over the normalized keywords of all categories.
+     *
+     * @param categories      List of categories to build the phrase index from
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to keywords and page text
+     */
+    public WholeWordCategorizationStrategy(List<Category> categories, ExecutorService executorService, TextNormalizer normalizer) {
+        this(categories, PhraseIndex.build(categories, normalizer), executorService, normalizer);
+    }
+
+    /**
+     * Constructs the whole-word strategy over a phrase index compiled earlier, such as one loaded from a
+     * {@link com.categorize.service.matcher.DictionarySnapshot}.
+     *
+     * @param categories      List of categories the index was built from, in the same order
+     * @param index           The phrase index over the keywords of the categories, built with the normalizer
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to page text
+     */
+    public WholeWordCategorizationStrategy(List<Category> categories, PhraseIndex index, ExecutorService executorService,
+                                           TextNormalizer normalizer) {
+        this(categories, index, executorService, normalizer, new SegmentedMatcher(executorService, normalizer));
+    }
+
+    /**
+     * Constructs the whole-word strategy over a phrase index compiled earlier, matching long pages with the given
+     * segmented matcher.
+     *
+     * @param categories      List of categories the index was built from, in the same order
+     * @param index           The phrase index over the keywords of the categories, built with the normalizer
+     * @param executorService The executor to categorize pages on
+     * @param normalizer      The normalizer applied to page text
+     * @param segments        The matcher splitting long pages into segments, running on the executor with the normalizer
+     */
+    public WholeWordCategorizationStrategy(List<Category> categories, PhraseIndex index, ExecutorService executorService,
+                                           TextNormalizer normalizer, SegmentedMatcher segments) {
+        this.normalizer    = normalizer;
+        this.index         = index;
+        this.categoryNames = categories.stream().map(Category::getName).collect(Collectors.toList());
+        this.categoryIds   = new HashMap<>();
+        for (int i = 0; i < categoryNames.size(); i++) {
+            categoryIds.putIfAbsent(categoryNames.get(i), i);
+        }
+        this.executorService = executorService;
+        this.segments        = segments;
+        log.info("Using phrase index with {} phrases of up to {} tokens over {} categories, footprint {} bytes",
+                 index.getPhraseCount(), index.getMaxTokens(), index.getCategoryCount(), index.getFootprintBytes());
+    }
+
+    /**
+     * Returns a strategy with a new phrase index over the updated categories.
+     *
+     * @param categories The complete updated list of categories
+     * @return A strategy ready to match the updated categories
+     */
+    @Override
+    public CategorizationStrategy withCategories(List<Category> categories) {
+        return new WholeWordCategorizationStrategy(categories, PhraseIndex.build(categories, normalizer), executorService, normalizer, segments);
+    }
+
+    /**
+     * Categorizes a list of web pages based on the specified categories.
+     * Long pages are matched in parallel segments, see {@link SegmentedMatcher}.
+     *
+     * @param categories List of categories to match against
+     * @param webPages   List of web page contents to categorize
+     * @return List of UrlCategoryResult objects containing the categorization results for each web page
+     */
+    @Override
+    public List<UrlCategoryResult> categorize(List<Category> categories, List<WebPageContent> webPages) {
+        Function<WebPageContent, UrlCategoryResult> categorizer = segments.prepare(categories, prepare(categories));
+
+        List<CompletableFuture<UrlCategoryResult>> futures = webPages.stream()
+            .map(webPage -> CompletableFuture.supplyAsync(() -> categorizer.apply(webPage), executorService))
+            .collect(Collectors.toList());
+
+        return futures.stream()
+            .map(CompletableFuture::join)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates an incremental matcher that carries the current token and the last tokens across chunks.
+     *
+     * @param categories List of categories to match against
+     * @return A new CategoryMatcher for one page
+     */
+    @Override
+    public CategoryMatcher newMatcher(List<Category> categories) {
+        return new PhraseMatcher(requestedIds(categories), null);
+    }
+
+    /**
+     * Prepares phrase matchers for the given categories with the bitset of requested category ids computed once.
+     *
+     * @param categories List of categories to match against
+     * @return A supplier of a new CategoryMatcher for one page
+     */
+    @Override
+    public Supplier<CategoryMatcher> prepare(List<Category> categories) {
+        long[] requested = requestedIds(categories);
+        return () -> new PhraseMatcher(requested, null);
+    }
+
+    /**
+     * Prepares scoring phrase matchers for the given categories.
+     * Every phrase ending at a token is counted, including phrases contained in longer ones.
+     *
+     * @param categories List of categories to match against
+     * @param scoring    The threshold and the number of categories to report
+     * @return A supplier of a new scoring CategoryMatcher for one page
+     */
+    @Override
+    public Supplier<CategoryMatcher> prepare(List<Category> categories, ScoringOptions scoring) {
+        long[] requested = requestedIds(categories);
+        return () -> new PhraseMatcher(requested, new CategoryScores(categoryNames, scoring));
+    }
+
+    /**
+     * Builds the bitset of index category ids for the given categories.
+     *
+     * @param categories List of categories to match against
+     * @return The bitset of requested category ids
+     */
+    private long[] requestedIds(List<Category> categories) {
+        long[] requested = new long[KeywordAutomaton.wordsFor(categoryNames.size())];
+        categories.stream()
+                  .map(category -> categoryIds.get(category.getName()))
+                  .filter(Objects::nonNull)
+                  .forEach(id -> requested[id >>> 6] |= 1L << id);
+        return requested;
+    }
+
+    /**
+     * Matches one page incrementally, keeping the hash of the current token and a ring of the last token hashes
+     * between chunks. A token at the very end of the page is matched when the result is read, on copies of the
+     * results, so reading them does not change the matcher and a page can be fed on afterwards without splitting a word.
+     * When scoring, every hit is added to the scores and the whole page is scanned.
+     */
+    private final class PhraseMatcher implements CategoryMatcher {
+        private final long[]         requested;
+        private final long[]         matched;
+        private final long[]         recent;
+        private final CategoryScores scores;
+        private       int            tokens;
+        private       long           token;
+        private       boolean        inToken;
+        private       int            previous;
+        private       boolean        complete;
+
+        /**
+         * @param requested The bitset of category ids to report
+         * @param scores    The scores to add hits to, or null to only report which categories matched
+         */
+        private PhraseMatcher(long[] requested, CategoryScores scores) {
+            this.requested = requested;
+            this.matched   = new long[requested.length];
+            this.recent    = new long[Math.max(1, index.getMaxTokens())];
+            this.scores    = scores;
+            this.token     = PhraseIndex.TOKEN_SEED;
+            this.previous  = TextNormalizer.SKIP;
+            this.complete  = scores == null && Arrays.equals(requested, matched);
+        }
+
+        @Override
+        public void feed(CharSequence chunk) {
+            for (int i = 0; i < chunk.length() && !complete; i++) {
+                int c = normalizer.next(chunk.charAt(i), previous);
+                if (c == TextNormalizer.SKIP) {
+                    continue;
+                }
+                previous = c;
+                if (PhraseIndex.isTokenChar(c)) {
+                    token   = PhraseIndex.extendToken(token, (char) c);
+                    inToken = true;
+                } else if (inToken) {
+                    endToken();
+                }
+            }
+        }
+
+        /**
+         * Looks up every phrase ending with the finished token and records it.
+         */
+        private void endToken() {
+            long last = PhraseIndex.finishToken(token);
+            complete = matchPhrases(last, matched, scores);
+            recent[tokens % recent.length] = last;
+            tokens++;
+            token   = PhraseIndex.TOKEN_SEED;
+            inToken = false;
+        }
+
+        /**
+         * Looks up every phrase ending with a token that follows the recorded ones, from one token up to the longest keyword.
+         *
+         * @param last    The hash of the token
+         * @param matched The bitset of matched category ids to update when not scoring
+         * @param sink    The scores to add hits to, or null to only report which categories matched
+         * @return true if every requested category has now been matched, false otherwise
+         */
+        private boolean matchPhrases(long last, long[] matched, CategoryScores sink) {
+            boolean done   = false;
+            long    phrase = 0;
+            int     length = Math.min(tokens + 1, index.getMaxTokens());
+            for (int n = 0; n < length && !done; n++) {
+                phrase += (n == 0 ? last : recent[(tokens - n) % recent.length]) * index.power(n);
+                int slot = index.find(phrase);
+                if (slot < 0) {
+                    continue;
+                }
+                if (sink != null) {
+                    index.collectScores(slot, requested, sink);
+                } else {
+                    done = index.collectOutputs(slot, requested, matched);
+                }
+            }
+            return done;
+        }
+
+        @Override
+        public boolean isComplete() {
+            return complete;
+        }
+
+        @Override
+        public boolean matchesWholeWords() {
+            return true;
+        }
+
+        @Override
+        public List<String> getMatchedCategories() {
+            if (scores != null) {
+                return withPendingToken().rankedNames();
+            }
+            long[] result = matched;
+            if (inToken && !complete) {
+                result = matched.clone();
+                matchPhrases(PhraseIndex.finishToken(token), result, null);
+            }
+            return new MatchedCategories(categoryNames, result);
+        }
+
+        @Override
+        public Optional<List<CategoryScore>> getScores() {
+            return scores == null ? Optional.empty() : Optional.of(withPendingToken().rank());
+        }
+
+        /**
+         * Returns the scores with the hits of the token being read, as if the page ended here.
+         */
+        private CategoryScores withPendingToken() {
+            if (!inToken) {
+                return scores;
+            }
+            CategoryScores pending = scores.copy();
+            matchPhrases(PhraseIndex.finishToken(token), null, pending);
+            return pending;
+        }
+    }
+}
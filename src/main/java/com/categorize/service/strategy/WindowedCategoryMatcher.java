@@ -0,0 +1,210 @@
+package com.categorize.service.strategy;
+
+import com.categorize.model.Category;
+import com.categorize.service.matcher.KeywordPrefilter;
+import com.categorize.service.matcher.TextNormalizer;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A CategoryMatcher for strategies that can only match whole strings.
+ * Each chunk is normalized into a reused window buffer in slices of at most {@link #FEED_CHARS} characters, and every
+ * slice is matched together with the tail of the previous one, the tail being one character shorter than the longest
+ * keyword, so keywords spanning a slice or chunk boundary are still found. The window therefore stays bounded however
+ * long the chunks are, and a page fed as one chunk is never copied whole.
+ * Categories are identified by their index in the list of names and tracked in a bitset;
+ * they are dropped from the search once they have matched.
+ * <p>
+ * With a {@link KeywordPrefilter}, a window is screened first and only the regions around positions where a keyword
+ * could start are handed to the window matcher, as views of the window rather than copies; a window without any
+ * candidate is not matched at all.
+ */
+public class WindowedCategoryMatcher implements CategoryMatcher {
+    /**
+     * The maximum number of normalized characters of a chunk matched at a time, besides the tail of the previous slice.
+     */
+    static final int FEED_CHARS = 1 << 14;
+
+    private final List<String>     names;
+    private final TextNormalizer   normalizer;
+    private final WindowMatcher    windowMatcher;
+    private final KeywordPrefilter prefilter;
+    private final long[]           matched;
+    private final long[]           all;
+    private final int              overlap;
+    private final StringBuilder    window;
+    private final Region           region;
+    private       int              previous;
+
+    /**
+     * Matches one window of text against the categories not matched so far.
+     */
+    @FunctionalInterface
+    public interface WindowMatcher {
+        /**
+         * Sets the bit of every category that occurs in the window and whose bit is not already set.
+         *
+         * @param window  The normalized text to match; only valid during the call
+         * @param matched The bitset of matched category ids, updated in place
+         */
+        void match(CharSequence window, long[] matched);
+    }
+
+    /**
+     * Constructs a windowed matcher.
+     *
+     * @param names         The names of the categories to match, indexed by id
+     * @param overlap       The overlap of the categories, as computed by {@link #overlapOf}
+     * @param normalizer    The normalizer the keywords were compiled with
+     * @param windowMatcher Matches a window of normalized text against the categories by id
+     */
+    public WindowedCategoryMatcher(List<String> names, int overlap, TextNormalizer normalizer, WindowMatcher windowMatcher) {
+        this(names, overlap, normalizer, windowMatcher, null);
+    }
+
+    /**
+     * Constructs a windowed matcher that screens every window with a prefilter.
+     *
+     * @param names         The names of the categories to match, indexed by id
+     * @param overlap       The overlap of the categories, as computed by {@link #overlapOf}
+     * @param normalizer    The normalizer the keywords were compiled with
+     * @param windowMatcher Matches a window of normalized text against the categories by id
+     * @param prefilter     The prefilter over the keywords of the categories, or null to match whole windows
+     */
+    public WindowedCategoryMatcher(List<String> names, int overlap, TextNormalizer normalizer, WindowMatcher windowMatcher,
+                                   KeywordPrefilter prefilter) {
+        this.names         = names;
+        this.normalizer    = normalizer;
+        this.windowMatcher = windowMatcher;
+        this.prefilter     = prefilter;
+        this.matched       = new long[MatchedCategories.wordsFor(names.size())];
+        this.all           = new long[matched.length];
+        this.overlap       = overlap;
+        this.window        = new StringBuilder();
+        this.region        = new Region(window);
+        this.previous      = TextNormalizer.SKIP;
+        for (int id = 0; id < names.size(); id++) {
+            all[id >>> 6] |= 1L << id;
+        }
+    }
+
+    /**
+     * Computes how many characters of a chunk must be carried over to the next one:
+     * one less than the length of the longest keyword. Normalization never lengthens a keyword,
+     * so this also bounds the normalized keywords.
+     *
+     * @param categories List of categories to match against
+     * @return The overlap in characters
+     */
+    public static int overlapOf(List<Category> categories) {
+        return categories.stream()
+                         .flatMap(category -> category.getKeywords().stream())
+                         .mapToInt(keyword -> keyword.getKeyword().length() - 1)
+                         .max()
+                         .orElse(0);
+    }
+
+    /**
+     * Checks whether the category with the given id is set in a bitset.
+     *
+     * @param bits The bitset
+     * @param id   The category id
+     * @return true if the bit is set
+     */
+    public static boolean isSet(long[] bits, int id) {
+        return (bits[id >>> 6] & (1L << id)) != 0;
+    }
+
+    @Override
+    public void feed(CharSequence chunk) {
+        if (isComplete()) {
+            return;
+        }
+        int carried = window.length();
+        for (int i = 0; i < chunk.length(); i++) {
+            int c = normalizer.next(chunk.charAt(i), previous);
+            if (c != TextNormalizer.SKIP) {
+                window.append((char) c);
+                previous = c;
+                if (window.length() - carried == FEED_CHARS) {
+                    carried = matchWindow();
+                    if (isComplete()) {
+                        return;
+                    }
+                }
+            }
+        }
+        if (window.length() > carried) {
+            matchWindow();
+        }
+    }
+
+    /**
+     * Matches the window and keeps its tail for the next slice.
+     *
+     * @return The length of the tail
+     */
+    private int matchWindow() {
+        if (prefilter == null) {
+            windowMatcher.match(window, matched);
+        } else {
+            prefilter.forEachCandidateRegion(window, (start, end) -> {
+                if (!isComplete()) {
+                    windowMatcher.match(region.of(start, end), matched);
+                }
+            });
+        }
+        window.delete(0, Math.max(0, window.length() - overlap));
+        return window.length();
+    }
+
+    @Override
+    public boolean isComplete() {
+        return Arrays.equals(matched, all);
+    }
+
+    @Override
+    public List<String> getMatchedCategories() {
+        return new MatchedCategories(names, matched);
+    }
+
+    /**
+     * A reusable view of a range of the window, valid until the window changes.
+     */
+    private static final class Region implements CharSequence {
+        private final StringBuilder text;
+        private       int           start;
+        private       int           end;
+
+        private Region(StringBuilder text) {
+            this.text = text;
+        }
+
+        private Region of(int start, int end) {
+            this.start = start;
+            this.end   = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return text.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return text.subSequence(start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return text.substring(start, end);
+        }
+    }
+}
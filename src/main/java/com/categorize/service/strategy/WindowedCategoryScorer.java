@@ -0,0 +1,101 @@
+package com.categorize.service.strategy;
+
+import com.categorize.dto.CategoryScore;
+import com.categorize.service.matcher.ScoreSink;
+import com.categorize.service.matcher.TextNormalizer;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A scoring CategoryMatcher for strategies that can only match whole strings.
+ * Like {@link WindowedCategoryMatcher}, each chunk is normalized into a reused window buffer in bounded slices, each
+ * after the tail of the previous one; only hits ending after the tail are counted, so a hit is counted in exactly
+ * one window.
+ * The whole page is always scanned.
+ */
+public class WindowedCategoryScorer implements CategoryMatcher {
+    private final TextNormalizer normalizer;
+    private final WindowScorer   windowScorer;
+    private final CategoryScores scores;
+    private final int            overlap;
+    private final StringBuilder  window;
+    private       int            previous;
+
+    /**
+     * Counts the keyword hits in one window of text.
+     */
+    @FunctionalInterface
+    public interface WindowScorer {
+        /**
+         * Adds the weight of every keyword hit that ends after the given offset of the window.
+         *
+         * @param window The normalized text to match; only valid during the call
+         * @param from   The length of the tail carried over from the previous window, whose hits are already counted
+         * @param sink   The sink receiving the weights by category id
+         */
+        void score(CharSequence window, int from, ScoreSink sink);
+    }
+
+    /**
+     * Constructs a windowed scorer.
+     *
+     * @param scores       The empty scores of the page
+     * @param overlap      The overlap of the categories, as computed by {@link WindowedCategoryMatcher#overlapOf}
+     * @param normalizer   The normalizer the keywords were compiled with
+     * @param windowScorer Counts the keyword hits in a window of normalized text by category id
+     */
+    public WindowedCategoryScorer(CategoryScores scores, int overlap, TextNormalizer normalizer, WindowScorer windowScorer) {
+        this.scores       = scores;
+        this.normalizer   = normalizer;
+        this.windowScorer = windowScorer;
+        this.overlap      = overlap;
+        this.window       = new StringBuilder();
+        this.previous     = TextNormalizer.SKIP;
+    }
+
+    @Override
+    public void feed(CharSequence chunk) {
+        int from = window.length();
+        for (int i = 0; i < chunk.length(); i++) {
+            int c = normalizer.next(chunk.charAt(i), previous);
+            if (c != TextNormalizer.SKIP) {
+                window.append((char) c);
+                previous = c;
+                if (window.length() - from == WindowedCategoryMatcher.FEED_CHARS) {
+                    from = scoreWindow(from);
+                }
+            }
+        }
+        if (window.length() > from) {
+            scoreWindow(from);
+        }
+    }
+
+    /**
+     * Scores the window and keeps its tail for the next slice.
+     *
+     * @param from The length of the tail carried over from the previous slice
+     * @return The length of the new tail
+     */
+    private int scoreWindow(int from) {
+        windowScorer.score(window, from, scores);
+        window.delete(0, Math.max(0, window.length() - overlap));
+        return window.length();
+    }
+
+    @Override
+    public boolean isComplete() {
+        return false;
+    }
+
+    @Override
+    public List<String> getMatchedCategories() {
+        return scores.rankedNames();
+    }
+
+    @Override
+    public Optional<List<CategoryScore>> getScores() {
+        return Optional.of(scores.rank());
+    }
+}
@@ -0,0 +1,96 @@
+package com.categorize.bulk;
+
+import com.categorize.model.WebPageContent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedRecordReaderTest {
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("archive", ".warc");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void testSplitsWarcRecordsAcrossWindows() throws IOException {
+        String archive = warcRecord("warcinfo", null, "application/warc-fields", "software: test\r\n")
+                         + warcRecord("resource", "http://example.com/a", "text/plain", "first page")
+                         + warcRecord("response", "http://example.com/b", "application/http; msgtype=response",
+                                      "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nTransfer-Encoding: chunked\r\n\r\n"
+                                      + "6\r\nsecond\r\n5\r\n page\r\n0\r\n\r\n");
+        Files.write(file, archive.getBytes(StandardCharsets.UTF_8));
+
+        // windows far smaller than a record force remapping at record starts and window growth
+        List<WebPageContent> pages = readAll(new WarcFormat(), 16);
+        assertEquals(2, pages.size());
+        assertEquals("http://example.com/a", pages.get(0).getUrl());
+        assertEquals("first page", pages.get(0).getContent());
+        assertEquals("http://example.com/b", pages.get(1).getUrl());
+        assertEquals("second page", pages.get(1).getContent());
+    }
+
+    @Test
+    void testRejectsTruncatedWarcRecord() throws IOException {
+        String record = warcRecord("resource", "http://example.com/a", "text/plain", "first page");
+        Files.write(file, record.substring(0, record.length() - 8).getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> readAll(new WarcFormat(), 1024));
+    }
+
+    @Test
+    void testSplitsJsonLines() throws IOException {
+        Files.write(file, "{\"a\":1}\n\n{\"b\":2}\r\n{\"c\":3}".getBytes(StandardCharsets.UTF_8));
+
+        List<String> records = new ArrayList<>();
+        try (MappedRecordReader reader = new MappedRecordReader(file, new JsonlFormat(), 5)) {
+            for (Optional<ByteBuffer> record = reader.next(); record.isPresent(); record = reader.next()) {
+                byte[] bytes = new byte[record.get().remaining()];
+                record.get().get(bytes);
+                records.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(3, records.size());
+        assertEquals("{\"a\":1}", records.get(0));
+        assertEquals("{\"c\":3}", records.get(2));
+    }
+
+    private List<WebPageContent> readAll(ArchiveFormat format, long windowBytes) throws IOException {
+        List<WebPageContent> pages = new ArrayList<>();
+        try (MappedRecordReader reader = new MappedRecordReader(file, format, windowBytes)) {
+            for (Optional<ByteBuffer> record = reader.next(); record.isPresent(); record = reader.next()) {
+                format.extract(record.get()).ifPresent(pages::add);
+            }
+        }
+        return pages;
+    }
+
+    private static String warcRecord(String type, String uri, String contentType, String block) {
+        int length = block.getBytes(StandardCharsets.UTF_8).length;
+        return "WARC/1.0\r\n"
+               + "WARC-Type: " + type + "\r\n"
+               + (uri == null ? "" : "WARC-Target-URI: " + uri + "\r\n")
+               + "Content-Type: " + contentType + "\r\n"
+               + "Content-Length: " + length + "\r\n"
+               + "\r\n"
+               + block
+               + "\r\n\r\n";
+    }
+}
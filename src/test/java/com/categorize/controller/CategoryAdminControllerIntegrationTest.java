@@ -0,0 +1,80 @@
+package com.categorize.controller;
+
+import com.categorize.dto.CategorizeResponse;
+import com.categorize.model.CategoryData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class CategoryAdminControllerIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private String baseUrl;
+
+    @BeforeEach
+    public void setUp() {
+        baseUrl = "http://localhost:" + port;
+    }
+
+    @Test
+    public void testAddUseAndDeleteCategory() {
+        CategoryData zoo = new CategoryData();
+        zoo.setKeywords(Arrays.asList("zebra", "giraffe"));
+
+        ResponseEntity<CategoryData> added = restTemplate.exchange(baseUrl + "/admin/categories/Zoo", HttpMethod.PUT,
+                                                                   new HttpEntity<>(zoo), CategoryData.class);
+        assertEquals(HttpStatus.CREATED, added.getStatusCode());
+        assertEquals("Zoo", added.getBody().getName());
+
+        // the new category is live as soon as the call returns
+        assertEquals(Collections.singletonList("Zoo"), categorize("a zebra crossing").getResults().get(0).getCategories());
+
+        zoo.setKeywords(Collections.singletonList("penguin"));
+        ResponseEntity<CategoryData> replaced = restTemplate.exchange(baseUrl + "/admin/categories/Zoo", HttpMethod.PUT,
+                                                                      new HttpEntity<>(zoo), CategoryData.class);
+        assertEquals(HttpStatus.OK, replaced.getStatusCode());
+        assertTrue(categorize("a zebra crossing").getResults().get(0).getCategories().isEmpty());
+
+        ResponseEntity<Void> deleted = restTemplate.exchange(baseUrl + "/admin/categories/Zoo", HttpMethod.DELETE, null, Void.class);
+        assertEquals(HttpStatus.NO_CONTENT, deleted.getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(baseUrl + "/admin/categories/Zoo", String.class).getStatusCode());
+    }
+
+    @Test
+    public void testRejectsCategoryWithoutKeywords() {
+        CategoryData empty = new CategoryData();
+        empty.setKeywords(Collections.emptyList());
+
+        ResponseEntity<String> response = restTemplate.exchange(baseUrl + "/admin/categories/Empty", HttpMethod.PUT,
+                                                                new HttpEntity<>(empty), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    private CategorizeResponse categorize(String content) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String pages = "[{\"url\": \"http://example.com\", \"content\": \"" + content + "\"}]";
+        return restTemplate.postForObject(baseUrl + "/categorize/content?categories=Zoo", new HttpEntity<>(pages, headers),
+                                          CategorizeResponse.class);
+    }
+}
@@ -2,18 +2,34 @@ package com.categorize.controller;
 
 import com.categorize.dto.CategorizeRequest;
 import com.categorize.dto.CategorizeResponse;
+import com.categorize.dto.FetchStatus;
 import com.categorize.dto.UrlCategoryResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,54 +42,164 @@ public class CategoryControllerIntegrationTest {
     @Autowired
     private TestRestTemplate restTemplate;
 
-    private String baseUrl;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String        baseUrl;
+    private MockWebServer pages;
 
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws IOException {
         baseUrl = "http://localhost:" + port + "/categorize";
+        pages   = new MockWebServer();
+        pages.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                switch (request.getPath()) {
+                    case "/droids":
+                        return page("<html><body><h1>Where is R2D2?</h1><p>A droid is hiding.</p></body></html>");
+                    case "/sport":
+                        return page("<html><body><h1>Sport</h1><p>The NBA finals start tonight.</p></body></html>");
+                    case "/weather":
+                        return page("<html><body><p>Sunny with a chance of rain.</p></body></html>");
+                    default:
+                        return new MockResponse().setResponseCode(404);
+                }
+            }
+        });
+        pages.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        pages.shutdown();
     }
 
     @Test
     public void testCategorizeUrls() {
-        // Prepare test data
-        List<String> categories = Arrays.asList("Star Wars", "Basketball");
-        List<String> urls = Arrays.asList(
-            "http://www.starwars.com",
-            "https://www.imdb.com/find?q=star+wars&ref_=nv_sr_sm",
-            "https://edition.cnn.com/sport"
-        );
+        List<String> urls = urls("/droids", "/sport", "/weather");
 
         CategorizeRequest request = new CategorizeRequest();
-        request.setCategories(categories);
+        request.setCategories(Arrays.asList("Star Wars", "Basketball"));
         request.setUrls(urls);
 
-        // Send request and get response
         ResponseEntity<CategorizeResponse> responseEntity = restTemplate.postForEntity(baseUrl, request, CategorizeResponse.class);
 
-        // Assert response status
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        List<UrlCategoryResult> results = responseEntity.getBody().getResults();
+        assertEquals(urls, results.stream().map(UrlCategoryResult::getUrl).collect(Collectors.toList()));
+        assertEquals(expected(urls), categoriesByUrl(results));
+    }
 
-        // Assert response body
-        CategorizeResponse response = responseEntity.getBody();
-        assertNotNull(response);
-        List<UrlCategoryResult> results = response.getResults();
-        assertNotNull(results);
-        // some urls may timeout, error, etc
-//        assertEquals(urls.size(), results.size());
+    @Test
+    public void testStreamCategorizedUrls() throws Exception {
+        List<String> urls = urls("/droids", "/sport", "/weather");
 
-        // Assert each result
-        for (UrlCategoryResult result : results) {
-            assertTrue(urls.contains(result.getUrl()));
-            assertNotNull(result.getCategories());
-            assertFalse(result.getCategories().isEmpty());
+        ResponseEntity<String> responseEntity = stream(urls, MediaType.APPLICATION_NDJSON);
 
-            if (result.getUrl().contains("starwars.com") || result.getUrl().contains("imdb.com")) {
-                assertTrue(result.getCategories().contains("Star Wars"));
-            }
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertTrue(MediaType.APPLICATION_NDJSON.isCompatibleWith(responseEntity.getHeaders().getContentType()));
+        String body = responseEntity.getBody();
+        // one JSON object per line, every line terminated, in completion order
+        assertTrue(body.endsWith("\n"));
+        List<UrlCategoryResult> results = new ArrayList<>();
+        for (String line : body.substring(0, body.length() - 1).split("\n", -1)) {
+            results.add(objectMapper.readValue(line, UrlCategoryResult.class));
+        }
+        assertEquals(expected(urls), categoriesByUrl(results));
+    }
 
-            if (result.getUrl().contains("cnn.com/sport")) {
-                assertTrue(result.getCategories().contains("Basketball"));
-            }
+    @Test
+    public void testStreamCategorizedUrlsAsEvents() throws Exception {
+        List<String> urls = urls("/droids", "/sport", "/weather");
+
+        ResponseEntity<String> responseEntity = stream(urls, MediaType.TEXT_EVENT_STREAM);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertTrue(MediaType.TEXT_EVENT_STREAM.isCompatibleWith(responseEntity.getHeaders().getContentType()));
+        String body = responseEntity.getBody();
+        // one "result" event per url, each a single data line terminated by a blank line
+        assertTrue(body.endsWith("\n\n"));
+        List<UrlCategoryResult> results = new ArrayList<>();
+        for (String event : body.substring(0, body.length() - 2).split("\n\n", -1)) {
+            String[] fields = event.split("\n", -1);
+            assertEquals(2, fields.length, event);
+            assertEquals("event:result", fields[0]);
+            assertTrue(fields[1].startsWith("data:"), event);
+            results.add(objectMapper.readValue(fields[1].substring("data:".length()), UrlCategoryResult.class));
+        }
+        assertEquals(expected(urls), categoriesByUrl(results));
+    }
+
+    @Test
+    public void testCategorizeContent() {
+        String pages = "[" +
+            "{\"url\": \"http://example.com/droids\", \"content\": \"where is r2d2 hiding\"}," +
+            "{\"url\": \"http://example.com/finals\", \"html\": \"<html><body><p>the nba finals</p></body></html>\"}," +
+            "{\"url\": \"http://example.com/empty\", \"content\": \"nothing to see\"}" +
+            "]";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        ResponseEntity<CategorizeResponse> responseEntity = restTemplate.postForEntity(
+            baseUrl + "/content?categories={first}&categories={second}", new HttpEntity<>(pages, headers),
+            CategorizeResponse.class, "Star Wars", "Basketball");
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        List<UrlCategoryResult> results = responseEntity.getBody().getResults();
+        assertEquals(3, results.size());
+        assertEquals("http://example.com/droids", results.get(0).getUrl());
+        assertEquals(Collections.singletonList("Star Wars"), results.get(0).getCategories());
+        assertEquals(Collections.singletonList("Basketball"), results.get(1).getCategories());
+        assertTrue(results.get(2).getCategories().isEmpty());
+    }
+
+    @Test
+    public void testCategorizeContentRejectsMalformedBody() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        ResponseEntity<String> responseEntity = restTemplate.postForEntity(
+            baseUrl + "/content?categories=Basketball", new HttpEntity<>("[{\"url\": \"http://example.com\"}]", headers), String.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+    }
+
+    private List<String> urls(String... paths) {
+        return Arrays.stream(paths).map(path -> pages.url(path).toString()).collect(Collectors.toList());
+    }
+
+    private ResponseEntity<String> stream(List<String> urls, MediaType accept) {
+        CategorizeRequest request = new CategorizeRequest();
+        request.setCategories(Arrays.asList("Star Wars", "Basketball"));
+        request.setUrls(urls);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(accept));
+        return restTemplate.postForEntity(baseUrl + "/stream", new HttpEntity<>(request, headers), String.class);
+    }
+
+    /**
+     * Returns the categories expected for the pages of the given URLs: /droids, /sport and /weather.
+     */
+    private static Map<String, List<String>> expected(List<String> urls) {
+        Map<String, List<String>> expected = new HashMap<>();
+        expected.put(urls.get(0), Collections.singletonList("Star Wars"));
+        expected.put(urls.get(1), Collections.singletonList("Basketball"));
+        expected.put(urls.get(2), Collections.emptyList());
+        return expected;
+    }
+
+    private static Map<String, List<String>> categoriesByUrl(List<UrlCategoryResult> results) {
+        Map<String, List<String>> categories = new HashMap<>();
+        for (UrlCategoryResult result : results) {
+            assertEquals(FetchStatus.OK, result.getStatus(), result.getUrl());
+            assertNull(categories.put(result.getUrl(), result.getCategories()), result.getUrl());
         }
+        return categories;
+    }
+
+    private static MockResponse page(String html) {
+        return new MockResponse().setHeader("Content-Type", "text/html; charset=UTF-8").setBody(html);
     }
 }
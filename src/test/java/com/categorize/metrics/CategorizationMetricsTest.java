@@ -0,0 +1,61 @@
+package com.categorize.metrics;
+
+import com.categorize.service.strategy.CategoryMatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CategorizationMetricsTest {
+
+    private MeterRegistry         registry;
+    private CategorizationMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics  = new CategorizationMetrics(registry, 2);
+    }
+
+    @Test
+    void testTagsOnlyTheFirstHosts() {
+        assertEquals("a.example", metrics.hostTagOfUrl("https://a.example/page"));
+        assertEquals("b.example", metrics.hostTagOfUrl("http://b.example:8080/"));
+        assertEquals(CategorizationMetrics.OTHER_HOST, metrics.hostTagOfUrl("https://c.example/"));
+        assertEquals("a.example", metrics.hostTagOfUrl("https://a.example/other"));
+        assertEquals(CategorizationMetrics.OTHER_HOST, metrics.hostTagOfUrl("not a url"));
+    }
+
+    @Test
+    void testTimedMatcherRecordsOncePerPage() {
+        CategoryMatcher matcher = metrics.timed(() -> new CategoryMatcher() {
+            @Override
+            public void feed(CharSequence chunk) {
+            }
+
+            @Override
+            public boolean isComplete() {
+                return false;
+            }
+
+            @Override
+            public List<String> getMatchedCategories() {
+                return Collections.singletonList("Sports");
+            }
+        }, "TestStrategy").get();
+        matcher.feed("one");
+        matcher.feed("two");
+
+        assertEquals(Collections.singletonList("Sports"), matcher.getMatchedCategories());
+        matcher.getScores();
+
+        Timer timer = registry.get("categorize.page.match").tag("strategy", "TestStrategy").timer();
+        assertEquals(1, timer.count());
+    }
+}
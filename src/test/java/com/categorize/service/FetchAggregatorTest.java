@@ -0,0 +1,99 @@
+package com.categorize.service;
+
+import com.categorize.dto.FetchStatus;
+import com.categorize.metrics.CategorizationMetrics;
+import com.categorize.service.fetch.PageFetcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FetchAggregatorTest {
+
+    private static final PageFetcher UNLIMITED = (url, headers) -> {
+        throw new UnsupportedOperationException();
+    };
+
+    private ExecutorService          executor;
+    private ScheduledExecutorService scheduler;
+    private FetchAggregator          aggregator;
+
+    @BeforeEach
+    void setUp() {
+        executor   = Executors.newCachedThreadPool();
+        scheduler  = Executors.newSingleThreadScheduledExecutor();
+        aggregator = new FetchAggregator(executor, scheduler, UNLIMITED, new CategorizationMetrics());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testReportsStatusPerUrlInOrder() {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        List<String> urls = Arrays.asList("ok", "slow", "error", "large");
+
+        List<FetchResult<String>> results = FetchAggregator.allOf(aggregator.submitAll(urls, url -> {
+            switch (url) {
+                case "slow":
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                    return url;
+                case "error":
+                    throw new IOException("boom");
+                case "large":
+                    throw new ContentTooLargeException(url, 1);
+                default:
+                    return url;
+            }
+        }, 200)).join();
+
+        assertEquals(FetchStatus.OK, results.get(0).getStatus());
+        assertEquals("ok", results.get(0).getValue());
+        assertEquals(FetchStatus.TIMEOUT, results.get(1).getStatus());
+        assertEquals(FetchStatus.ERROR, results.get(2).getStatus());
+        assertEquals(FetchStatus.TOO_LARGE, results.get(3).getStatus());
+        assertTrue(await(interrupted), "late fetch should be interrupted");
+    }
+
+    @Test
+    void testCompletesAsSoonAsLastTaskFinishes() {
+        long start = System.nanoTime();
+        List<FetchResult<String>> results = FetchAggregator.allOf(aggregator.submitAll(Arrays.asList("a", "b"), url -> url, 10_000)).join();
+
+        assertEquals(2, results.size());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5_000);
+    }
+
+    @Test
+    void testReportsRejectedTasksAsErrors() {
+        executor.shutdown();
+        List<FetchResult<String>> results = FetchAggregator.allOf(aggregator.submitAll(Arrays.asList("a", "b"), url -> url, 10_000)).join();
+
+        assertEquals(FetchStatus.ERROR, results.get(0).getStatus());
+        assertEquals(FetchStatus.ERROR, results.get(1).getStatus());
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
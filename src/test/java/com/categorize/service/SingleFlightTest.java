@@ -0,0 +1,71 @@
+package com.categorize.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger  loads   = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("url", () -> {
+            loads.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "text";
+        }));
+        started.await();
+        Future<String> follower = executor.submit(() -> singleFlight.execute("url", () -> {
+            loads.incrementAndGet();
+            return "other";
+        }));
+        Thread.sleep(50);
+        assertFalse(follower.isDone());
+        release.countDown();
+
+        assertEquals("text", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("text", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testFailureIsNotRemembered() throws IOException {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        assertThrows(IOException.class, () -> singleFlight.execute("url", () -> {
+            throw new IOException("down");
+        }));
+        assertEquals("text", singleFlight.execute("url", () -> "text"));
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+}
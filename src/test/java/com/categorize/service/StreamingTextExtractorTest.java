@@ -0,0 +1,64 @@
+package com.categorize.service;
+
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+import com.categorize.service.strategy.AhoCorasickCategorizationStrategy;
+import com.categorize.service.strategy.CategoryMatcher;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingTextExtractorTest {
+
+    @Test
+    void testKeepsDocumentOrderAcrossInlineMarkup() {
+        assertEquals("Star Wars movie", text("<p>Star <b>Wars</b> movie</p>"));
+        assertEquals("Star Wars saga", text("<div><span>St<i>ar</i></span> <a href=\"/w\">Wars</a> saga</div>"));
+    }
+
+    @Test
+    void testKeepsDocumentOrderAroundNestedBlocks() {
+        assertEquals("before first between second after",
+                     text("<div>before <p>first</p> between <ul><li>second</li></ul> after</div>"));
+        assertEquals("Title Heading body text", text("<html><head><title>Title</title></head>"
+                                                     + "<body><h1>Heading</h1>body <em>text</em></body></html>"));
+    }
+
+    @Test
+    void testMatchesKeywordsSpanningInlineMarkup() {
+        Category starWars = new Category("Star Wars");
+        starWars.addKeyword(new CategoryKeyword("star wars"));
+        List<Category> categories = Collections.singletonList(starWars);
+
+        CategoryMatcher matcher = new AhoCorasickCategorizationStrategy(categories).newMatcher(categories);
+        extract("<html><body><p>A new <b>Star</b> <i>Wars</i> movie</p></body></html>", matcher::feed);
+        assertEquals(Collections.singletonList("Star Wars"), matcher.getMatchedCategories());
+    }
+
+    private static String text(String html) {
+        List<String> chunks = new ArrayList<>();
+        extract(html, chunks::add);
+        return String.join("", chunks).trim().replaceAll("\\s+", " ");
+    }
+
+    private static void extract(String html, Consumer<String> sink) {
+        StreamingTextExtractor extractor = new StreamingTextExtractor(sink);
+        try (StreamParser streamParser = new StreamParser(Parser.htmlParser()).parse(new StringReader(html), "")) {
+            Iterator<Element> elements = streamParser.iterator();
+            while (elements.hasNext()) {
+                extractor.closed(elements.next());
+            }
+            extractor.finish(streamParser.document());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.categorize.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UrlCanonicalizerTest {
+
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer(true, new String[]{"utm_*", "gclid"});
+
+    @Test
+    void testNormalizesSchemeHostPortAndFragment() {
+        assertEquals("https://example.com/", canonicalizer.canonicalize(" HTTPS://Example.COM:443#top "));
+        assertEquals("http://example.com:8080/Path", canonicalizer.canonicalize("http://example.com:8080/Path"));
+    }
+
+    @Test
+    void testDropsTrackingParameters() {
+        assertEquals("https://example.com/a?id=7",
+                     canonicalizer.canonicalize("https://example.com/a?utm_source=x&id=7&gclid=abc"));
+        assertEquals("https://example.com/a", canonicalizer.canonicalize("https://example.com/a?utm_medium=y"));
+    }
+
+    @Test
+    void testKeepsTrackingParametersWhenDisabled() {
+        UrlCanonicalizer keeping = new UrlCanonicalizer(false, new String[]{"utm_*"});
+        assertEquals("https://example.com/a?utm_source=x", keeping.canonicalize("https://example.com/a?utm_source=x"));
+    }
+
+    @Test
+    void testLeavesUnparseableUrlsUnchanged() {
+        assertEquals("not a url", canonicalizer.canonicalize(" not a url "));
+    }
+}
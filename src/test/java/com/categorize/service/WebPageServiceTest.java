@@ -0,0 +1,204 @@
+package com.categorize.service;
+
+import com.categorize.concurrent.WorkScheduler;
+import com.categorize.dto.UrlCategoryResult;
+import com.categorize.metrics.CategorizationMetrics;
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+import com.categorize.model.WebPageContent;
+import com.categorize.service.cache.WebPageCache;
+import com.categorize.service.fetch.PageResponse;
+import com.categorize.service.strategy.AhoCorasickCategorizationStrategy;
+import com.categorize.service.strategy.CategoryMatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebPageServiceTest {
+
+    private static final List<String> URLS = Collections.singletonList("http://example.com/page");
+
+    private WorkScheduler  workScheduler;
+    private WebPageService webPageService;
+    private AtomicInteger  fetches;
+    private CountDownLatch release;
+    private String         html;
+    private Set<String>    feedThreads;
+
+    @BeforeEach
+    void setUp() {
+        StringBuilder page = new StringBuilder("<html><body><p>A new Star Wars movie</p>");
+        for (int i = 0; i < 200; i++) {
+            page.append("<p>the basketball season goes on</p>");
+        }
+        html          = page.append("<p>the last headline</p></body></html>").toString();
+        fetches        = new AtomicInteger();
+        feedThreads    = ConcurrentHashMap.newKeySet();
+        release        = new CountDownLatch(0);
+        workScheduler  = new WorkScheduler(4, 100, false, 1, 100, 1000);
+        webPageService = newWebPageService(true);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        workScheduler.destroy();
+    }
+
+    @Test
+    void testStopsParsingEarlyWithTheCacheEnabled() {
+        AtomicInteger fed = new AtomicInteger();
+
+        List<UrlCategoryResult> results = webPageService.categorizeWebPages(URLS, matchers(fed, "Star Wars", "star wars")).join();
+
+        assertEquals(Collections.singletonList("Star Wars"), results.get(0).getCategories());
+        assertTrue(fed.get() < html.length() / 10, "fed " + fed.get() + " characters");
+        // the text of a page whose parsing stopped early is incomplete, so it is not cached
+        webPageService.categorizeWebPages(URLS, matchers(fed, "Star Wars", "star wars")).join();
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void testCachesPagesParsedToTheEnd() {
+        AtomicInteger fed = new AtomicInteger();
+
+        List<UrlCategoryResult> first  = webPageService.categorizeWebPages(URLS, matchers(fed, "Sports", "football")).join();
+        List<UrlCategoryResult> second = webPageService.categorizeWebPages(URLS, matchers(fed, "Star Wars", "star wars")).join();
+
+        assertEquals(Collections.emptyList(), first.get(0).getCategories());
+        assertEquals(Collections.singletonList("Star Wars"), second.get(0).getCategories());
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void testMatchesCachedPagesOnTheCpuPool() {
+        AtomicInteger fed = new AtomicInteger();
+        webPageService.categorizeWebPages(URLS, matchers(fed, "Sports", "football")).join();
+        assertTrue(feedThreads.stream().allMatch(thread -> thread.startsWith("fetch-")), feedThreads.toString());
+        feedThreads.clear();
+
+        List<UrlCategoryResult> results = webPageService.categorizeWebPages(URLS, matchers(fed, "Star Wars", "star wars")).join();
+
+        assertEquals(Collections.singletonList("Star Wars"), results.get(0).getCategories());
+        assertEquals(Collections.singleton("categorize-1"), feedThreads);
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void testConcurrentContentFetchesShareOneDownloadWithoutTheCache() throws Exception {
+        webPageService = newWebPageService(false);
+        release        = new CountDownLatch(1);
+
+        CompletableFuture<List<WebPageContent>> first = webPageService.getWebPagesContent(URLS);
+        while (fetches.get() == 0) {
+            Thread.sleep(5);
+        }
+        CompletableFuture<List<WebPageContent>> second = webPageService.getWebPagesContent(URLS);
+        Thread.sleep(50);
+        release.countDown();
+
+        assertEquals(first.get(5, TimeUnit.SECONDS).get(0).getContent(), second.get(5, TimeUnit.SECONDS).get(0).getContent());
+        assertTrue(first.get().get(0).getContent().contains("the last headline"));
+        assertEquals(1, fetches.get());
+    }
+
+    private WebPageService newWebPageService(boolean cacheEnabled) {
+        return new WebPageService(5000, 10 * 1024 * 1024, workScheduler,
+                                  new WebPageCache(cacheEnabled, 1 << 20, 60_000, 60_000, false),
+                                  new UrlCanonicalizer(false, new String[0]),
+                                  (url, headers) -> {
+                                      fetches.incrementAndGet();
+                                      try {
+                                          release.await();
+                                      } catch (InterruptedException e) {
+                                          throw new InterruptedIOException();
+                                      }
+                                      return new HtmlResponse(html);
+                                  },
+                                  new CategorizationMetrics());
+    }
+
+    private Supplier<CategoryMatcher> matchers(AtomicInteger fed, String name, String keyword) {
+        Category category = new Category(name);
+        category.addKeyword(new CategoryKeyword(keyword));
+        List<Category>            categories = Arrays.asList(category);
+        Supplier<CategoryMatcher> prepared   = new AhoCorasickCategorizationStrategy(categories).prepare(categories);
+        return () -> {
+            CategoryMatcher matcher = prepared.get();
+            return new CategoryMatcher() {
+                @Override
+                public void feed(CharSequence chunk) {
+                    fed.addAndGet(chunk.length());
+                    feedThreads.add(Thread.currentThread().getName());
+                    matcher.feed(chunk);
+                }
+
+                @Override
+                public boolean isComplete() {
+                    return matcher.isComplete();
+                }
+
+                @Override
+                public List<String> getMatchedCategories() {
+                    return matcher.getMatchedCategories();
+                }
+            };
+        };
+    }
+
+    /**
+     * A successful HTML response with a body held in memory.
+     */
+    private static final class HtmlResponse implements PageResponse {
+        private final byte[] body;
+
+        private HtmlResponse(String html) {
+            this.body = html.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int getStatusCode() {
+            return 200;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return null;
+        }
+
+        @Override
+        public String getContentType() {
+            return "text/html";
+        }
+
+        @Override
+        public String getCharset() {
+            return "UTF-8";
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.categorize.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedPageTest {
+
+    private static final String TEXT = String.join(" ", Collections.nCopies(200, "basketball star wars äöü"));
+
+    @Test
+    void testCompressedRoundTrip() {
+        CachedPage compressed = CachedPage.of(TEXT, "\"v1\"", null, true, 0);
+        CachedPage plain      = CachedPage.of(TEXT, "\"v1\"", null, false, 0);
+
+        assertEquals(TEXT, compressed.getText());
+        assertEquals(TEXT, plain.getText());
+        assertTrue(compressed.getWeight() < plain.getWeight());
+    }
+
+    @Test
+    void testFreshnessAndRevalidation() {
+        CachedPage page = CachedPage.of(TEXT, null, "Wed, 21 Oct 2015 07:28:00 GMT", true, 1_000);
+
+        assertTrue(page.isFresh(1_500, 1_000));
+        assertFalse(page.isFresh(2_500, 1_000));
+        assertTrue(page.isRevalidatable());
+        assertTrue(page.revalidated(2_500).isFresh(3_000, 1_000));
+        assertFalse(CachedPage.of(TEXT, null, null, true, 0).isRevalidatable());
+    }
+}
@@ -0,0 +1,162 @@
+package com.categorize.service.fetch;
+
+import com.categorize.metrics.CategorizationMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OkHttpPageFetcherTest {
+
+    private MockWebServer     server;
+    private MeterRegistry     registry;
+    private OkHttpPageFetcher fetcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server   = new MockWebServer();
+        server.start();
+        registry = new SimpleMeterRegistry();
+        fetcher  = new OkHttpPageFetcher(5000, false, 4, 60000, 2, 60000, "", new CategorizationMetrics(registry, 10));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        fetcher.destroy();
+        server.shutdown();
+    }
+
+    @Test
+    void testReusesConnections() throws Exception {
+        server.enqueue(new MockResponse().setBody("<p>one</p>").setHeader("Content-Type", "text/html; charset=ISO-8859-1"));
+        server.enqueue(new MockResponse().setBody("<p>two</p>"));
+
+        try (PageResponse response = fetcher.fetch(server.url("/one").toString(), Collections.emptyMap())) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals("text/html", response.getContentType());
+            assertEquals("ISO-8859-1", response.getCharset());
+            while (response.getBody().read() != -1) {
+                // drain the body so the connection returns to the pool
+            }
+        }
+        fetcher.fetch(server.url("/two").toString(), Collections.emptyMap()).close();
+
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    void testRecordsFetchStagesByHost() throws Exception {
+        server.enqueue(new MockResponse().setBody("<p>one</p>"));
+        fetcher.fetch(server.url("/").toString(), Collections.emptyMap()).close();
+
+        String host = server.url("/").host();
+        assertEquals(1, registry.get("categorize.fetch.connect").tag("host", host).timer().count());
+        assertEquals(1, registry.get("categorize.fetch.response").tag("host", host).timer().count());
+    }
+
+    @Test
+    void testSendsHeadersAndReturnsNotModified() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        try (PageResponse response = fetcher.fetch(server.url("/").toString(), Collections.singletonMap("If-None-Match", "\"v1\""))) {
+            assertEquals(304, response.getStatusCode());
+        }
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    void testFailsOnErrorStatus() {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        assertThrows(IOException.class, () -> fetcher.fetch(server.url("/").toString(), Collections.emptyMap()));
+    }
+
+    @Test
+    void testLimitsConcurrentFetchesPerHost() throws Exception {
+        AtomicInteger active    = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                Thread.sleep(50);
+                active.decrementAndGet();
+                return new MockResponse().setBody("ok");
+            }
+        });
+
+        AtomicInteger      running    = new AtomicInteger();
+        AtomicInteger      maxRunning = new AtomicInteger();
+        ThreadPoolExecutor executor   = new ThreadPoolExecutor(6, 6, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        try {
+            List<FutureTask<Integer>> fetches = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                FutureTask<Integer> fetch = new FutureTask<>(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try (PageResponse response = fetcher.fetch(server.url("/").toString(), Collections.emptyMap())) {
+                        return response.getStatusCode();
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                });
+                fetcher.execute(server.url("/").toString(), fetch, executor);
+                fetches.add(fetch);
+            }
+            // the tasks beyond the limit wait in the fetcher, not on a thread of the executor
+            assertTrue(executor.getQueue().size() + executor.getActiveCount() <= 2, "Queued tasks must not reach the executor");
+            for (FutureTask<Integer> fetch : fetches) {
+                assertEquals(200, (int) fetch.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(maxActive.get() <= 2, "At most 2 concurrent fetches per host, saw " + maxActive.get());
+        assertTrue(maxRunning.get() <= 2, "At most 2 running tasks per host, saw " + maxRunning.get());
+    }
+
+    @Test
+    void testDropsTasksCancelledWhileWaiting() throws Exception {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                Thread.sleep(50);
+                return new MockResponse().setBody("ok");
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            AtomicInteger             started = new AtomicInteger();
+            List<FutureTask<Integer>> fetches = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                FutureTask<Integer> fetch = new FutureTask<>(() -> {
+                    started.incrementAndGet();
+                    try (PageResponse response = fetcher.fetch(server.url("/").toString(), Collections.emptyMap())) {
+                        return response.getStatusCode();
+                    }
+                });
+                fetcher.execute(server.url("/").toString(), fetch, executor);
+                fetches.add(fetch);
+            }
+            fetches.get(2).cancel(false);
+            assertEquals(200, (int) fetches.get(3).get(10, TimeUnit.SECONDS));
+            assertEquals(3, started.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
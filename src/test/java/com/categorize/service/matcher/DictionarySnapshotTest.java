@@ -0,0 +1,143 @@
+package com.categorize.service.matcher;
+
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+import com.categorize.service.strategy.AhoCorasickCategorizationStrategy;
+import com.categorize.service.strategy.CategoryMatcher;
+import com.categorize.service.strategy.WholeWordCategorizationStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictionarySnapshotTest {
+
+    private static final long SOURCE = DictionarySnapshot.checksum("[categories]".getBytes(StandardCharsets.UTF_8));
+
+    private List<Category> categories;
+    private Path           directory;
+    private Path           file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Category technology = new Category("Technology");
+        technology.addKeyword(new CategoryKeyword("Computer", 2.5));
+        technology.addKeyword(new CategoryKeyword("software"));
+
+        Category sports = new Category("Sports");
+        sports.addKeyword(new CategoryKeyword("football"));
+        sports.addKeyword(new CategoryKeyword("Caf\u00e9 au lait"));
+
+        categories = Arrays.asList(technology, sports);
+        directory  = Files.createTempDirectory("snapshot");
+        file       = directory.resolve("categories.snapshot");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void testRoundTripsCategoriesAndTables() throws IOException {
+        DictionarySnapshot.write(file, categories, TextNormalizer.DEFAULT, SOURCE);
+        DictionarySnapshot snapshot = DictionarySnapshot.load(file, TextNormalizer.DEFAULT, SOURCE);
+
+        assertEquals(2, snapshot.getCategories().size());
+        Category technology = snapshot.getCategories().get(0);
+        assertEquals("Technology", technology.getName());
+        assertEquals("computer", technology.getKeywords().get(0).getKeyword());
+        assertEquals(2.5, technology.getKeywords().get(0).getWeight());
+        assertEquals("caf\u00e9 au lait", snapshot.getCategories().get(1).getKeywords().get(1).getKeyword());
+
+        KeywordAutomaton built = KeywordAutomaton.build(categories, TextNormalizer.DEFAULT);
+        assertEquals(built.getStateCount(), snapshot.getAutomaton().getStateCount());
+        assertEquals(PhraseIndex.build(categories, TextNormalizer.DEFAULT).getPhraseCount(), snapshot.getPhraseIndex().getPhraseCount());
+
+        String page = "Buy a COMPUTER and a caf\u00e9 au lait";
+        assertEquals(Arrays.asList("Technology", "Sports"),
+                     match(new AhoCorasickCategorizationStrategy(snapshot.getCategories(), snapshot.getAutomaton(),
+                                                                 ForkJoinPool.commonPool(), TextNormalizer.DEFAULT).newMatcher(categories), page));
+        assertEquals(Collections.singletonList("Sports"),
+                     match(new WholeWordCategorizationStrategy(snapshot.getCategories(), snapshot.getPhraseIndex(),
+                                                               ForkJoinPool.commonPool(), TextNormalizer.DEFAULT).newMatcher(categories),
+                           "supercomputer and caf\u00e9 au lait"));
+    }
+
+    @Test
+    void testReadsTablesFromTheMappedFile() throws IOException {
+        DictionarySnapshot.write(file, categories, TextNormalizer.DEFAULT, SOURCE);
+        DictionarySnapshot snapshot = DictionarySnapshot.load(file, TextNormalizer.DEFAULT, SOURCE);
+
+        assertTrue(snapshot.getAutomaton().getFootprintBytes() < KeywordAutomaton.build(categories, TextNormalizer.DEFAULT).getFootprintBytes() / 4);
+        assertTrue(snapshot.getPhraseIndex().getFootprintBytes() < PhraseIndex.build(categories, TextNormalizer.DEFAULT).getFootprintBytes() / 2);
+        // a process keeps its mapping when the snapshot is replaced
+        DictionarySnapshot.write(file, categories.subList(0, 1), TextNormalizer.DEFAULT, SOURCE + 1);
+        assertEquals(Arrays.asList("Technology", "Sports"),
+                     match(new AhoCorasickCategorizationStrategy(snapshot.getCategories(), snapshot.getAutomaton(),
+                                                                 ForkJoinPool.commonPool(), TextNormalizer.DEFAULT).newMatcher(categories),
+                           "software and football"));
+    }
+
+    @Test
+    void testRejectsSnapshotOfOtherCategories() throws IOException {
+        DictionarySnapshot.write(file, categories, TextNormalizer.DEFAULT, SOURCE);
+        assertThrows(IOException.class, () -> DictionarySnapshot.load(file, TextNormalizer.DEFAULT, SOURCE + 1));
+    }
+
+    @Test
+    void testRejectsSnapshotWithOtherNormalization() throws IOException {
+        DictionarySnapshot.write(file, categories, TextNormalizer.DEFAULT, SOURCE);
+        assertThrows(IOException.class, () -> DictionarySnapshot.load(file, new TextNormalizer(true, true), SOURCE));
+    }
+
+    @Test
+    void testRejectsCorruptSnapshot() throws IOException {
+        DictionarySnapshot.write(file, categories, TextNormalizer.DEFAULT, SOURCE);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 3] ^= 0x10;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> DictionarySnapshot.load(file, TextNormalizer.DEFAULT, SOURCE));
+    }
+
+    @Test
+    void testRejectsTruncatedSnapshot() throws IOException {
+        DictionarySnapshot.write(file, categories, TextNormalizer.DEFAULT, SOURCE);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+        assertThrows(IOException.class, () -> DictionarySnapshot.load(file, TextNormalizer.DEFAULT, SOURCE));
+    }
+
+    @Test
+    void testRejectsOtherFiles() throws IOException {
+        Files.write(file, "{\"categories\": []}".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> DictionarySnapshot.load(file, TextNormalizer.DEFAULT, SOURCE));
+    }
+
+    @Test
+    void testReplacesAnExistingSnapshot() throws IOException {
+        DictionarySnapshot.write(file, categories, TextNormalizer.DEFAULT, SOURCE);
+        DictionarySnapshot.write(file, categories.subList(0, 1), TextNormalizer.DEFAULT, SOURCE + 1);
+        assertEquals(1, DictionarySnapshot.load(file, TextNormalizer.DEFAULT, SOURCE + 1).getCategories().size());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    private static List<String> match(CategoryMatcher matcher, String page) {
+        matcher.feed(page);
+        return matcher.getMatchedCategories();
+    }
+}
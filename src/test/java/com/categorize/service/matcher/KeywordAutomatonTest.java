@@ -0,0 +1,70 @@
+package com.categorize.service.matcher;
+
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordAutomatonTest {
+
+    private KeywordAutomaton automaton;
+
+    @BeforeEach
+    void setUp() {
+        Category technology = new Category("Technology");
+        technology.addKeyword(new CategoryKeyword("computer"));
+        technology.addKeyword(new CategoryKeyword("software"));
+
+        Category sports = new Category("Sports");
+        sports.addKeyword(new CategoryKeyword("football"));
+        sports.addKeyword(new CategoryKeyword("ball"));
+
+        automaton = KeywordAutomaton.build(Arrays.asList(technology, sports));
+    }
+
+    @Test
+    void testSharedPrefixesAndSuffixes() {
+        long[] requested = {0b11L};
+        long[] matched   = new long[1];
+        assertFalse(scan("a football match", requested, matched));
+        assertEquals(0b10L, matched[0]);
+    }
+
+    @Test
+    void testStopsWhenAllRequestedCategoriesMatched() {
+        long[] requested = {0b11L};
+        long[] matched   = new long[1];
+        assertTrue(scan("software and basketball", requested, matched));
+        assertEquals(0b11L, matched[0]);
+    }
+
+    @Test
+    void testIgnoresCategoriesNotRequested() {
+        long[] requested = {0b01L};
+        long[] matched   = new long[1];
+        scan("basketball", requested, matched);
+        assertEquals(0L, matched[0]);
+    }
+
+    @Test
+    void testFootprint() {
+        // root + "computer" + "software" + "football" + "ball"
+        assertEquals(1 + 8 + 8 + 8 + 4, automaton.getStateCount());
+        assertTrue(automaton.getFootprintBytes() > 0);
+    }
+
+    private boolean scan(String text, long[] requested, long[] matched) {
+        int state = KeywordAutomaton.ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = automaton.next(state, text.charAt(i));
+            if (automaton.hasOutputs(state) && automaton.collectOutputs(state, requested, matched)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
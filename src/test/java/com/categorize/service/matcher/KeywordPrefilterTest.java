@@ -0,0 +1,115 @@
+package com.categorize.service.matcher;
+
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+import com.categorize.service.strategy.CategoryMatcher;
+import com.categorize.service.strategy.NaiveCategorizationStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordPrefilterTest {
+
+    private List<Category> categories;
+
+    @BeforeEach
+    void setUp() {
+        Category technology = new Category("Technology");
+        technology.addKeyword(new CategoryKeyword("Computer"));
+        technology.addKeyword(new CategoryKeyword("software"));
+
+        Category sports = new Category("Sports");
+        sports.addKeyword(new CategoryKeyword("football"));
+        sports.addKeyword(new CategoryKeyword("ball"));
+
+        categories = Arrays.asList(technology, sports);
+    }
+
+    @Test
+    void testReportsRegionsAroundKeywords() {
+        KeywordPrefilter prefilter = KeywordPrefilter.build(categories, TextNormalizer.DEFAULT);
+        String           text      = "zzzzzzzzzzzzzzzzzzzz computer zzzzzzzzzzzzzzzzzzzz";
+
+        List<String> regions = regions(prefilter, text);
+        assertTrue(regions.stream().anyMatch(region -> region.startsWith("computer")), regions.toString());
+        assertTrue(regions.stream().mapToInt(String::length).sum() < text.length(), regions.toString());
+    }
+
+    @Test
+    void testRejectsTextWithoutCandidates() {
+        KeywordPrefilter prefilter = KeywordPrefilter.build(categories, TextNormalizer.DEFAULT);
+        assertEquals(4, prefilter.getGram());
+        assertEquals(4, prefilter.getKeywordCount());
+        assertTrue(prefilter.getFootprintBytes() > 0);
+        assertTrue(regions(prefilter, "abc").isEmpty());
+        assertTrue(regions(prefilter, "").isEmpty());
+    }
+
+    @Test
+    void testWithoutKeywordsRejectsEverything() {
+        Category empty = new Category("Empty");
+        empty.addKeyword(new CategoryKeyword("   "));
+        KeywordPrefilter prefilter = KeywordPrefilter.build(Collections.singletonList(empty), TextNormalizer.DEFAULT);
+        assertEquals(0, prefilter.getKeywordCount());
+        assertTrue(regions(prefilter, "anything at all").isEmpty());
+    }
+
+    @Test
+    void testShortKeywordsShortenTheGram() {
+        Category units = new Category("Units");
+        units.addKeyword(new CategoryKeyword("km"));
+        units.addKeyword(new CategoryKeyword("kilogram"));
+        KeywordPrefilter prefilter = KeywordPrefilter.build(Collections.singletonList(units), TextNormalizer.DEFAULT);
+        assertEquals(2, prefilter.getGram());
+        assertTrue(regions(prefilter, "ran 5 km").stream().anyMatch(region -> region.startsWith("km")));
+    }
+
+    @Test
+    void testMatchesLikeWithoutPrefilter() {
+        Random         random     = new Random(7);
+        List<Category> dictionary = new ArrayList<>();
+        for (int c = 0; c < 8; c++) {
+            Category category = new Category("Category" + c);
+            for (int k = 0; k < 5; k++) {
+                category.addKeyword(new CategoryKeyword(word(random, 1 + random.nextInt(6))));
+            }
+            dictionary.add(category);
+        }
+        NaiveCategorizationStrategy screened = new NaiveCategorizationStrategy(ForkJoinPool.commonPool(), TextNormalizer.DEFAULT, true);
+        NaiveCategorizationStrategy plain    = new NaiveCategorizationStrategy(ForkJoinPool.commonPool(), TextNormalizer.DEFAULT, false);
+        for (int page = 0; page < 200; page++) {
+            String text = word(random, 40 + random.nextInt(400));
+            assertEquals(match(plain, dictionary, text), match(screened, dictionary, text), text);
+        }
+    }
+
+    private static List<String> regions(KeywordPrefilter prefilter, String text) {
+        String       normalized = TextNormalizer.DEFAULT.normalize(text);
+        List<String> regions    = new ArrayList<>();
+        prefilter.forEachCandidateRegion(normalized, (start, end) -> regions.add(normalized.substring(start, end)));
+        return regions;
+    }
+
+    private static List<String> match(NaiveCategorizationStrategy strategy, List<Category> dictionary, String text) {
+        CategoryMatcher matcher = strategy.newMatcher(dictionary);
+        for (int i = 0; i < text.length(); i += 17) {
+            matcher.feed(text.substring(i, Math.min(text.length(), i + 17)));
+        }
+        return new ArrayList<>(matcher.getMatchedCategories());
+    }
+
+    /**
+     * Builds a string over a small alphabet, so that random keywords actually occur in random text.
+     */
+    private static String word(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append("abcAB ".charAt(random.nextInt(6)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.categorize.service.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextNormalizerTest {
+
+    @Test
+    void testFoldsCaseIndependentlyOfTheDefaultLocale() {
+        // Greek capital sigma and final sigma both fold to the small sigma, the Turkish dotted capital I to i
+        assertEquals("\u03c3\u03c3 title \u00fcber", TextNormalizer.DEFAULT.normalize("\u03a3\u03c2 T\u0130TLE \u00dcBER"));
+    }
+
+    @Test
+    void testCollapsesWhitespace() {
+        assertEquals("star wars", TextNormalizer.DEFAULT.normalize(" Star \t\u00a0 Wars\n"));
+        assertEquals("star   wars", new TextNormalizer(false, false).normalize("Star \t Wars"));
+    }
+
+    @Test
+    void testStripsDiacriticsWhenEnabled() {
+        TextNormalizer normalizer = new TextNormalizer(true, true);
+
+        assertEquals("cafe creme", normalizer.normalize("Caf\u00e9 Cr\u00e8me"));
+        assertEquals("caf\u00e9", TextNormalizer.DEFAULT.normalize("CAF\u00c9"));
+    }
+
+    @Test
+    void testNextCarriesWhitespaceStateAcrossCalls() {
+        StringBuilder normalized = new StringBuilder();
+        int           previous   = TextNormalizer.SKIP;
+        for (String chunk : new String[]{"Star ", " ", " Wars"}) {
+            for (char c : chunk.toCharArray()) {
+                int next = TextNormalizer.DEFAULT.next(c, previous);
+                if (next != TextNormalizer.SKIP) {
+                    normalized.append((char) next);
+                    previous = next;
+                }
+            }
+        }
+        assertEquals("star wars", normalized.toString());
+    }
+}
@@ -0,0 +1,132 @@
+package com.categorize.service.strategy;
+
+import com.categorize.dto.ScoringOptions;
+import com.categorize.dto.UrlCategoryResult;
+import com.categorize.metrics.CategorizationMetrics;
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+import com.categorize.model.WebPageContent;
+import com.categorize.service.matcher.TextNormalizer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveCategorizationStrategyTest {
+
+    private MeterRegistry                  registry;
+    private StrategyCalibrator             calibrator;
+    private AdaptiveCategorizationStrategy strategy;
+    private List<Category>                 categories;
+
+    @BeforeEach
+    void setUp() {
+        Category technology = new Category("Technology");
+        technology.addKeyword(new CategoryKeyword("computer"));
+        technology.addKeyword(new CategoryKeyword("software"));
+
+        Category sports = new Category("Sports");
+        sports.addKeyword(new CategoryKeyword("football"));
+        sports.addKeyword(new CategoryKeyword("basketball", 2.0));
+
+        categories = Arrays.asList(technology, sports);
+        registry   = new SimpleMeterRegistry();
+        calibrator = new StrategyCalibrator(1.0, 4, 1024, 2, 600_000, Runnable::run, new CategorizationMetrics(registry, 10));
+        strategy   = new AdaptiveCategorizationStrategy(categories, ForkJoinPool.commonPool(), TextNormalizer.DEFAULT, calibrator);
+    }
+
+    @Test
+    void testCategorizeBeforeCalibration() {
+        WebPageContent webPage = new WebPageContent("http://example.com", "Football on the Computer");
+        List<UrlCategoryResult> results = strategy.categorize(categories, Collections.singletonList(webPage));
+
+        assertEquals(Arrays.asList("Technology", "Sports"), results.get(0).getCategories());
+        assertEquals(StrategyCalibrator.FALLBACK, calibrator.getModel().choose(1, 1000));
+    }
+
+    @Test
+    void testCalibratesOnSampledPages() {
+        Supplier<CategoryMatcher> matchers = strategy.prepare(categories);
+        for (String page : Arrays.asList("a page about software", "the basketball game", "nothing to see here")) {
+            CategoryMatcher matcher = matchers.get();
+            matcher.feed(page);
+            matcher.getMatchedCategories();
+        }
+        // the calibration is due once two samples are collected, and runs on the calling thread here
+        CategoryMatcher matcher = matchers.get();
+        matcher.feed("football and computer");
+
+        assertEquals(AdaptiveCategorizationStrategy.ENGINES, calibrator.getModel().getEngines());
+        assertEquals(Arrays.asList("Technology", "Sports"), matcher.getMatchedCategories());
+        assertEquals(4.0, AdaptiveCategorizationStrategy.ENGINES.stream()
+                                                                 .mapToDouble(engine -> registry.get("categorize.auto.choice")
+                                                                                                .tag("engine", engine.name())
+                                                                                                .counter()
+                                                                                                .count())
+                                                                 .sum());
+    }
+
+    @Test
+    void testObservesASegmentedPageOnce() {
+        int                            segment   = WindowedCategoryMatcher.FEED_CHARS;
+        SegmentedMatcher               segments  = new SegmentedMatcher(ForkJoinPool.commonPool(), TextNormalizer.DEFAULT, segment, segment);
+        AdaptiveCategorizationStrategy segmented = new AdaptiveCategorizationStrategy(categories, ForkJoinPool.commonPool(),
+                                                                                      TextNormalizer.DEFAULT, true, calibrator, segments);
+        StringBuilder page = new StringBuilder("football ");
+        while (page.length() < 4 * segment) {
+            page.append("lorem ipsum ");
+        }
+        page.append("computer");
+
+        List<UrlCategoryResult> results = segmented.categorize(categories, Collections.singletonList(
+            new WebPageContent("http://example.com", page.toString())));
+
+        assertEquals(Arrays.asList("Technology", "Sports"), results.get(0).getCategories());
+        assertEquals(1.0, registry.get("categorize.auto.choice").tag("engine", StrategyCalibrator.FALLBACK.name()).counter().count());
+    }
+
+    @Test
+    void testEveryEngineFindsTheSameCategories() {
+        List<Category> sports = Collections.singletonList(categories.get(1));
+        strategy.getEngines().forEach((engine, categorizationStrategy) -> {
+            CategoryMatcher matcher = categorizationStrategy.prepare(sports).get();
+            matcher.feed("BASKET");
+            matcher.feed("BALL and computers");
+            assertEquals(Collections.singletonList("Sports"), matcher.getMatchedCategories(), engine.name());
+        });
+    }
+
+    @Test
+    void testScoresWithTheAutomaton() {
+        CategoryMatcher matcher  = strategy.prepare(categories, new ScoringOptions()).get();
+        CategoryMatcher expected = new AhoCorasickCategorizationStrategy(categories).prepare(categories, new ScoringOptions()).get();
+        matcher.feed("basketball, basketball and software");
+        expected.feed("basketball, basketball and software");
+
+        assertEquals(expected.getMatchedCategories(), matcher.getMatchedCategories());
+        assertTrue(matcher.getScores().isPresent());
+        assertEquals(expected.getScores().get().get(0).getScore(), matcher.getScores().get().get(0).getScore());
+    }
+
+    @Test
+    void testWithCategoriesKeepsTheCalibrator() {
+        Category news = new Category("News");
+        news.addKeyword(new CategoryKeyword("headline"));
+        CategorizationStrategy updated = strategy.withCategories(Arrays.asList(categories.get(0), news));
+
+        CategoryMatcher matcher = updated.newMatcher(Collections.singletonList(news));
+        matcher.feed("today's headline");
+
+        assertEquals(Collections.singletonList("News"), matcher.getMatchedCategories());
+        assertEquals(1.0, registry.get("categorize.auto.choice").tag("engine", StrategyCalibrator.FALLBACK.name()).counter().count());
+    }
+}
@@ -0,0 +1,196 @@
+package com.categorize.service.strategy;
+
+import com.categorize.dto.CategoryScore;
+import com.categorize.dto.ScoringOptions;
+import com.categorize.dto.UrlCategoryResult;
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+import com.categorize.model.WebPageContent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AhoCorasickCategorizationStrategyTest {
+
+    private AhoCorasickCategorizationStrategy strategy;
+    private List<Category> categories;
+
+    @BeforeEach
+    void setUp() {
+        Category technology = new Category("Technology");
+        technology.addKeyword(new CategoryKeyword("computer"));
+        technology.addKeyword(new CategoryKeyword("software"));
+
+        Category sports = new Category("Sports");
+        sports.addKeyword(new CategoryKeyword("football"));
+        sports.addKeyword(new CategoryKeyword("basketball"));
+
+        categories = Arrays.asList(technology, sports);
+        strategy = new AhoCorasickCategorizationStrategy(categories);
+    }
+
+    @Test
+    void testCategorizeWithSingleMatch() {
+        WebPageContent webPage = new WebPageContent("http://example.com", "This page is about computer programming.");
+        List<UrlCategoryResult> results = strategy.categorize(categories, Arrays.asList(webPage));
+
+        assertEquals(1, results.size());
+        assertEquals("http://example.com", results.get(0).getUrl());
+        assertEquals(1, results.get(0).getCategories().size());
+        assertTrue(results.get(0).getCategories().contains("Technology"));
+    }
+
+    @Test
+    void testCategorizeWithMultipleMatches() {
+        WebPageContent webPage = new WebPageContent("http://example.com", "This page is about computer software and basketball.");
+        List<UrlCategoryResult> results = strategy.categorize(categories, Arrays.asList(webPage));
+
+        assertEquals(1, results.size());
+        assertEquals("http://example.com", results.get(0).getUrl());
+        assertEquals(2, results.get(0).getCategories().size());
+        assertTrue(results.get(0).getCategories().contains("Technology"));
+        assertTrue(results.get(0).getCategories().contains("Sports"));
+    }
+
+    @Test
+    void testCategorizeWithNoMatch() {
+        WebPageContent webPage = new WebPageContent("http://example.com", "This page is about cooking and recipes.");
+        List<UrlCategoryResult> results = strategy.categorize(categories, Arrays.asList(webPage));
+
+        assertEquals(1, results.size());
+        assertEquals("http://example.com", results.get(0).getUrl());
+        assertTrue(results.get(0).getCategories().isEmpty());
+    }
+
+    @Test
+    void testCategorizeMultiplePages() {
+        WebPageContent page1 = new WebPageContent("http://example1.com", "This page is about computer programming.");
+        WebPageContent page2 = new WebPageContent("http://example2.com", "This page is about football and basketball.");
+        WebPageContent page3 = new WebPageContent("http://example3.com", "This page is about cooking and recipes.");
+
+        List<UrlCategoryResult> results = strategy.categorize(categories, Arrays.asList(page1, page2, page3));
+
+        assertEquals(3, results.size());
+        
+        assertEquals("http://example1.com", results.get(0).getUrl());
+        assertEquals(1, results.get(0).getCategories().size());
+        assertTrue(results.get(0).getCategories().contains("Technology"));
+
+        assertEquals("http://example2.com", results.get(1).getUrl());
+        assertEquals(1, results.get(1).getCategories().size());
+        assertTrue(results.get(1).getCategories().contains("Sports"));
+
+        assertEquals("http://example3.com", results.get(2).getUrl());
+        assertTrue(results.get(2).getCategories().isEmpty());
+    }
+
+    @Test
+    void testCategorizeWithCaseInsensitivity() {
+        WebPageContent webPage = new WebPageContent("http://example.com", "This page is about COMPUTER SOFTWARE and BasKeTbAlL.");
+        List<UrlCategoryResult> results = strategy.categorize(categories, Arrays.asList(webPage));
+
+        assertEquals(1, results.size());
+        assertEquals("http://example.com", results.get(0).getUrl());
+        assertEquals(2, results.get(0).getCategories().size());
+        assertTrue(results.get(0).getCategories().contains("Technology"));
+        assertTrue(results.get(0).getCategories().contains("Sports"));
+    }
+
+    @Test
+    void testCategorizeWithOverlappingKeywords() {
+        Category overlapping = new Category("Overlapping");
+        overlapping.addKeyword(new CategoryKeyword("she"));
+        overlapping.addKeyword(new CategoryKeyword("hers"));
+        Category suffix = new Category("Suffix");
+        suffix.addKeyword(new CategoryKeyword("he"));
+        List<Category> overlappingCategories = Arrays.asList(overlapping, suffix);
+        AhoCorasickCategorizationStrategy overlappingStrategy = new AhoCorasickCategorizationStrategy(overlappingCategories);
+
+        WebPageContent webPage = new WebPageContent("http://example.com", "ushers");
+        List<UrlCategoryResult> results = overlappingStrategy.categorize(overlappingCategories, Arrays.asList(webPage));
+
+        assertEquals(2, results.get(0).getCategories().size());
+        assertTrue(results.get(0).getCategories().contains("Overlapping"));
+        assertTrue(results.get(0).getCategories().contains("Suffix"));
+    }
+
+    @Test
+    void testCategorizeReportsOnlyRequestedCategories() {
+        WebPageContent webPage = new WebPageContent("http://example.com", "This page is about computer software and basketball.");
+        List<UrlCategoryResult> results = strategy.categorize(Arrays.asList(categories.get(1)), Arrays.asList(webPage));
+
+        assertEquals(1, results.get(0).getCategories().size());
+        assertTrue(results.get(0).getCategories().contains("Sports"));
+    }
+
+    @Test
+    void testIncrementalMatcherAcrossChunks() {
+        CategoryMatcher matcher = strategy.newMatcher(categories);
+        matcher.feed("This page is about comp");
+        matcher.feed("uter programming and basket");
+        assertFalse(matcher.isComplete());
+        matcher.feed("ball.");
+
+        assertTrue(matcher.isComplete());
+        assertEquals(2, matcher.getMatchedCategories().size());
+        assertTrue(matcher.getMatchedCategories().contains("Technology"));
+        assertTrue(matcher.getMatchedCategories().contains("Sports"));
+    }
+
+    @Test
+    void testPreparedMatchersMatchOnlyPreparedCategories() {
+        Supplier<CategoryMatcher> matchers = strategy.prepare(Arrays.asList(categories.get(1)));
+
+        CategoryMatcher first = matchers.get();
+        first.feed("computer software and basket");
+        first.feed("ball");
+        assertTrue(first.isComplete());
+        assertEquals(Arrays.asList("Sports"), first.getMatchedCategories());
+
+        CategoryMatcher second = matchers.get();
+        second.feed("computer software");
+        assertTrue(second.getMatchedCategories().isEmpty());
+    }
+
+    @Test
+    void testScoredMatcherCountsHitsAcrossChunks() {
+        CategoryMatcher matcher = strategy.prepare(categories, new ScoringOptions()).get();
+        matcher.feed("computer software comp");
+        matcher.feed("uter and basket");
+        matcher.feed("ball");
+
+        assertFalse(matcher.isComplete());
+        assertEquals(Arrays.asList("Technology", "Sports"), matcher.getMatchedCategories());
+        List<CategoryScore> scores = matcher.getScores().get();
+        assertEquals(3.0, scores.get(0).getScore());
+        assertEquals(1.0, scores.get(1).getScore());
+    }
+
+    @Test
+    void testScoredMatcherAppliesThresholdAndTopK() {
+        CategoryMatcher matcher = strategy.prepare(categories, new ScoringOptions(2, 1)).get();
+        matcher.feed("football basketball computer");
+
+        assertEquals(Arrays.asList("Sports"), matcher.getMatchedCategories());
+        assertEquals(2.0, matcher.getScores().get().get(0).getScore());
+    }
+
+    @Test
+    void testScoredMatcherWeighsKeywordsAndCountsNestedKeywords() {
+        Category space = new Category("Space");
+        space.addKeyword(new CategoryKeyword("star", 0.5));
+        space.addKeyword(new CategoryKeyword("star wars", 3));
+        List<Category> weighted = Arrays.asList(space);
+        CategoryMatcher matcher = new AhoCorasickCategorizationStrategy(weighted).prepare(weighted, new ScoringOptions()).get();
+        matcher.feed("Star Wars and a star");
+
+        assertEquals(4.0, matcher.getScores().get().get(0).getScore());
+    }
+}
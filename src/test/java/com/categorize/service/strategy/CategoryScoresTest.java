@@ -0,0 +1,49 @@
+package com.categorize.service.strategy;
+
+import com.categorize.dto.CategoryScore;
+import com.categorize.dto.ScoringOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CategoryScoresTest {
+
+    private static final List<String> NAMES = Arrays.asList("A", "B", "C", "D");
+
+    private static List<String> names(List<CategoryScore> scores) {
+        return scores.stream().map(CategoryScore::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    void testRanksByScoreThenById() {
+        CategoryScores scores = new CategoryScores(NAMES, new ScoringOptions());
+        scores.add(1, 2);
+        scores.add(3, 1);
+        scores.add(0, 2);
+        scores.add(3, 0.5);
+
+        assertEquals(Arrays.asList("A", "B", "D"), names(scores.rank()));
+        assertEquals(1.5, scores.rank().get(2).getScore());
+    }
+
+    @Test
+    void testAppliesThresholdAndTopK() {
+        CategoryScores scores = new CategoryScores(NAMES, new ScoringOptions(1.5, 2));
+        scores.add(0, 1);
+        scores.add(1, 2);
+        scores.add(2, 3);
+        scores.add(3, 1.5);
+
+        assertEquals(Arrays.asList("C", "B"), scores.rankedNames());
+    }
+
+    @Test
+    void testReportsNothingWithoutHits() {
+        assertTrue(new CategoryScores(NAMES, new ScoringOptions()).rank().isEmpty());
+    }
+}
@@ -0,0 +1,48 @@
+package com.categorize.service.strategy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CostModelTest {
+
+    @Test
+    void testChoosesTheCheapestEngine() {
+        Map<CategorizationStrategyType, double[]> coefficients = new EnumMap<>(CategorizationStrategyType.class);
+        coefficients.put(CategorizationStrategyType.NAIVE, new double[]{0, 0, 1.0});
+        coefficients.put(CategorizationStrategyType.AHO_CORASICK, new double[]{1000, 5, 0});
+        CostModel model = new CostModel(coefficients, CategorizationStrategyType.AHO_CORASICK);
+
+        assertEquals(CategorizationStrategyType.NAIVE, model.choose(1, 1000));
+        assertEquals(CategorizationStrategyType.AHO_CORASICK, model.choose(100, 1000));
+    }
+
+    @Test
+    void testFitsLinearTimings() {
+        List<CostModel.Measurement> timings = new ArrayList<>();
+        for (int keywords : new int[]{1, 10, 100}) {
+            for (int chars : new int[]{1000, 5000, 20000}) {
+                timings.add(new CostModel.Measurement(keywords, chars, Math.round(500 + chars * (2 + keywords * 0.5))));
+            }
+        }
+        Map<CategorizationStrategyType, List<CostModel.Measurement>> measurements = new EnumMap<>(CategorizationStrategyType.class);
+        measurements.put(CategorizationStrategyType.REGEX, timings);
+        CostModel model = CostModel.fit(measurements, CategorizationStrategyType.AHO_CORASICK);
+
+        assertEquals(500 + 8000 * (2 + 50 * 0.5), model.predictNanos(CategorizationStrategyType.REGEX, 50, 8000).getAsDouble(), 1.0);
+        assertEquals(CategorizationStrategyType.REGEX, model.choose(50, 8000));
+    }
+
+    @Test
+    void testFixedModelAlwaysChoosesItsEngine() {
+        CostModel model = CostModel.fixed(CategorizationStrategyType.NAIVE);
+
+        assertEquals(CategorizationStrategyType.NAIVE, model.choose(1_000_000, 1_000_000));
+        assertEquals(0, model.getEngines().size());
+    }
+}
@@ -0,0 +1,49 @@
+package com.categorize.service.strategy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchedCategoriesTest {
+
+    @Test
+    void testResolvesNamesInIdOrder() {
+        List<String> names = Arrays.asList("Technology", "Sports", "Cooking");
+        long[] bits = {0b101L};
+
+        MatchedCategories matched = new MatchedCategories(names, bits);
+
+        assertEquals(Arrays.asList("Technology", "Cooking"), matched);
+        assertEquals(2, matched.size());
+        assertEquals("Cooking", matched.get(1));
+    }
+
+    @Test
+    void testIsUnaffectedByLaterChangesToTheBitset() {
+        long[] bits = new long[1];
+        MatchedCategories matched = new MatchedCategories(Arrays.asList("Technology", "Sports"), bits);
+        bits[0] = 0b11L;
+
+        assertTrue(matched.isEmpty());
+    }
+
+    @Test
+    void testSpansSeveralWords() {
+        List<String> names = IntStream.range(0, 130).mapToObj(id -> "category" + id).collect(Collectors.toList());
+        long[] bits = new long[MatchedCategories.wordsFor(names.size())];
+        for (int id : new int[]{0, 63, 64, 129}) {
+            bits[id >>> 6] |= 1L << id;
+        }
+
+        List<String> matched = new ArrayList<>(new MatchedCategories(names, bits));
+
+        assertEquals(Arrays.asList("category0", "category63", "category64", "category129"), matched);
+    }
+}
@@ -1,5 +1,7 @@
 package com.categorize.service.strategy;
 
+import com.categorize.dto.CategoryScore;
+import com.categorize.dto.ScoringOptions;
 import com.categorize.dto.UrlCategoryResult;
 import com.categorize.model.Category;
 import com.categorize.model.CategoryKeyword;
@@ -11,6 +13,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class NaiveCategorizationStrategyTest {
@@ -87,4 +90,74 @@ class NaiveCategorizationStrategyTest {
         assertEquals("http://example3.com", results.get(2).getUrl());
         assertTrue(results.get(2).getCategories().isEmpty());
     }
+
+    @Test
+    void testIncrementalMatcherAcrossChunks() {
+        CategoryMatcher matcher = strategy.newMatcher(categories);
+        matcher.feed("This page is about comp");
+        matcher.feed("uter programming and basket");
+        assertFalse(matcher.isComplete());
+        matcher.feed("ball.");
+
+        assertTrue(matcher.isComplete());
+        assertEquals(2, matcher.getMatchedCategories().size());
+        assertTrue(matcher.getMatchedCategories().contains("Technology"));
+        assertTrue(matcher.getMatchedCategories().contains("Sports"));
+    }
+
+    @Test
+    void testScoredMatcherCountsHitsAcrossChunks() {
+        CategoryMatcher matcher = strategy.prepare(categories, new ScoringOptions()).get();
+        matcher.feed("computer software comp");
+        matcher.feed("uter and basket");
+        matcher.feed("ball");
+
+        assertFalse(matcher.isComplete());
+        assertEquals(Arrays.asList("Technology", "Sports"), matcher.getMatchedCategories());
+        List<CategoryScore> scores = matcher.getScores().get();
+        assertEquals(3.0, scores.get(0).getScore());
+        assertEquals(1.0, scores.get(1).getScore());
+    }
+
+    @Test
+    void testMatchesKeywordsAcrossSlicesOfOneChunk() {
+        StringBuilder page = filler(3 * WindowedCategoryMatcher.FEED_CHARS);
+        page.replace(WindowedCategoryMatcher.FEED_CHARS - 4, WindowedCategoryMatcher.FEED_CHARS + 6, " computer ");
+        page.replace(2 * WindowedCategoryMatcher.FEED_CHARS - 6, 2 * WindowedCategoryMatcher.FEED_CHARS + 6, " basketball ");
+
+        CategoryMatcher matcher = strategy.newMatcher(categories);
+        matcher.feed(page);
+
+        assertEquals(Arrays.asList("Technology", "Sports"), matcher.getMatchedCategories());
+    }
+
+    @Test
+    void testScoredMatcherCountsHitsAcrossSlicesOfOneChunkOnce() {
+        StringBuilder page = filler(3 * WindowedCategoryMatcher.FEED_CHARS);
+        page.replace(WindowedCategoryMatcher.FEED_CHARS - 4, WindowedCategoryMatcher.FEED_CHARS + 6, " computer ");
+        page.replace(2 * WindowedCategoryMatcher.FEED_CHARS - 1, 2 * WindowedCategoryMatcher.FEED_CHARS + 9, " computer ");
+
+        CategoryMatcher matcher = strategy.prepare(categories, new ScoringOptions()).get();
+        matcher.feed(page);
+
+        assertEquals(2.0, matcher.getScores().get().get(0).getScore());
+    }
+
+    @Test
+    void testScoredMatcherAppliesThresholdAndTopK() {
+        CategoryMatcher matcher = strategy.prepare(categories, new ScoringOptions(2, 1)).get();
+        matcher.feed("football basketball computer");
+
+        assertEquals(Arrays.asList("Sports"), matcher.getMatchedCategories());
+        assertEquals(2.0, matcher.getScores().get().get(0).getScore());
+    }
+
+    private static StringBuilder filler(int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append("lorem ipsum dolor ");
+        }
+        text.setLength(length);
+        return text;
+    }
 }
@@ -1,5 +1,7 @@
 package com.categorize.service.strategy;
 
+import com.categorize.dto.CategoryScore;
+import com.categorize.dto.ScoringOptions;
 import com.categorize.dto.UrlCategoryResult;
 import com.categorize.model.Category;
 import com.categorize.model.CategoryKeyword;
@@ -9,8 +11,10 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RegexCategorizationStrategyTest {
@@ -98,4 +102,115 @@ class RegexCategorizationStrategyTest {
         assertTrue(results.get(0).getCategories().contains("Technology"));
         assertTrue(results.get(0).getCategories().contains("Sports"));
     }
+
+    @Test
+    void testIncrementalMatcherAcrossChunks() {
+        CategoryMatcher matcher = strategy.newMatcher(categories);
+        matcher.feed("This page is about comp");
+        matcher.feed("uter programming and basket");
+        assertFalse(matcher.isComplete());
+        matcher.feed("ball.");
+
+        assertTrue(matcher.isComplete());
+        assertEquals(2, matcher.getMatchedCategories().size());
+        assertTrue(matcher.getMatchedCategories().contains("Technology"));
+        assertTrue(matcher.getMatchedCategories().contains("Sports"));
+    }
+
+    @Test
+    void testWithCategoriesLeavesOriginalStrategyUnchanged() {
+        Category sports = new Category("Sports");
+        sports.addKeyword(new CategoryKeyword("tennis"));
+        List<Category> updated = Arrays.asList(categories.get(0), sports);
+
+        CategorizationStrategy rebuilt = strategy.withCategories(updated);
+        WebPageContent webPage = new WebPageContent("http://example.com", "computer tennis");
+
+        List<String> matched = rebuilt.categorize(updated, Arrays.asList(webPage)).get(0).getCategories();
+        assertEquals(2, matched.size());
+        assertTrue(matched.contains("Sports"));
+
+        List<String> original = strategy.categorize(categories, Arrays.asList(webPage)).get(0).getCategories();
+        assertEquals(Arrays.asList("Technology"), original);
+    }
+
+    @Test
+    void testPreparedMatchersMatchOnlyPreparedCategories() {
+        Supplier<CategoryMatcher> matchers = strategy.prepare(Arrays.asList(categories.get(1)));
+
+        CategoryMatcher first = matchers.get();
+        first.feed("computer software and basket");
+        first.feed("ball");
+        assertEquals(Arrays.asList("Sports"), first.getMatchedCategories());
+
+        CategoryMatcher second = matchers.get();
+        second.feed("computer software");
+        assertTrue(second.getMatchedCategories().isEmpty());
+    }
+
+    @Test
+    void testMatchesNonAsciiKeywordsCaseInsensitively() {
+        Category greek = new Category("Greek");
+        greek.addKeyword(new CategoryKeyword("\u03b1\u03b8\u03ae\u03bd\u03b1"));
+        Category german = new Category("German");
+        german.addKeyword(new CategoryKeyword("\u00fcbersicht"));
+        List<Category> nonAscii = Arrays.asList(greek, german);
+
+        RegexCategorizationStrategy nonAsciiStrategy = new RegexCategorizationStrategy(nonAscii);
+        WebPageContent webPage = new WebPageContent("http://example.com", "\u0391\u0398\u0389\u039d\u0391 - \u00dcBERSICHT");
+
+        assertEquals(Arrays.asList("Greek", "German"), nonAsciiStrategy.categorize(nonAscii, Arrays.asList(webPage)).get(0).getCategories());
+    }
+
+    @Test
+    void testScoredMatcherCountsHitsAcrossChunks() {
+        CategoryMatcher matcher = strategy.prepare(categories, new ScoringOptions()).get();
+        matcher.feed("computer software comp");
+        matcher.feed("uter and basket");
+        matcher.feed("ball");
+
+        assertFalse(matcher.isComplete());
+        assertEquals(Arrays.asList("Technology", "Sports"), matcher.getMatchedCategories());
+        List<CategoryScore> scores = matcher.getScores().get();
+        assertEquals(3.0, scores.get(0).getScore());
+        assertEquals(1.0, scores.get(1).getScore());
+    }
+
+    @Test
+    void testScoredMatcherAppliesThresholdAndTopK() {
+        CategoryMatcher matcher = strategy.prepare(categories, new ScoringOptions(2, 1)).get();
+        matcher.feed("football basketball computer");
+
+        assertEquals(Arrays.asList("Sports"), matcher.getMatchedCategories());
+        assertEquals(2.0, matcher.getScores().get().get(0).getScore());
+    }
+
+    @Test
+    void testScoresEveryOverlappingOccurrenceLikeTheOtherStrategies() {
+        Category movies = new Category("Movies");
+        movies.addKeyword(new CategoryKeyword("star", 1.0));
+        movies.addKeyword(new CategoryKeyword("STAR", 0.5));
+        movies.addKeyword(new CategoryKeyword("star wars", 2.0));
+        Category letters = new Category("Letters");
+        letters.addKeyword(new CategoryKeyword("aa"));
+        List<Category> overlapping = Arrays.asList(letters, movies);
+
+        List<CategorizationStrategy> strategies = Arrays.asList(new RegexCategorizationStrategy(overlapping),
+                                                                new NaiveCategorizationStrategy(),
+                                                                new AhoCorasickCategorizationStrategy(overlapping),
+                                                                new AdaptiveCategorizationStrategy(overlapping));
+        for (CategorizationStrategy scorer : strategies) {
+            CategoryMatcher matcher = scorer.prepare(overlapping, new ScoringOptions()).get();
+            matcher.feed("Star Wars and st");
+            matcher.feed("ar wars: the star w");
+            matcher.feed("ars saga, aa");
+            matcher.feed("aa");
+
+            String name = scorer.getClass().getSimpleName();
+            assertEquals(Arrays.asList("Movies", "Letters"), matcher.getMatchedCategories(), name);
+            List<CategoryScore> scores = matcher.getScores().get();
+            assertEquals(10.5, scores.get(0).getScore(), name);
+            assertEquals(3.0, scores.get(1).getScore(), name);
+        }
+    }
 }
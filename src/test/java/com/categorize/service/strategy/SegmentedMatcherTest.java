@@ -0,0 +1,194 @@
+package com.categorize.service.strategy;
+
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+import com.categorize.service.matcher.TextNormalizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentedMatcherTest {
+
+    private static final int SEGMENT = 1 << 14;
+
+    private final List<Category> categories = Arrays.asList(category("Movies", "star wars"), category("Sports", "nba"),
+                                                            category("News", "headline"));
+    private final List<String>   names      = Arrays.asList("Movies", "Sports", "News");
+
+    @Test
+    void testFindsKeywordsAcrossSegmentBoundaries() {
+        StringBuilder text = filler(4 * SEGMENT);
+        text.replace(SEGMENT - 7, SEGMENT + 11, " star        wars ");
+        text.replace(3 * SEGMENT - 5, 3 * SEGMENT + 5, " headline ");
+
+        for (CategorizationStrategy strategy : strategies()) {
+            SegmentedMatcher segments = new SegmentedMatcher(ForkJoinPool.commonPool(), TextNormalizer.DEFAULT, SEGMENT, SEGMENT);
+            assertEquals(Arrays.asList("Movies", "News"),
+                         segments.match(text, strategy.prepare(categories), names, WindowedCategoryMatcher.overlapOf(categories)),
+                         strategy.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void testWholeWordsAreNotSplitAtSegmentStarts() {
+        StringBuilder text = filler(3 * SEGMENT);
+        // the overlap of the second segment reaches back to the n of unba
+        text.replace(SEGMENT - 10, SEGMENT - 4, " unba ");
+        SegmentedMatcher segments = new SegmentedMatcher(ForkJoinPool.commonPool(), TextNormalizer.DEFAULT, SEGMENT, SEGMENT);
+
+        List<String> matched = segments.match(text, new WholeWordCategorizationStrategy(categories).prepare(categories), names,
+                                              WindowedCategoryMatcher.overlapOf(categories));
+
+        assertEquals(Collections.emptyList(), matched);
+    }
+
+    @Test
+    void testWholeWordsAreNotSplitAtSegmentEnds() {
+        StringBuilder text = filler(3 * SEGMENT);
+        // the first segment would end after the headline of headlines
+        text.replace(SEGMENT - 9, SEGMENT + 2, " headlines ");
+        SegmentedMatcher segments = new SegmentedMatcher(ForkJoinPool.commonPool(), TextNormalizer.DEFAULT, SEGMENT, SEGMENT);
+
+        List<String> matched = segments.match(text, new WholeWordCategorizationStrategy(categories).prepare(categories), names,
+                                              WindowedCategoryMatcher.overlapOf(categories));
+
+        assertEquals(Collections.emptyList(), matched);
+    }
+
+    @Test
+    void testWideningToWordsIsBoundedWithoutSpaces() {
+        StringBuilder text = new StringBuilder(4 * SEGMENT);
+        while (text.length() < 4 * SEGMENT) {
+            text.append("\u65e5\u672c\u8a9e");
+        }
+        SegmentedMatcher segments = new SegmentedMatcher(ForkJoinPool.commonPool(), TextNormalizer.DEFAULT, SEGMENT, SEGMENT);
+        int              overlap  = WindowedCategoryMatcher.overlapOf(categories);
+
+        for (CategorizationStrategy strategy : Arrays.asList(new WholeWordCategorizationStrategy(categories), new NaiveCategorizationStrategy())) {
+            AtomicInteger             fed      = new AtomicInteger();
+            Supplier<CategoryMatcher> prepared = strategy.prepare(categories);
+            List<String> matched = segments.match(text, () -> new CountingMatcher(prepared.get(), fed), names, overlap);
+
+            assertEquals(Collections.emptyList(), matched);
+            // each of the three inner boundaries adds at most the overlap and twice the widening
+            assertTrue(fed.get() <= text.length() + 3 * 3 * overlap, strategy.getClass().getSimpleName() + " fed " + fed.get());
+        }
+    }
+
+    @Test
+    void testSkipsRemainingSegmentsOnceAllCategoriesMatched() {
+        StringBuilder text = filler(8 * SEGMENT);
+        text.replace(0, 30, "star wars nba headline        ");
+        AtomicInteger             created  = new AtomicInteger();
+        Supplier<CategoryMatcher> prepared = new AhoCorasickCategorizationStrategy(categories).prepare(categories);
+        Supplier<CategoryMatcher> matchers = () -> {
+            created.incrementAndGet();
+            return prepared.get();
+        };
+        SegmentedMatcher segments = new SegmentedMatcher(runnable -> {
+            throw new RejectedExecutionException();
+        }, TextNormalizer.DEFAULT, SEGMENT, SEGMENT);
+
+        assertEquals(names, segments.match(text, matchers, names, WindowedCategoryMatcher.overlapOf(categories)));
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void testDoesNotDeadlockOnItsOwnBoundedPool() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        try {
+            StringBuilder text = filler(8 * SEGMENT);
+            text.replace(7 * SEGMENT, 7 * SEGMENT + 3, "nba");
+            SegmentedMatcher segments = new SegmentedMatcher(pool, TextNormalizer.DEFAULT, SEGMENT, SEGMENT);
+            Future<List<String>> matched = pool.submit(() -> segments.match(text, new NaiveCategorizationStrategy().prepare(categories),
+                                                                            names, WindowedCategoryMatcher.overlapOf(categories)));
+
+            assertEquals(Collections.singletonList("Sports"), matched.get(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testShortTextIsMatchedByOneMatcher() {
+        AtomicInteger             created  = new AtomicInteger();
+        Supplier<CategoryMatcher> prepared = new RegexCategorizationStrategy(categories).prepare(categories);
+        SegmentedMatcher          segments = new SegmentedMatcher(ForkJoinPool.commonPool(), TextNormalizer.DEFAULT);
+
+        List<String> matched = segments.match("the nba headline", () -> {
+            created.incrementAndGet();
+            return prepared.get();
+        }, names, WindowedCategoryMatcher.overlapOf(categories));
+
+        assertEquals(Arrays.asList("Sports", "News"), matched);
+        assertEquals(1, created.get());
+    }
+
+    /**
+     * Counts the characters fed to the matchers of a page.
+     */
+    private static final class CountingMatcher implements CategoryMatcher {
+        private final CategoryMatcher delegate;
+        private final AtomicInteger   fed;
+
+        private CountingMatcher(CategoryMatcher delegate, AtomicInteger fed) {
+            this.delegate = delegate;
+            this.fed      = fed;
+        }
+
+        @Override
+        public void feed(CharSequence chunk) {
+            fed.addAndGet(chunk.length());
+            delegate.feed(chunk);
+        }
+
+        @Override
+        public boolean isComplete() {
+            return delegate.isComplete();
+        }
+
+        @Override
+        public boolean matchesWholeWords() {
+            return delegate.matchesWholeWords();
+        }
+
+        @Override
+        public List<String> getMatchedCategories() {
+            return delegate.getMatchedCategories();
+        }
+    }
+
+    private List<CategorizationStrategy> strategies() {
+        return Arrays.asList(new NaiveCategorizationStrategy(), new RegexCategorizationStrategy(categories),
+                             new AhoCorasickCategorizationStrategy(categories), new WholeWordCategorizationStrategy(categories),
+                             new AdaptiveCategorizationStrategy(categories));
+    }
+
+    private static StringBuilder filler(int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append("lorem ipsum dolor ");
+        }
+        text.setLength(length);
+        return text;
+    }
+
+    private static Category category(String name, String keyword) {
+        Category category = new Category(name);
+        category.addKeyword(new CategoryKeyword(keyword));
+        return category;
+    }
+}
@@ -0,0 +1,127 @@
+package com.categorize.service.strategy;
+
+import com.categorize.dto.CategoryScore;
+import com.categorize.dto.ScoringOptions;
+import com.categorize.dto.UrlCategoryResult;
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+import com.categorize.model.WebPageContent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WholeWordCategorizationStrategyTest {
+
+    private WholeWordCategorizationStrategy strategy;
+    private List<Category> categories;
+
+    @BeforeEach
+    void setUp() {
+        Category basketball = new Category("Basketball");
+        basketball.addKeyword(new CategoryKeyword("nba"));
+        basketball.addKeyword(new CategoryKeyword("slam dunk"));
+
+        Category starWars = new Category("Star Wars");
+        starWars.addKeyword(new CategoryKeyword("star war"));
+        starWars.addKeyword(new CategoryKeyword("a long time ago in a galaxy"));
+
+        categories = Arrays.asList(basketball, starWars);
+        strategy = new WholeWordCategorizationStrategy(categories);
+    }
+
+    private List<String> categorize(String content) {
+        List<UrlCategoryResult> results = strategy.categorize(categories, Collections.singletonList(new WebPageContent("http://example.com", content)));
+        return results.get(0).getCategories();
+    }
+
+    @Test
+    void testMatchesWholeWordsOnly() {
+        assertTrue(categorize("an unbalanced budget").isEmpty());
+        assertTrue(categorize("the star warships are coming").isEmpty());
+        assertEquals(Arrays.asList("Basketball"), categorize("Watch the NBA tonight"));
+    }
+
+    @Test
+    void testMatchesPhrasesAcrossPunctuationAndWhitespace() {
+        assertEquals(Arrays.asList("Basketball", "Star Wars"), categorize("A long time ago, in a galaxy... and a slam\n\tdunk!"));
+    }
+
+    @Test
+    void testMatchesTheLastTokenOfThePage() {
+        assertEquals(Arrays.asList("Basketball"), categorize("nba"));
+    }
+
+    @Test
+    void testIncrementalMatcherAcrossChunks() {
+        CategoryMatcher matcher = strategy.newMatcher(categories);
+        matcher.feed("a slam du");
+        matcher.feed("nk and a star");
+        assertFalse(matcher.isComplete());
+        matcher.feed(" war.");
+
+        assertTrue(matcher.isComplete());
+        assertEquals(Arrays.asList("Basketball", "Star Wars"), matcher.getMatchedCategories());
+    }
+
+    @Test
+    void testPreparedMatchersMatchOnlyPreparedCategories() {
+        CategoryMatcher matcher = strategy.prepare(Arrays.asList(categories.get(1))).get();
+        matcher.feed("nba star war");
+
+        assertEquals(Arrays.asList("Star Wars"), matcher.getMatchedCategories());
+    }
+
+    @Test
+    void testScoredMatcherCountsWholeWordsOnly() {
+        Category space = new Category("Space");
+        space.addKeyword(new CategoryKeyword("star", 0.5));
+        space.addKeyword(new CategoryKeyword("star war", 3));
+        List<Category> weighted = Arrays.asList(space, categories.get(0));
+        CategoryMatcher matcher = new WholeWordCategorizationStrategy(weighted).prepare(weighted, new ScoringOptions(1, 0)).get();
+        matcher.feed("Star War, a starship, an unbalanced NBA game and a st");
+        matcher.feed("ar");
+
+        assertEquals(Arrays.asList("Space", "Basketball"), matcher.getMatchedCategories());
+        List<CategoryScore> scores = matcher.getScores().get();
+        assertEquals(4.0, scores.get(0).getScore());
+        assertEquals(1.0, scores.get(1).getScore());
+    }
+
+    @Test
+    void testMatcherHasNoScoresUnlessScoring() {
+        assertFalse(strategy.prepare(categories).get().getScores().isPresent());
+    }
+
+    @Test
+    void testReadingResultsMidWordDoesNotSplitTheWord() {
+        CategoryMatcher matcher = strategy.newMatcher(categories);
+        matcher.feed("the n");
+        assertTrue(matcher.getMatchedCategories().isEmpty());
+        matcher.feed("ba");
+        // "nba" is one word: reading the result after "n" did not end it there
+        assertEquals(Arrays.asList("Basketball"), matcher.getMatchedCategories());
+        assertEquals(Arrays.asList("Basketball"), matcher.getMatchedCategories());
+        matcher.feed("s final");
+        assertTrue(matcher.getMatchedCategories().isEmpty());
+    }
+
+    @Test
+    void testReadingScoresMidWordDoesNotChangeThem() {
+        CategoryMatcher matcher = strategy.prepare(categories, new ScoringOptions()).get();
+        matcher.feed("nba and n");
+        assertEquals(1.0, matcher.getScores().get().get(0).getScore());
+        matcher.feed("ba");
+        assertEquals(2.0, matcher.getScores().get().get(0).getScore());
+        assertEquals(2.0, matcher.getScores().get().get(0).getScore());
+        matcher.feed(" and nba.");
+        assertEquals(Arrays.asList("Basketball"), matcher.getMatchedCategories());
+        assertEquals(3.0, matcher.getScores().get().get(0).getScore());
+    }
+}
@@ -0,0 +1,81 @@
+package com.categorize.testdata;
+
+import com.categorize.model.Category;
+import com.categorize.model.CategoryKeyword;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates synthetic dictionaries and pages for benchmarks and load tests.
+ * Words are random lowercase strings of 1 to 10 letters, so a page only matches the keywords planted in it.
+ * All data is derived from the seed, so runs with the same seed see the same input.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class SyntheticData {
+    private static final String LETTERS               = "abcdefghijklmnopqrstuvwxyz";
+    private static final int    MAX_WORDS_PER_KEYWORD = 6;
+    private static final int    MAX_LETTERS_PER_WORD  = 10;
+
+    private final Random random;
+
+    /**
+     * @param seed The seed of the generated data
+     */
+    public SyntheticData(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generates categories of random keyword phrases of 1 to 6 words.
+     *
+     * @param count               The number of categories
+     * @param keywordsPerCategory The number of keywords of every category
+     * @return The categories, named {@code Category0} to {@code Category<count - 1>}
+     */
+    public List<Category> categories(int count, int keywordsPerCategory) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            Category category = new Category("Category" + i);
+            for (int j = 0; j < keywordsPerCategory; j++) {
+                category.addKeyword(new CategoryKeyword(phrase(random.nextInt(MAX_WORDS_PER_KEYWORD) + 1)));
+            }
+            return category;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Generates a page of random words with keywords of the given categories planted in it.
+     *
+     * @param words        The number of random words
+     * @param matchDensity The probability of a keyword following each word
+     * @param planted      The categories whose keywords are planted
+     * @return The page text
+     */
+    public String page(int words, double matchDensity, List<Category> planted) {
+        StringBuilder page = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            page.append(word()).append(' ');
+            if (!planted.isEmpty() && random.nextDouble() < matchDensity) {
+                List<CategoryKeyword> keywords = planted.get(random.nextInt(planted.size())).getKeywords();
+                page.append(keywords.get(random.nextInt(keywords.size())).getKeyword()).append(' ');
+            }
+        }
+        return page.toString();
+    }
+
+    private String phrase(int words) {
+        return IntStream.range(0, words).mapToObj(i -> word()).collect(Collectors.joining(" "));
+    }
+
+    private String word() {
+        int           length = random.nextInt(MAX_LETTERS_PER_WORD) + 1;
+        StringBuilder word   = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return word.toString();
+    }
+}